@@ -2,19 +2,37 @@ package com.nortal.library.api.config;
 
 import com.nortal.library.core.domain.Book;
 import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.memory.SnapshotScheduler;
 import com.nortal.library.core.port.BookRepository;
 import com.nortal.library.core.port.MemberRepository;
 import java.time.LocalDate;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class DataLoader {
 
+  // Skipped when the command log is enabled: state then comes from replaying the log, and seeding
+  // through the repositories would both wipe it and bypass the log
   @Bean
-  CommandLineRunner seedData(BookRepository bookRepository, MemberRepository memberRepository) {
+  @ConditionalOnProperty(
+      name = "library.journal.enabled",
+      havingValue = "false",
+      matchIfMissing = true)
+  CommandLineRunner seedData(
+      BookRepository bookRepository,
+      MemberRepository memberRepository,
+      ObjectProvider<SnapshotScheduler> snapshotScheduler) {
     return args -> {
+      // State restored from a snapshot is kept, not replaced by seeds
+      SnapshotScheduler snapshots = snapshotScheduler.getIfAvailable();
+      if (snapshots != null && snapshots.restored().isPresent()) {
+        return;
+      }
+
       // Clear all existing data first
       // H2 is configured with DB_CLOSE_DELAY=-1, so the database persists across
       // @DirtiesContext resets in tests. We need to clear it manually to ensure
@@ -0,0 +1,102 @@
+package com.nortal.library.api.config;
+
+import com.nortal.library.core.memory.InMemoryBookRepository;
+import com.nortal.library.core.memory.InMemoryMemberRepository;
+import com.nortal.library.core.memory.InMemoryReservationRepository;
+import com.nortal.library.core.memory.InMemoryStore;
+import com.nortal.library.core.memory.SnapshotFile;
+import com.nortal.library.core.memory.SnapshotScheduler;
+import com.nortal.library.core.port.BookRepository;
+import com.nortal.library.core.port.MemberRepository;
+import com.nortal.library.core.port.ReservationRepository;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Repository ports backed by the in-memory store instead of JPA.
+ *
+ * <p>Active under the {@code inmemory} profile, which also switches off the data source and JPA
+ * auto-configuration (see {@code application-inmemory.yaml}). State lives only as long as the
+ * application context unless made durable: {@code library.snapshot.enabled} restores the store from
+ * a snapshot file that is rewritten periodically, and the command log of {@link JournalConfig}
+ * replays the commands applied since.
+ */
+@Configuration
+@Profile("inmemory")
+public class InMemoryStoreConfig {
+  private static final Logger log = LoggerFactory.getLogger(InMemoryStoreConfig.class);
+
+  /** Restores the store from the last snapshot, if any; snapshots start with the library. */
+  @Bean
+  @ConditionalOnProperty(name = "library.snapshot.enabled", havingValue = "true")
+  SnapshotScheduler snapshotScheduler(
+      @Value("${library.snapshot.path:data/library.snapshot}") Path path,
+      @Value("${library.snapshot.interval:5m}") Duration interval)
+      throws IOException {
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    SnapshotScheduler snapshots = SnapshotScheduler.open(path, interval);
+    snapshots
+        .restored()
+        .ifPresent(
+            info ->
+                log.info(
+                    "Restored {} books and {} members from snapshot of {} ({} bytes) in {} ms",
+                    info.books(),
+                    info.members(),
+                    info.createdAt(),
+                    info.bytes(),
+                    info.elapsedNanos() / 1_000_000));
+    snapshots.setListener(
+        new SnapshotScheduler.Listener() {
+          @Override
+          public void written(SnapshotFile.Info info) {
+            log.debug(
+                "Wrote snapshot of {} books and {} members ({} bytes) in {} ms",
+                info.books(),
+                info.members(),
+                info.bytes(),
+                info.elapsedNanos() / 1_000_000);
+          }
+
+          @Override
+          public void failed(Exception failure) {
+            log.warn("Snapshot failed; keeping the previous one", failure);
+          }
+        });
+    return snapshots;
+  }
+
+  @Bean
+  InMemoryStore inMemoryStore(ObjectProvider<SnapshotScheduler> snapshotScheduler) {
+    SnapshotScheduler snapshots = snapshotScheduler.getIfAvailable();
+    return snapshots == null ? new InMemoryStore() : snapshots.store();
+  }
+
+  @Bean
+  BookRepository bookRepository(InMemoryStore store) {
+    return new InMemoryBookRepository(store);
+  }
+
+  @Bean
+  MemberRepository memberRepository(InMemoryStore store) {
+    return new InMemoryMemberRepository(store);
+  }
+
+  @Bean
+  ReservationRepository reservationRepository(InMemoryStore store) {
+    return new InMemoryReservationRepository(store);
+  }
+}
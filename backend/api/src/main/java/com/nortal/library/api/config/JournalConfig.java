@@ -0,0 +1,53 @@
+package com.nortal.library.api.config;
+
+import com.nortal.library.core.journal.CommandLog;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+
+/**
+ * Command log that makes the {@code inmemory} profile durable.
+ *
+ * <p>When {@code library.journal.enabled} is true, every applied library command is appended to
+ * {@code library.journal.path} and the log is replayed into the empty repositories on startup. Seed
+ * data is not loaded in that mode, because it would bypass the log.
+ *
+ * <p>Startup fails if the journal is enabled without the {@code inmemory} profile: a database
+ * already holds the effects of the logged commands, and replaying them would apply each one twice.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.journal.enabled", havingValue = "true")
+public class JournalConfig {
+
+  /**
+   * @param fsync {@code always} (fsync per command), {@code group} (one fsync per {@code
+   *     group-commit} interval shared by all waiting commands) or {@code os}
+   */
+  @Bean
+  CommandLog commandLog(
+      Environment environment,
+      @Value("${library.journal.path:data/library.journal}") Path path,
+      @Value("${library.journal.fsync:group}") String fsync,
+      @Value("${library.journal.group-commit:5ms}") Duration groupCommit)
+      throws IOException {
+    if (!environment.acceptsProfiles(Profiles.of("inmemory"))) {
+      throw new IllegalStateException(
+          "library.journal.enabled requires the inmemory profile; the database already holds"
+              + " the logged commands");
+    }
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    return CommandLog.open(
+        path, CommandLog.FsyncPolicy.valueOf(fsync.toUpperCase(Locale.ROOT)), groupCommit);
+  }
+}
@@ -1,12 +1,36 @@
 package com.nortal.library.api.config;
 
 import com.nortal.library.core.LibraryService;
+import com.nortal.library.core.concurrent.LoanCommandExecutor;
+import com.nortal.library.core.concurrent.LockManager;
+import com.nortal.library.core.concurrent.OptimisticRetry;
+import com.nortal.library.core.concurrent.PartitionedLoanExecutor;
+import com.nortal.library.core.journal.CommandClock;
+import com.nortal.library.core.journal.CommandLog;
+import com.nortal.library.core.journal.JournaledLibraryService;
+import com.nortal.library.core.memory.SnapshotFile;
+import com.nortal.library.core.memory.SnapshotScheduler;
+import com.nortal.library.core.overdue.OverdueTracker;
+import com.nortal.library.core.overdue.OverdueTrackingBookRepository;
 import com.nortal.library.core.port.BookRepository;
 import com.nortal.library.core.port.MemberRepository;
+import com.nortal.library.core.port.ReservationRepository;
+import com.nortal.library.core.search.BookSearch;
+import com.nortal.library.core.search.MemberSearch;
 import com.nortal.library.core.service.BookManagementService;
 import com.nortal.library.core.service.LibraryQueryService;
 import com.nortal.library.core.service.LoanService;
 import com.nortal.library.core.service.MemberManagementService;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -22,35 +46,200 @@ import org.springframework.context.annotation.Configuration;
  */
 @Configuration
 public class LibraryConfig {
+  private static final Logger log = LoggerFactory.getLogger(LibraryConfig.class);
 
   @Bean
-  LoanService loanService(BookRepository bookRepository, MemberRepository memberRepository) {
-    return new LoanService(bookRepository, memberRepository);
+  OptimisticRetry loanRetry(
+      @Value("${library.loans.retry.max-attempts:5}") int maxAttempts,
+      @Value("${library.loans.retry.base-backoff:1ms}") Duration baseBackoff,
+      @Value("${library.loans.retry.max-backoff:50ms}") Duration maxBackoff) {
+    return new OptimisticRetry(maxAttempts, baseBackoff, maxBackoff);
+  }
+
+  @Bean
+  LockManager loanLocks(@Value("${library.loans.lock-stripes:64}") int stripes) {
+    return new LockManager(stripes);
+  }
+
+  /**
+   * Loan command executor: {@code direct} (default) runs commands on the request thread, {@code
+   * partitioned} routes them to single-writer partitions by book ID.
+   */
+  @Bean
+  LoanCommandExecutor loanExecutor(
+      @Value("${library.loans.executor:direct}") String mode,
+      @Value("${library.loans.partitions:0}") int partitions,
+      @Value("${library.loans.partition-batch:64}") int maxBatch) {
+    return switch (mode) {
+      case "direct" -> LoanCommandExecutor.direct();
+      case "partitioned" ->
+          new PartitionedLoanExecutor(
+              partitions > 0 ? partitions : Runtime.getRuntime().availableProcessors(), maxBatch);
+      default ->
+          throw new IllegalArgumentException("Unknown library.loans.executor mode: " + mode);
+    };
+  }
+
+  /** Source of "today" for loans; pinned per command when the command log is enabled. */
+  @Bean
+  CommandClock loanClock() {
+    return new CommandClock(Clock.systemDefaultZone());
+  }
+
+  /**
+   * Overdue set maintained from the services' writes, behind {@code /api/overdue} and the counts of
+   * {@code /api/stats/overdue}. Only sees writes made through this instance, so disable it when
+   * several instances share a database.
+   */
+  @Bean
+  @ConditionalOnProperty(
+      name = "library.overdue.tracker.enabled",
+      havingValue = "true",
+      matchIfMissing = true)
+  OverdueTracker overdueTracker(
+      BookRepository bookRepository,
+      @Value("${library.overdue.tracker.slots:512}") int slots) {
+    OverdueTracker tracker = new OverdueTracker(bookRepository, Clock.systemDefaultZone(), slots);
+    tracker.start();
+    return tracker;
+  }
+
+  /** In-memory title indexes (substring and ranked), filled from the repository on first use. */
+  @Bean
+  @ConditionalOnProperty(
+      name = "library.search.title-index.enabled",
+      havingValue = "true",
+      matchIfMissing = true)
+  BookSearch bookSearch(BookRepository bookRepository) {
+    return BookSearch.over(bookRepository);
+  }
+
+  /** In-memory member name autocomplete index, filled from the repository on first use. */
+  @Bean
+  @ConditionalOnProperty(
+      name = "library.search.member-index.enabled",
+      havingValue = "true",
+      matchIfMissing = true)
+  MemberSearch memberSearch(MemberRepository memberRepository) {
+    return MemberSearch.over(memberRepository);
+  }
+
+  @Bean
+  LoanService loanService(
+      BookRepository bookRepository,
+      MemberRepository memberRepository,
+      OptimisticRetry loanRetry,
+      LockManager loanLocks,
+      CommandClock loanClock,
+      ObjectProvider<OverdueTracker> overdueTracker) {
+    return new LoanService(
+        tracked(bookRepository, overdueTracker),
+        memberRepository,
+        loanRetry,
+        loanLocks,
+        loanClock);
   }
 
   @Bean
   LibraryQueryService libraryQueryService(
-      BookRepository bookRepository, MemberRepository memberRepository) {
-    return new LibraryQueryService(bookRepository, memberRepository);
+      BookRepository bookRepository,
+      MemberRepository memberRepository,
+      ObjectProvider<BookSearch> bookSearch,
+      ObjectProvider<MemberSearch> memberSearch,
+      ObjectProvider<OverdueTracker> overdueTracker) {
+    return new LibraryQueryService(
+        bookRepository,
+        memberRepository,
+        Optional.ofNullable(bookSearch.getIfAvailable()),
+        Optional.ofNullable(memberSearch.getIfAvailable()),
+        Optional.ofNullable(overdueTracker.getIfAvailable()));
   }
 
   @Bean
-  BookManagementService bookManagementService(BookRepository bookRepository) {
-    return new BookManagementService(bookRepository);
+  BookManagementService bookManagementService(
+      BookRepository bookRepository,
+      ObjectProvider<OverdueTracker> overdueTracker,
+      ObjectProvider<BookSearch> bookSearch) {
+    return new BookManagementService(
+        tracked(bookRepository, overdueTracker), bookSearch.getIfAvailable());
   }
 
   @Bean
   MemberManagementService memberManagementService(
-      BookRepository bookRepository, MemberRepository memberRepository) {
-    return new MemberManagementService(bookRepository, memberRepository);
+      BookRepository bookRepository,
+      MemberRepository memberRepository,
+      ReservationRepository reservationRepository,
+      ObjectProvider<MemberSearch> memberSearch) {
+    return new MemberManagementService(
+        bookRepository, memberRepository, reservationRepository, memberSearch.getIfAvailable());
+  }
+
+  /** Services that change due dates write through this, so the tracker sees every loan change. */
+  private static BookRepository tracked(
+      BookRepository bookRepository, ObjectProvider<OverdueTracker> overdueTracker) {
+    OverdueTracker tracker = overdueTracker.getIfAvailable();
+    return tracker == null
+        ? bookRepository
+        : new OverdueTrackingBookRepository(bookRepository, tracker);
   }
 
+  /**
+   * Library facade; journaled and recovered from the command log when {@code
+   * library.journal.enabled} is set (see {@link JournalConfig}). With snapshots enabled, only the
+   * part of the log after the restored snapshot is replayed.
+   */
   @Bean
   LibraryService libraryService(
       LoanService loanService,
       LibraryQueryService queryService,
       BookManagementService bookManagement,
-      MemberManagementService memberManagement) {
-    return new LibraryService(loanService, queryService, bookManagement, memberManagement);
+      MemberManagementService memberManagement,
+      LoanCommandExecutor loanExecutor,
+      ObjectProvider<CommandLog> commandLog,
+      ObjectProvider<SnapshotScheduler> snapshotScheduler,
+      CommandClock loanClock) {
+    CommandLog journal = commandLog.getIfAvailable();
+    SnapshotScheduler snapshots = snapshotScheduler.getIfAvailable();
+    if (journal == null) {
+      if (snapshots != null) {
+        snapshots.start(null);
+      }
+      return new LibraryService(
+          loanService, queryService, bookManagement, memberManagement, loanExecutor);
+    }
+    JournaledLibraryService service =
+        new JournaledLibraryService(
+            loanService,
+            queryService,
+            bookManagement,
+            memberManagement,
+            loanExecutor,
+            journal,
+            loanClock);
+    long from =
+        snapshots == null ? 0 : snapshots.restored().map(SnapshotFile.Info::logPosition).orElse(0L);
+    if (from == SnapshotFile.NO_LOG_POSITION) {
+      // The snapshot does not say which commands it already contains
+      if (journal.position() > 0) {
+        throw new IllegalStateException(
+            "Snapshot was taken without the command log; remove the snapshot or the log");
+      }
+      from = 0;
+    }
+    try {
+      CommandLog.ReplayStats stats = service.recover(from);
+      log.info(
+          "Replayed {} commands ({} bytes, {} torn bytes discarded) at {} commands/s",
+          stats.commands(),
+          stats.bytes(),
+          stats.discardedBytes(),
+          Math.round(stats.commandsPerSecond()));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to replay command log", e);
+    }
+    if (snapshots != null) {
+      snapshots.start(service);
+    }
+    return service;
   }
 }
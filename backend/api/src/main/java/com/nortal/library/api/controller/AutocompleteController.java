@@ -0,0 +1,89 @@
+package com.nortal.library.api.controller;
+
+import com.nortal.library.api.dto.ResultResponse;
+import com.nortal.library.api.dto.SuggestionsResponse;
+import com.nortal.library.core.LibraryService;
+import com.nortal.library.core.search.Suggestion;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/autocomplete")
+@Tag(name = "Autocomplete", description = "Prefix suggestions for book titles and member names")
+public class AutocompleteController {
+
+  private static final int MAX_PREFIX_LENGTH = 100;
+  private static final int MAX_SUGGESTIONS = 50;
+
+  private final LibraryService libraryService;
+
+  public AutocompleteController(LibraryService libraryService) {
+    this.libraryService = libraryService;
+  }
+
+  @GetMapping("/books")
+  @Operation(
+      summary = "Suggest books by title prefix",
+      description =
+          "Books with a title word starting with `prefix`, ignoring case and accents. A prefix of"
+              + " several words matches them in sequence. Returns at most `limit` books.")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "200",
+        description = "Matching book IDs and titles",
+        content = @Content(schema = @Schema(implementation = SuggestionsResponse.class))),
+    @ApiResponse(
+        responseCode = "400",
+        description = "prefix missing, blank or too long, or limit out of range",
+        content = @Content(schema = @Schema(implementation = ResultResponse.class)))
+  })
+  public SuggestionsResponse books(
+      @RequestParam("prefix") @NotBlank @Size(max = MAX_PREFIX_LENGTH) String prefix,
+      @RequestParam(value = "limit", defaultValue = "10") @Min(1) @Max(MAX_SUGGESTIONS)
+          int limit) {
+    return toResponse(libraryService.autocompleteBooks(prefix, limit));
+  }
+
+  @GetMapping("/members")
+  @Operation(
+      summary = "Suggest members by name prefix",
+      description =
+          "Members with a name word starting with `prefix`, ignoring case and accents. Returns at"
+              + " most `limit` members.")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "200",
+        description = "Matching member IDs and names",
+        content = @Content(schema = @Schema(implementation = SuggestionsResponse.class))),
+    @ApiResponse(
+        responseCode = "400",
+        description = "prefix missing, blank or too long, or limit out of range",
+        content = @Content(schema = @Schema(implementation = ResultResponse.class)))
+  })
+  public SuggestionsResponse members(
+      @RequestParam("prefix") @NotBlank @Size(max = MAX_PREFIX_LENGTH) String prefix,
+      @RequestParam(value = "limit", defaultValue = "10") @Min(1) @Max(MAX_SUGGESTIONS)
+          int limit) {
+    return toResponse(libraryService.autocompleteMembers(prefix, limit));
+  }
+
+  private static SuggestionsResponse toResponse(List<Suggestion> suggestions) {
+    return new SuggestionsResponse(
+        suggestions.stream()
+            .map(s -> new SuggestionsResponse.Suggestion(s.id(), s.label()))
+            .toList());
+  }
+}
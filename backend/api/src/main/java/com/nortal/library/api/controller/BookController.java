@@ -1,11 +1,15 @@
 package com.nortal.library.api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nortal.library.api.dto.BookPageResponse;
 import com.nortal.library.api.dto.BookResponse;
 import com.nortal.library.api.dto.BooksResponse;
 import com.nortal.library.api.dto.CreateBookRequest;
 import com.nortal.library.api.dto.DeleteBookRequest;
+import com.nortal.library.api.dto.RankedBooksResponse;
 import com.nortal.library.api.dto.ResultResponse;
 import com.nortal.library.api.dto.UpdateBookRequest;
+import com.nortal.library.core.IdPage;
 import com.nortal.library.core.LibraryService;
 import com.nortal.library.core.Result;
 import com.nortal.library.core.domain.Book;
@@ -17,38 +21,54 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/books")
 @Tag(name = "Books", description = "Book catalog management operations")
 public class BookController {
 
+  private static final int MAX_QUERY_LENGTH = 200;
+  private static final int MAX_RESULTS = 100;
+  private static final int MAX_EDITS = 2;
+  private static final int MAX_PAGE_SIZE = 500;
+
   private final LibraryService libraryService;
+  private final ObjectMapper objectMapper;
 
-  public BookController(LibraryService libraryService) {
+  public BookController(LibraryService libraryService, ObjectMapper objectMapper) {
     this.libraryService = libraryService;
+    this.objectMapper = objectMapper;
   }
 
   @Operation(
-      summary = "Get all books",
+      summary = "List books",
       description =
-          "Returns a list of all books in the library with their current loan status and reservation queue")
+          "Returns books in ID order with their current loan status and reservation queue. "
+              + "Returns at most `limit` books; pass the returned `next` cursor as `after` to fetch the following page. "
+              + "`next` is null on the last page.")
   @ApiResponses({
     @ApiResponse(
         responseCode = "200",
-        description = "Success - returns all books",
+        description = "Success - returns one page of books",
         content =
             @Content(
                 mediaType = "application/json",
-                schema = @Schema(implementation = BooksResponse.class),
+                schema = @Schema(implementation = BookPageResponse.class),
                 examples =
                     @ExampleObject(
                         name = "Books list",
@@ -72,20 +92,31 @@ public class BookController {
                               "firstDueDate": null,
                               "reservationQueue": []
                             }
-                          ]
+                          ],
+                          "next": "YjI"
                         }
-                        """)))
+                        """))),
+    @ApiResponse(
+        responseCode = "400",
+        description = "limit out of range, or a cursor this API did not issue",
+        content = @Content(schema = @Schema(implementation = ResultResponse.class)))
   })
   @GetMapping
-  public BooksResponse list() {
-    return new BooksResponse(libraryService.allBooks().stream().map(this::toResponse).toList());
+  public BookPageResponse list(
+      @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(MAX_PAGE_SIZE) int limit,
+      @RequestParam(value = "after", required = false) String after) {
+    IdPage<Book> page = libraryService.booksPage(PageCursors.decodeId(after), limit);
+    return new BookPageResponse(
+        page.items().stream().map(this::toResponse).toList(), PageCursors.encode(page.next()));
   }
 
   @Operation(
       summary = "Search books",
       description =
           "Search for books using filters. All parameters are optional and can be combined. "
-              + "Returns books matching all specified criteria.")
+              + "Returns books matching all specified criteria. With `fuzzy` set to 1 or 2, "
+              + "`titleContains` matches titles that have, for each of its words, a word within "
+              + "that many typos (words of up to five letters allow one, up to two none).")
   @ApiResponses({
     @ApiResponse(
         responseCode = "200",
@@ -155,13 +186,71 @@ public class BookController {
   public BooksResponse search(
       @RequestParam(value = "titleContains", required = false) String titleContains,
       @RequestParam(value = "available", required = false) Boolean available,
-      @RequestParam(value = "loanedTo", required = false) String loanedTo) {
+      @RequestParam(value = "loanedTo", required = false) String loanedTo,
+      @RequestParam(value = "fuzzy", defaultValue = "0") @Min(0) @Max(MAX_EDITS) int fuzzy) {
     return new BooksResponse(
-        libraryService.searchBooks(titleContains, available, loanedTo).stream()
+        libraryService.searchBooks(titleContains, available, loanedTo, fuzzy).stream()
             .map(this::toResponse)
             .toList());
   }
 
+  @GetMapping(value = "/export", produces = NdJson.MEDIA_TYPE)
+  @Operation(
+      summary = "Export all books",
+      description =
+          "Streams every book in ID order as newline-delimited JSON, one book per line in the same"
+              + " shape as the list items. Books are read through a forward-only database cursor in"
+              + " batches and written as they are read, so the export can be of any size.")
+  @ApiResponse(responseCode = "200", description = "One JSON book per line")
+  public ResponseEntity<StreamingResponseBody> export() {
+    return NdJson.stream(
+        objectMapper,
+        BookResponse.class,
+        rows -> libraryService.exportBooks(book -> rows.accept(toResponse(book))));
+  }
+
+  @GetMapping("/search/fulltext")
+  @Operation(
+      summary = "Ranked full-text search by title",
+      description =
+          "Books whose titles share words with `q`, most relevant first (BM25). Words are matched"
+              + " whole, ignoring case and accents. Returns at most `limit` books.")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "200",
+        description = "Matching books with their relevance scores",
+        content = @Content(schema = @Schema(implementation = RankedBooksResponse.class))),
+    @ApiResponse(
+        responseCode = "400",
+        description = "q missing, blank or too long, or limit out of range",
+        content = @Content(schema = @Schema(implementation = ResultResponse.class)))
+  })
+  public RankedBooksResponse searchFullText(
+      @RequestParam("q") @NotBlank @Size(max = MAX_QUERY_LENGTH) String q,
+      @RequestParam(value = "limit", defaultValue = "20") @Min(1) @Max(MAX_RESULTS) int limit) {
+    return new RankedBooksResponse(
+        libraryService.searchFullText(q, limit).stream()
+            .map(r -> new RankedBooksResponse.RankedBook(toResponse(r.book()), r.score()))
+            .toList());
+  }
+
+  @GetMapping("/{id}")
+  @Operation(
+      summary = "Get book",
+      description =
+          "Returns one book with its current loan status and reservation queue, in the same shape"
+              + " as the list items.")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "200",
+        description = "The book",
+        content = @Content(schema = @Schema(implementation = BookResponse.class))),
+    @ApiResponse(responseCode = "404", description = "Book not found")
+  })
+  public ResponseEntity<BookResponse> get(@PathVariable("id") String id) {
+    return ResponseEntity.of(libraryService.findBook(id).map(this::toResponse));
+  }
+
   @Operation(
       summary = "Create new book",
       description =
@@ -334,6 +423,6 @@ public class BookController {
         book.getLoanedTo(),
         book.getDueDate(),
         book.getFirstDueDate(),
-        book.getReservationQueue());
+        book.getReservationQueue().memberIds());
   }
 }
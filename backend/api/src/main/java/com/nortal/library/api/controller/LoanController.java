@@ -1,7 +1,7 @@
 package com.nortal.library.api.controller;
 
+import com.nortal.library.api.dto.BookPageResponse;
 import com.nortal.library.api.dto.BookResponse;
-import com.nortal.library.api.dto.BooksResponse;
 import com.nortal.library.api.dto.BorrowRequest;
 import com.nortal.library.api.dto.CancelReservationRequest;
 import com.nortal.library.api.dto.LoanExtensionRequest;
@@ -9,6 +9,7 @@ import com.nortal.library.api.dto.ReserveRequest;
 import com.nortal.library.api.dto.ResultResponse;
 import com.nortal.library.api.dto.ResultWithNextResponse;
 import com.nortal.library.api.dto.ReturnRequest;
+import com.nortal.library.core.DueDatePage;
 import com.nortal.library.core.LibraryService;
 import com.nortal.library.core.Result;
 import com.nortal.library.core.ResultWithNext;
@@ -21,11 +22,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import java.time.LocalDate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -36,6 +40,9 @@ import org.springframework.web.bind.annotation.RestController;
         "Operations for borrowing, returning, reserving books, and managing loan extensions")
 public class LoanController {
 
+  private static final int MAX_DUE_SOON_DAYS = 366;
+  private static final int MAX_PAGE_SIZE = 500;
+
   private final LibraryService libraryService;
 
   public LoanController(LibraryService libraryService) {
@@ -189,9 +196,56 @@ public class LoanController {
   }
 
   @GetMapping("/overdue")
-  public BooksResponse overdue() {
-    return new BooksResponse(
-        libraryService.overdueBooks(LocalDate.now()).stream().map(this::toResponse).toList());
+  @Operation(
+      summary = "List overdue books",
+      description =
+          "Books on loan past their due date, earliest due first and then by book ID. "
+              + "Returns at most `limit` books; pass the returned `next` cursor as `after` to fetch the following page. "
+              + "`next` is null on the last page.")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "200",
+        description = "One page of books",
+        content = @Content(schema = @Schema(implementation = BookPageResponse.class))),
+    @ApiResponse(
+        responseCode = "400",
+        description = "limit out of range, or a cursor this API did not issue",
+        content = @Content(schema = @Schema(implementation = ResultResponse.class)))
+  })
+  public BookPageResponse overdue(
+      @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(MAX_PAGE_SIZE) int limit,
+      @RequestParam(value = "after", required = false) String after) {
+    DueDatePage page =
+        libraryService.overduePage(LocalDate.now(), PageCursors.decodeDueDate(after), limit);
+    return new BookPageResponse(
+        page.books().stream().map(this::toResponse).toList(), PageCursors.encode(page.next()));
+  }
+
+  @GetMapping("/due-soon")
+  @Operation(
+      summary = "List books due soon",
+      description =
+          "Books on loan that are due from today through `days` days from now, soonest first and then by book ID. "
+              + "Returns at most `limit` books; pass the returned `next` cursor as `after` to fetch the following page. "
+              + "`next` is null on the last page.")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "200",
+        description = "One page of books",
+        content = @Content(schema = @Schema(implementation = BookPageResponse.class))),
+    @ApiResponse(
+        responseCode = "400",
+        description = "days or limit out of range, or a cursor this API did not issue",
+        content = @Content(schema = @Schema(implementation = ResultResponse.class)))
+  })
+  public BookPageResponse dueSoon(
+      @RequestParam(value = "days", defaultValue = "7") @Min(0) @Max(MAX_DUE_SOON_DAYS) int days,
+      @RequestParam(value = "limit", defaultValue = "50") @Min(1) @Max(MAX_PAGE_SIZE) int limit,
+      @RequestParam(value = "after", required = false) String after) {
+    DueDatePage page =
+        libraryService.dueSoon(LocalDate.now(), days, PageCursors.decodeDueDate(after), limit);
+    return new BookPageResponse(
+        page.books().stream().map(this::toResponse).toList(), PageCursors.encode(page.next()));
   }
 
   private BookResponse toResponse(Book book) {
@@ -201,6 +255,6 @@ public class LoanController {
         book.getLoanedTo(),
         book.getDueDate(),
         book.getFirstDueDate(),
-        book.getReservationQueue());
+        book.getReservationQueue().memberIds());
   }
 }
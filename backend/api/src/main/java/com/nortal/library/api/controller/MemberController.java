@@ -1,12 +1,14 @@
 package com.nortal.library.api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nortal.library.api.dto.CreateMemberRequest;
 import com.nortal.library.api.dto.DeleteMemberRequest;
+import com.nortal.library.api.dto.MemberPageResponse;
 import com.nortal.library.api.dto.MemberResponse;
 import com.nortal.library.api.dto.MemberSummaryResponse;
-import com.nortal.library.api.dto.MembersResponse;
 import com.nortal.library.api.dto.ResultResponse;
 import com.nortal.library.api.dto.UpdateMemberRequest;
+import com.nortal.library.core.IdPage;
 import com.nortal.library.core.LibraryService;
 import com.nortal.library.core.MemberSummary;
 import com.nortal.library.core.Result;
@@ -19,6 +21,9 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -26,28 +31,39 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/members")
 @Tag(name = "Members", description = "Member management operations")
 public class MemberController {
 
+  private static final int MAX_PAGE_SIZE = 500;
+
   private final LibraryService libraryService;
+  private final ObjectMapper objectMapper;
 
-  public MemberController(LibraryService libraryService) {
+  public MemberController(LibraryService libraryService, ObjectMapper objectMapper) {
     this.libraryService = libraryService;
+    this.objectMapper = objectMapper;
   }
 
-  @Operation(summary = "Get all members", description = "Returns a list of all library members")
+  @Operation(
+      summary = "List members",
+      description =
+          "Returns library members in ID order. "
+              + "Returns at most `limit` members; pass the returned `next` cursor as `after` to fetch the following page. "
+              + "`next` is null on the last page.")
   @ApiResponses({
     @ApiResponse(
         responseCode = "200",
-        description = "Success - returns all members",
+        description = "Success - returns one page of members",
         content =
             @Content(
                 mediaType = "application/json",
-                schema = @Schema(implementation = MembersResponse.class),
+                schema = @Schema(implementation = MemberPageResponse.class),
                 examples =
                     @ExampleObject(
                         name = "Members list",
@@ -63,13 +79,37 @@ public class MemberController {
                               "id": "m2",
                               "name": "Bob Johnson"
                             }
-                          ]
+                          ],
+                          "next": null
                         }
-                        """)))
+                        """))),
+    @ApiResponse(
+        responseCode = "400",
+        description = "limit out of range, or a cursor this API did not issue",
+        content = @Content(schema = @Schema(implementation = ResultResponse.class)))
   })
   @GetMapping
-  public MembersResponse list() {
-    return new MembersResponse(libraryService.allMembers().stream().map(this::toResponse).toList());
+  public MemberPageResponse list(
+      @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(MAX_PAGE_SIZE) int limit,
+      @RequestParam(value = "after", required = false) String after) {
+    IdPage<Member> page = libraryService.membersPage(PageCursors.decodeId(after), limit);
+    return new MemberPageResponse(
+        page.items().stream().map(this::toResponse).toList(), PageCursors.encode(page.next()));
+  }
+
+  @GetMapping(value = "/export", produces = NdJson.MEDIA_TYPE)
+  @Operation(
+      summary = "Export all members",
+      description =
+          "Streams every member in ID order as newline-delimited JSON, one member per line."
+              + " Members are read through a forward-only database cursor and written as they are"
+              + " read.")
+  @ApiResponse(responseCode = "200", description = "One JSON member per line")
+  public ResponseEntity<StreamingResponseBody> export() {
+    return NdJson.stream(
+        objectMapper,
+        MemberResponse.class,
+        rows -> libraryService.exportMembers(member -> rows.accept(toResponse(member))));
   }
 
   @Operation(
@@ -138,22 +178,16 @@ public class MemberController {
     var loans =
         summary.loans().stream()
             .map(
-                book ->
+                loan ->
                     new MemberSummaryResponse.BookLoanSummary(
-                        book.getId(), book.getTitle(), book.getDueDate()))
+                        loan.bookId(), loan.title(), loan.dueDate()))
             .toList();
     var reservations =
         summary.reservations().stream()
             .map(
-                reservation -> {
-                  String title =
-                      libraryService
-                          .findBook(reservation.bookId())
-                          .map(com.nortal.library.core.domain.Book::getTitle)
-                          .orElse(null);
-                  return new MemberSummaryResponse.ReservationSummary(
-                      reservation.bookId(), title, reservation.position());
-                })
+                reservation ->
+                    new MemberSummaryResponse.ReservationSummary(
+                        reservation.bookId(), reservation.title(), reservation.position()))
             .toList();
     return MemberSummaryResponse.success(loans, reservations);
   }
@@ -0,0 +1,49 @@
+package com.nortal.library.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Streams newline-delimited JSON, one document per line, for the export endpoints.
+ *
+ * <p>Each row is written as the repository scroll hands it over, so the response holds no more than
+ * the servlet's output buffer however many rows it carries.
+ */
+final class NdJson {
+  static final String MEDIA_TYPE = "application/x-ndjson";
+
+  private NdJson() {}
+
+  /**
+   * A response streaming the rows {@code scroll} passes to its consumer, serialized as {@code
+   * type}.
+   */
+  static <T> ResponseEntity<StreamingResponseBody> stream(
+      ObjectMapper objectMapper, Class<T> type, Consumer<Consumer<T>> scroll) {
+    ObjectWriter writer = objectMapper.writerFor(type);
+    StreamingResponseBody body =
+        out -> {
+          try {
+            scroll.accept(
+                row -> {
+                  try {
+                    out.write(writer.writeValueAsBytes(row));
+                    out.write('\n');
+                  } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                  }
+                });
+          } catch (UncheckedIOException e) {
+            // A client that disconnects mid-export ends the scroll here
+            throw e.getCause();
+          }
+        };
+    return ResponseEntity.ok().contentType(MediaType.parseMediaType(MEDIA_TYPE)).body(body);
+  }
+}
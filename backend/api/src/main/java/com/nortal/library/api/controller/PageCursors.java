@@ -0,0 +1,68 @@
+package com.nortal.library.api.controller;
+
+import com.nortal.library.core.DueDateCursor;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Encodes page cursors as opaque URL-safe strings, so clients pass them back unchanged and the
+ * position they carry can change without breaking the API.
+ */
+final class PageCursors {
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private PageCursors() {}
+
+  static String encode(String id) {
+    return id == null ? null : ENCODER.encodeToString(id.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Decodes a cursor from {@link #encode(String)}; null or blank means the first page. */
+  static String decodeId(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    try {
+      return new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidCursorException();
+    }
+  }
+
+  static String encode(DueDateCursor cursor) {
+    if (cursor == null) {
+      return null;
+    }
+    // Dates never contain ':', so the first one separates the date from the ID
+    String position = cursor.dueDate() + ":" + cursor.bookId();
+    return ENCODER.encodeToString(position.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Decodes a cursor from {@link #encode(DueDateCursor)}; null or blank means the first page. */
+  static DueDateCursor decodeDueDate(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    try {
+      String position = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+      int separator = position.indexOf(':');
+      if (separator < 0) {
+        throw new InvalidCursorException();
+      }
+      return new DueDateCursor(
+          LocalDate.parse(position.substring(0, separator)), position.substring(separator + 1));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      throw new InvalidCursorException();
+    }
+  }
+
+  /** The cursor was not produced by this API. */
+  static class InvalidCursorException extends RuntimeException {
+    InvalidCursorException() {
+      super("Invalid page cursor", null, false, false);
+    }
+  }
+}
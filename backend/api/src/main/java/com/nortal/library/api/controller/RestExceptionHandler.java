@@ -1,21 +1,34 @@
 package com.nortal.library.api.controller;
 
 import com.nortal.library.api.dto.ResultResponse;
+import com.nortal.library.core.ErrorCodes;
+import com.nortal.library.core.port.ConcurrentUpdateException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 @RestControllerAdvice
 public class RestExceptionHandler {
 
-  @ExceptionHandler(MethodArgumentNotValidException.class)
+  @ExceptionHandler({
+    MethodArgumentNotValidException.class,
+    HandlerMethodValidationException.class,
+    PageCursors.InvalidCursorException.class
+  })
   public ResponseEntity<ResultResponse> handleValidation() {
     return ResponseEntity.status(HttpStatus.BAD_REQUEST)
         .body(new ResultResponse(false, "INVALID_REQUEST"));
   }
 
+  @ExceptionHandler(ConcurrentUpdateException.class)
+  public ResponseEntity<ResultResponse> handleConcurrentUpdate() {
+    return ResponseEntity.status(HttpStatus.CONFLICT)
+        .body(new ResultResponse(false, ErrorCodes.CONCURRENT_UPDATE));
+  }
+
   @ExceptionHandler(Exception.class)
   public ResponseEntity<ResultResponse> handleGeneric() {
     return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
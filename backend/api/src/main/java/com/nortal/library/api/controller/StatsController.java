@@ -0,0 +1,77 @@
+package com.nortal.library.api.controller;
+
+import com.nortal.library.api.dto.CacheStatsResponse;
+import com.nortal.library.api.dto.LockStatsResponse;
+import com.nortal.library.api.dto.OverdueStatsResponse;
+import com.nortal.library.core.concurrent.LockManager;
+import com.nortal.library.core.overdue.OverdueTracker;
+import com.nortal.library.persistence.cache.IdFilter;
+import com.nortal.library.persistence.cache.RepositoryCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.LocalDate;
+import java.util.OptionalLong;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/stats")
+@Tag(name = "Statistics", description = "Runtime counters for capacity planning and tuning")
+public class StatsController {
+
+  private final LockManager loanLocks;
+  private final ObjectProvider<RepositoryCache<?>> repositoryCaches;
+  private final ObjectProvider<IdFilter> idFilters;
+  private final ObjectProvider<OverdueTracker> overdueTracker;
+
+  public StatsController(
+      LockManager loanLocks,
+      ObjectProvider<RepositoryCache<?>> repositoryCaches,
+      ObjectProvider<IdFilter> idFilters,
+      ObjectProvider<OverdueTracker> overdueTracker) {
+    this.loanLocks = loanLocks;
+    this.repositoryCaches = repositoryCaches;
+    this.idFilters = idFilters;
+    this.overdueTracker = overdueTracker;
+  }
+
+  @GetMapping("/locks")
+  @Operation(
+      summary = "Loan lock contention",
+      description =
+          "Acquisitions, contended acquisitions, wait times and current queue length of every book and member lock stripe. A high contention rate spread over many stripes suggests raising library.loans.lock-stripes; contention concentrated on one stripe is a hot key.")
+  public LockStatsResponse locks() {
+    return LockStatsResponse.from(loanLocks.stats());
+  }
+
+  @GetMapping("/caches")
+  @Operation(
+      summary = "Repository cache effectiveness",
+      description =
+          "Size, weight, hits, misses, hit rate, evictions and mean load time of the book and member read-through caches in front of the database. Frequent evictions at a low hit rate suggest raising library.cache.books.max-weight or library.cache.members.max-size. Each ID filter reports its memory footprint, how many unknown IDs it rejected without a query, and its expected and observed false-positive rates; an observed rate well above the target means many deleted IDs are still being looked up.")
+  public CacheStatsResponse caches() {
+    return CacheStatsResponse.from(
+        repositoryCaches.orderedStream().map(RepositoryCache::stats).toList(),
+        idFilters.orderedStream().map(IdFilter::stats).toList());
+  }
+
+  @GetMapping("/overdue")
+  @Operation(
+      summary = "Overdue tracker",
+      description =
+          "Loans tracked by the overdue timing wheel, how many are overdue today (overdueToday),"
+              + " the day the wheel has advanced to, and the cost of its day-boundary sweeps and"
+              + " initial load. enabled is false when library.overdue.tracker.enabled is off.")
+  public OverdueStatsResponse overdue() {
+    OverdueTracker tracker = overdueTracker.getIfAvailable();
+    if (tracker == null) {
+      return new OverdueStatsResponse(false, null, null);
+    }
+    // Counting advances the tracker to today, so the counters read after it are current too
+    OptionalLong overdueToday = tracker.overdueCount(LocalDate.now());
+    return new OverdueStatsResponse(
+        true, overdueToday.isPresent() ? overdueToday.getAsLong() : null, tracker.stats());
+  }
+}
@@ -0,0 +1,10 @@
+package com.nortal.library.api.dto;
+
+import java.util.List;
+
+/**
+ * One page of books.
+ *
+ * @param next opaque cursor to pass as {@code after} for the following page; null on the last page
+ */
+public record BookPageResponse(List<BookResponse> items, String next) {}
@@ -0,0 +1,19 @@
+package com.nortal.library.api.dto;
+
+import com.nortal.library.persistence.cache.IdFilter;
+import com.nortal.library.persistence.cache.RepositoryCache;
+import java.util.List;
+
+/**
+ * Counters of the repository read-through caches and ID filters. {@code caches} is empty when
+ * caching is disabled and {@code idFilters} when the ID filters are; both are when the repositories
+ * are in memory.
+ */
+public record CacheStatsResponse(
+    boolean enabled, List<RepositoryCache.Stats> caches, List<IdFilter.Stats> idFilters) {
+
+  public static CacheStatsResponse from(
+      List<RepositoryCache.Stats> caches, List<IdFilter.Stats> idFilters) {
+    return new CacheStatsResponse(!caches.isEmpty(), caches, idFilters);
+  }
+}
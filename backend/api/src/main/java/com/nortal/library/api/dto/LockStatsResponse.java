@@ -0,0 +1,52 @@
+package com.nortal.library.api.dto;
+
+import com.nortal.library.core.concurrent.LockManager;
+import java.util.List;
+
+public record LockStatsResponse(KeySpace books, KeySpace members) {
+
+  public static LockStatsResponse from(LockManager.Stats stats) {
+    return new LockStatsResponse(KeySpace.from(stats.books()), KeySpace.from(stats.members()));
+  }
+
+  /**
+   * Totals for one key space plus the per-stripe counters they were summed from.
+   *
+   * @param contentionRate fraction of acquisitions that had to wait
+   * @param queueLength threads currently waiting across all stripes
+   */
+  public record KeySpace(
+      int stripes,
+      long acquisitions,
+      long contended,
+      double contentionRate,
+      long totalWaitMicros,
+      long maxWaitMicros,
+      int queueLength,
+      List<LockManager.StripeStats> perStripe) {
+
+    static KeySpace from(List<LockManager.StripeStats> stripes) {
+      long acquisitions = 0;
+      long contended = 0;
+      long waitNanos = 0;
+      long maxWaitNanos = 0;
+      int queueLength = 0;
+      for (LockManager.StripeStats stripe : stripes) {
+        acquisitions += stripe.acquisitions();
+        contended += stripe.contended();
+        waitNanos += stripe.waitNanos();
+        maxWaitNanos = Math.max(maxWaitNanos, stripe.maxWaitNanos());
+        queueLength += stripe.queueLength();
+      }
+      return new KeySpace(
+          stripes.size(),
+          acquisitions,
+          contended,
+          acquisitions == 0 ? 0.0 : (double) contended / acquisitions,
+          waitNanos / 1_000,
+          maxWaitNanos / 1_000,
+          queueLength,
+          stripes);
+    }
+  }
+}
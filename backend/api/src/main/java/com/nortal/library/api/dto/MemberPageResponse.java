@@ -0,0 +1,10 @@
+package com.nortal.library.api.dto;
+
+import java.util.List;
+
+/**
+ * One page of members.
+ *
+ * @param next opaque cursor to pass as {@code after} for the following page; null on the last page
+ */
+public record MemberPageResponse(List<MemberResponse> items, String next) {}
@@ -1,5 +0,0 @@
-package com.nortal.library.api.dto;
-
-import java.util.List;
-
-public record MembersResponse(List<MemberResponse> items) {}
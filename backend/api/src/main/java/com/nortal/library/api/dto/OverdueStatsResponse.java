@@ -0,0 +1,10 @@
+package com.nortal.library.api.dto;
+
+import com.nortal.library.core.overdue.OverdueTracker;
+
+/**
+ * Counters of the overdue tracker; {@code overdueToday} and {@code tracker} are null when it is
+ * disabled, and {@code overdueToday} also when the tracker has already moved past today.
+ */
+public record OverdueStatsResponse(
+    boolean enabled, Long overdueToday, OverdueTracker.Stats tracker) {}
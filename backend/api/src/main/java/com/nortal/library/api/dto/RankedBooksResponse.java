@@ -0,0 +1,10 @@
+package com.nortal.library.api.dto;
+
+import java.util.List;
+
+/** Books matching a free-text query, best first. */
+public record RankedBooksResponse(List<RankedBook> items) {
+
+  /** @param score relevance of the title to the query; only comparable within one response */
+  public record RankedBook(BookResponse book, double score) {}
+}
@@ -0,0 +1,10 @@
+package com.nortal.library.api.dto;
+
+import java.util.List;
+
+/** Autocomplete matches for a prefix, in alphabetical order from the matching word. */
+public record SuggestionsResponse(List<Suggestion> items) {
+
+  /** @param label the book title or member name */
+  public record Suggestion(String id, String label) {}
+}
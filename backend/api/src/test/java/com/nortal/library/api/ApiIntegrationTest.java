@@ -1,7 +1,9 @@
 package com.nortal.library.api;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import com.nortal.library.api.dto.BookPageResponse;
 import com.nortal.library.api.dto.BookResponse;
 import com.nortal.library.api.dto.BooksResponse;
 import com.nortal.library.api.dto.BorrowRequest;
@@ -11,18 +13,26 @@ import com.nortal.library.api.dto.CreateMemberRequest;
 import com.nortal.library.api.dto.DeleteBookRequest;
 import com.nortal.library.api.dto.DeleteMemberRequest;
 import com.nortal.library.api.dto.LoanExtensionRequest;
+import com.nortal.library.api.dto.MemberPageResponse;
 import com.nortal.library.api.dto.MemberResponse;
 import com.nortal.library.api.dto.MemberSummaryResponse;
-import com.nortal.library.api.dto.MembersResponse;
+import com.nortal.library.api.dto.RankedBooksResponse;
 import com.nortal.library.api.dto.ReserveRequest;
 import com.nortal.library.api.dto.ResultResponse;
 import com.nortal.library.api.dto.ResultWithNextResponse;
 import com.nortal.library.api.dto.ReturnRequest;
+import com.nortal.library.api.dto.SuggestionsResponse;
 import com.nortal.library.api.dto.UpdateBookRequest;
 import com.nortal.library.api.dto.UpdateMemberRequest;
+import jakarta.persistence.EntityManagerFactory;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Objects;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
@@ -39,12 +49,14 @@ class ApiIntegrationTest {
 
   @LocalServerPort int port;
 
+  @Autowired ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
   private final TestRestTemplate rest = new TestRestTemplate();
 
   @Test
   void listsSeedBooksAndMembers() {
-    BooksResponse books = rest.getForObject(url("/api/books"), BooksResponse.class);
-    MembersResponse members = rest.getForObject(url("/api/members"), MembersResponse.class);
+    BookPageResponse books = rest.getForObject(url("/api/books"), BookPageResponse.class);
+    MemberPageResponse members = rest.getForObject(url("/api/members"), MemberPageResponse.class);
 
     assertThat(books).isNotNull();
     assertThat(books.items()).hasSizeGreaterThanOrEqualTo(6);
@@ -72,7 +84,7 @@ class ApiIntegrationTest {
     assertThat(updated.ok()).isTrue();
 
     BookResponse book =
-        rest.getForObject(url("/api/books"), BooksResponse.class).items().stream()
+        rest.getForObject(url("/api/books"), BookPageResponse.class).items().stream()
             .filter(b -> b.id().equals("vb1"))
             .findFirst()
             .orElse(null);
@@ -88,7 +100,7 @@ class ApiIntegrationTest {
             .getBody();
     assertThat(deleted.ok()).isTrue();
 
-    BooksResponse afterDelete = rest.getForObject(url("/api/books"), BooksResponse.class);
+    BookPageResponse afterDelete = rest.getForObject(url("/api/books"), BookPageResponse.class);
     assertThat(afterDelete.items().stream().noneMatch(b -> Objects.equals(b.id(), "vb1"))).isTrue();
   }
 
@@ -112,7 +124,7 @@ class ApiIntegrationTest {
     assertThat(updated.ok()).isTrue();
 
     MemberResponse member =
-        rest.getForObject(url("/api/members"), MembersResponse.class).items().stream()
+        rest.getForObject(url("/api/members"), MemberPageResponse.class).items().stream()
             .filter(m -> m.id().equals("vm1"))
             .findFirst()
             .orElse(null);
@@ -128,7 +140,8 @@ class ApiIntegrationTest {
             .getBody();
     assertThat(deleted.ok()).isTrue();
 
-    MembersResponse afterDelete = rest.getForObject(url("/api/members"), MembersResponse.class);
+    MemberPageResponse afterDelete =
+        rest.getForObject(url("/api/members"), MemberPageResponse.class);
     assertThat(afterDelete.items().stream().noneMatch(m -> Objects.equals(m.id(), "vm1"))).isTrue();
   }
 
@@ -145,7 +158,7 @@ class ApiIntegrationTest {
     assertThat(returned.nextMemberId()).isNull();
 
     BookResponse book =
-        rest.getForObject(url("/api/books"), BooksResponse.class).items().stream()
+        rest.getForObject(url("/api/books"), BookPageResponse.class).items().stream()
             .filter(b -> b.id().equals("b1"))
             .findFirst()
             .orElseThrow();
@@ -167,7 +180,7 @@ class ApiIntegrationTest {
 
     // Verify book is still loaned to m1 (return was rejected)
     BookResponse book =
-        rest.getForObject(url("/api/books"), BooksResponse.class).items().stream()
+        rest.getForObject(url("/api/books"), BookPageResponse.class).items().stream()
             .filter(b -> b.id().equals("b1"))
             .findFirst()
             .orElseThrow();
@@ -187,7 +200,7 @@ class ApiIntegrationTest {
 
     // Verify book is still loaned to m1
     BookResponse book =
-        rest.getForObject(url("/api/books"), BooksResponse.class).items().stream()
+        rest.getForObject(url("/api/books"), BookPageResponse.class).items().stream()
             .filter(b -> b.id().equals("b1"))
             .findFirst()
             .orElseThrow();
@@ -216,7 +229,7 @@ class ApiIntegrationTest {
         rest.postForObject(url("/api/borrow"), new BorrowRequest("b3", "m1"), ResultResponse.class);
     assertThat(borrow.ok()).isTrue();
 
-    BooksResponse afterBorrow = rest.getForObject(url("/api/books"), BooksResponse.class);
+    BookPageResponse afterBorrow = rest.getForObject(url("/api/books"), BookPageResponse.class);
     LocalDate dueDate =
         afterBorrow.items().stream()
             .filter(b -> b.id().equals("b3"))
@@ -230,7 +243,7 @@ class ApiIntegrationTest {
             url("/api/extend"), new LoanExtensionRequest("b3", "m1", 3), ResultResponse.class);
     assertThat(extended.ok()).isTrue();
 
-    BooksResponse afterExtend = rest.getForObject(url("/api/books"), BooksResponse.class);
+    BookPageResponse afterExtend = rest.getForObject(url("/api/books"), BookPageResponse.class);
     LocalDate extendedDate =
         afterExtend.items().stream()
             .filter(b -> b.id().equals("b3"))
@@ -254,7 +267,7 @@ class ApiIntegrationTest {
     assertThat(extended.ok()).isTrue();
 
     // Verify the extension succeeded
-    BooksResponse afterExtend = rest.getForObject(url("/api/books"), BooksResponse.class);
+    BookPageResponse afterExtend = rest.getForObject(url("/api/books"), BookPageResponse.class);
     BookResponse book =
         afterExtend.items().stream().filter(b -> b.id().equals("b3")).findFirst().orElseThrow();
     assertThat(book.dueDate()).isNotNull();
@@ -318,7 +331,7 @@ class ApiIntegrationTest {
     assertThat(extended.ok()).isTrue();
 
     // Verify the extension succeeded
-    BooksResponse afterExtend = rest.getForObject(url("/api/books"), BooksResponse.class);
+    BookPageResponse afterExtend = rest.getForObject(url("/api/books"), BookPageResponse.class);
     BookResponse book =
         afterExtend.items().stream().filter(b -> b.id().equals("b3")).findFirst().orElseThrow();
     assertThat(book.dueDate()).isNotNull();
@@ -358,6 +371,77 @@ class ApiIntegrationTest {
     assertThat(availableOnly.items().stream().noneMatch(b -> b.id().equals("vb-search"))).isTrue();
   }
 
+  @Test
+  void titleSearchIgnoresCaseAndAccents() {
+    rest.postForObject(
+        url("/api/books"),
+        new CreateBookRequest("vb-accents", "Les Mis\u00e9rables"),
+        ResultResponse.class);
+
+    BooksResponse plain =
+        rest.getForObject(url("/api/books/search?titleContains=MISERAB"), BooksResponse.class);
+    assertThat(plain.items()).extracting(BookResponse::id).containsExactly("vb-accents");
+    BooksResponse accented =
+        rest.getForObject(
+            url("/api/books/search?titleContains=mis\u00e9r&available=true"), BooksResponse.class);
+    assertThat(accented.items()).extracting(BookResponse::id).containsExactly("vb-accents");
+  }
+
+  @Test
+  void fuzzySearchToleratesTypos() {
+    BooksResponse exact =
+        rest.getForObject(url("/api/books/search?titleContains=refactorng"), BooksResponse.class);
+    assertThat(exact.items()).isEmpty();
+
+    BooksResponse fuzzy =
+        rest.getForObject(
+            url("/api/books/search?titleContains=refactorng&fuzzy=1"), BooksResponse.class);
+    assertThat(fuzzy.items()).extracting(BookResponse::id).containsExactly("b3");
+    BooksResponse twoWords =
+        rest.getForObject(
+            url("/api/books/search?titleContains=pragmatc programer&fuzzy=2"), BooksResponse.class);
+    assertThat(twoWords.items()).extracting(BookResponse::id).containsExactly("b6");
+    assertThat(
+            rest.getForEntity(
+                    url("/api/books/search?titleContains=x&fuzzy=3"), ResultResponse.class)
+                .getStatusCode())
+        .isEqualTo(HttpStatus.BAD_REQUEST);
+  }
+
+  @Test
+  void autocompleteSuggestsTitlesAndMemberNamesByPrefix() {
+    SuggestionsResponse books =
+        rest.getForObject(
+            url("/api/autocomplete/books?prefix=Pragmatic Pro"), SuggestionsResponse.class);
+    assertThat(books.items())
+        .containsExactly(new SuggestionsResponse.Suggestion("b6", "The Pragmatic Programmer"));
+
+    rest.postForObject(
+        url("/api/members"),
+        new CreateMemberRequest("vm1", "M\u00e4rt Tamm"),
+        ResultResponse.class);
+    SuggestionsResponse members =
+        rest.getForObject(url("/api/autocomplete/members?prefix=mar"), SuggestionsResponse.class);
+    assertThat(members.items())
+        .extracting(SuggestionsResponse.Suggestion::id)
+        .containsExactly("m4", "vm1");
+    assertThat(
+            rest.getForEntity(url("/api/autocomplete/members?prefix=m&limit=51"), String.class)
+                .getStatusCode())
+        .isEqualTo(HttpStatus.BAD_REQUEST);
+  }
+
+  @Test
+  void getsOneBookById() {
+    rest.postForObject(url("/api/borrow"), new BorrowRequest("b2", "m1"), ResultResponse.class);
+
+    BookResponse book = rest.getForObject(url("/api/books/b2"), BookResponse.class);
+    assertThat(book.id()).isEqualTo("b2");
+    assertThat(book.loanedTo()).isEqualTo("m1");
+    assertThat(rest.getForEntity(url("/api/books/missing"), String.class).getStatusCode())
+        .isEqualTo(HttpStatus.NOT_FOUND);
+  }
+
   @Test
   void memberSummaryShowsLoansAndReservations() {
     rest.postForObject(url("/api/borrow"), new BorrowRequest("b4", "m2"), ResultResponse.class);
@@ -381,8 +465,152 @@ class ApiIntegrationTest {
     rest.postForObject(
         url("/api/extend"), new LoanExtensionRequest("b6", "m1", -30), ResultResponse.class);
 
-    BooksResponse overdue = rest.getForObject(url("/api/overdue"), BooksResponse.class);
+    BookPageResponse overdue = rest.getForObject(url("/api/overdue"), BookPageResponse.class);
     assertThat(overdue.items().stream().anyMatch(b -> b.id().equals("b6"))).isTrue();
+    assertThat(overdue.next()).isNull();
+  }
+
+  @Test
+  void bookAndMemberListsPageWithCursor() {
+    BookPageResponse first = rest.getForObject(url("/api/books?limit=2"), BookPageResponse.class);
+    assertThat(first.items()).extracting(BookResponse::id).containsExactly("b1", "b2");
+    assertThat(first.next()).isNotNull();
+    BookPageResponse second =
+        rest.getForObject(url("/api/books?limit=2&after=" + first.next()), BookPageResponse.class);
+    assertThat(second.items()).extracting(BookResponse::id).containsExactly("b3", "b4");
+
+    MemberPageResponse members =
+        rest.getForObject(url("/api/members?limit=1"), MemberPageResponse.class);
+    assertThat(members.items()).extracting(MemberResponse::id).containsExactly("m1");
+    MemberPageResponse nextMembers =
+        rest.getForObject(
+            url("/api/members?limit=1&after=" + members.next()), MemberPageResponse.class);
+    assertThat(nextMembers.items()).extracting(MemberResponse::id).containsExactly("m2");
+
+    assertThat(
+            rest.getForEntity(url("/api/books?limit=0"), ResultResponse.class).getStatusCode())
+        .isEqualTo(HttpStatus.BAD_REQUEST);
+    assertThat(
+            rest.getForEntity(url("/api/members?after=not*a*cursor"), ResultResponse.class)
+                .getStatusCode())
+        .isEqualTo(HttpStatus.BAD_REQUEST);
+  }
+
+  @Test
+  void listEndpointsLoadQueuesWithoutPerBookQueries() {
+    EntityManagerFactory factory = entityManagerFactory.getIfAvailable();
+    assumeTrue(factory != null, "statement counts apply to the JPA repositories");
+    rest.postForObject(url("/api/borrow"), new BorrowRequest("b1", "m1"), ResultResponse.class);
+    rest.postForObject(url("/api/borrow"), new BorrowRequest("b2", "m1"), ResultResponse.class);
+    for (String book : List.of("b1", "b2", "od1")) {
+      rest.postForObject(url("/api/reserve"), new ReserveRequest(book, "m2"), ResultResponse.class);
+      rest.postForObject(url("/api/reserve"), new ReserveRequest(book, "m3"), ResultResponse.class);
+    }
+    Statistics statistics = factory.unwrap(SessionFactory.class).getStatistics();
+
+    for (String endpoint :
+        List.of("/api/books", "/api/books/search?available=false", "/api/overdue")) {
+      statistics.clear();
+      BooksResponse books = rest.getForObject(url(endpoint), BooksResponse.class);
+      assertThat(books.items()).filteredOn(b -> b.reservationQueue().size() == 2).isNotEmpty();
+      // One statement for the books and one for the queues of all of them
+      assertThat(statistics.getPrepareStatementCount()).as(endpoint).isLessThanOrEqualTo(2);
+    }
+  }
+
+  @Test
+  void memberSummaryReadsTitlesWithoutPerBookQueries() {
+    EntityManagerFactory factory = entityManagerFactory.getIfAvailable();
+    assumeTrue(factory != null, "statement counts apply to the JPA repositories");
+    rest.postForObject(url("/api/borrow"), new BorrowRequest("b5", "m1"), ResultResponse.class);
+    for (String book : List.of("b1", "b2", "b5")) {
+      rest.postForObject(url("/api/reserve"), new ReserveRequest(book, "m2"), ResultResponse.class);
+    }
+    Statistics statistics = factory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    MemberSummaryResponse summary =
+        rest.getForObject(url("/api/members/m2/summary"), MemberSummaryResponse.class);
+
+    assertThat(summary.reservations())
+        .filteredOn(r -> r.bookId().equals("b5"))
+        .singleElement()
+        .satisfies(r -> assertThat(r.title()).isEqualTo("Design Patterns"));
+    // One statement for the loans (and existence), one for the titled reservations
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+  }
+
+  @Test
+  void exportsStreamEveryBookAndMemberAsNdjson() {
+    rest.postForObject(url("/api/borrow"), new BorrowRequest("b1", "m1"), ResultResponse.class);
+    rest.postForObject(url("/api/reserve"), new ReserveRequest("b1", "m2"), ResultResponse.class);
+
+    ResponseEntity<String> books = rest.getForEntity(url("/api/books/export"), String.class);
+    assertThat(books.getHeaders().getContentType()).hasToString("application/x-ndjson");
+    assertThat(books.getBody()).endsWith("\n");
+    List<String> bookLines = books.getBody().lines().toList();
+    BookPageResponse listed =
+        rest.getForObject(url("/api/books?limit=500"), BookPageResponse.class);
+    assertThat(bookLines).hasSize(listed.items().size());
+    assertThat(bookLines.get(0))
+        .startsWith("{\"id\":\"b1\"")
+        .contains("\"loanedTo\":\"m1\"", "\"reservationQueue\":[\"m2\"]");
+
+    List<String> memberLines =
+        rest.getForObject(url("/api/members/export"), String.class).lines().toList();
+    assertThat(memberLines).hasSizeGreaterThanOrEqualTo(4);
+    assertThat(memberLines.get(0)).isEqualTo("{\"id\":\"m1\",\"name\":\"Kertu\"}");
+  }
+
+  @Test
+  void dueSoonEndpointPagesWithCursor() {
+    rest.postForObject(url("/api/borrow"), new BorrowRequest("b1", "m1"), ResultResponse.class);
+    rest.postForObject(url("/api/borrow"), new BorrowRequest("b2", "m1"), ResultResponse.class);
+    rest.postForObject(url("/api/borrow"), new BorrowRequest("b3", "m2"), ResultResponse.class);
+
+    BookPageResponse first =
+        rest.getForObject(url("/api/due-soon?days=14&limit=2"), BookPageResponse.class);
+    assertThat(first.items()).extracting(BookResponse::id).containsExactly("b1", "b2");
+    assertThat(first.next()).isNotNull();
+    BookPageResponse second =
+        rest.getForObject(
+            url("/api/due-soon?days=14&limit=2&after=" + first.next()), BookPageResponse.class);
+    assertThat(second.items()).extracting(BookResponse::id).containsExactly("b3");
+    assertThat(second.next()).isNull();
+
+    assertThat(rest.getForObject(url("/api/due-soon?days=13"), BookPageResponse.class).items())
+        .isEmpty();
+    assertThat(
+            rest.getForEntity(url("/api/due-soon?days=-1"), ResultResponse.class).getStatusCode())
+        .isEqualTo(HttpStatus.BAD_REQUEST);
+    assertThat(
+            rest.getForEntity(url("/api/due-soon?after=not-a-cursor"), ResultResponse.class)
+                .getStatusCode())
+        .isEqualTo(HttpStatus.BAD_REQUEST);
+  }
+
+  @Test
+  void fullTextSearchRanksTitlesByRelevance() {
+    rest.postForObject(
+        url("/api/books"),
+        new CreateBookRequest("fb1", "\u00c9l\u00e9gant Design"),
+        ResultResponse.class);
+
+    RankedBooksResponse ranked =
+        rest.getForObject(
+            url("/api/books/search/fulltext?q=design elegant"), RankedBooksResponse.class);
+    // Both words first; then the shorter of the titles with one of them
+    assertThat(ranked.items()).extracting(r -> r.book().id()).containsExactly("fb1", "b5", "b2");
+    assertThat(ranked.items().get(0).score()).isGreaterThan(ranked.items().get(1).score());
+    assertThat(
+            rest.getForObject(
+                    url("/api/books/search/fulltext?q=design&limit=1"), RankedBooksResponse.class)
+                .items())
+        .hasSize(1);
+    assertThat(
+            rest.getForEntity(url("/api/books/search/fulltext?q=%20"), ResultResponse.class)
+                .getStatusCode())
+        .isEqualTo(HttpStatus.BAD_REQUEST);
   }
 
   @Test
@@ -467,7 +695,7 @@ class ApiIntegrationTest {
 
     // Verify book is now loaned to m2
     BookResponse book =
-        rest.getForObject(url("/api/books"), BooksResponse.class).items().stream()
+        rest.getForObject(url("/api/books"), BookPageResponse.class).items().stream()
             .filter(b -> b.id().equals("b1"))
             .findFirst()
             .orElseThrow();
@@ -485,7 +713,7 @@ class ApiIntegrationTest {
 
     // Verify book is immediately loaned to m1, not in reservation queue
     BookResponse book =
-        rest.getForObject(url("/api/books"), BooksResponse.class).items().stream()
+        rest.getForObject(url("/api/books"), BookPageResponse.class).items().stream()
             .filter(b -> b.id().equals("b1"))
             .findFirst()
             .orElseThrow();
@@ -569,7 +797,7 @@ class ApiIntegrationTest {
 
     // Verify book has reservations but is not loaned
     BookResponse book =
-        rest.getForObject(url("/api/books"), BooksResponse.class).items().stream()
+        rest.getForObject(url("/api/books"), BookPageResponse.class).items().stream()
             .filter(b -> b.id().equals("b1"))
             .findFirst()
             .orElseThrow();
@@ -619,7 +847,7 @@ class ApiIntegrationTest {
 
     // Verify reservation exists
     BookResponse bookBefore =
-        rest.getForObject(url("/api/books"), BooksResponse.class).items().stream()
+        rest.getForObject(url("/api/books"), BookPageResponse.class).items().stream()
             .filter(b -> b.id().equals("b1"))
             .findFirst()
             .orElseThrow();
@@ -637,7 +865,7 @@ class ApiIntegrationTest {
 
     // Verify vm1 was removed from reservation queue
     BookResponse bookAfter =
-        rest.getForObject(url("/api/books"), BooksResponse.class).items().stream()
+        rest.getForObject(url("/api/books"), BookPageResponse.class).items().stream()
             .filter(b -> b.id().equals("b1"))
             .findFirst()
             .orElseThrow();
@@ -681,7 +909,7 @@ class ApiIntegrationTest {
 
     // Verify b1 is now loaned to m2
     BookResponse book =
-        rest.getForObject(url("/api/books"), BooksResponse.class).items().stream()
+        rest.getForObject(url("/api/books"), BookPageResponse.class).items().stream()
             .filter(b -> b.id().equals("b1"))
             .findFirst()
             .orElseThrow();
@@ -0,0 +1,202 @@
+package com.nortal.library.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.nortal.library.core.Folding;
+import com.nortal.library.core.LibraryService;
+import com.nortal.library.core.domain.Book;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Measures {@code GET /api/books/export} over {@value #BOOKS} books in the H2 database: rows per
+ * second and peak heap while the NDJSON stream is read to the end, against loading the same books
+ * with {@code findAll()} as the unpaged list endpoint used to.
+ *
+ * <p>Every tenth book has two members queued, so the export also pays for its per-batch queue
+ * queries. Heap is sampled every few milliseconds: "peak used" includes garbage not yet collected
+ * (and the H2 tables, which live on the heap); "retained" is the most heap any collection during
+ * the run left live, above what was live before it. Server and client share the JVM, so both
+ * figures include reading the response. Run with {@code ./gradlew :api:benchmark}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "library.benchmark", matches = "true")
+class ExportBenchmark {
+  private static final int BOOKS = 1_000_000;
+  private static final int INSERT_BATCH = 10_000;
+
+  @LocalServerPort private int port;
+  @Autowired private JdbcTemplate jdbc;
+  @Autowired private LibraryService libraryService;
+
+  @Test
+  void exportCatalog() throws Exception {
+    long seeded = seed();
+    HttpClient client = HttpClient.newHttpClient();
+    HttpRequest request =
+        HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/export"))
+            .build();
+
+    System.out.printf("%nBook export over %,d books%n", seeded);
+    System.out.printf(
+        "%-22s %10s %10s %12s %16s %18s%n",
+        "path", "rows", "seconds", "rows/s", "peak used MB", "retained MB");
+    Run streamed =
+        measure(
+            "NDJSON export",
+            () -> {
+              HttpResponse<InputStream> response =
+                  client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+              try (BufferedReader lines =
+                  new BufferedReader(
+                      new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                return lines.lines().count();
+              }
+            });
+    Run listed =
+        measure(
+            "findAll() list",
+            () -> {
+              List<Book> books = libraryService.allBooks();
+              return (long) books.size();
+            });
+
+    assertThat(streamed.rows()).isEqualTo(seeded);
+    assertThat(listed.rows()).isEqualTo(seeded);
+  }
+
+  private record Run(long rows) {}
+
+  /** Runs {@code work} once, sampling heap until it returns, and prints one report row. */
+  private static Run measure(String path, Callable<Long> work) throws Exception {
+    System.gc();
+    HeapSampler sampler = new HeapSampler();
+    long before = sampler.liveAfterGc();
+    sampler.start();
+    long started = System.nanoTime();
+    long rows;
+    try {
+      rows = work.call();
+    } finally {
+      sampler.stop();
+    }
+    double seconds = (System.nanoTime() - started) / 1e9;
+    System.out.printf(
+        "%-22s %,10d %10.2f %,12.0f %16.0f %18.0f%n",
+        path,
+        rows,
+        seconds,
+        rows / seconds,
+        sampler.peakUsed.get() / 1e6,
+        Math.max(0, sampler.peakAfterGc.get() - before) / 1e6);
+    return new Run(rows);
+  }
+
+  /** Inserts the books, and reservations on every tenth, in JDBC batches. */
+  private long seed() {
+    List<String> members = List.of("bm1", "bm2");
+    jdbc.batchUpdate(
+        "INSERT INTO members (id, name) VALUES (?, ?)",
+        members.stream().map(id -> new Object[] {id, "Benchmark " + id}).toList());
+    long reservationId = 1_000_000_000L;
+    for (int from = 0; from < BOOKS; from += INSERT_BATCH) {
+      List<Object[]> books = new ArrayList<>(INSERT_BATCH);
+      List<Object[]> reservations = new ArrayList<>();
+      for (int i = from; i < Math.min(from + INSERT_BATCH, BOOKS); i++) {
+        String id = String.format("x%07d", i);
+        String title = "Export benchmark title " + i;
+        books.add(new Object[] {id, title, Folding.fold(title)});
+        if (i % 10 == 0) {
+          for (String member : members) {
+            reservations.add(new Object[] {reservationId++, id, member});
+          }
+        }
+      }
+      jdbc.batchUpdate(
+          "INSERT INTO books (id, title, title_key, version) VALUES (?, ?, ?, 0)", books);
+      jdbc.batchUpdate(
+          "INSERT INTO reservations (id, book_id, member_id) VALUES (?, ?, ?)", reservations);
+    }
+    return jdbc.queryForObject("SELECT COUNT(*) FROM books", Long.class);
+  }
+
+  /** Polls heap usage on a daemon thread, keeping the highest used and after-GC figures. */
+  private static final class HeapSampler {
+    private final List<MemoryPoolMXBean> pools =
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .toList();
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final AtomicLong peakUsed = new AtomicLong();
+    private final AtomicLong peakAfterGc = new AtomicLong();
+    private Thread thread;
+
+    void start() {
+      thread =
+          new Thread(
+              () -> {
+                while (running.get()) {
+                  sample();
+                  try {
+                    Thread.sleep(5);
+                  } catch (InterruptedException e) {
+                    return;
+                  }
+                }
+              },
+              "heap-sampler");
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    void stop() throws InterruptedException {
+      running.set(false);
+      thread.join();
+      sample();
+    }
+
+    /** Heap the most recent collection of each pool left live. */
+    long liveAfterGc() {
+      long live = 0;
+      for (MemoryPoolMXBean pool : pools) {
+        MemoryUsage collected = pool.getCollectionUsage();
+        if (collected != null) {
+          live += collected.getUsed();
+        }
+      }
+      return live;
+    }
+
+    private void sample() {
+      long used = 0;
+      for (MemoryPoolMXBean pool : pools) {
+        used += pool.getUsage().getUsed();
+      }
+      peakUsed.accumulateAndGet(used, Math::max);
+      peakAfterGc.accumulateAndGet(liveAfterGc(), Math::max);
+    }
+  }
+}
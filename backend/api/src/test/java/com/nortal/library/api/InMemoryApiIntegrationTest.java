@@ -0,0 +1,7 @@
+package com.nortal.library.api;
+
+import org.springframework.test.context.ActiveProfiles;
+
+/** Runs every {@link ApiIntegrationTest} scenario against the in-memory repositories. */
+@ActiveProfiles("inmemory")
+class InMemoryApiIntegrationTest extends ApiIntegrationTest {}
@@ -0,0 +1,99 @@
+package com.nortal.library.core;
+
+import com.nortal.library.core.domain.Book;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Set;
+
+/**
+ * Filters, order and size of a book search, evaluated by the repository in one query.
+ *
+ * <p>Every non-null filter must hold. Build with {@link #where} and narrow with the {@code with}
+ * methods.
+ *
+ * @param titleContains text the title contains, ignoring case and accents, or null for any title
+ * @param titlePrefix text the title starts with, ignoring case and accents, or null for any title;
+ *     unlike {@code titleContains} a database can answer it from an index on the folded title
+ * @param available true for books not on loan, false for books on loan, null for both
+ * @param loanedTo ID of the borrowing member, or null for any
+ * @param ids the only books eligible (for example the candidates of a title index), or null for
+ *     every book
+ * @param order order of the returned books
+ * @param limit maximum number of books returned
+ */
+public record BookQuery(
+    String titleContains,
+    String titlePrefix,
+    Boolean available,
+    String loanedTo,
+    Set<String> ids,
+    Order order,
+    int limit) {
+
+  /**
+   * Sort orders; both end with the book ID so equal keys come back in a stable order. Titles
+   * compare folded (see {@link Folding}), as the stored title key does.
+   */
+  public enum Order {
+    ID(Comparator.comparing(Book::getId)),
+    TITLE(
+        Comparator.comparing((Book book) -> Folding.fold(book.getTitle()))
+            .thenComparing(Book::getId));
+
+    private final Comparator<Book> comparator;
+
+    Order(Comparator<Book> comparator) {
+      this.comparator = comparator;
+    }
+
+    public Comparator<Book> comparator() {
+      return comparator;
+    }
+  }
+
+  public BookQuery {
+    if (order == null) {
+      throw new IllegalArgumentException("order is required");
+    }
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be >= 1");
+    }
+    ids = ids == null ? null : Set.copyOf(ids);
+  }
+
+  /** All books matching the given filters, by ID; null filters match everything. */
+  public static BookQuery where(String titleContains, Boolean available, String loanedTo) {
+    return new BookQuery(
+        titleContains, null, available, loanedTo, null, Order.ID, Integer.MAX_VALUE);
+  }
+
+  /** This query restricted to books whose title starts with {@code titlePrefix}. */
+  public BookQuery withTitlePrefix(String titlePrefix) {
+    return new BookQuery(titleContains, titlePrefix, available, loanedTo, ids, order, limit);
+  }
+
+  /** This query restricted to the books with the given IDs. */
+  public BookQuery withIds(Collection<String> ids) {
+    return new BookQuery(
+        titleContains, titlePrefix, available, loanedTo, Set.copyOf(ids), order, limit);
+  }
+
+  public BookQuery withOrder(Order order) {
+    return new BookQuery(titleContains, titlePrefix, available, loanedTo, ids, order, limit);
+  }
+
+  public BookQuery withLimit(int limit) {
+    return new BookQuery(titleContains, titlePrefix, available, loanedTo, ids, order, limit);
+  }
+
+  /** Whether {@code book} passes every filter; for repositories that evaluate queries in memory. */
+  public boolean matches(Book book) {
+    return (titleContains == null
+            || Folding.fold(book.getTitle()).contains(Folding.fold(titleContains)))
+        && (titlePrefix == null
+            || Folding.fold(book.getTitle()).startsWith(Folding.fold(titlePrefix)))
+        && (available == null || (book.getLoanedTo() == null) == available)
+        && (loanedTo == null || loanedTo.equals(book.getLoanedTo()))
+        && (ids == null || ids.contains(book.getId()));
+  }
+}
@@ -0,0 +1,18 @@
+package com.nortal.library.core;
+
+import com.nortal.library.core.domain.Book;
+import java.time.LocalDate;
+
+/**
+ * Position in a listing of loaned books ordered by due date and then ID; the next page starts after
+ * it.
+ *
+ * @param dueDate due date of the last book returned
+ * @param bookId ID of the last book returned
+ */
+public record DueDateCursor(LocalDate dueDate, String bookId) {
+
+  public static DueDateCursor after(Book book) {
+    return new DueDateCursor(book.getDueDate(), book.getId());
+  }
+}
@@ -0,0 +1,12 @@
+package com.nortal.library.core;
+
+import com.nortal.library.core.domain.Book;
+import java.util.List;
+
+/**
+ * One page of loaned books ordered by due date and then ID.
+ *
+ * @param books the books on this page
+ * @param next where the following page starts, or null if this is the last page
+ */
+public record DueDatePage(List<Book> books, DueDateCursor next) {}
@@ -81,6 +81,13 @@ public final class ErrorCodes {
   /** Cannot create member because ID already exists. */
   public static final String MEMBER_ALREADY_EXISTS = "MEMBER_ALREADY_EXISTS";
 
+  // Concurrency errors
+  /**
+   * The operation kept colliding with concurrent updates of the same book and gave up after the
+   * configured number of retries. Safe to retry from the client.
+   */
+  public static final String CONCURRENT_UPDATE = "CONCURRENT_UPDATE";
+
   /** Private constructor to prevent instantiation of utility class. */
   private ErrorCodes() {
     throw new UnsupportedOperationException("Utility class - do not instantiate");
@@ -0,0 +1,24 @@
+package com.nortal.library.core;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * The text normalization every title and name search shares: the stored title key, the in-memory
+ * indexes and queries all compare folded text, so they agree on what matches.
+ */
+public final class Folding {
+  private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+  private Folding() {}
+
+  /** Lower-cases {@code text} and removes its accents, so accented and plain spellings match. */
+  public static String fold(String text) {
+    String folded = text;
+    if (!text.chars().allMatch(c -> c < 0x80)) {
+      folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+    }
+    return folded.toLowerCase(Locale.ROOT);
+  }
+}
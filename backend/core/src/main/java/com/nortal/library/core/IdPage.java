@@ -0,0 +1,12 @@
+package com.nortal.library.core;
+
+import java.util.List;
+
+/**
+ * One page of records ordered by ID.
+ *
+ * @param items the records on this page
+ * @param next ID of the last record, to pass as {@code after} for the following page; null if this
+ *     is the last page
+ */
+public record IdPage<T>(List<T> items, String next) {}
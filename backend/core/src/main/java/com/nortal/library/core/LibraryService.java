@@ -1,7 +1,9 @@
 package com.nortal.library.core;
 
+import com.nortal.library.core.concurrent.LoanCommandExecutor;
 import com.nortal.library.core.domain.Book;
 import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.search.Suggestion;
 import com.nortal.library.core.service.BookManagementService;
 import com.nortal.library.core.service.LibraryQueryService;
 import com.nortal.library.core.service.LoanService;
@@ -9,6 +11,7 @@ import com.nortal.library.core.service.MemberManagementService;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Facade service providing a unified interface to all library operations.
@@ -24,22 +27,38 @@ import java.util.Optional;
  *
  * <p>This design follows the Single Responsibility Principle, making each service focused on a
  * specific domain area while maintaining a simple, unified API for consumers.
+ *
+ * <p>Loan commands (borrow, return, reserve, cancel, extend) are dispatched through a {@link
+ * LoanCommandExecutor} keyed by book ID. By default they run inline on the caller's thread; with a
+ * partitioned executor each book's commands are applied by a single writer thread.
  */
 public class LibraryService {
   private final LoanService loanService;
   private final LibraryQueryService queryService;
   private final BookManagementService bookManagement;
   private final MemberManagementService memberManagement;
+  private final LoanCommandExecutor loanExecutor;
 
   public LibraryService(
       LoanService loanService,
       LibraryQueryService queryService,
       BookManagementService bookManagement,
       MemberManagementService memberManagement) {
+    this(
+        loanService, queryService, bookManagement, memberManagement, LoanCommandExecutor.direct());
+  }
+
+  public LibraryService(
+      LoanService loanService,
+      LibraryQueryService queryService,
+      BookManagementService bookManagement,
+      MemberManagementService memberManagement,
+      LoanCommandExecutor loanExecutor) {
     this.loanService = loanService;
     this.queryService = queryService;
     this.bookManagement = bookManagement;
     this.memberManagement = memberManagement;
+    this.loanExecutor = loanExecutor;
   }
 
   // ===== Loan Operations (delegated to LoanService) =====
@@ -50,7 +69,7 @@ public class LibraryService {
    * @see LoanService#borrowBook(String, String)
    */
   public Result borrowBook(String bookId, String memberId) {
-    return loanService.borrowBook(bookId, memberId);
+    return loanExecutor.execute(bookId, () -> loanService.borrowBook(bookId, memberId));
   }
 
   /**
@@ -59,7 +78,7 @@ public class LibraryService {
    * @see LoanService#returnBook(String, String)
    */
   public ResultWithNext returnBook(String bookId, String memberId) {
-    return loanService.returnBook(bookId, memberId);
+    return loanExecutor.execute(bookId, () -> loanService.returnBook(bookId, memberId));
   }
 
   /**
@@ -68,7 +87,7 @@ public class LibraryService {
    * @see LoanService#reserveBook(String, String)
    */
   public Result reserveBook(String bookId, String memberId) {
-    return loanService.reserveBook(bookId, memberId);
+    return loanExecutor.execute(bookId, () -> loanService.reserveBook(bookId, memberId));
   }
 
   /**
@@ -77,7 +96,7 @@ public class LibraryService {
    * @see LoanService#cancelReservation(String, String)
    */
   public Result cancelReservation(String bookId, String memberId) {
-    return loanService.cancelReservation(bookId, memberId);
+    return loanExecutor.execute(bookId, () -> loanService.cancelReservation(bookId, memberId));
   }
 
   /**
@@ -86,7 +105,7 @@ public class LibraryService {
    * @see LoanService#extendLoan(String, String, int)
    */
   public Result extendLoan(String bookId, String memberId, int days) {
-    return loanService.extendLoan(bookId, memberId, days);
+    return loanExecutor.execute(bookId, () -> loanService.extendLoan(bookId, memberId, days));
   }
 
   /**
@@ -109,6 +128,44 @@ public class LibraryService {
     return queryService.searchBooks(titleContains, availableOnly, loanedTo);
   }
 
+  /**
+   * Searches for books based on various criteria, tolerating up to {@code maxEdits} typos per title
+   * word.
+   *
+   * @see LibraryQueryService#searchBooks(String, Boolean, String, int)
+   */
+  public List<Book> searchBooks(
+      String titleContains, Boolean availableOnly, String loanedTo, int maxEdits) {
+    return queryService.searchBooks(titleContains, availableOnly, loanedTo, maxEdits);
+  }
+
+  /**
+   * Ranks books by how well their titles match a free-text query.
+   *
+   * @see LibraryQueryService#searchFullText(String, int)
+   */
+  public List<RankedBook> searchFullText(String query, int limit) {
+    return queryService.searchFullText(query, limit);
+  }
+
+  /**
+   * Suggests books whose title has a word starting with a prefix.
+   *
+   * @see LibraryQueryService#autocompleteBooks(String, int)
+   */
+  public List<Suggestion> autocompleteBooks(String prefix, int limit) {
+    return queryService.autocompleteBooks(prefix, limit);
+  }
+
+  /**
+   * Suggests members whose name has a word starting with a prefix.
+   *
+   * @see LibraryQueryService#autocompleteMembers(String, int)
+   */
+  public List<Suggestion> autocompleteMembers(String prefix, int limit) {
+    return queryService.autocompleteMembers(prefix, limit);
+  }
+
   /**
    * Retrieves all books with due dates before the specified date.
    *
@@ -118,6 +175,24 @@ public class LibraryService {
     return queryService.overdueBooks(today);
   }
 
+  /**
+   * Retrieves one page of overdue books.
+   *
+   * @see LibraryQueryService#overduePage(LocalDate, DueDateCursor, int)
+   */
+  public DueDatePage overduePage(LocalDate today, DueDateCursor after, int limit) {
+    return queryService.overduePage(today, after, limit);
+  }
+
+  /**
+   * Retrieves one page of books due within the next {@code days} days.
+   *
+   * @see LibraryQueryService#dueSoon(LocalDate, int, DueDateCursor, int)
+   */
+  public DueDatePage dueSoon(LocalDate today, int days, DueDateCursor after, int limit) {
+    return queryService.dueSoon(today, days, after, limit);
+  }
+
   /**
    * Retrieves a summary of a member's current loans and reservations.
    *
@@ -154,6 +229,42 @@ public class LibraryService {
     return queryService.allMembers();
   }
 
+  /**
+   * Retrieves one page of books ordered by ID.
+   *
+   * @see LibraryQueryService#booksPage(String, int)
+   */
+  public IdPage<Book> booksPage(String afterId, int limit) {
+    return queryService.booksPage(afterId, limit);
+  }
+
+  /**
+   * Retrieves one page of members ordered by ID.
+   *
+   * @see LibraryQueryService#membersPage(String, int)
+   */
+  public IdPage<Member> membersPage(String afterId, int limit) {
+    return queryService.membersPage(afterId, limit);
+  }
+
+  /**
+   * Passes every book to {@code action} in ID order.
+   *
+   * @see LibraryQueryService#exportBooks(Consumer)
+   */
+  public void exportBooks(Consumer<Book> action) {
+    queryService.exportBooks(action);
+  }
+
+  /**
+   * Passes every member to {@code action} in ID order.
+   *
+   * @see LibraryQueryService#exportMembers(Consumer)
+   */
+  public void exportMembers(Consumer<Member> action) {
+    queryService.exportMembers(action);
+  }
+
   // ===== Book Management (delegated to BookManagementService) =====
 
   /**
@@ -0,0 +1,23 @@
+package com.nortal.library.core;
+
+/**
+ * Everything needed to decide whether a member may borrow or reserve a book, read in one round
+ * trip.
+ *
+ * @param memberExists true if the member exists
+ * @param activeLoans number of books currently loaned to the member
+ * @param inQueue true if the member is waiting in the book's reservation queue
+ */
+public record LoanEligibility(boolean memberExists, long activeLoans, boolean inQueue) {
+  /** Snapshot returned for a member that does not exist. */
+  public static final LoanEligibility UNKNOWN_MEMBER = new LoanEligibility(false, 0, false);
+
+  /**
+   * Returns true if the member exists and is below the borrow limit.
+   *
+   * @param maxLoans maximum number of simultaneous loans per member
+   */
+  public boolean canBorrow(int maxLoans) {
+    return memberExists && activeLoans < maxLoans;
+  }
+}
@@ -1,15 +1,40 @@
 package com.nortal.library.core;
 
-import com.nortal.library.core.domain.Book;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
- * Summary of a member's loans and reservations.
+ * Summary of a member's loans and reservations, carrying the book fields it shows so that no book
+ * has to be loaded to present it.
  *
  * @param ok true if member exists and summary was retrieved
  * @param reason error code if member not found
- * @param loans list of books currently loaned to the member
- * @param reservations list of book reservations with queue positions
+ * @param loans books currently loaned to the member, by book ID
+ * @param reservations book reservations with queue positions, oldest first
  */
 public record MemberSummary(
-    boolean ok, String reason, List<Book> loans, List<ReservationPosition> reservations) {}
+    boolean ok, String reason, List<LoanLine> loans, List<ReservationLine> reservations) {
+
+  /** Summary of an existing member. */
+  public static MemberSummary found(List<LoanLine> loans, List<ReservationLine> reservations) {
+    return new MemberSummary(true, null, loans, reservations);
+  }
+
+  /**
+   * A book on loan to the member.
+   *
+   * @param bookId ID of the book
+   * @param title title of the book
+   * @param dueDate date the loan is due
+   */
+  public record LoanLine(String bookId, String title, LocalDate dueDate) {}
+
+  /**
+   * A book the member is queued for.
+   *
+   * @param bookId ID of the reserved book
+   * @param title title of the book
+   * @param position 0-indexed position in the reservation queue
+   */
+  public record ReservationLine(String bookId, String title, int position) {}
+}
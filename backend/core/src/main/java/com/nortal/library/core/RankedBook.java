@@ -0,0 +1,10 @@
+package com.nortal.library.core;
+
+import com.nortal.library.core.domain.Book;
+
+/**
+ * A book found by a ranked title search.
+ *
+ * @param score BM25 relevance of the title to the query; only comparable within one result list
+ */
+public record RankedBook(Book book, double score) {}
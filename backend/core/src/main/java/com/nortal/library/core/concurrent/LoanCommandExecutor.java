@@ -0,0 +1,39 @@
+package com.nortal.library.core.concurrent;
+
+import java.util.function.Supplier;
+
+/**
+ * Decides on which thread, and in which order, loan commands against a book are applied.
+ *
+ * <p>{@link #direct()} runs every command on the caller's thread and relies on {@link LockManager}
+ * and optimistic versioning for safety. {@link PartitionedLoanExecutor} routes commands to
+ * single-writer partitions by book ID instead.
+ */
+public interface LoanCommandExecutor {
+
+  /**
+   * Applies a command against a book and waits for its result.
+   *
+   * @param bookId the book the command mutates; commands for the same book are never concurrent
+   * @param command the command to apply
+   * @return the command's result
+   */
+  <T> T execute(String bookId, Supplier<T> command);
+
+  /** Returns an executor that runs every command inline on the calling thread. */
+  static LoanCommandExecutor direct() {
+    return DirectLoanExecutor.INSTANCE;
+  }
+
+  /** Inline executor; see {@link LoanCommandExecutor#direct()}. */
+  final class DirectLoanExecutor implements LoanCommandExecutor {
+    private static final DirectLoanExecutor INSTANCE = new DirectLoanExecutor();
+
+    private DirectLoanExecutor() {}
+
+    @Override
+    public <T> T execute(String bookId, Supplier<T> command) {
+      return command.get();
+    }
+  }
+}
@@ -0,0 +1,190 @@
+package com.nortal.library.core.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped in-process locks that serialize loan mutations per book and per member.
+ *
+ * <p>Book IDs and member IDs hash onto two independent arrays of {@link ReentrantLock}s, so memory
+ * stays fixed no matter how many books or members exist, and unrelated keys only contend when they
+ * happen to share a stripe.
+ *
+ * <p><b>Lock order:</b> every caller takes at most one book stripe, and takes it first. Member
+ * stripes are taken afterwards, de-duplicated and in ascending stripe index. Since all threads
+ * acquire in this single global order, no cycle of waiters (and therefore no deadlock) can form.
+ * Locks are reentrant, so nested calls from the same thread are safe.
+ *
+ * <p>Every stripe counts acquisitions, contended acquisitions and time spent waiting, and reports
+ * its current number of waiting threads, which is what is needed to size {@code stripes}.
+ */
+public class LockManager {
+  /** Default number of stripes per key space. */
+  public static final int DEFAULT_STRIPES = 64;
+
+  private final Stripe[] bookStripes;
+  private final Stripe[] memberStripes;
+
+  public LockManager() {
+    this(DEFAULT_STRIPES);
+  }
+
+  /** @param stripes number of stripes per key space; rounded up to a power of two */
+  public LockManager(int stripes) {
+    if (stripes < 1) {
+      throw new IllegalArgumentException("stripes must be at least 1");
+    }
+    int size = Math.max(1, Integer.highestOneBit(stripes - 1) << 1);
+    this.bookStripes = newStripes(size);
+    this.memberStripes = newStripes(size);
+  }
+
+  /**
+   * Runs the action while holding the book's stripe.
+   *
+   * @param bookId the book being mutated
+   * @param action the action to run
+   * @return the action's result
+   */
+  public <T> T withBook(String bookId, Supplier<T> action) {
+    Stripe stripe = stripeFor(bookStripes, bookId);
+    stripe.acquire();
+    try {
+      return action.get();
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  /**
+   * Runs the action while holding the book's stripe and then the member's stripe.
+   *
+   * @param bookId the book being mutated
+   * @param memberId the member whose loan state is read or changed
+   * @param action the action to run
+   * @return the action's result
+   */
+  public <T> T withBookAndMember(String bookId, String memberId, Supplier<T> action) {
+    return withBook(bookId, () -> withMembers(List.of(memberId), action));
+  }
+
+  /**
+   * Runs the action while holding the stripes of all given members, acquired in ascending stripe
+   * order. Callers that also need a book stripe must already hold it.
+   *
+   * @param memberIds members whose loan state is read or changed
+   * @param action the action to run
+   * @return the action's result
+   */
+  public <T> T withMembers(Collection<String> memberIds, Supplier<T> action) {
+    TreeSet<Integer> indexes = new TreeSet<>();
+    for (String memberId : memberIds) {
+      indexes.add(indexFor(memberStripes, memberId));
+    }
+    List<Stripe> held = new ArrayList<>(indexes.size());
+    try {
+      for (int index : indexes) {
+        memberStripes[index].acquire();
+        held.add(memberStripes[index]);
+      }
+      return action.get();
+    } finally {
+      for (int i = held.size() - 1; i >= 0; i--) {
+        held.get(i).lock.unlock();
+      }
+    }
+  }
+
+  /** Returns a snapshot of the contention counters of every stripe. */
+  public Stats stats() {
+    return new Stats(snapshot(bookStripes), snapshot(memberStripes));
+  }
+
+  private static Stripe[] newStripes(int size) {
+    Stripe[] stripes = new Stripe[size];
+    for (int i = 0; i < size; i++) {
+      stripes[i] = new Stripe();
+    }
+    return stripes;
+  }
+
+  private static Stripe stripeFor(Stripe[] stripes, String key) {
+    return stripes[indexFor(stripes, key)];
+  }
+
+  private static int indexFor(Stripe[] stripes, String key) {
+    int h = Objects.hashCode(key);
+    h ^= h >>> 16; // spread high bits, String hashes of similar IDs differ mostly in low bits
+    return h & (stripes.length - 1);
+  }
+
+  private static List<StripeStats> snapshot(Stripe[] stripes) {
+    List<StripeStats> stats = new ArrayList<>(stripes.length);
+    for (int i = 0; i < stripes.length; i++) {
+      Stripe s = stripes[i];
+      stats.add(
+          new StripeStats(
+              i,
+              s.acquisitions.sum(),
+              s.contended.sum(),
+              s.waitNanos.sum(),
+              s.maxWaitNanos.get(),
+              s.lock.getQueueLength()));
+    }
+    return stats;
+  }
+
+  private static final class Stripe {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    void acquire() {
+      acquisitions.increment();
+      if (lock.tryLock()) {
+        return;
+      }
+      long start = System.nanoTime();
+      lock.lock();
+      long waited = System.nanoTime() - start;
+      contended.increment();
+      waitNanos.add(waited);
+      maxWaitNanos.accumulateAndGet(waited, Math::max);
+    }
+  }
+
+  /**
+   * Contention counters of one stripe.
+   *
+   * @param index stripe index
+   * @param acquisitions total lock acquisitions
+   * @param contended acquisitions that had to wait because the stripe was held
+   * @param waitNanos total time spent waiting for the stripe
+   * @param maxWaitNanos longest single wait
+   * @param queueLength threads waiting for the stripe at the time of the snapshot (estimate)
+   */
+  public record StripeStats(
+      int index,
+      long acquisitions,
+      long contended,
+      long waitNanos,
+      long maxWaitNanos,
+      int queueLength) {}
+
+  /**
+   * Contention counters of all stripes.
+   *
+   * @param books book stripes, by index
+   * @param members member stripes, by index
+   */
+  public record Stats(List<StripeStats> books, List<StripeStats> members) {}
+}
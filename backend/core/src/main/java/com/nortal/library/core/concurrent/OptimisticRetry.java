@@ -0,0 +1,100 @@
+package com.nortal.library.core.concurrent;
+
+import com.nortal.library.core.port.ConcurrentUpdateException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Bounded retry loop for read-validate-write operations guarded by optimistic locking.
+ *
+ * <p>An operation is re-executed from scratch whenever a repository reports a {@link
+ * ConcurrentUpdateException}, so every attempt re-reads current state and re-applies the business
+ * rules. Between attempts the caller sleeps for a random duration in {@code [0, base * 2^n]} ("full
+ * jitter"), capped at {@code maxBackoff}, which spreads out threads that collided on the same row
+ * instead of letting them collide again in lock-step.
+ *
+ * <p>When all attempts are exhausted the last exception is rethrown to the caller.
+ */
+public class OptimisticRetry {
+  /** Default number of attempts (including the first) before giving up. */
+  public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+  /** Default backoff before the first retry; doubled on every subsequent retry. */
+  public static final Duration DEFAULT_BASE_BACKOFF = Duration.ofMillis(1);
+
+  /** Default upper bound for a single backoff sleep. */
+  public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofMillis(50);
+
+  private final int maxAttempts;
+  private final long baseBackoffNanos;
+  private final long maxBackoffNanos;
+
+  private final LongAdder executions = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder exhausted = new LongAdder();
+
+  public OptimisticRetry() {
+    this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_BACKOFF, DEFAULT_MAX_BACKOFF);
+  }
+
+  public OptimisticRetry(int maxAttempts, Duration baseBackoff, Duration maxBackoff) {
+    if (maxAttempts < 1) {
+      throw new IllegalArgumentException("maxAttempts must be at least 1");
+    }
+    this.maxAttempts = maxAttempts;
+    this.baseBackoffNanos = baseBackoff.toNanos();
+    this.maxBackoffNanos = maxBackoff.toNanos();
+  }
+
+  /**
+   * Runs the operation, retrying it while it fails with {@link ConcurrentUpdateException}.
+   *
+   * @param operation the complete read-validate-write unit; must be safe to re-execute
+   * @return the result of the first attempt that did not hit a concurrent update
+   * @throws ConcurrentUpdateException if every attempt hit a concurrent update
+   */
+  public <T> T execute(Supplier<T> operation) {
+    executions.increment();
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return operation.get();
+      } catch (ConcurrentUpdateException e) {
+        if (attempt >= maxAttempts) {
+          exhausted.increment();
+          throw e;
+        }
+        retries.increment();
+        backoff(attempt);
+      }
+    }
+  }
+
+  private void backoff(int attempt) {
+    long ceiling = Math.min(maxBackoffNanos, baseBackoffNanos << Math.min(attempt - 1, 20));
+    if (ceiling > 0) {
+      LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+  }
+
+  /** Returns a snapshot of the cumulative retry counters. */
+  public Stats stats() {
+    return new Stats(executions.sum(), retries.sum(), exhausted.sum());
+  }
+
+  /**
+   * Cumulative retry counters.
+   *
+   * @param executions operations started through {@link #execute(Supplier)}
+   * @param retries attempts that were repeated after a concurrent update
+   * @param exhausted operations that failed after using up every attempt
+   */
+  public record Stats(long executions, long retries, long exhausted) {
+    /** Average number of retries per operation, or 0 when nothing has run yet. */
+    public double retryRate() {
+      return executions == 0 ? 0.0 : (double) retries / executions;
+    }
+  }
+}
@@ -0,0 +1,227 @@
+package com.nortal.library.core.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer executor that routes loan commands to partitions by book ID.
+ *
+ * <p>Each partition owns a mailbox and one dedicated thread. All commands for a given book hash to
+ * the same partition and are therefore applied strictly in submission order, one at a time, without
+ * any lock being contended for the book. Different books spread over the partitions, so independent
+ * work scales with the number of partitions (typically the number of cores).
+ *
+ * <p>Each time a partition thread wakes up it drains up to {@code maxBatch} queued commands at once
+ * and applies them back to back, which amortizes the wake-up cost when a partition is busy. Callers
+ * are completed through {@link CompletableFuture}: {@link #submit} returns immediately, {@link
+ * #execute} waits.
+ *
+ * <p>Commands must not block on other partitions. A command that submits work to its own partition
+ * is run inline instead of deadlocking on itself.
+ */
+public class PartitionedLoanExecutor implements LoanCommandExecutor, AutoCloseable {
+  /** Default maximum number of commands applied per mailbox drain. */
+  public static final int DEFAULT_MAX_BATCH = 64;
+
+  private final Partition[] partitions;
+  private final int maxBatch;
+  private volatile boolean closed;
+
+  /**
+   * @param partitions number of partitions (and writer threads)
+   * @param maxBatch maximum number of commands applied per mailbox drain
+   */
+  public PartitionedLoanExecutor(int partitions, int maxBatch) {
+    if (partitions < 1 || maxBatch < 1) {
+      throw new IllegalArgumentException("partitions and maxBatch must be at least 1");
+    }
+    this.maxBatch = maxBatch;
+    this.partitions = new Partition[partitions];
+    for (int i = 0; i < partitions; i++) {
+      this.partitions[i] = new Partition(i);
+      this.partitions[i].thread.start();
+    }
+  }
+
+  /**
+   * Queues a command on the book's partition.
+   *
+   * @param bookId the book the command mutates
+   * @param command the command to apply
+   * @return a future completed with the command's result, or exceptionally with what it threw
+   */
+  public <T> CompletableFuture<T> submit(String bookId, Supplier<T> command) {
+    Partition partition = partitionFor(bookId);
+    if (Thread.currentThread() == partition.thread) {
+      return runInline(command);
+    }
+    if (closed) {
+      throw new RejectedExecutionException("Loan executor is closed");
+    }
+    Command<T> queued = new Command<>(command);
+    partition.mailbox.add(queued);
+    // close() may have run between the check and the add, and the partition thread may already
+    // have made its final drain. Whoever takes the command out of the mailbox completes it.
+    if (closed && partition.mailbox.remove(queued)) {
+      queued.rejectClosed();
+    }
+    return queued.result;
+  }
+
+  @Override
+  public <T> T execute(String bookId, Supplier<T> command) {
+    try {
+      return submit(bookId, command).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw e;
+    }
+  }
+
+  /** Stops the partition threads once their mailboxes are empty. */
+  @Override
+  public void close() {
+    closed = true;
+    for (Partition partition : partitions) {
+      partition.mailbox.add(Command.POISON);
+    }
+    for (Partition partition : partitions) {
+      try {
+        partition.thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /** Returns a snapshot of the per-partition counters. */
+  public Stats stats() {
+    List<PartitionStats> stats = new ArrayList<>(partitions.length);
+    for (Partition p : partitions) {
+      stats.add(
+          new PartitionStats(
+              p.index, p.commands.sum(), p.batches.sum(), p.maxBatchSeen.get(), p.mailbox.size()));
+    }
+    return new Stats(stats);
+  }
+
+  private Partition partitionFor(String bookId) {
+    int h = Objects.hashCode(bookId);
+    h ^= h >>> 16;
+    return partitions[Math.floorMod(h, partitions.length)];
+  }
+
+  private static <T> CompletableFuture<T> runInline(Supplier<T> command) {
+    try {
+      return CompletableFuture.completedFuture(command.get());
+    } catch (RuntimeException | Error e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private final class Partition {
+    private final int index;
+    private final BlockingQueue<Command<?>> mailbox = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicLong maxBatchSeen = new AtomicLong();
+
+    Partition(int index) {
+      this.index = index;
+      this.thread = new Thread(this::drainLoop, "loan-partition-" + index);
+      this.thread.setDaemon(true);
+    }
+
+    private void drainLoop() {
+      List<Command<?>> batch = new ArrayList<>(maxBatch);
+      while (true) {
+        try {
+          batch.add(mailbox.take());
+        } catch (InterruptedException e) {
+          return;
+        }
+        mailbox.drainTo(batch, maxBatch - 1);
+        batches.increment();
+        maxBatchSeen.accumulateAndGet(batch.size(), Math::max);
+        for (Command<?> command : batch) {
+          if (command == Command.POISON) {
+            rejectRemaining(batch);
+            return;
+          }
+          command.run();
+          commands.increment();
+        }
+        batch.clear();
+      }
+    }
+
+    /**
+     * Fails the commands queued behind the poison pill. A command added after this final drain is
+     * not seen here; its submitter finds {@code closed} set and takes it back out itself.
+     */
+    private void rejectRemaining(List<Command<?>> batch) {
+      mailbox.drainTo(batch);
+      for (Command<?> command : batch) {
+        command.rejectClosed();
+      }
+    }
+  }
+
+  private static final class Command<T> {
+    private static final Command<Void> POISON = new Command<>(() -> null);
+
+    private final Supplier<T> action;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+
+    Command(Supplier<T> action) {
+      this.action = action;
+    }
+
+    void run() {
+      try {
+        result.complete(action.get());
+      } catch (RuntimeException | Error e) {
+        result.completeExceptionally(e);
+      }
+    }
+
+    void rejectClosed() {
+      result.completeExceptionally(new RejectedExecutionException("Loan executor is closed"));
+    }
+  }
+
+  /**
+   * Counters of one partition.
+   *
+   * @param index partition index
+   * @param commands commands applied
+   * @param batches mailbox drains; {@code commands / batches} is the average batch size
+   * @param maxBatch largest number of commands applied in one drain
+   * @param queued commands waiting in the mailbox at the time of the snapshot
+   */
+  public record PartitionStats(
+      int index, long commands, long batches, long maxBatch, int queued) {}
+
+  /**
+   * Counters of all partitions.
+   *
+   * @param partitions per-partition counters, by index
+   */
+  public record Stats(List<PartitionStats> partitions) {}
+}
@@ -1,16 +1,17 @@
 package com.nortal.library.core.domain;
 
-import jakarta.persistence.CollectionTable;
+import com.nortal.library.core.Folding;
 import jakarta.persistence.Column;
-import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.OrderColumn;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -26,16 +27,23 @@ import lombok.Setter;
  *       may contain members
  * </ul>
  *
- * <p>The reservation queue is maintained as a FIFO (First-In-First-Out) ordered list. When a book
- * is returned, the system automatically attempts to loan it to the first eligible member in the
- * queue.
+ * <p>The reservation queue is maintained as a FIFO (First-In-First-Out) queue of {@link
+ * Reservation} rows. When a book is returned, the system automatically attempts to loan it to the
+ * first eligible member in the queue.
  *
  * <p><b>Design Note:</b> Loan information is embedded directly in the Book entity rather than
  * maintained as a separate Loan entity. This simplifies the domain model but means that loan
  * history is not preserved.
  */
 @Entity
-@Table(name = "books")
+// Overdue and due-soon queries are range scans on due date, paged by (due date, id); title
+// prefix lookups and title-ordered listings range-scan the folded title key
+@Table(
+    name = "books",
+    indexes = {
+      @Index(name = "idx_books_due_date", columnList = "due_date, id"),
+      @Index(name = "idx_books_title_key", columnList = "title_key, id")
+    })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -48,6 +56,19 @@ public class Book {
   @Column(nullable = false)
   private String title;
 
+  /**
+   * The title lower-cased and stripped of accents (see {@link Folding}), recomputed on every insert
+   * and update.
+   *
+   * <p>Title searches compare against this column, so the database neither lower-cases each title
+   * per query nor needs a function-based index, and its index serves prefix lookups and
+   * title-ordered scans. It is a storage detail and not part of the domain model.
+   */
+  @Column(name = "title_key", nullable = false)
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private String titleKey;
+
   /**
    * ID of the member who currently has this book on loan.
    *
@@ -84,18 +105,24 @@ public class Book {
   /**
    * FIFO queue of member IDs waiting to borrow this book.
    *
-   * <p>Members are added to the end of the queue when they reserve the book. The member at position
-   * 0 has priority to borrow the book when it becomes available. The queue is automatically
-   * processed when a book is returned, loaning it to the first eligible member.
+   * <p>Members are added to the end of the queue when they reserve the book. The member at the head
+   * has priority to borrow the book when it becomes available. The queue is automatically processed
+   * when a book is returned, loaning it to the first eligible member.
+   *
+   * <p>The queue is not mapped as a collection of this entity. Each entry is a {@link Reservation}
+   * row; the repository loads the queue alongside the book and writes only the rows that were added
+   * or removed, so enqueue, dequeue and cancel never rewrite the rest of the queue.
+   */
+  @Transient private ReservationQueue reservationQueue = new ReservationQueue();
+
+  /**
+   * Optimistic-locking version, incremented on every update of the book row.
    *
-   * <p>Position in the queue is maintained via {@code @OrderColumn} to preserve FIFO ordering
-   * across database operations.
+   * <p>Two concurrent loan mutations that read the same version cannot both commit: the second save
+   * is rejected and {@code LoanService} re-runs the operation against fresh state. A null version
+   * marks a book that has not been persisted yet.
    */
-  @ElementCollection
-  @CollectionTable(name = "book_reservations", joinColumns = @JoinColumn(name = "book_id"))
-  @OrderColumn(name = "position")
-  @Column(name = "member_id")
-  private List<String> reservationQueue = new ArrayList<>();
+  @Version private Long version;
 
   /**
    * Constructs a new Book with the specified ID and title.
@@ -110,4 +137,10 @@ public class Book {
     this.id = id;
     this.title = title;
   }
+
+  @PrePersist
+  @PreUpdate
+  void foldTitle() {
+    titleKey = Folding.fold(title);
+  }
 }
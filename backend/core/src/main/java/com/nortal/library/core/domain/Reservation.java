@@ -0,0 +1,62 @@
+package com.nortal.library.core.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Domain entity representing one member waiting in one book's reservation queue.
+ *
+ * <p>Each reservation is a single row. Enqueueing inserts a row, and dequeueing the head or
+ * cancelling deletes one; no other reservation of the book is touched.
+ *
+ * <p><b>Design Note:</b> Queue order is not stored. Reservation ids come from a monotonically
+ * increasing sequence, so a book's reservations ordered by id are in FIFO order, and a member's
+ * position is the number of reservations for the same book with a smaller id.
+ */
+@Entity
+@Table(name = "reservations")
+@Getter
+@Setter
+@NoArgsConstructor
+public class Reservation {
+
+  /**
+   * Sequence-allocated identifier that also defines queue order.
+   *
+   * <p>Null until the reservation has been persisted.
+   */
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservation_seq")
+  @SequenceGenerator(
+      name = "reservation_seq",
+      sequenceName = "reservation_seq",
+      allocationSize = 50)
+  private Long id;
+
+  /** ID of the reserved book. Assigned by the repository when the reservation is persisted. */
+  @Column(name = "book_id", nullable = false)
+  private String bookId;
+
+  /** ID of the waiting member. */
+  @Column(name = "member_id", nullable = false)
+  private String memberId;
+
+  /**
+   * Constructs a new, not yet persisted reservation.
+   *
+   * @param bookId ID of the reserved book, or null if not yet known
+   * @param memberId ID of the waiting member
+   */
+  public Reservation(String bookId, String memberId) {
+    this.bookId = bookId;
+    this.memberId = memberId;
+  }
+}
@@ -0,0 +1,305 @@
+package com.nortal.library.core.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * FIFO queue of members waiting to borrow a book.
+ *
+ * <p>The queue is backed by one {@link Reservation} per member, kept in id order. Positions are
+ * never stored; a member's position is the number of entries ahead of it.
+ *
+ * <p>Every change is recorded as a pending insert or delete so that the repository can persist an
+ * enqueue, dequeue or cancel as a single-row write instead of rewriting the whole queue. The
+ * repository reads the pending changes on save and then calls {@link #markPersisted()}.
+ *
+ * <p><b>Implementation:</b> entries occupy slots in arrival order and are never shifted; removing
+ * an entry only empties its slot. A hash index maps each member to its slot, and a Fenwick tree
+ * counts occupied slots, so that:
+ *
+ * <ul>
+ *   <li>{@link #contains}, {@link #peek} and {@link #size} are O(1)
+ *   <li>{@link #add} is O(1) amortized: the new slot's tree node is summed from its children, of
+ *       which there are O(1) on average over consecutive slots
+ *   <li>{@link #indexOf} (the member's rank among occupied slots) is O(log n)
+ *   <li>{@link #remove} from anywhere and {@link #poll} are O(log n)
+ * </ul>
+ *
+ * <p>Slots are compacted once more than half of them are empty, which keeps memory proportional to
+ * the number of waiting members. Instances are not thread-safe.
+ */
+public class ReservationQueue implements Iterable<String> {
+  private static final int INITIAL_CAPACITY = 8;
+
+  /** Entries by slot; null marks a removed entry. Slots {@code [head, end)} are in use. */
+  private Reservation[] slots = new Reservation[INITIAL_CAPACITY];
+
+  /** Fenwick tree over slots (1-based): {@code tree[i]} counts occupied slots in its range. */
+  private int[] tree = new int[INITIAL_CAPACITY + 1];
+
+  private final Map<String, Integer> slotByMember = new HashMap<>();
+  private int head;
+  private int end;
+
+  private final Set<Reservation> pendingInserts = new LinkedHashSet<>();
+  private final List<Reservation> pendingDeletes = new ArrayList<>();
+
+  /** Creates an empty queue. */
+  public ReservationQueue() {}
+
+  /**
+   * Restores a queue from persisted reservations.
+   *
+   * @param reservations the book's reservations ordered by id (oldest first)
+   * @return a queue with no pending changes
+   */
+  public static ReservationQueue restore(List<Reservation> reservations) {
+    ReservationQueue queue = new ReservationQueue();
+    for (Reservation reservation : reservations) {
+      queue.append(reservation);
+    }
+    return queue;
+  }
+
+  /**
+   * Creates a queue holding the given members in order, all as pending inserts.
+   *
+   * @param memberIds member IDs, head first
+   * @return the new queue
+   */
+  public static ReservationQueue of(String... memberIds) {
+    ReservationQueue queue = new ReservationQueue();
+    for (String memberId : memberIds) {
+      queue.add(memberId);
+    }
+    return queue;
+  }
+
+  /** Returns true if nobody is waiting. */
+  public boolean isEmpty() {
+    return slotByMember.isEmpty();
+  }
+
+  /** Returns the number of waiting members. */
+  public int size() {
+    return slotByMember.size();
+  }
+
+  /** Returns true if the member is waiting in this queue. */
+  public boolean contains(String memberId) {
+    return slotByMember.containsKey(memberId);
+  }
+
+  /**
+   * Returns the member's 0-indexed position, i.e. the number of members ahead of it.
+   *
+   * @return the position, or -1 if the member is not in the queue
+   */
+  public int indexOf(String memberId) {
+    Integer slot = slotByMember.get(memberId);
+    return slot == null ? -1 : occupiedUpTo(slot) - 1;
+  }
+
+  /** Returns the member at the head of the queue without removing it, or null if empty. */
+  public String peek() {
+    return isEmpty() ? null : slots[head].getMemberId();
+  }
+
+  /**
+   * Returns up to {@code limit} members from the head of the queue without removing them.
+   *
+   * @param limit maximum number of members to return
+   * @return member IDs, head first
+   */
+  public List<String> peek(int limit) {
+    List<String> memberIds = new ArrayList<>(Math.min(limit, size()));
+    for (int i = head; i < end && memberIds.size() < limit; i++) {
+      if (slots[i] != null) {
+        memberIds.add(slots[i].getMemberId());
+      }
+    }
+    return memberIds;
+  }
+
+  /** Removes and returns the member at the head of the queue, or null if empty. */
+  public String poll() {
+    if (isEmpty()) {
+      return null;
+    }
+    Reservation first = slots[head];
+    vacate(head);
+    return first.getMemberId();
+  }
+
+  /**
+   * Appends a member to the tail of the queue.
+   *
+   * @return true if added, false if the member was already waiting
+   */
+  public boolean add(String memberId) {
+    if (contains(memberId)) {
+      return false;
+    }
+    Reservation reservation = new Reservation(null, memberId);
+    append(reservation);
+    pendingInserts.add(reservation);
+    return true;
+  }
+
+  /**
+   * Removes a member from anywhere in the queue.
+   *
+   * @return true if the member was waiting and has been removed
+   */
+  public boolean remove(String memberId) {
+    Integer slot = slotByMember.get(memberId);
+    if (slot == null) {
+      return false;
+    }
+    vacate(slot);
+    return true;
+  }
+
+  /** Returns the waiting member IDs, head first. */
+  public List<String> memberIds() {
+    List<String> memberIds = new ArrayList<>(size());
+    for (int i = head; i < end; i++) {
+      if (slots[i] != null) {
+        memberIds.add(slots[i].getMemberId());
+      }
+    }
+    return memberIds;
+  }
+
+  /** Returns the waiting members' reservations, head first. */
+  public List<Reservation> reservations() {
+    List<Reservation> reservations = new ArrayList<>(size());
+    for (int i = head; i < end; i++) {
+      if (slots[i] != null) {
+        reservations.add(slots[i]);
+      }
+    }
+    return reservations;
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    return memberIds().iterator();
+  }
+
+  // ===== Persistence support =====
+
+  /** Returns true if the queue changed since it was restored or last persisted. */
+  public boolean hasPendingChanges() {
+    return !pendingInserts.isEmpty() || !pendingDeletes.isEmpty();
+  }
+
+  /** Reservations added since the last save; their ids are assigned when they are persisted. */
+  public List<Reservation> pendingInserts() {
+    return List.copyOf(pendingInserts);
+  }
+
+  /** Previously persisted reservations removed since the last save. */
+  public List<Reservation> pendingDeletes() {
+    return List.copyOf(pendingDeletes);
+  }
+
+  /** Clears the pending changes after the repository has written them. */
+  public void markPersisted() {
+    pendingInserts.clear();
+    pendingDeletes.clear();
+  }
+
+  // ===== Slot management =====
+
+  private void append(Reservation reservation) {
+    if (end == slots.length) {
+      if (size() <= slots.length / 2) {
+        compact();
+      } else {
+        grow();
+      }
+    }
+    int slot = end++;
+    slots[slot] = reservation;
+    slotByMember.put(reservation.getMemberId(), slot);
+    // The new last slot's node covers (i - lowbit(i), i]: itself plus its children i - 1, i - 2,
+    // i - 4, ... i - lowbit(i) / 2. That is trailing-zeros(i) reads, O(1) on average over slots.
+    int i = slot + 1;
+    int count = 1;
+    for (int child = 1; child < (i & -i); child <<= 1) {
+      count += tree[i - child];
+    }
+    tree[i] = count;
+  }
+
+  private void vacate(int slot) {
+    Reservation reservation = slots[slot];
+    slots[slot] = null;
+    slotByMember.remove(reservation.getMemberId());
+    for (int i = slot + 1; i < tree.length; i += i & -i) {
+      tree[i]--;
+    }
+    while (head < end && slots[head] == null) {
+      head++;
+    }
+    // A reservation that was never written just disappears; a persisted one must be deleted
+    if (!pendingInserts.remove(reservation)) {
+      pendingDeletes.add(reservation);
+    }
+    if (end - head > INITIAL_CAPACITY && size() < (end - head) / 2) {
+      compact();
+    }
+  }
+
+  /** Number of occupied slots in {@code [0, slot]}, i.e. the 1-based rank of an occupied slot. */
+  private int occupiedUpTo(int slot) {
+    return prefix(slot + 1);
+  }
+
+  private int prefix(int i) {
+    int sum = 0;
+    for (; i > 0; i -= i & -i) {
+      sum += tree[i];
+    }
+    return sum;
+  }
+
+  private void grow() {
+    slots = Arrays.copyOf(slots, slots.length * 2);
+    rebuildTree();
+  }
+
+  /** Moves occupied slots to the front in order and rebuilds the index and tree in O(n). */
+  private void compact() {
+    int next = 0;
+    for (int i = head; i < end; i++) {
+      if (slots[i] != null) {
+        slots[next] = slots[i];
+        slotByMember.put(slots[next].getMemberId(), next);
+        next++;
+      }
+    }
+    Arrays.fill(slots, next, end, null);
+    head = 0;
+    end = next;
+    rebuildTree();
+  }
+
+  private void rebuildTree() {
+    tree = new int[slots.length + 1];
+    for (int i = 1; i <= end; i++) {
+      tree[i] += slots[i - 1] == null ? 0 : 1;
+      int parent = i + (i & -i);
+      if (parent < tree.length) {
+        tree[parent] += tree[i];
+      }
+    }
+  }
+}
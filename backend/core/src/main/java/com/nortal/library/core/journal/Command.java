@@ -0,0 +1,39 @@
+package com.nortal.library.core.journal;
+
+import java.time.Instant;
+
+/**
+ * One applied library command as recorded in the {@link CommandLog}.
+ *
+ * <p>Fields are positional so that every command type shares one compact binary layout:
+ *
+ * <ul>
+ *   <li>loan commands: {@code key} is the book ID, {@code value} the member ID ({@code null} for a
+ *       return without a member) and {@code days} the extension for {@link Type#EXTEND_LOAN}
+ *   <li>book commands: {@code key} is the book ID and {@code value} the title
+ *   <li>member commands: {@code key} is the member ID and {@code value} the name
+ * </ul>
+ *
+ * @param type what was applied
+ * @param appliedAt the instant the command was applied; replay runs it with the same clock
+ * @param key the ID of the book or member the command targets
+ * @param value the second argument, or null if the command has none
+ * @param days extension days for {@link Type#EXTEND_LOAN}, otherwise 0
+ */
+public record Command(Type type, Instant appliedAt, String key, String value, int days) {
+
+  /** Command types; the ordinal is the type byte in the log, so only append new constants. */
+  public enum Type {
+    BORROW,
+    RETURN,
+    RESERVE,
+    CANCEL_RESERVATION,
+    EXTEND_LOAN,
+    CREATE_BOOK,
+    UPDATE_BOOK,
+    DELETE_BOOK,
+    CREATE_MEMBER,
+    UPDATE_MEMBER,
+    DELETE_MEMBER
+  }
+}
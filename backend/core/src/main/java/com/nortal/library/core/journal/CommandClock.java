@@ -0,0 +1,58 @@
+package com.nortal.library.core.journal;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Clock that can be pinned to a fixed instant while a command is applied.
+ *
+ * <p>{@link JournaledLibraryService} pins it to the instant it records for each command, both when
+ * the command first runs and when it is replayed, so that due dates computed from "today" come out
+ * the same on recovery. While unpinned it reads the underlying clock.
+ */
+public class CommandClock extends Clock {
+  private final Clock base;
+  private volatile Instant pinned;
+
+  public CommandClock(Clock base) {
+    this.base = base;
+  }
+
+  /**
+   * Pins the clock to the current instant of the underlying clock, at the millisecond precision the
+   * log records, and returns that instant.
+   */
+  Instant pinNow() {
+    Instant now = base.instant().truncatedTo(ChronoUnit.MILLIS);
+    pinned = now;
+    return now;
+  }
+
+  /** Pins the clock to the given instant. */
+  void pin(Instant instant) {
+    pinned = instant;
+  }
+
+  /** Releases the pin; the clock follows the underlying clock again. */
+  void unpin() {
+    pinned = null;
+  }
+
+  @Override
+  public Instant instant() {
+    Instant instant = pinned;
+    return instant != null ? instant : base.instant();
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return base.getZone();
+  }
+
+  @Override
+  public Clock withZone(ZoneId zone) {
+    return new CommandClock(base.withZone(zone));
+  }
+}
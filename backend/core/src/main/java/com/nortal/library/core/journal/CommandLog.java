@@ -0,0 +1,405 @@
+package com.nortal.library.core.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, length-prefixed binary log of applied commands, written through a {@link
+ * FileChannel}.
+ *
+ * <p>Each record is {@code [int length][int crc32][payload]}, where the payload holds the command
+ * type byte, the applied-at epoch millis, the two string arguments (int byte length, -1 for null,
+ * then UTF-8 bytes) and the day count. On {@link #replay} the log is read front to back; the first
+ * record that is incomplete or fails its checksum marks a write torn by a crash, and the log is
+ * truncated there so new records follow the last intact one.
+ *
+ * <p>Durability is governed by the {@link FsyncPolicy}:
+ *
+ * <ul>
+ *   <li>{@link FsyncPolicy#ALWAYS}: every append is forced to disk before it returns
+ *   <li>{@link FsyncPolicy#GROUP}: a flusher thread forces the log every {@code groupCommit}
+ *       interval; {@link #awaitDurable} blocks until the caller's record is covered, so concurrent
+ *       writers share one fsync
+ *   <li>{@link FsyncPolicy#OS}: the operating system decides when pages are written; only {@link
+ *       #close()} forces the log
+ * </ul>
+ *
+ * <p>Appends are serialized; the sequence number returned by {@link #append} is the record's
+ * 1-based position in this session.
+ */
+public class CommandLog implements AutoCloseable {
+  /** Upper bound on a record payload; anything larger is treated as corruption. */
+  private static final int MAX_RECORD_BYTES = 1 << 20;
+
+  private static final int HEADER_BYTES = 8;
+  private static final int READ_CHUNK_BYTES = 1 << 20;
+
+  /** When appended records are forced to disk. */
+  public enum FsyncPolicy {
+    ALWAYS,
+    GROUP,
+    OS
+  }
+
+  private final FileChannel channel;
+  private final FsyncPolicy policy;
+  private final Thread flusher;
+
+  private final CRC32 crc = new CRC32();
+  private ByteBuffer record = ByteBuffer.allocate(256);
+
+  // Guarded by this
+  private long written;
+  private long bytes;
+  private long end;
+  private boolean closed;
+
+  private final Object durableMonitor = new Object();
+  private volatile long durable;
+  private final LongAdder fsyncs = new LongAdder();
+  private volatile IOException failure;
+
+  private CommandLog(FileChannel channel, FsyncPolicy policy, Duration groupCommit) {
+    this.channel = channel;
+    this.policy = policy;
+    if (policy == FsyncPolicy.GROUP) {
+      long intervalNanos = groupCommit.toNanos();
+      if (intervalNanos <= 0) {
+        throw new IllegalArgumentException("groupCommit must be positive");
+      }
+      this.flusher = new Thread(() -> flushEvery(intervalNanos), "command-log-flusher");
+      this.flusher.setDaemon(true);
+      this.flusher.start();
+    } else {
+      this.flusher = null;
+    }
+  }
+
+  /**
+   * Opens (creating if needed) the log at {@code path}. New records are appended after the current
+   * end; call {@link #replay} first to recover state and discard a torn tail.
+   *
+   * @param groupCommit flush interval for {@link FsyncPolicy#GROUP}; ignored otherwise
+   */
+  public static CommandLog open(Path path, FsyncPolicy policy, Duration groupCommit)
+      throws IOException {
+    FileChannel channel =
+        FileChannel.open(
+            path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    channel.position(channel.size());
+    CommandLog log = new CommandLog(channel, policy, groupCommit);
+    log.end = channel.size();
+    return log;
+  }
+
+  // ===== Writing =====
+
+  /**
+   * Appends one command and, under {@link FsyncPolicy#ALWAYS}, forces it to disk.
+   *
+   * @return the record's sequence number, to pass to {@link #awaitDurable}
+   * @throws UncheckedIOException if the write fails
+   */
+  public synchronized long append(Command command) {
+    if (closed) {
+      throw new IllegalStateException("Command log is closed");
+    }
+    try {
+      ByteBuffer buffer = encode(command);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      bytes += buffer.limit();
+      end += buffer.limit();
+      written++;
+      if (policy == FsyncPolicy.ALWAYS) {
+        channel.force(false);
+        fsyncs.increment();
+        markDurable(written);
+      }
+      return written;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to append to command log", e);
+    }
+  }
+
+  /**
+   * Blocks until the record with the given sequence number is on disk. Returns immediately unless
+   * the policy is {@link FsyncPolicy#GROUP}.
+   *
+   * @throws UncheckedIOException if the flusher failed to force the log
+   */
+  public void awaitDurable(long sequence) {
+    if (policy != FsyncPolicy.GROUP) {
+      return;
+    }
+    synchronized (durableMonitor) {
+      while (durable < sequence && failure == null) {
+        try {
+          durableMonitor.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrupted while waiting for group commit", e);
+        }
+      }
+    }
+    if (durable < sequence) {
+      throw new UncheckedIOException("Command log flush failed", failure);
+    }
+  }
+
+  private void flushEvery(long intervalNanos) {
+    while (!Thread.currentThread().isInterrupted()) {
+      LockSupport.parkNanos(intervalNanos);
+      try {
+        flush();
+      } catch (IOException e) {
+        failure = e;
+        synchronized (durableMonitor) {
+          durableMonitor.notifyAll();
+        }
+        return;
+      }
+    }
+  }
+
+  /** Forces everything written so far and releases the writers waiting for it. */
+  private void flush() throws IOException {
+    long target;
+    synchronized (this) {
+      target = written;
+    }
+    if (target > durable) {
+      channel.force(false);
+      fsyncs.increment();
+      markDurable(target);
+    }
+  }
+
+  /**
+   * Forces everything appended so far to disk, whatever the policy.
+   *
+   * @throws IOException if the log cannot be forced
+   */
+  public void sync() throws IOException {
+    flush();
+  }
+
+  /**
+   * Returns the file offset the next record will be written at, i.e. the end of the last intact
+   * record once {@link #replay} has run.
+   */
+  public synchronized long position() {
+    return end;
+  }
+
+  private void markDurable(long sequence) {
+    synchronized (durableMonitor) {
+      durable = sequence;
+      durableMonitor.notifyAll();
+    }
+  }
+
+  private ByteBuffer encode(Command command) {
+    byte[] key = utf8(command.key());
+    byte[] value = utf8(command.value());
+    int payload = 1 + 8 + 4 + length(key) + 4 + length(value) + 4;
+    if (payload > MAX_RECORD_BYTES) {
+      throw new IllegalArgumentException("Command exceeds " + MAX_RECORD_BYTES + " bytes");
+    }
+    if (record.capacity() < HEADER_BYTES + payload) {
+      record = ByteBuffer.allocate(Integer.highestOneBit(HEADER_BYTES + payload) << 1);
+    }
+    record.clear();
+    record.putInt(payload).putInt(0);
+    record.put((byte) command.type().ordinal());
+    record.putLong(command.appliedAt().toEpochMilli());
+    putBytes(record, key);
+    putBytes(record, value);
+    record.putInt(command.days());
+    crc.reset();
+    crc.update(record.array(), HEADER_BYTES, payload);
+    record.putInt(4, (int) crc.getValue());
+    return record.flip();
+  }
+
+  private static byte[] utf8(String value) {
+    return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static int length(byte[] value) {
+    return value == null ? 0 : value.length;
+  }
+
+  private static void putBytes(ByteBuffer buffer, byte[] value) {
+    if (value == null) {
+      buffer.putInt(-1);
+    } else {
+      buffer.putInt(value.length).put(value);
+    }
+  }
+
+  // ===== Recovery =====
+
+  /**
+   * Reads every intact record from the start of the log and hands it to {@code apply}, then
+   * truncates a torn tail. Must be called before the first {@link #append}.
+   *
+   * @return what was read and how long it took
+   */
+  public ReplayStats replay(Consumer<Command> apply) throws IOException {
+    return replay(0, apply);
+  }
+
+  /**
+   * Like {@link #replay(Consumer)}, but starts at {@code from}, a {@link #position()} recorded
+   * earlier (for example by a snapshot that already contains the effects of all records before it).
+   *
+   * @throws IllegalStateException if {@code from} lies beyond the end of the log
+   */
+  public synchronized ReplayStats replay(long from, Consumer<Command> apply) throws IOException {
+    if (written > 0) {
+      throw new IllegalStateException("Replay must happen before the first append");
+    }
+    long started = System.nanoTime();
+    long size = channel.size();
+    if (from < 0 || from > size) {
+      throw new IllegalStateException(
+          "Replay position " + from + " is outside the log (" + size + " bytes)");
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(READ_CHUNK_BYTES);
+    long filePosition = from;
+    long validEnd = from;
+    long commands = 0;
+    CRC32 check = new CRC32();
+
+    read:
+    while (true) {
+      boolean eof = filePosition >= size || channel.read(buffer, filePosition) < 0;
+      filePosition = validEnd + buffer.position();
+      buffer.flip();
+      while (buffer.remaining() >= HEADER_BYTES) {
+        int start = buffer.position();
+        int payload = buffer.getInt(start);
+        if (payload <= 0 || payload > MAX_RECORD_BYTES) {
+          break read;
+        }
+        if (buffer.remaining() < HEADER_BYTES + payload) {
+          if (buffer.capacity() < HEADER_BYTES + payload) {
+            buffer = ByteBuffer.allocate(HEADER_BYTES + payload).put(buffer).flip();
+          }
+          break;
+        }
+        check.reset();
+        check.update(buffer.array(), start + HEADER_BYTES, payload);
+        if ((int) check.getValue() != buffer.getInt(start + 4)) {
+          break read;
+        }
+        buffer.position(start + HEADER_BYTES);
+        apply.accept(decode(buffer));
+        buffer.position(start + HEADER_BYTES + payload);
+        validEnd += HEADER_BYTES + payload;
+        commands++;
+      }
+      if (eof) {
+        // Whatever is left is an incomplete record
+        break;
+      }
+      buffer.compact();
+    }
+
+    if (validEnd < size) {
+      channel.truncate(validEnd);
+    }
+    channel.position(validEnd);
+    end = validEnd;
+    return new ReplayStats(
+        commands, validEnd - from, size - validEnd, System.nanoTime() - started);
+  }
+
+  private static Command decode(ByteBuffer buffer) {
+    Command.Type type = Command.Type.values()[buffer.get()];
+    Instant appliedAt = Instant.ofEpochMilli(buffer.getLong());
+    String key = getString(buffer);
+    String value = getString(buffer);
+    return new Command(type, appliedAt, key, value, buffer.getInt());
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    String value =
+        new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+
+  // ===== Lifecycle and stats =====
+
+  /** Stops the flusher, forces the log to disk and closes the file. */
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+    if (flusher != null) {
+      flusher.interrupt();
+      try {
+        flusher.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+
+  /** Returns a snapshot of the write counters. */
+  public synchronized Stats stats() {
+    return new Stats(written, bytes, fsyncs.sum(), durable);
+  }
+
+  /**
+   * Write counters since the log was opened.
+   *
+   * @param appends records appended
+   * @param bytes bytes appended, including record headers
+   * @param fsyncs calls to {@link FileChannel#force}
+   * @param durable sequence number of the last record known to be on disk
+   */
+  public record Stats(long appends, long bytes, long fsyncs, long durable) {}
+
+  /**
+   * Outcome of {@link #replay}.
+   *
+   * @param commands intact records applied
+   * @param bytes bytes of intact records replayed
+   * @param discardedBytes bytes of the torn tail that were truncated
+   * @param elapsedNanos time spent reading and applying
+   */
+  public record ReplayStats(long commands, long bytes, long discardedBytes, long elapsedNanos) {
+    /** Replay speed, or 0 when nothing was replayed. */
+    public double commandsPerSecond() {
+      return elapsedNanos == 0 ? 0.0 : commands * 1e9 / elapsedNanos;
+    }
+  }
+}
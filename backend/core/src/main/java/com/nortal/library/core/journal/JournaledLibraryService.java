@@ -0,0 +1,237 @@
+package com.nortal.library.core.journal;
+
+import com.nortal.library.core.LibraryService;
+import com.nortal.library.core.Result;
+import com.nortal.library.core.ResultWithNext;
+import com.nortal.library.core.concurrent.LoanCommandExecutor;
+import com.nortal.library.core.journal.Command.Type;
+import com.nortal.library.core.service.BookManagementService;
+import com.nortal.library.core.service.LibraryQueryService;
+import com.nortal.library.core.service.LoanService;
+import com.nortal.library.core.service.MemberManagementService;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * {@link LibraryService} that records every successfully applied command in a {@link CommandLog}
+ * and rebuilds state from it on {@link #recover()}.
+ *
+ * <p>This is command sourcing for the in-memory repositories: state is never written to disk, the
+ * commands that produced it are. Replaying them in log order through the same services against an
+ * empty store yields the same state, provided that:
+ *
+ * <ul>
+ *   <li>log order is apply order. Commands are applied and appended under one lock, so two
+ *       commands that depend on each other (e.g. a return handing a book to a member who borrows
+ *       another book at the same moment) cannot be logged in the opposite order. Only the wait for
+ *       the fsync happens outside the lock, which is what lets group commit batch writers.
+ *   <li>"today" is the same. The {@link CommandClock} given to {@link LoanService} is pinned to the
+ *       recorded instant while a command runs, live and on replay.
+ * </ul>
+ *
+ * <p>The lock is deliberately global rather than per book. Commands on different books depend on
+ * each other through member loan counts: a return hands the book to the first eligible reserver,
+ * and whether a member is eligible depends on returns of other books that lock neither that member
+ * nor this book. {@link CommandClock} also holds a single pinned instant. The lock covers only the
+ * in-memory apply and the buffered append, so under group commit the fsync wait still dominates and
+ * writers batch; {@code CommandLogBenchmark} measures both against the unjournaled service.
+ *
+ * <p>Commands that fail a business rule change nothing and are not logged. A command is
+ * acknowledged to the caller only once its record is durable under the log's fsync policy.
+ */
+public class JournaledLibraryService extends LibraryService {
+  private final CommandLog log;
+  private final CommandClock clock;
+  private final ReentrantLock applyLock = new ReentrantLock();
+
+  /** @param loanService must use {@code clock}, otherwise replayed due dates drift */
+  public JournaledLibraryService(
+      LoanService loanService,
+      LibraryQueryService queryService,
+      BookManagementService bookManagement,
+      MemberManagementService memberManagement,
+      LoanCommandExecutor loanExecutor,
+      CommandLog log,
+      CommandClock clock) {
+    super(loanService, queryService, bookManagement, memberManagement, loanExecutor);
+    this.log = log;
+    this.clock = clock;
+  }
+
+  /**
+   * Replays the log into the (empty) repositories. Call once at startup, before serving commands.
+   *
+   * @return replay counters; {@code commands} includes any that were rejected on replay
+   */
+  public CommandLog.ReplayStats recover() throws IOException {
+    return recover(0);
+  }
+
+  /**
+   * Replays the log from {@code from} into repositories that already hold the state up to that
+   * position, as restored from a snapshot taken at {@link #atCommandBoundary}.
+   */
+  public CommandLog.ReplayStats recover(long from) throws IOException {
+    applyLock.lock();
+    try {
+      return log.replay(
+          from,
+          command -> {
+            clock.pin(command.appliedAt());
+            try {
+              apply(command);
+            } finally {
+              clock.unpin();
+            }
+          });
+    } finally {
+      applyLock.unlock();
+    }
+  }
+
+  /**
+   * Runs {@code action} between two commands, passing the log position the next command will be
+   * appended at, so that whatever the action captures matches exactly the commands before it. The
+   * action holds up all commands, so it must be quick. Before returning, the log is forced up to at
+   * least that position; a state captured here is never ahead of what survives a crash.
+   */
+  public <T> T atCommandBoundary(LongFunction<T> action) throws IOException {
+    T result;
+    applyLock.lock();
+    try {
+      result = action.apply(log.position());
+    } finally {
+      applyLock.unlock();
+    }
+    log.sync();
+    return result;
+  }
+
+  private void apply(Command command) {
+    String key = command.key();
+    String value = command.value();
+    switch (command.type()) {
+      case BORROW -> super.borrowBook(key, value);
+      case RETURN -> super.returnBook(key, value);
+      case RESERVE -> super.reserveBook(key, value);
+      case CANCEL_RESERVATION -> super.cancelReservation(key, value);
+      case EXTEND_LOAN -> super.extendLoan(key, value, command.days());
+      case CREATE_BOOK -> super.createBook(key, value);
+      case UPDATE_BOOK -> super.updateBook(key, value);
+      case DELETE_BOOK -> super.deleteBook(key);
+      case CREATE_MEMBER -> super.createMember(key, value);
+      case UPDATE_MEMBER -> super.updateMember(key, value);
+      case DELETE_MEMBER -> super.deleteMember(key);
+    }
+  }
+
+  // ===== Journaled commands =====
+
+  @Override
+  public Result borrowBook(String bookId, String memberId) {
+    return journaled(
+        Type.BORROW, bookId, memberId, 0, () -> super.borrowBook(bookId, memberId), Result::ok);
+  }
+
+  @Override
+  public ResultWithNext returnBook(String bookId, String memberId) {
+    return journaled(
+        Type.RETURN,
+        bookId,
+        memberId,
+        0,
+        () -> super.returnBook(bookId, memberId),
+        ResultWithNext::ok);
+  }
+
+  @Override
+  public Result reserveBook(String bookId, String memberId) {
+    return journaled(
+        Type.RESERVE, bookId, memberId, 0, () -> super.reserveBook(bookId, memberId), Result::ok);
+  }
+
+  @Override
+  public Result cancelReservation(String bookId, String memberId) {
+    return journaled(
+        Type.CANCEL_RESERVATION,
+        bookId,
+        memberId,
+        0,
+        () -> super.cancelReservation(bookId, memberId),
+        Result::ok);
+  }
+
+  @Override
+  public Result extendLoan(String bookId, String memberId, int days) {
+    return journaled(
+        Type.EXTEND_LOAN,
+        bookId,
+        memberId,
+        days,
+        () -> super.extendLoan(bookId, memberId, days),
+        Result::ok);
+  }
+
+  @Override
+  public Result createBook(String id, String title) {
+    return journaled(Type.CREATE_BOOK, id, title, 0, () -> super.createBook(id, title), Result::ok);
+  }
+
+  @Override
+  public Result updateBook(String id, String title) {
+    return journaled(Type.UPDATE_BOOK, id, title, 0, () -> super.updateBook(id, title), Result::ok);
+  }
+
+  @Override
+  public Result deleteBook(String id) {
+    return journaled(Type.DELETE_BOOK, id, null, 0, () -> super.deleteBook(id), Result::ok);
+  }
+
+  @Override
+  public Result createMember(String id, String name) {
+    return journaled(
+        Type.CREATE_MEMBER, id, name, 0, () -> super.createMember(id, name), Result::ok);
+  }
+
+  @Override
+  public Result updateMember(String id, String name) {
+    return journaled(
+        Type.UPDATE_MEMBER, id, name, 0, () -> super.updateMember(id, name), Result::ok);
+  }
+
+  @Override
+  public Result deleteMember(String id) {
+    return journaled(Type.DELETE_MEMBER, id, null, 0, () -> super.deleteMember(id), Result::ok);
+  }
+
+  /**
+   * Applies the command with the clock pinned, appends it if it succeeded, and returns once the
+   * record is durable.
+   */
+  private <R> R journaled(
+      Type type, String key, String value, int days, Supplier<R> action, Predicate<R> applied) {
+    R result;
+    long sequence;
+    applyLock.lock();
+    try {
+      Instant appliedAt = clock.pinNow();
+      try {
+        result = action.get();
+      } finally {
+        clock.unpin();
+      }
+      if (!applied.test(result)) {
+        return result;
+      }
+      sequence = log.append(new Command(type, appliedAt, key, value, days));
+    } finally {
+      applyLock.unlock();
+    }
+    log.awaitDurable(sequence);
+    return result;
+  }
+}
@@ -0,0 +1,207 @@
+package com.nortal.library.core.memory;
+
+import com.nortal.library.core.BookQuery;
+import com.nortal.library.core.DueDateCursor;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.port.BookRepository;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * {@link BookRepository} backed by an {@link InMemoryStore}.
+ *
+ * <p>Lookups by id, borrower, reserving member and due date go through the store's indexes, and
+ * due-date pages read only the index entries they return; queries narrowed by ID or borrower start
+ * from those, and only title search and the available-books listing scan all books. Reads return
+ * copies and saves are rejected with {@link com.nortal.library.core.port.ConcurrentUpdateException}
+ * when the version is stale, so services behave exactly as they do against the JPA adapter.
+ */
+public class InMemoryBookRepository implements BookRepository {
+  private final InMemoryStore store;
+
+  public InMemoryBookRepository(InMemoryStore store) {
+    this.store = store;
+  }
+
+  @Override
+  public Optional<Book> findById(String id) {
+    return Optional.ofNullable(store.books.get(id)).map(InMemoryStore::copy);
+  }
+
+  @Override
+  public List<Book> findAllById(Collection<String> ids) {
+    return resolve(ids, book -> true);
+  }
+
+  @Override
+  public List<Book> findAll() {
+    return store.books.values().stream().map(InMemoryStore::copy).toList();
+  }
+
+  @Override
+  public List<Book> findPageAfter(String afterId, int limit) {
+    return page(afterId == null ? store.bookIds : store.bookIds.tailSet(afterId, false), limit);
+  }
+
+  @Override
+  public void scrollAll(Consumer<Book> action) {
+    for (String id : store.bookIds) {
+      Book book = store.books.get(id);
+      if (book != null) {
+        action.accept(InMemoryStore.copy(book));
+      }
+    }
+  }
+
+  @Override
+  public Book save(Book book) {
+    return store.saveBook(book);
+  }
+
+  @Override
+  public void delete(Book book) {
+    store.deleteBook(book);
+  }
+
+  @Override
+  public boolean existsById(String id) {
+    return store.books.containsKey(id);
+  }
+
+  // Indexed query methods
+
+  @Override
+  public long countByLoanedTo(String memberId) {
+    Set<String> loans = store.booksByBorrower.get(memberId);
+    return loans == null ? 0 : loans.size();
+  }
+
+  @Override
+  public List<Book> findByLoanedTo(String memberId) {
+    return resolve(
+        store.booksByBorrower.getOrDefault(memberId, Set.of()),
+        book -> memberId.equals(book.getLoanedTo()));
+  }
+
+  @Override
+  public List<Book> findByReservationQueueContaining(String memberId) {
+    Map<String, Long> reserved = store.reservationsByMember.getOrDefault(memberId, Map.of());
+    return resolve(reserved.keySet(), book -> book.getReservationQueue().contains(memberId));
+  }
+
+  @Override
+  public List<Book> findByDueDateBefore(LocalDate date) {
+    List<String> ids = new ArrayList<>();
+    store.booksByDueDate.headMap(date).values().forEach(ids::addAll);
+    return resolve(ids, book -> book.getDueDate() != null && book.getDueDate().isBefore(date));
+  }
+
+  @Override
+  public List<Book> findByDueDateRange(
+      LocalDate from, LocalDate until, DueDateCursor after, int limit) {
+    // A cursor before the range (a page requested with a later start) does not narrow it
+    DueDateCursor resume =
+        after != null && (from == null || !after.dueDate().isBefore(from)) ? after : null;
+    LocalDate start = resume != null ? resume.dueDate() : from;
+    NavigableMap<LocalDate, NavigableSet<String>> days =
+        start == null
+            ? store.booksByDueDate.headMap(until, false)
+            : store.booksByDueDate.subMap(start, true, until, false);
+    List<Book> books = new ArrayList<>(Math.min(limit, 256));
+    for (Map.Entry<LocalDate, NavigableSet<String>> day : days.entrySet()) {
+      Set<String> ids =
+          resume != null && day.getKey().equals(resume.dueDate())
+              ? day.getValue().tailSet(resume.bookId(), false)
+              : day.getValue();
+      for (String id : ids) {
+        Book book = store.books.get(id);
+        if (book != null && day.getKey().equals(book.getDueDate())) {
+          books.add(InMemoryStore.copy(book));
+          if (books.size() == limit) {
+            return books;
+          }
+        }
+      }
+    }
+    return books;
+  }
+
+  @Override
+  public boolean existsByLoanedTo(String memberId) {
+    return store.booksByBorrower.containsKey(memberId);
+  }
+
+  @Override
+  public List<Book> findMatching(BookQuery query) {
+    Collection<String> candidates =
+        query.ids() != null
+            ? query.ids()
+            : query.loanedTo() != null
+                ? store.booksByBorrower.getOrDefault(query.loanedTo(), Set.of())
+                : null;
+    Stream<Book> books =
+        candidates == null
+            ? store.books.values().stream()
+            : candidates.stream().map(store.books::get).filter(Objects::nonNull);
+    return books
+        .filter(query::matches)
+        .sorted(query.order().comparator())
+        .limit(query.limit())
+        .map(InMemoryStore::copy)
+        .toList();
+  }
+
+  @Override
+  public List<Book> findByLoanedToIsNull() {
+    return scan(book -> book.getLoanedTo() == null);
+  }
+
+  // Guarded write paths
+
+  @Override
+  public int loanIfEligible(String bookId, String memberId, LocalDate dueDate, long maxLoans) {
+    return store.loanIfEligible(bookId, memberId, dueDate, maxLoans);
+  }
+
+  /** Copies the indexed books that still match; the index may briefly lag a concurrent write. */
+  private List<Book> resolve(Collection<String> ids, Predicate<Book> stillMatches) {
+    List<Book> books = new ArrayList<>(ids.size());
+    for (String id : ids) {
+      Book book = store.books.get(id);
+      if (book != null && stillMatches.test(book)) {
+        books.add(InMemoryStore.copy(book));
+      }
+    }
+    return books;
+  }
+
+  /** Copies the first {@code limit} books of {@code ids} still stored, reading no further. */
+  private List<Book> page(Collection<String> ids, int limit) {
+    List<Book> books = new ArrayList<>(Math.min(limit, 256));
+    for (String id : ids) {
+      Book book = store.books.get(id);
+      if (book != null) {
+        books.add(InMemoryStore.copy(book));
+        if (books.size() == limit) {
+          break;
+        }
+      }
+    }
+    return books;
+  }
+
+  private List<Book> scan(Predicate<Book> filter) {
+    return store.books.values().stream().filter(filter).map(InMemoryStore::copy).toList();
+  }
+}
@@ -0,0 +1,137 @@
+package com.nortal.library.core.memory;
+
+import com.nortal.library.core.LoanEligibility;
+import com.nortal.library.core.MemberSummary.LoanLine;
+import com.nortal.library.core.MemberSummary.ReservationLine;
+import com.nortal.library.core.MemberSummary;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.port.MemberRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * {@link MemberRepository} backed by an {@link InMemoryStore}.
+ *
+ * <p>Eligibility snapshots are answered from the borrower and reservation indexes in O(1) per
+ * member, and summaries from the same indexes plus the stored books. Deleting a member does not
+ * touch books, matching the JPA adapter; services remove the member's reservations first.
+ */
+public class InMemoryMemberRepository implements MemberRepository {
+  private final InMemoryStore store;
+
+  public InMemoryMemberRepository(InMemoryStore store) {
+    this.store = store;
+  }
+
+  @Override
+  public Optional<Member> findById(String id) {
+    return Optional.ofNullable(store.members.get(id)).map(InMemoryStore::copy);
+  }
+
+  @Override
+  public List<Member> findAll() {
+    return store.members.values().stream().map(InMemoryStore::copy).toList();
+  }
+
+  @Override
+  public List<Member> findPageAfter(String afterId, int limit) {
+    Collection<String> ids =
+        afterId == null ? store.memberIds : store.memberIds.tailSet(afterId, false);
+    List<Member> members = new ArrayList<>(Math.min(limit, 256));
+    for (String id : ids) {
+      Member member = store.members.get(id);
+      if (member != null) {
+        members.add(InMemoryStore.copy(member));
+        if (members.size() == limit) {
+          break;
+        }
+      }
+    }
+    return members;
+  }
+
+  @Override
+  public void scrollAll(Consumer<Member> action) {
+    for (String id : store.memberIds) {
+      Member member = store.members.get(id);
+      if (member != null) {
+        action.accept(InMemoryStore.copy(member));
+      }
+    }
+  }
+
+  @Override
+  public Member save(Member member) {
+    store.saveMember(member);
+    return member;
+  }
+
+  @Override
+  public void delete(Member member) {
+    store.deleteMember(member.getId());
+  }
+
+  @Override
+  public boolean existsById(String id) {
+    return store.members.containsKey(id);
+  }
+
+  @Override
+  public LoanEligibility findLoanEligibility(String memberId, String bookId) {
+    if (!store.members.containsKey(memberId)) {
+      return LoanEligibility.UNKNOWN_MEMBER;
+    }
+    Set<String> loans = store.booksByBorrower.get(memberId);
+    Map<String, Long> reserved = store.reservationsByMember.get(memberId);
+    return new LoanEligibility(
+        true, loans == null ? 0 : loans.size(), reserved != null && reserved.containsKey(bookId));
+  }
+
+  @Override
+  public Map<String, LoanEligibility> findLoanEligibilities(
+      Collection<String> memberIds, String bookId) {
+    Map<String, LoanEligibility> eligibility = new HashMap<>();
+    for (String memberId : memberIds) {
+      LoanEligibility snapshot = findLoanEligibility(memberId, bookId);
+      if (snapshot.memberExists()) {
+        eligibility.put(memberId, snapshot);
+      }
+    }
+    return eligibility;
+  }
+
+  @Override
+  public Optional<MemberSummary> findSummary(String memberId) {
+    if (!store.members.containsKey(memberId)) {
+      return Optional.empty();
+    }
+    List<LoanLine> loans = new ArrayList<>();
+    for (String bookId : new TreeSet<>(store.booksByBorrower.getOrDefault(memberId, Set.of()))) {
+      Book book = store.books.get(bookId);
+      if (book != null && memberId.equals(book.getLoanedTo())) {
+        loans.add(new LoanLine(bookId, book.getTitle(), book.getDueDate()));
+      }
+    }
+    // Oldest reservation first, like InMemoryReservationRepository#findPositionsByMemberId
+    List<Map.Entry<String, Long>> reserved =
+        new ArrayList<>(store.reservationsByMember.getOrDefault(memberId, Map.of()).entrySet());
+    reserved.sort(Map.Entry.comparingByValue());
+    List<ReservationLine> reservations = new ArrayList<>(reserved.size());
+    for (Map.Entry<String, Long> entry : reserved) {
+      Book book = store.books.get(entry.getKey());
+      int position = book == null ? -1 : book.getReservationQueue().indexOf(memberId);
+      if (position >= 0) {
+        reservations.add(new ReservationLine(entry.getKey(), book.getTitle(), position));
+      }
+    }
+    return Optional.of(MemberSummary.found(loans, reservations));
+  }
+}
@@ -0,0 +1,38 @@
+package com.nortal.library.core.memory;
+
+import com.nortal.library.core.ReservationPosition;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.port.ReservationRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/** {@link ReservationRepository} backed by the member-to-reservations index of a store. */
+public class InMemoryReservationRepository implements ReservationRepository {
+  private final InMemoryStore store;
+
+  public InMemoryReservationRepository(InMemoryStore store) {
+    this.store = store;
+  }
+
+  @Override
+  public List<ReservationPosition> findPositionsByMemberId(String memberId) {
+    Map<String, Long> reserved = store.reservationsByMember.getOrDefault(memberId, Map.of());
+    List<Map.Entry<String, Long>> oldestFirst = new ArrayList<>(reserved.entrySet());
+    oldestFirst.sort(Map.Entry.comparingByValue());
+    List<ReservationPosition> positions = new ArrayList<>(oldestFirst.size());
+    for (Map.Entry<String, Long> entry : oldestFirst) {
+      Book book = store.books.get(entry.getKey());
+      int position = book == null ? -1 : book.getReservationQueue().indexOf(memberId);
+      if (position >= 0) {
+        positions.add(new ReservationPosition(entry.getKey(), position));
+      }
+    }
+    return positions;
+  }
+
+  @Override
+  public int deleteByMemberId(String memberId) {
+    return store.deleteReservationsOf(memberId);
+  }
+}
@@ -0,0 +1,551 @@
+package com.nortal.library.core.memory;
+
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.domain.Reservation;
+import com.nortal.library.core.domain.ReservationQueue;
+import com.nortal.library.core.port.ConcurrentUpdateException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Rows and secondary indexes shared by the in-memory repositories.
+ *
+ * <p>Books and members are kept in concurrent hash maps keyed by id. Stored books are private
+ * snapshots: every read returns a copy and every write replaces the snapshot, so callers can
+ * mutate what they read without affecting the store, exactly as with detached JPA entities.
+ *
+ * <p>Three secondary indexes hold book ids:
+ *
+ * <ul>
+ *   <li>borrower to books on loan, so loan counts are O(1) and loan lists O(k)
+ *   <li>member to reserved books (with the reservation id, which orders them oldest first)
+ *   <li>due date to books, both ordered, so overdue and due-soon pages are a range scan that
+ *       touches only the rows it returns
+ * </ul>
+ *
+ * <p><b>Consistency:</b> a book write runs inside {@link ConcurrentHashMap#compute} on that book's
+ * key, which makes the version check, the new snapshot and its index updates atomic per book.
+ * Index entries are themselves changed inside {@code compute} on the index key. Locks are always
+ * taken book first, index second, and never the other way round, so writers cannot deadlock.
+ * Readers see each index entry atomically but may briefly observe a book and an index that
+ * disagree; lookups through an index therefore re-check the snapshot they resolve to.
+ *
+ * <p>{@link #beginCut()} gives {@link SnapshotFile} a point-in-time view of all rows without
+ * stopping writers, and {@link #load(Book)} fills a fresh store from a snapshot.
+ */
+public class InMemoryStore {
+  /** Pre-image marker for a key that did not exist at the cut. */
+  private static final Object ABSENT = new Object();
+
+  /** Pre-image marker for a key whose cut-time value the snapshot has already taken. */
+  private static final Object CLAIMED = new Object();
+
+  /** Shared by all stored books nobody waits for; stored queues are never mutated. */
+  private static final ReservationQueue NO_RESERVATIONS = new ReservationQueue();
+
+  final Map<String, Book> books;
+  final Map<String, Member> members;
+
+  /** Stored book and member IDs in ascending order, for listings paged by ID. */
+  final NavigableSet<String> bookIds = new ConcurrentSkipListSet<>();
+
+  final NavigableSet<String> memberIds = new ConcurrentSkipListSet<>();
+
+  /** Borrower ID to IDs of the books on loan to that member. */
+  final Map<String, Set<String>> booksByBorrower;
+
+  /** Member ID to the books whose queue the member waits in, mapped to the reservation id. */
+  final Map<String, Map<String, Long>> reservationsByMember;
+
+  /** Due date to IDs of the books due that day, both in ascending order. */
+  final ConcurrentSkipListMap<LocalDate, NavigableSet<String>> booksByDueDate =
+      new ConcurrentSkipListMap<>();
+
+  /** Reservation id sequence; ids are FIFO order within a book, as with the database sequence. */
+  private final AtomicLong reservationIds = new AtomicLong();
+
+  /**
+   * Writes share the read side; {@link #beginCut()} takes the write side for just long enough to
+   * publish the cut, so no write straddles it.
+   */
+  private final ReadWriteLock cutLock = new ReentrantReadWriteLock();
+
+  private volatile Cut cut;
+
+  public InMemoryStore() {
+    this(16, 16);
+  }
+
+  /** Sizes the row and member index maps up front, so a bulk load does not rehash as it grows. */
+  InMemoryStore(int expectedBooks, int expectedMembers) {
+    this.books = new ConcurrentHashMap<>(expectedBooks);
+    this.members = new ConcurrentHashMap<>(expectedMembers);
+    this.booksByBorrower = new ConcurrentHashMap<>(expectedMembers);
+    this.reservationsByMember = new ConcurrentHashMap<>(expectedMembers);
+  }
+
+  // ===== Book writes =====
+
+  /**
+   * Stores a book, rejecting the write if the stored version differs from the book's version.
+   *
+   * <p>Only the queue's pending changes are applied, on top of the stored queue, and the book's
+   * queue is then marked persisted.
+   *
+   * @return a copy of the stored snapshot
+   */
+  Book saveBook(Book book) {
+    ReservationQueue changes = book.getReservationQueue();
+    Book stored =
+        write(
+            () ->
+                books.compute(
+                    book.getId(),
+                    (id, current) -> {
+                      Long currentVersion = current == null ? null : current.getVersion();
+                      if (!Objects.equals(currentVersion, book.getVersion())) {
+                        throw new ConcurrentUpdateException(
+                            "Book " + id + " was modified concurrently");
+                      }
+                      preserveBook(id, current);
+                      Book next = copyFields(book);
+                      next.setVersion(current == null ? 0L : current.getVersion() + 1);
+                      next.setReservationQueue(
+                          applyQueueChanges(
+                              id,
+                              current == null
+                                  ? List.of()
+                                  : current.getReservationQueue().reservations(),
+                              changes));
+                      reindexLoan(current, next);
+                      if (current == null) {
+                        bookIds.add(id);
+                      }
+                      return next;
+                    }));
+    return copy(stored);
+  }
+
+  /** Removes a book with its reservations; a stale version is rejected. */
+  void deleteBook(Book book) {
+    write(
+        () ->
+            books.computeIfPresent(
+                book.getId(),
+                (id, current) -> {
+                  if (book.getVersion() != null
+                      && !book.getVersion().equals(current.getVersion())) {
+                    throw new ConcurrentUpdateException(
+                        "Book " + id + " was modified concurrently");
+                  }
+                  preserveBook(id, current);
+                  reindexLoan(current, null);
+                  for (Reservation reservation : current.getReservationQueue().reservations()) {
+                    unlinkReservation(reservation.getMemberId(), id);
+                  }
+                  bookIds.remove(id);
+                  return null;
+                }));
+  }
+
+  /**
+   * Applies the guarded loan of {@code BookRepository#loanIfEligible} atomically.
+   *
+   * <p>The borrower's loan count is checked and incremented inside one update of the borrower index
+   * entry, so concurrent loans of different books can never take a member past {@code maxLoans}.
+   */
+  int loanIfEligible(String bookId, String memberId, LocalDate dueDate, long maxLoans) {
+    return write(() -> loanLocked(bookId, memberId, dueDate, maxLoans));
+  }
+
+  private int loanLocked(String bookId, String memberId, LocalDate dueDate, long maxLoans) {
+    boolean[] loaned = {false};
+    books.computeIfPresent(
+        bookId,
+        (id, current) -> {
+          if (current.getLoanedTo() != null
+              || !current.getReservationQueue().isEmpty()
+              || !members.containsKey(memberId)) {
+            return current;
+          }
+          booksByBorrower.compute(
+              memberId,
+              (key, ids) -> {
+                Set<String> loans = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+                if (loans.size() < maxLoans) {
+                  loaned[0] = loans.add(id);
+                }
+                return loans.isEmpty() ? null : loans;
+              });
+          if (!loaned[0]) {
+            return current;
+          }
+          preserveBook(id, current);
+          Book next = copyFields(current);
+          next.setLoanedTo(memberId);
+          next.setDueDate(dueDate);
+          next.setFirstDueDate(dueDate);
+          next.setVersion(current.getVersion() + 1);
+          next.setReservationQueue(current.getReservationQueue());
+          unlink(booksByDueDate, current.getDueDate(), id);
+          link(booksByDueDate, dueDate, id, ConcurrentSkipListSet::new);
+          return next;
+        });
+    return loaned[0] ? 1 : 0;
+  }
+
+  /**
+   * Removes a member from every queue they wait in. Like the bulk delete of the JPA adapter, the
+   * books' versions are not changed.
+   *
+   * @return number of reservations removed
+   */
+  int deleteReservationsOf(String memberId) {
+    return write(() -> deleteReservationsLocked(memberId));
+  }
+
+  private int deleteReservationsLocked(String memberId) {
+    Map<String, Long> reserved = reservationsByMember.get(memberId);
+    if (reserved == null) {
+      return 0;
+    }
+    int[] removed = {0};
+    for (String bookId : List.copyOf(reserved.keySet())) {
+      books.computeIfPresent(
+          bookId,
+          (id, current) -> {
+            List<Reservation> kept = new ArrayList<>();
+            for (Reservation reservation : current.getReservationQueue().reservations()) {
+              if (reservation.getMemberId().equals(memberId)) {
+                removed[0]++;
+              } else {
+                kept.add(reservation);
+              }
+            }
+            unlinkReservation(memberId, id);
+            preserveBook(id, current);
+            Book next = copyFields(current);
+            next.setVersion(current.getVersion());
+            next.setReservationQueue(storedQueue(kept));
+            return next;
+          });
+    }
+    return removed[0];
+  }
+
+  // ===== Member writes =====
+
+  /** Stores a copy of the member; members are not versioned. */
+  void saveMember(Member member) {
+    write(
+        () ->
+            members.compute(
+                member.getId(),
+                (id, current) -> {
+                  preserveMember(id, current);
+                  memberIds.add(id);
+                  return copy(member);
+                }));
+  }
+
+  void deleteMember(String memberId) {
+    write(
+        () ->
+            members.computeIfPresent(
+                memberId,
+                (id, current) -> {
+                  preserveMember(id, current);
+                  memberIds.remove(id);
+                  return null;
+                }));
+  }
+
+  private <T> T write(Supplier<T> action) {
+    Lock shared = cutLock.readLock();
+    shared.lock();
+    try {
+      return action.get();
+    } finally {
+      shared.unlock();
+    }
+  }
+
+  // ===== Bulk load =====
+
+  /**
+   * Adds a restored book as its own stored snapshot, without a version check or copy, and links it
+   * into the indexes. Only for filling a store that is not yet serving requests; safe to call from
+   * several loader threads at once.
+   */
+  void load(Book book) {
+    if (book.getReservationQueue().isEmpty()) {
+      book.setReservationQueue(NO_RESERVATIONS);
+    }
+    books.put(book.getId(), book);
+    bookIds.add(book.getId());
+    reindexLoan(null, book);
+    for (Reservation reservation : book.getReservationQueue().reservations()) {
+      linkReservation(reservation.getMemberId(), book.getId(), reservation.getId());
+    }
+  }
+
+  /** Adds a restored member as its own stored snapshot; see {@link #load(Book)}. */
+  void load(Member member) {
+    members.put(member.getId(), member);
+    memberIds.add(member.getId());
+  }
+
+  /** Continues the reservation id sequence after the last id handed out before a snapshot. */
+  void resumeReservationIds(long lastId) {
+    reservationIds.set(lastId);
+  }
+
+  // ===== Point-in-time cuts =====
+
+  /**
+   * Starts a consistent view of all books and members as of now, which a snapshot can read while
+   * writes continue. Close it when done; only one cut may be open at a time.
+   *
+   * <p>Writers only wait for the cut to be published, not for it to be read. From then on, the
+   * first write to each key parks the key's cut-time value in the cut (copy-on-write, as after a
+   * {@code fork}), so the cut reads the pre-image for keys changed since and the live snapshot for
+   * all others.
+   */
+  Cut beginCut() {
+    Lock exclusive = cutLock.writeLock();
+    exclusive.lock();
+    try {
+      if (cut != null) {
+        throw new IllegalStateException("A snapshot cut is already open");
+      }
+      cut = new Cut(reservationIds.get());
+      return cut;
+    } finally {
+      exclusive.unlock();
+    }
+  }
+
+  private void preserveBook(String id, Book current) {
+    Cut open = cut;
+    if (open != null) {
+      open.bookPreImages.putIfAbsent(id, current == null ? ABSENT : current);
+    }
+  }
+
+  private void preserveMember(String id, Member current) {
+    Cut open = cut;
+    if (open != null) {
+      open.memberPreImages.putIfAbsent(id, current == null ? ABSENT : current);
+    }
+  }
+
+  /**
+   * Books and members as they were when the cut began.
+   *
+   * <p>Each key ends up in the pre-image map exactly once: either a writer parks the cut-time value
+   * before replacing it, or the reader claims the key while it still holds that value. The reader
+   * therefore emits a live value only when its claim wins, and afterwards every pre-image that a
+   * writer parked. Keys created after the cut are parked as absent and skipped.
+   */
+  final class Cut implements AutoCloseable {
+    private final Map<String, Object> bookPreImages = new ConcurrentHashMap<>();
+    private final Map<String, Object> memberPreImages = new ConcurrentHashMap<>();
+    private final long reservationSequence;
+
+    private Cut(long reservationSequence) {
+      this.reservationSequence = reservationSequence;
+    }
+
+    /** Last reservation id handed out before the cut. */
+    long reservationSequence() {
+      return reservationSequence;
+    }
+
+    /** Visits each member of the cut once; call at most once per cut. */
+    void forEachMember(Consumer<Member> action) {
+      visit(members, memberPreImages, Member.class, action);
+    }
+
+    /**
+     * Visits each book of the cut once, as the stored snapshot (not a copy); call at most once per
+     * cut.
+     */
+    void forEachBook(Consumer<Book> action) {
+      visit(books, bookPreImages, Book.class, action);
+    }
+
+    private static <T> void visit(
+        Map<String, T> live, Map<String, Object> preImages, Class<T> type, Consumer<T> action) {
+      for (Map.Entry<String, T> entry : live.entrySet()) {
+        if (preImages.putIfAbsent(entry.getKey(), CLAIMED) == null) {
+          action.accept(entry.getValue());
+        }
+      }
+      for (Object preImage : preImages.values()) {
+        if (type.isInstance(preImage)) {
+          action.accept(type.cast(preImage));
+        }
+      }
+    }
+
+    /** Ends the cut; writers stop parking pre-images. */
+    @Override
+    public void close() {
+      Lock exclusive = cutLock.writeLock();
+      exclusive.lock();
+      try {
+        if (cut == this) {
+          cut = null;
+        }
+      } finally {
+        exclusive.unlock();
+      }
+    }
+  }
+
+  // ===== Copies =====
+
+  /** Returns a copy of a stored book that the caller may freely mutate. */
+  static Book copy(Book source) {
+    Book copy = copyFields(source);
+    copy.setVersion(source.getVersion());
+    List<Reservation> reservations = new ArrayList<>();
+    for (Reservation reservation : source.getReservationQueue().reservations()) {
+      reservations.add(copy(reservation));
+    }
+    copy.setReservationQueue(ReservationQueue.restore(reservations));
+    return copy;
+  }
+
+  static Member copy(Member source) {
+    return new Member(source.getId(), source.getName());
+  }
+
+  private static Reservation copy(Reservation source) {
+    Reservation copy = new Reservation(source.getBookId(), source.getMemberId());
+    copy.setId(source.getId());
+    return copy;
+  }
+
+  /** Copies the plain columns; version and queue are left for the caller to set. */
+  private static Book copyFields(Book source) {
+    Book copy = new Book(source.getId(), source.getTitle());
+    copy.setLoanedTo(source.getLoanedTo());
+    copy.setDueDate(source.getDueDate());
+    copy.setFirstDueDate(source.getFirstDueDate());
+    return copy;
+  }
+
+  // ===== Index maintenance =====
+
+  /**
+   * Builds the stored queue from the current one plus the caller's pending changes: deletes are
+   * matched by reservation id and inserts receive the next ids, as the JPA adapter does.
+   */
+  private ReservationQueue applyQueueChanges(
+      String bookId, List<Reservation> current, ReservationQueue changes) {
+    List<Reservation> entries = new ArrayList<>(current);
+    if (changes.hasPendingChanges()) {
+      Set<Long> deleted = new HashSet<>();
+      for (Reservation reservation : changes.pendingDeletes()) {
+        deleted.add(reservation.getId());
+      }
+      entries.removeIf(
+          reservation -> {
+            if (!deleted.contains(reservation.getId())) {
+              return false;
+            }
+            unlinkReservation(reservation.getMemberId(), bookId);
+            return true;
+          });
+      for (Reservation reservation : changes.pendingInserts()) {
+        reservation.setId(reservationIds.incrementAndGet());
+        reservation.setBookId(bookId);
+        entries.add(copy(reservation));
+        linkReservation(reservation.getMemberId(), bookId, reservation.getId());
+      }
+      changes.markPersisted();
+    }
+    return storedQueue(entries);
+  }
+
+  private static ReservationQueue storedQueue(List<Reservation> entries) {
+    return entries.isEmpty() ? NO_RESERVATIONS : ReservationQueue.restore(entries);
+  }
+
+  private void linkReservation(String memberId, String bookId, long reservationId) {
+    reservationsByMember.compute(
+        memberId,
+        (key, reserved) -> {
+          Map<String, Long> books = reserved == null ? new ConcurrentHashMap<>() : reserved;
+          books.put(bookId, reservationId);
+          return books;
+        });
+  }
+
+  private void unlinkReservation(String memberId, String bookId) {
+    reservationsByMember.computeIfPresent(
+        memberId,
+        (key, reserved) -> {
+          reserved.remove(bookId);
+          return reserved.isEmpty() ? null : reserved;
+        });
+  }
+
+  /** Moves the book between borrower and due-date index entries; {@code next} null removes it. */
+  private void reindexLoan(Book current, Book next) {
+    String bookId = current != null ? current.getId() : next.getId();
+    String oldBorrower = current == null ? null : current.getLoanedTo();
+    String newBorrower = next == null ? null : next.getLoanedTo();
+    if (!Objects.equals(oldBorrower, newBorrower)) {
+      unlink(booksByBorrower, oldBorrower, bookId);
+      link(booksByBorrower, newBorrower, bookId, ConcurrentHashMap::newKeySet);
+    }
+    LocalDate oldDue = current == null ? null : current.getDueDate();
+    LocalDate newDue = next == null ? null : next.getDueDate();
+    if (!Objects.equals(oldDue, newDue)) {
+      unlink(booksByDueDate, oldDue, bookId);
+      link(booksByDueDate, newDue, bookId, ConcurrentSkipListSet::new);
+    }
+  }
+
+  private static <K, S extends Set<String>> void link(
+      Map<K, S> index, K key, String bookId, Supplier<S> newEntry) {
+    if (key != null) {
+      index.compute(
+          key,
+          (k, ids) -> {
+            S linked = ids == null ? newEntry.get() : ids;
+            linked.add(bookId);
+            return linked;
+          });
+    }
+  }
+
+  private static <K, S extends Set<String>> void unlink(Map<K, S> index, K key, String bookId) {
+    if (key != null) {
+      index.computeIfPresent(
+          key,
+          (k, ids) -> {
+            ids.remove(bookId);
+            return ids.isEmpty() ? null : ids;
+          });
+    }
+  }
+}
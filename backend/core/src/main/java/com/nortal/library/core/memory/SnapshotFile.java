@@ -0,0 +1,504 @@
+package com.nortal.library.core.memory;
+
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.domain.Reservation;
+import com.nortal.library.core.domain.ReservationQueue;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+/**
+ * Compact binary image of an {@link InMemoryStore}, written from a {@link InMemoryStore.Cut} and
+ * restored by memory-mapping the file.
+ *
+ * <p>Layout, big-endian:
+ *
+ * <pre>
+ * prefix (128 bytes)
+ *   long  magic "LIBSNAP1"     int format           int sections
+ *   long  created at, millis   long log position    long last reservation id
+ *   section table, per section:
+ *     int kind    int blocks    long records    long block table offset
+ *   int   crc32c of the prefix (last 4 bytes)
+ * record blocks, members first, then books
+ * block tables, per block: long offset, int length, int crc32c
+ * </pre>
+ *
+ * <p>Strings are an int byte length (-1 for null) followed by UTF-8 bytes; dates are epoch days
+ * ({@link Integer#MIN_VALUE} for null). A member record is its id and name. A book record is id,
+ * title, borrower, due date, first due date, version and the queue: a count, then reservation id
+ * and member id per entry, head first.
+ *
+ * <p>Records are grouped in blocks of {@value #BLOCK_RECORDS} so the block tables act as an
+ * offset index: restore hands blocks to parallel workers, each decoding straight from its slice of
+ * the mapping and checking the block's checksum, and puts the decoded rows into a store presized
+ * for the record counts, so nothing is copied or rehashed on the way in. A snapshot is written to
+ * a temporary file and moved into place, so readers only ever see a complete one.
+ *
+ * <p>The whole file is mapped as one buffer, which limits a snapshot to 2 GiB.
+ */
+public final class SnapshotFile {
+  /** {@link Info#logPosition()} of a snapshot taken without a command log. */
+  public static final long NO_LOG_POSITION = -1;
+
+  private static final long MAGIC = 0x4C4942534E415031L; // "LIBSNAP1"
+  private static final int FORMAT = 1;
+  private static final int PREFIX_BYTES = 128;
+  private static final int SECTION_TABLE_OFFSET = 40;
+  private static final int SECTION_ENTRY_BYTES = 24;
+  private static final int BLOCK_ENTRY_BYTES = 16;
+  private static final int BLOCK_RECORDS = 4096;
+  private static final int NO_DATE = Integer.MIN_VALUE;
+
+  private static final int MEMBERS = 1;
+  private static final int BOOKS = 2;
+
+  private SnapshotFile() {}
+
+  // ===== Writing =====
+
+  /**
+   * Writes the cut to {@code target}, replacing any previous snapshot atomically.
+   *
+   * @param logPosition command log offset the cut corresponds to, or {@link #NO_LOG_POSITION}
+   */
+  static Info write(InMemoryStore.Cut cut, Path target, long logPosition) throws IOException {
+    long started = System.nanoTime();
+    Instant createdAt = Instant.now();
+    Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+    Section members;
+    Section books;
+    long size;
+    try (FileChannel channel =
+        FileChannel.open(
+            temp,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      channel.position(PREFIX_BYTES);
+      try {
+        members = new Section(MEMBERS, channel);
+        cut.forEachMember(members::add);
+        members.finish();
+        books = new Section(BOOKS, channel);
+        cut.forEachBook(books::add);
+        books.finish();
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      members.writeBlockTable();
+      books.writeBlockTable();
+      size = channel.position();
+
+      ByteBuffer prefix = ByteBuffer.allocate(PREFIX_BYTES);
+      prefix.putLong(MAGIC).putInt(FORMAT).putInt(2);
+      prefix.putLong(createdAt.toEpochMilli());
+      prefix.putLong(logPosition);
+      prefix.putLong(cut.reservationSequence());
+      members.describe(prefix);
+      books.describe(prefix);
+      int prefixCrc = checksum(prefix.duplicate().clear().limit(PREFIX_BYTES - 4));
+      prefix.putInt(PREFIX_BYTES - 4, prefixCrc);
+      prefix.clear();
+      while (prefix.hasRemaining()) {
+        channel.write(prefix, prefix.position());
+      }
+      channel.force(true);
+    }
+    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    return new Info(
+        target,
+        createdAt,
+        logPosition,
+        books.records,
+        members.records,
+        size,
+        System.nanoTime() - started);
+  }
+
+  /** One record section: buffers a block, then writes it and remembers its table entry. */
+  private static final class Section {
+    private final int kind;
+    private final FileChannel channel;
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer block = ByteBuffer.allocate(1 << 20);
+    private ByteBuffer table = ByteBuffer.allocate(64 * BLOCK_ENTRY_BYTES);
+    private int blockRecords;
+    private int blocks;
+    private long records;
+    private long tableOffset;
+
+    Section(int kind, FileChannel channel) {
+      this.kind = kind;
+      this.channel = channel;
+    }
+
+    void add(Member member) {
+      byte[] id = utf8(member.getId());
+      byte[] name = utf8(member.getName());
+      ensure(8 + length(id) + length(name));
+      putString(id);
+      putString(name);
+      added();
+    }
+
+    void add(Book book) {
+      List<Reservation> queue = book.getReservationQueue().reservations();
+      byte[] id = utf8(book.getId());
+      byte[] title = utf8(book.getTitle());
+      byte[] loanedTo = utf8(book.getLoanedTo());
+      byte[][] waiting = new byte[queue.size()][];
+      int bytes = 12 + length(id) + length(title) + length(loanedTo) + 4 + 4 + 8 + 4;
+      for (int i = 0; i < waiting.length; i++) {
+        waiting[i] = utf8(queue.get(i).getMemberId());
+        bytes += 8 + 4 + waiting[i].length;
+      }
+      ensure(bytes);
+      putString(id);
+      putString(title);
+      putString(loanedTo);
+      block.putInt(epochDay(book.getDueDate()));
+      block.putInt(epochDay(book.getFirstDueDate()));
+      block.putLong(book.getVersion());
+      block.putInt(waiting.length);
+      for (int i = 0; i < waiting.length; i++) {
+        block.putLong(queue.get(i).getId());
+        putString(waiting[i]);
+      }
+      added();
+    }
+
+    private void added() {
+      records++;
+      if (++blockRecords == BLOCK_RECORDS) {
+        flushBlock();
+      }
+    }
+
+    void finish() {
+      if (blockRecords > 0) {
+        flushBlock();
+      }
+    }
+
+    private void flushBlock() {
+      try {
+        long offset = channel.position();
+        block.flip();
+        int length = block.remaining();
+        crc.reset();
+        crc.update(block.duplicate());
+        while (block.hasRemaining()) {
+          channel.write(block);
+        }
+        if (table.remaining() < BLOCK_ENTRY_BYTES) {
+          table = ByteBuffer.allocate(table.capacity() * 2).put(table.flip());
+        }
+        table.putLong(offset).putInt(length).putInt((int) crc.getValue());
+        blocks++;
+        blockRecords = 0;
+        block.clear();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    void writeBlockTable() throws IOException {
+      tableOffset = channel.position();
+      table.flip();
+      while (table.hasRemaining()) {
+        channel.write(table);
+      }
+    }
+
+    void describe(ByteBuffer prefix) {
+      prefix.putInt(kind).putInt(blocks).putLong(records).putLong(tableOffset);
+    }
+
+    private void ensure(int bytes) {
+      if (block.remaining() < bytes) {
+        int capacity = Math.max(block.capacity() * 2, block.position() + bytes);
+        block = ByteBuffer.allocate(capacity).put(block.flip());
+      }
+    }
+
+    private void putString(byte[] value) {
+      if (value == null) {
+        block.putInt(-1);
+      } else {
+        block.putInt(value.length).put(value);
+      }
+    }
+  }
+
+  // ===== Restoring =====
+
+  /**
+   * Maps the snapshot and loads it into a new store, decoding blocks in parallel.
+   *
+   * @throws IOException if the file is not a snapshot, is truncated or fails a checksum
+   */
+  public static Restored restore(Path file) throws IOException {
+    long started = System.nanoTime();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < PREFIX_BYTES || size > Integer.MAX_VALUE) {
+        throw new IOException("Not a loadable snapshot (" + size + " bytes): " + file);
+      }
+      MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      Header header = readHeader(map, file);
+      InMemoryStore store =
+          new InMemoryStore(capacity(header.books.records), capacity(header.members.records));
+      load(map, header.members, store, file, reader -> store.load(reader.member()));
+      load(map, header.books, store, file, reader -> store.load(reader.book()));
+      store.resumeReservationIds(header.reservationSequence);
+      Info info =
+          new Info(
+              file,
+              header.createdAt,
+              header.logPosition,
+              header.books.records,
+              header.members.records,
+              size,
+              System.nanoTime() - started);
+      return new Restored(store, info);
+    }
+  }
+
+  /** Reads only the prefix of a snapshot. */
+  public static Info readInfo(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer prefix = ByteBuffer.allocate(PREFIX_BYTES);
+      while (prefix.hasRemaining() && channel.read(prefix) >= 0) {
+        // keep reading
+      }
+      if (prefix.hasRemaining()) {
+        throw new IOException("Not a snapshot: " + file);
+      }
+      Header header = readHeader(prefix.flip(), file);
+      return new Info(
+          file,
+          header.createdAt,
+          header.logPosition,
+          header.books.records,
+          header.members.records,
+          channel.size(),
+          0);
+    }
+  }
+
+  private record SectionRef(long records, int blocks, long tableOffset) {}
+
+  private record Header(
+      Instant createdAt,
+      long logPosition,
+      long reservationSequence,
+      SectionRef members,
+      SectionRef books) {}
+
+  private static Header readHeader(ByteBuffer map, Path file) throws IOException {
+    if (map.getLong(0) != MAGIC) {
+      throw new IOException("Not a snapshot: " + file);
+    }
+    if (map.getInt(8) != FORMAT) {
+      throw new IOException("Unsupported snapshot format " + map.getInt(8) + ": " + file);
+    }
+    if (checksum(map.duplicate().position(0).limit(PREFIX_BYTES - 4))
+        != map.getInt(PREFIX_BYTES - 4)) {
+      throw new IOException("Snapshot header checksum mismatch: " + file);
+    }
+    SectionRef members = null;
+    SectionRef books = null;
+    int sections = map.getInt(12);
+    for (int i = 0; i < sections; i++) {
+      int at = SECTION_TABLE_OFFSET + i * SECTION_ENTRY_BYTES;
+      SectionRef section =
+          new SectionRef(map.getLong(at + 8), map.getInt(at + 4), map.getLong(at + 16));
+      switch (map.getInt(at)) {
+        case MEMBERS -> members = section;
+        case BOOKS -> books = section;
+        default -> throw new IOException("Unknown snapshot section " + map.getInt(at));
+      }
+    }
+    if (members == null || books == null) {
+      throw new IOException("Snapshot is missing a section: " + file);
+    }
+    return new Header(
+        Instant.ofEpochMilli(map.getLong(16)), map.getLong(24), map.getLong(32), members, books);
+  }
+
+  /** Decodes every block of a section, in parallel, checking checksums and the record count. */
+  private static void load(
+      MappedByteBuffer map,
+      SectionRef section,
+      InMemoryStore store,
+      Path file,
+      Consumer<BlockReader> decodeOne)
+      throws IOException {
+    long tableEnd = section.tableOffset + (long) section.blocks * BLOCK_ENTRY_BYTES;
+    if (section.tableOffset < PREFIX_BYTES || tableEnd > map.capacity()) {
+      throw new IOException("Snapshot block table out of range: " + file);
+    }
+    AtomicLong decoded = new AtomicLong();
+    try {
+      IntStream.range(0, section.blocks)
+          .parallel()
+          .forEach(
+              b -> {
+                int entry = (int) section.tableOffset + b * BLOCK_ENTRY_BYTES;
+                long offset = map.getLong(entry);
+                int length = map.getInt(entry + 8);
+                if (offset < PREFIX_BYTES || length < 0 || offset + length > map.capacity()) {
+                  throw new IllegalStateException("Snapshot block " + b + " out of range");
+                }
+                ByteBuffer block = map.slice((int) offset, length);
+                if (checksum(block.duplicate()) != map.getInt(entry + 12)) {
+                  throw new IllegalStateException("Snapshot block " + b + " checksum mismatch");
+                }
+                BlockReader reader = new BlockReader(block, store);
+                long records = 0;
+                while (block.hasRemaining()) {
+                  decodeOne.accept(reader);
+                  records++;
+                }
+                decoded.addAndGet(records);
+              });
+    } catch (IllegalStateException | IndexOutOfBoundsException e) {
+      throw new IOException("Corrupt snapshot " + file + ": " + e.getMessage(), e);
+    }
+    if (decoded.get() != section.records) {
+      throw new IOException(
+          "Snapshot " + file + " holds " + decoded.get() + " records, header says "
+              + section.records);
+    }
+  }
+
+  /**
+   * Decodes records from one block. String bytes go through a reused scratch array, and values that
+   * repeat across books share one instance: member IDs resolve to the restored member's ID, and
+   * dates are cached per block.
+   */
+  private static final class BlockReader {
+    private final ByteBuffer buffer;
+    private final InMemoryStore store;
+    private final Map<Integer, LocalDate> dates = new HashMap<>();
+    private byte[] scratch = new byte[64];
+
+    BlockReader(ByteBuffer buffer, InMemoryStore store) {
+      this.buffer = buffer;
+      this.store = store;
+    }
+
+    Member member() {
+      return new Member(string(), string());
+    }
+
+    Book book() {
+      Book book = new Book(string(), string());
+      book.setLoanedTo(memberId());
+      book.setDueDate(date());
+      book.setFirstDueDate(date());
+      book.setVersion(buffer.getLong());
+      int waiting = buffer.getInt();
+      if (waiting > 0) {
+        List<Reservation> queue = new ArrayList<>(waiting);
+        for (int i = 0; i < waiting; i++) {
+          long id = buffer.getLong();
+          Reservation reservation = new Reservation(book.getId(), memberId());
+          reservation.setId(id);
+          queue.add(reservation);
+        }
+        book.setReservationQueue(ReservationQueue.restore(queue));
+      }
+      return book;
+    }
+
+    private String memberId() {
+      String id = string();
+      Member member = id == null ? null : store.members.get(id);
+      return member == null ? id : member.getId();
+    }
+
+    private LocalDate date() {
+      int epochDay = buffer.getInt();
+      return epochDay == NO_DATE ? null : dates.computeIfAbsent(epochDay, LocalDate::ofEpochDay);
+    }
+
+    private String string() {
+      int length = buffer.getInt();
+      if (length < 0) {
+        return null;
+      }
+      if (scratch.length < length) {
+        scratch = new byte[Math.max(length, scratch.length * 2)];
+      }
+      buffer.get(scratch, 0, length);
+      return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+  }
+
+  // ===== Helpers =====
+
+  private static int capacity(long records) {
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(16, records));
+  }
+
+  private static int checksum(ByteBuffer bytes) {
+    CRC32C crc = new CRC32C();
+    crc.update(bytes);
+    return (int) crc.getValue();
+  }
+
+  private static byte[] utf8(String value) {
+    return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static int length(byte[] value) {
+    return value == null ? 0 : value.length;
+  }
+
+  private static int epochDay(LocalDate date) {
+    return date == null ? NO_DATE : (int) date.toEpochDay();
+  }
+
+  /**
+   * What a snapshot holds.
+   *
+   * @param file where it is stored
+   * @param createdAt when it was written
+   * @param logPosition command log offset to resume replay from, or {@link #NO_LOG_POSITION}
+   * @param books book records
+   * @param members member records
+   * @param bytes file size
+   * @param elapsedNanos time to write or restore it; 0 from {@link #readInfo}
+   */
+  public record Info(
+      Path file,
+      Instant createdAt,
+      long logPosition,
+      long books,
+      long members,
+      long bytes,
+      long elapsedNanos) {}
+
+  /** A store loaded from a snapshot, ready to back the repositories. */
+  public record Restored(InMemoryStore store, Info info) {}
+}
@@ -0,0 +1,155 @@
+package com.nortal.library.core.memory;
+
+import com.nortal.library.core.journal.JournaledLibraryService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a {@link SnapshotFile} of an {@link InMemoryStore} up to date and restores the store from
+ * it on startup.
+ *
+ * <p>{@link #open} loads the existing snapshot, if any, into a new store. Once {@link #start}ed, a
+ * background thread writes a fresh snapshot every interval: the cut is taken between two commands
+ * of the {@link JournaledLibraryService} (when there is one) and records the command log position
+ * it corresponds to, so recovery is "restore the snapshot, then replay the log from that position"
+ * instead of replaying the whole log. Without a command log, a restart loses what happened after
+ * the last snapshot.
+ *
+ * <p>Writers are never paused while the snapshot is written; see {@link InMemoryStore#beginCut()}.
+ */
+public class SnapshotScheduler implements AutoCloseable {
+  private final Path file;
+  private final Duration interval;
+  private final InMemoryStore store;
+  private final SnapshotFile.Info restored;
+  private final ScheduledExecutorService executor;
+  private final AtomicLong failures = new AtomicLong();
+
+  private volatile JournaledLibraryService journal;
+  private volatile SnapshotFile.Info last;
+  private volatile Listener listener = new Listener() {};
+
+  private SnapshotScheduler(
+      Path file, Duration interval, InMemoryStore store, SnapshotFile.Info restored) {
+    if (interval.isNegative() || interval.isZero()) {
+      throw new IllegalArgumentException("Snapshot interval must be positive");
+    }
+    this.file = file;
+    this.interval = interval;
+    this.store = store;
+    this.restored = restored;
+    this.last = restored;
+    this.executor =
+        Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "store-snapshotter");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Restores the store from {@code file} if it exists, otherwise starts with an empty store.
+   *
+   * @throws IOException if the snapshot exists but cannot be loaded
+   */
+  public static SnapshotScheduler open(Path file, Duration interval) throws IOException {
+    if (Files.exists(file)) {
+      SnapshotFile.Restored snapshot = SnapshotFile.restore(file);
+      return new SnapshotScheduler(file, interval, snapshot.store(), snapshot.info());
+    }
+    return new SnapshotScheduler(file, interval, new InMemoryStore(), null);
+  }
+
+  /** The store to back the repositories with. */
+  public InMemoryStore store() {
+    return store;
+  }
+
+  /** The snapshot the store was restored from, if there was one. */
+  public Optional<SnapshotFile.Info> restored() {
+    return Optional.ofNullable(restored);
+  }
+
+  /** Receives the outcome of each periodic snapshot, on the snapshot thread. */
+  public interface Listener {
+    default void written(SnapshotFile.Info snapshot) {}
+
+    /** The previous snapshot stays in place and the schedule continues. */
+    default void failed(Exception failure) {}
+  }
+
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Starts periodic snapshots.
+   *
+   * @param journal the service whose command log the snapshots line up with, or null if commands
+   *     are not logged
+   */
+  public void start(JournaledLibraryService journal) {
+    this.journal = journal;
+    long millis = interval.toMillis();
+    executor.scheduleWithFixedDelay(this::snapshotQuietly, millis, millis, TimeUnit.MILLISECONDS);
+  }
+
+  /** Writes a snapshot now, on the calling thread. */
+  public synchronized SnapshotFile.Info snapshot() throws IOException {
+    JournaledLibraryService commands = journal;
+    long[] position = {SnapshotFile.NO_LOG_POSITION};
+    InMemoryStore.Cut[] cut = new InMemoryStore.Cut[1];
+    try {
+      if (commands == null) {
+        cut[0] = store.beginCut();
+      } else {
+        commands.atCommandBoundary(
+            logPosition -> {
+              position[0] = logPosition;
+              return cut[0] = store.beginCut();
+            });
+      }
+      last = SnapshotFile.write(cut[0], file, position[0]);
+      return last;
+    } finally {
+      if (cut[0] != null) {
+        cut[0].close();
+      }
+    }
+  }
+
+  private void snapshotQuietly() {
+    try {
+      listener.written(snapshot());
+    } catch (IOException | RuntimeException e) {
+      // Keep the schedule alive
+      failures.incrementAndGet();
+      listener.failed(e);
+    }
+  }
+
+  /** The most recent snapshot written or restored, if any. */
+  public Optional<SnapshotFile.Info> last() {
+    return Optional.ofNullable(last);
+  }
+
+  /** Periodic snapshots that failed since startup. */
+  public long failures() {
+    return failures.get();
+  }
+
+  /** Stops periodic snapshots; a snapshot in progress is finished first. */
+  @Override
+  public void close() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+  }
+}
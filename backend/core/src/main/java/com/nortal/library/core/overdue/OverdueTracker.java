@@ -0,0 +1,380 @@
+package com.nortal.library.core.overdue;
+
+import com.nortal.library.core.DueDateCursor;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.port.BookRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the set of overdue loans up to date incrementally instead of querying for it on every read.
+ *
+ * <p>Each loan's due date is placed in a hashed timing wheel with one slot per day: a fixed array
+ * of {@code slots} sets of book IDs, where a loan due on epoch day {@code d} sits in slot {@code d
+ * mod slots}. At each day boundary the slot of the day that just ended is swept and its loans move
+ * to the overdue set; loans in that slot that are due a whole lap later stay where they are. Moving
+ * or removing a loan is O(1) on the wheel through a book-to-due-day map, and O(log k) in the
+ * overdue set of k loans. Memory is that fixed slot array plus two small entries per active loan,
+ * whatever the spread of due dates.
+ *
+ * <p>The overdue set is ordered by due day and then book ID, the order of {@code /api/overdue}, so
+ * a page of it is read from the cursor on without sorting; the count is kept alongside.
+ *
+ * <p>Loans are reported by {@link OverdueTrackingBookRepository}, which the services write through.
+ * The tracker is filled from {@link BookRepository#findByDueDateRange} on first use, so rows
+ * written before that (seeds, restored state) need no reporting. Writes reported while that load is
+ * running win over what the load read, including removals. Rows changed by other processes sharing
+ * the database are not seen; disable the tracker in such deployments.
+ *
+ * <p>The day advances on reads for a later day and from a background tick shortly after midnight
+ * once {@link #start}ed. Reads for an earlier day than the tracker's are not answered.
+ */
+public class OverdueTracker implements AutoCloseable {
+  private static final int LOAD_PAGE = 1_000;
+  private static final LocalDate FAR_FUTURE = LocalDate.of(9999, 12, 31);
+
+  /** Due day of a loan removed while the tracker was loading; keeps the load from restoring it. */
+  private static final int REMOVED = Integer.MIN_VALUE;
+
+  private enum State {
+    NEW,
+    LOADING,
+    READY
+  }
+
+  private final BookRepository books;
+  private final Clock clock;
+  private final Set<String>[] slots;
+
+  /** Book ID to the epoch day its loan is due, for every tracked loan. */
+  private final Map<String, Integer> dueDays = new ConcurrentHashMap<>();
+
+  /** Tracked loans due before {@link #today}, by due day and then book ID. */
+  private final ConcurrentSkipListSet<Loan> overdue = new ConcurrentSkipListSet<>();
+
+  // The skip list counts by walking, so its size is kept here
+  private final AtomicInteger overdueSize = new AtomicInteger();
+
+  // Reporting writes share the read lock; loading and day sweeps take the write lock
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final ScheduledExecutorService executor;
+
+  private volatile State state = State.NEW;
+  private volatile long today;
+
+  private final AtomicLong sweeps = new AtomicLong();
+  private final AtomicLong flipped = new AtomicLong();
+  private volatile long lastSweepMicros;
+  private volatile long loadMillis;
+
+  /**
+   * @param books read once to fill the tracker on first use
+   * @param clock source of "today" for the first load and the day-boundary tick
+   * @param slots days covered by one turn of the wheel; loans due further ahead wait in their slot
+   *     for the extra laps
+   */
+  @SuppressWarnings("unchecked")
+  public OverdueTracker(BookRepository books, Clock clock, int slots) {
+    if (slots < 1) {
+      throw new IllegalArgumentException("Timing wheel needs at least one slot");
+    }
+    this.books = books;
+    this.clock = clock;
+    this.slots = new Set[slots];
+    for (int i = 0; i < slots; i++) {
+      this.slots[i] = ConcurrentHashMap.newKeySet();
+    }
+    this.executor =
+        Executors.newSingleThreadScheduledExecutor(
+            task -> {
+              Thread thread = new Thread(task, "overdue-tracker");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** Starts the background tick that sweeps the wheel shortly after each midnight. */
+  public void start() {
+    scheduleNextTick();
+  }
+
+  /**
+   * Records a loan's current due date; null stops tracking the book. Callers report each book's
+   * writes in commit order, as the services do under their per-book locks.
+   */
+  public void track(String bookId, LocalDate dueDate) {
+    Lock shared = lock.readLock();
+    shared.lock();
+    try {
+      if (state == State.NEW) {
+        // The first load reads this write from the repository
+        return;
+      }
+      dueDays.compute(
+          bookId,
+          (id, previous) -> {
+            if (previous != null && previous != REMOVED) {
+              unplace(id, previous);
+            }
+            if (dueDate == null) {
+              return state == State.LOADING ? Integer.valueOf(REMOVED) : null;
+            }
+            int day = (int) dueDate.toEpochDay();
+            place(id, day);
+            return day;
+          });
+    } finally {
+      shared.unlock();
+    }
+  }
+
+  /**
+   * IDs of the books overdue on {@code day}: on loan and due before it, earliest due first and then
+   * by ID.
+   *
+   * @return empty if {@code day} is before the day the tracker has already advanced to
+   */
+  public Optional<Collection<String>> overdueBookIds(LocalDate day) {
+    if (!advanceTo(day)) {
+      return Optional.empty();
+    }
+    return Optional.of(overdue.stream().map(Loan::bookId).toList());
+  }
+
+  /**
+   * IDs of up to {@code limit} books overdue on {@code day} that come after {@code after}, earliest
+   * due first and then by ID. Costs O(log k + limit) for k overdue loans.
+   *
+   * @param after the last book of the previous page, or null to start from the earliest due
+   * @return empty if {@code day} is before the day the tracker has already advanced to
+   */
+  public Optional<List<String>> overdueBookIds(LocalDate day, DueDateCursor after, int limit) {
+    if (!advanceTo(day)) {
+      return Optional.empty();
+    }
+    Collection<Loan> from =
+        after == null
+            ? overdue
+            : overdue.tailSet(new Loan((int) after.dueDate().toEpochDay(), after.bookId()), false);
+    return Optional.of(from.stream().limit(limit).map(Loan::bookId).toList());
+  }
+
+  /**
+   * Number of books overdue on {@code day}, without listing them.
+   *
+   * @return empty if {@code day} is before the day the tracker has already advanced to
+   */
+  public OptionalLong overdueCount(LocalDate day) {
+    return advanceTo(day) ? OptionalLong.of(overdueSize.get()) : OptionalLong.empty();
+  }
+
+  /**
+   * Loads the tracker if needed and moves it forward to {@code day}, sweeping the slot of every day
+   * passed. A gap of a whole lap or more sweeps each slot once.
+   *
+   * @return whether the tracker now answers for {@code day}
+   */
+  boolean advanceTo(LocalDate day) {
+    if (state != State.READY) {
+      load();
+    }
+    long target = day.toEpochDay();
+    if (target <= today) {
+      return target == today;
+    }
+    Lock exclusive = lock.writeLock();
+    exclusive.lock();
+    try {
+      long started = System.nanoTime();
+      for (long ended = Math.max(today, target - slots.length); ended < target; ended++) {
+        sweep(slots[slot(ended)], target);
+      }
+      today = target;
+      sweeps.incrementAndGet();
+      lastSweepMicros = (System.nanoTime() - started) / 1_000;
+    } finally {
+      exclusive.unlock();
+    }
+    return true;
+  }
+
+  /** Moves the loans of one slot that are due before {@code target} to the overdue set. */
+  private void sweep(Set<String> slot, long target) {
+    for (Iterator<String> ids = slot.iterator(); ids.hasNext(); ) {
+      String id = ids.next();
+      Integer day = dueDays.get(id);
+      if (day == null || day == REMOVED) {
+        ids.remove();
+      } else if (day < target) {
+        ids.remove();
+        addOverdue(id, day);
+        flipped.incrementAndGet();
+      }
+    }
+  }
+
+  /** Fills the tracker from the repository; the first caller loads, later ones wait for it. */
+  private synchronized void load() {
+    if (state == State.READY) {
+      return;
+    }
+    long started = System.nanoTime();
+    Lock exclusive = lock.writeLock();
+    exclusive.lock();
+    try {
+      today = LocalDate.now(clock).toEpochDay();
+      state = State.LOADING;
+    } finally {
+      exclusive.unlock();
+    }
+    DueDateCursor after = null;
+    List<Book> page;
+    do {
+      page = books.findByDueDateRange(null, FAR_FUTURE, after, LOAD_PAGE);
+      for (Book book : page) {
+        loadLoan(book.getId(), (int) book.getDueDate().toEpochDay());
+      }
+      after = page.isEmpty() ? null : DueDateCursor.after(page.get(page.size() - 1));
+    } while (page.size() == LOAD_PAGE);
+    exclusive.lock();
+    try {
+      dueDays.values().removeIf(day -> day == REMOVED);
+      state = State.READY;
+    } finally {
+      exclusive.unlock();
+    }
+    loadMillis = (System.nanoTime() - started) / 1_000_000;
+  }
+
+  /** Adds a loan read by the load unless a reported write for the book got there first. */
+  private void loadLoan(String bookId, int day) {
+    Lock shared = lock.readLock();
+    shared.lock();
+    try {
+      dueDays.computeIfAbsent(
+          bookId,
+          id -> {
+            place(id, day);
+            return day;
+          });
+    } finally {
+      shared.unlock();
+    }
+  }
+
+  private void place(String bookId, int day) {
+    if (day < today) {
+      addOverdue(bookId, day);
+    } else {
+      slots[slot(day)].add(bookId);
+    }
+  }
+
+  private void unplace(String bookId, int day) {
+    if (overdue.remove(new Loan(day, bookId))) {
+      overdueSize.decrementAndGet();
+    } else {
+      slots[slot(day)].remove(bookId);
+    }
+  }
+
+  private void addOverdue(String bookId, int day) {
+    if (overdue.add(new Loan(day, bookId))) {
+      overdueSize.incrementAndGet();
+    }
+  }
+
+  private int slot(long epochDay) {
+    return (int) Math.floorMod(epochDay, (long) slots.length);
+  }
+
+  private void scheduleNextTick() {
+    ZonedDateTime now = ZonedDateTime.now(clock);
+    // A second past midnight, so the tick never lands on the day that is ending
+    ZonedDateTime next = now.toLocalDate().plusDays(1).atStartOfDay(now.getZone()).plusSeconds(1);
+    executor.schedule(
+        () -> {
+          try {
+            advanceTo(LocalDate.now(clock));
+          } finally {
+            scheduleNextTick();
+          }
+        },
+        Duration.between(now, next).toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  public Stats stats() {
+    boolean loaded = state == State.READY;
+    return new Stats(
+        loaded,
+        loaded ? LocalDate.ofEpochDay(today) : null,
+        dueDays.size(),
+        overdueSize.get(),
+        slots.length,
+        sweeps.get(),
+        flipped.get(),
+        lastSweepMicros,
+        loadMillis);
+  }
+
+  /** An overdue loan; orders like {@link DueDateCursor}, by due day and then book ID. */
+  private record Loan(int day, String bookId) implements Comparable<Loan> {
+    private static final Comparator<Loan> ORDER =
+        Comparator.comparingInt(Loan::day).thenComparing(Loan::bookId);
+
+    @Override
+    public int compareTo(Loan other) {
+      return ORDER.compare(this, other);
+    }
+  }
+
+  /**
+   * Counters since startup.
+   *
+   * @param loaded whether the first load has run; it runs on the first read or tick
+   * @param today the day the tracker has advanced to; loans due before it are overdue
+   * @param trackedLoans loans being tracked, overdue or not
+   * @param overdueLoans loans due before {@code today}
+   * @param slots days covered by one turn of the wheel
+   * @param sweeps day boundaries processed
+   * @param flipped loans moved from the wheel to the overdue set by sweeps
+   */
+  public record Stats(
+      boolean loaded,
+      LocalDate today,
+      long trackedLoans,
+      long overdueLoans,
+      int slots,
+      long sweeps,
+      long flipped,
+      long lastSweepMicros,
+      long loadMillis) {}
+
+  /** Stops the day-boundary tick. */
+  @Override
+  public void close() throws InterruptedException {
+    executor.shutdownNow();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+  }
+}
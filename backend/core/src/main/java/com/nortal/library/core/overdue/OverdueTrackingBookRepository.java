@@ -0,0 +1,119 @@
+package com.nortal.library.core.overdue;
+
+import com.nortal.library.core.BookQuery;
+import com.nortal.library.core.DueDateCursor;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.port.BookRepository;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * {@link BookRepository} decorator that reports every successful write of a book's due date to an
+ * {@link OverdueTracker}: loans and extensions move the book in the tracker's timing wheel, returns
+ * and deletes remove it. Failed writes report nothing. Reads are passed through.
+ */
+public class OverdueTrackingBookRepository implements BookRepository {
+  private final BookRepository delegate;
+  private final OverdueTracker tracker;
+
+  public OverdueTrackingBookRepository(BookRepository delegate, OverdueTracker tracker) {
+    this.delegate = delegate;
+    this.tracker = tracker;
+  }
+
+  @Override
+  public Book save(Book book) {
+    Book saved = delegate.save(book);
+    tracker.track(saved.getId(), saved.getDueDate());
+    return saved;
+  }
+
+  @Override
+  public void delete(Book book) {
+    delegate.delete(book);
+    tracker.track(book.getId(), null);
+  }
+
+  @Override
+  public int loanIfEligible(String bookId, String memberId, LocalDate dueDate, long maxLoans) {
+    int updated = delegate.loanIfEligible(bookId, memberId, dueDate, maxLoans);
+    if (updated > 0) {
+      tracker.track(bookId, dueDate);
+    }
+    return updated;
+  }
+
+  @Override
+  public Optional<Book> findById(String id) {
+    return delegate.findById(id);
+  }
+
+  @Override
+  public List<Book> findAllById(Collection<String> ids) {
+    return delegate.findAllById(ids);
+  }
+
+  @Override
+  public List<Book> findAll() {
+    return delegate.findAll();
+  }
+
+  @Override
+  public List<Book> findPageAfter(String afterId, int limit) {
+    return delegate.findPageAfter(afterId, limit);
+  }
+
+  @Override
+  public void scrollAll(Consumer<Book> action) {
+    delegate.scrollAll(action);
+  }
+
+  @Override
+  public boolean existsById(String id) {
+    return delegate.existsById(id);
+  }
+
+  @Override
+  public long countByLoanedTo(String memberId) {
+    return delegate.countByLoanedTo(memberId);
+  }
+
+  @Override
+  public List<Book> findByLoanedTo(String memberId) {
+    return delegate.findByLoanedTo(memberId);
+  }
+
+  @Override
+  public List<Book> findByReservationQueueContaining(String memberId) {
+    return delegate.findByReservationQueueContaining(memberId);
+  }
+
+  @Override
+  public List<Book> findByDueDateBefore(LocalDate date) {
+    return delegate.findByDueDateBefore(date);
+  }
+
+  @Override
+  public List<Book> findByDueDateRange(
+      LocalDate from, LocalDate until, DueDateCursor after, int limit) {
+    return delegate.findByDueDateRange(from, until, after, limit);
+  }
+
+  @Override
+  public boolean existsByLoanedTo(String memberId) {
+    return delegate.existsByLoanedTo(memberId);
+  }
+
+  @Override
+  public List<Book> findMatching(BookQuery query) {
+    return delegate.findMatching(query);
+  }
+
+  @Override
+  public List<Book> findByLoanedToIsNull() {
+    return delegate.findByLoanedToIsNull();
+  }
+}
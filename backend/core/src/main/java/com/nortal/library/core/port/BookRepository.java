@@ -1,15 +1,38 @@
 package com.nortal.library.core.port;
 
+import com.nortal.library.core.BookQuery;
+import com.nortal.library.core.DueDateCursor;
 import com.nortal.library.core.domain.Book;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookRepository {
   Optional<Book> findById(String id);
 
+  /** Finds the books with the given IDs, in no particular order; unknown IDs are skipped. */
+  List<Book> findAllById(Collection<String> ids);
+
   List<Book> findAll();
 
+  /**
+   * Finds one page of books ordered by ID.
+   *
+   * @param afterId the ID of the last book of the previous page, or null for the first page
+   * @param limit maximum number of books returned
+   */
+  List<Book> findPageAfter(String afterId, int limit);
+
+  /**
+   * Passes every book to {@code action} in ID order, reading them through a forward-only cursor.
+   *
+   * <p>Only a bounded batch of books is held at a time, so this suits exports of the whole catalog.
+   * Books are read-only snapshots; {@code action} must not save them.
+   */
+  void scrollAll(Consumer<Book> action);
+
   Book save(Book book);
 
   void delete(Book book);
@@ -30,12 +53,40 @@ public interface BookRepository {
   /** Finds all books with due dates before the specified date (overdue books). */
   List<Book> findByDueDateBefore(LocalDate date);
 
+  /**
+   * Finds one page of loaned books due in {@code [from, until)}, ordered by due date and then ID.
+   *
+   * @param from first due date included, or null for no lower bound
+   * @param until first due date excluded
+   * @param after the last book of the previous page, or null for the first page
+   * @param limit maximum number of books returned
+   */
+  List<Book> findByDueDateRange(LocalDate from, LocalDate until, DueDateCursor after, int limit);
+
   /** Checks if any books are currently loaned to the specified member. */
   boolean existsByLoanedTo(String memberId);
 
-  /** Finds all books with titles containing the specified text (case-insensitive). */
-  List<Book> findByTitleContainingIgnoreCase(String title);
+  /**
+   * Finds the books passing every filter of {@code query}, in its order and up to its limit. The
+   * filters, order and limit are applied by the store (one SQL statement for JPA), so only matching
+   * books are read.
+   */
+  List<Book> findMatching(BookQuery query);
 
   /** Finds all available books (not currently loaned to anyone). */
   List<Book> findByLoanedToIsNull();
+
+  // Guarded write paths
+
+  /**
+   * Loans a book in a single atomic, guarded write without loading the entity.
+   *
+   * <p>The write only applies when all of the following hold at execution time: the book exists and
+   * is not on loan, its reservation queue is empty, the member exists, and the member has fewer
+   * than {@code maxLoans} books on loan. Both {@code dueDate} and {@code firstDueDate} are set to
+   * {@code dueDate} and the book's version is incremented.
+   *
+   * @return the number of books updated: 1 if the loan was recorded, 0 if any guard failed
+   */
+  int loanIfEligible(String bookId, String memberId, LocalDate dueDate, long maxLoans);
 }
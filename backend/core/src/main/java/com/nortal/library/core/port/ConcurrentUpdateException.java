@@ -0,0 +1,19 @@
+package com.nortal.library.core.port;
+
+/**
+ * Thrown by repository adapters when a write is rejected because the entity was modified by another
+ * transaction since it was read.
+ *
+ * <p>Adapters translate their store-specific optimistic-locking failures into this exception so
+ * that the service layer can retry without depending on persistence classes.
+ */
+public class ConcurrentUpdateException extends RuntimeException {
+
+  public ConcurrentUpdateException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+  public ConcurrentUpdateException(String message) {
+    super(message);
+  }
+}
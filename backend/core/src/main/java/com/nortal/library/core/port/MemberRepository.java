@@ -1,17 +1,66 @@
 package com.nortal.library.core.port;
 
+import com.nortal.library.core.LoanEligibility;
+import com.nortal.library.core.MemberSummary;
 import com.nortal.library.core.domain.Member;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface MemberRepository {
   Optional<Member> findById(String id);
 
   List<Member> findAll();
 
+  /**
+   * Finds one page of members ordered by ID.
+   *
+   * @param afterId the ID of the last member of the previous page, or null for the first page
+   * @param limit maximum number of members returned
+   */
+  List<Member> findPageAfter(String afterId, int limit);
+
+  /**
+   * Passes every member to {@code action} in ID order, reading them through a forward-only cursor
+   * that holds only a bounded batch at a time.
+   */
+  void scrollAll(Consumer<Member> action);
+
   Member save(Member member);
 
   void delete(Member member);
 
   boolean existsById(String id);
+
+  /**
+   * Reads member existence, active loan count and queue membership for one book in a single round
+   * trip.
+   *
+   * @param memberId the ID of the member
+   * @param bookId the ID of the book whose reservation queue is checked
+   * @return the snapshot, or {@link LoanEligibility#UNKNOWN_MEMBER} if the member does not exist
+   */
+  LoanEligibility findLoanEligibility(String memberId, String bookId);
+
+  /**
+   * Set-based variant of {@link #findLoanEligibility} for several members and one book, read in a
+   * single round trip.
+   *
+   * @param memberIds the IDs of the members
+   * @param bookId the ID of the book whose reservation queue is checked
+   * @return snapshots keyed by member ID; members that do not exist are absent
+   */
+  Map<String, LoanEligibility> findLoanEligibilities(Collection<String> memberIds, String bookId);
+
+  /**
+   * Reads a member's loans and reservations together with the titles of their books, in at most two
+   * set-based round trips and without loading any book or queue.
+   *
+   * @param memberId the ID of the member
+   * @return the summary (loans by book ID, reservations oldest first), or empty if the member does
+   *     not exist
+   */
+  Optional<MemberSummary> findSummary(String memberId);
 }
@@ -0,0 +1,32 @@
+package com.nortal.library.core.port;
+
+import com.nortal.library.core.ReservationPosition;
+import java.util.List;
+
+/**
+ * Member-centric access to reservations.
+ *
+ * <p>Book-centric queue changes (enqueue, dequeue, cancel) are made through {@link
+ * com.nortal.library.core.domain.Book#getReservationQueue()} and persisted by {@link
+ * BookRepository#save}. This port covers the operations that span many books for one member.
+ */
+public interface ReservationRepository {
+  /**
+   * Lists every reservation held by a member with its current queue position.
+   *
+   * <p>Positions are derived by counting the older reservations for the same book, so no queue has
+   * to be loaded.
+   *
+   * @param memberId the ID of the member
+   * @return reservations ordered from oldest to newest
+   */
+  List<ReservationPosition> findPositionsByMemberId(String memberId);
+
+  /**
+   * Removes a member from every reservation queue in a single statement.
+   *
+   * @param memberId the ID of the member
+   * @return number of reservations removed
+   */
+  int deleteByMemberId(String memberId);
+}
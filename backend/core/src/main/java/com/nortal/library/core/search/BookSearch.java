@@ -0,0 +1,152 @@
+package com.nortal.library.core.search;
+
+import static com.nortal.library.core.Folding.fold;
+
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.port.BookRepository;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * In-memory search over book titles, kept current by {@link
+ * com.nortal.library.core.service.BookManagementService}.
+ *
+ * <p>Substring queries go through a {@link TrigramIndex} over folded titles, so a search touches
+ * only the books sharing the query's trigrams instead of lower-casing every title in the catalog.
+ * Ranked queries go through a {@link TermIndex} over the title's words, folded for case and
+ * accents, and autocomplete through a {@link PrefixIndex} of the folded titles. Results are book
+ * IDs; callers read the books and re-check them against the stored row.
+ */
+public class BookSearch extends CatalogIndex {
+  private final TrigramIndex titles = new TrigramIndex();
+  private final TermIndex words = new TermIndex();
+  private final PrefixIndex prefixes = new PrefixIndex();
+
+  /** @param titles reads the title of every book, keyed by book ID */
+  public BookSearch(Supplier<Map<String, String>> titles) {
+    super(titles);
+  }
+
+  /** Search over every book in {@code books}, read on first use. */
+  public static BookSearch over(BookRepository books) {
+    return new BookSearch(
+        () -> {
+          Map<String, String> titles = new HashMap<>();
+          for (Book book : books.findAll()) {
+            titles.put(book.getId(), book.getTitle());
+          }
+          return titles;
+        });
+  }
+
+  /** IDs of the books whose title contains {@code text}, ignoring case and accents. */
+  public List<String> titleContains(String text) {
+    String needle = fold(text);
+    return read(() -> titles.search(needle));
+  }
+
+  /**
+   * IDs of the books whose titles contain, for every word of {@code text}, a word within {@code
+   * maxEdits} insertions, deletions or substitutions of it, ignoring case and accents. Words of up
+   * to two characters must match exactly and words of up to five allow one edit, so that short
+   * words do not match most of the catalog.
+   */
+  public List<String> titleWordsLike(String text, int maxEdits) {
+    List<LevenshteinAutomaton> automata = new ArrayList<>();
+    for (String word : tokens(text)) {
+      automata.add(new LevenshteinAutomaton(word, allowedEdits(word, maxEdits)));
+    }
+    if (automata.isEmpty()) {
+      return List.of();
+    }
+    return read(() -> words.searchFuzzy(automata));
+  }
+
+  private static int allowedEdits(String word, int maxEdits) {
+    return Math.min(maxEdits, word.length() <= 2 ? 0 : word.length() <= 5 ? 1 : 2);
+  }
+
+  /**
+   * The {@code limit} books whose titles best match the words of {@code query}, best first, scored
+   * with BM25. Books sharing no word with the query are not returned.
+   */
+  public List<Match> ranked(String query, int limit) {
+    List<String> tokens = tokens(query);
+    return read(() -> words.search(tokens, limit));
+  }
+
+  /**
+   * Up to {@code limit} books with a title word starting with {@code prefix}, ignoring case and
+   * accents, in title order from the matching word on.
+   */
+  public List<Suggestion> titleStartsWith(String prefix, int limit) {
+    String folded = fold(prefix).stripLeading();
+    return read(() -> prefixes.startingWith(folded, limit));
+  }
+
+  @Override
+  protected void index(String id, String title) {
+    String folded = fold(title);
+    titles.put(id, folded);
+    words.put(id, tokens(folded));
+    prefixes.put(id, title, folded);
+  }
+
+  @Override
+  protected void unindex(String id) {
+    titles.remove(id);
+    words.remove(id);
+    prefixes.remove(id);
+  }
+
+  @Override
+  protected void loaded() {
+    prefixes.seal();
+  }
+
+  /** Splits {@code text} into words, lower-cased and with accents removed. */
+  static List<String> tokens(String text) {
+    String folded = fold(text);
+    List<String> tokens = new ArrayList<>();
+    int start = -1;
+    for (int i = 0; i <= folded.length(); ) {
+      int c = i < folded.length() ? folded.codePointAt(i) : ' ';
+      if (Character.isLetterOrDigit(c)) {
+        start = start < 0 ? i : start;
+      } else if (start >= 0) {
+        tokens.add(folded.substring(start, i));
+        start = -1;
+      }
+      i += Character.charCount(c);
+    }
+    return tokens;
+  }
+
+  /** Index size; loads the index if no search has yet. */
+  public Stats stats() {
+    return read(
+        () ->
+            new Stats(
+                titles.size(),
+                titles.trigrams(),
+                titles.postingEntries(),
+                words.terms(),
+                loadMillis()));
+  }
+
+  /** A book matching a ranked query; higher scores match better. */
+  public record Match(String bookId, double score) {}
+
+  /**
+   * Index size.
+   *
+   * @param titles books indexed
+   * @param trigrams distinct three-character sequences across all titles
+   * @param postings (trigram, book) pairs held, including stale ones awaiting compaction
+   * @param words distinct words across all titles, after case and accent folding
+   */
+  public record Stats(int titles, int trigrams, long postings, int words, long loadMillis) {}
+}
@@ -0,0 +1,136 @@
+package com.nortal.library.core.search;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory index over one text field of each catalog entry (a book's title, a member's name),
+ * filled from the repository on first use and kept current by the service that writes the field.
+ *
+ * <p>Loading lazily means entries written before the first search (seeds, restored state) need no
+ * reporting: writes reported before the load are ignored and the load reads them instead. Writes
+ * reported while the load runs win over what it read, including deletes. Searches share a read
+ * lock; writes and load batches take the write lock, so subclasses keep their structures in plain,
+ * unsynchronized collections.
+ */
+public abstract class CatalogIndex {
+  private static final int LOAD_BATCH = 1_000;
+
+  private enum State {
+    NEW,
+    LOADING,
+    READY
+  }
+
+  private final Supplier<Map<String, String>> source;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /** Entries written while loading; the load skips them. */
+  private final Set<String> writtenWhileLoading = new HashSet<>();
+
+  private volatile State state = State.NEW;
+  private volatile long loadMillis;
+
+  /** @param source reads the indexed text of every entry, keyed by ID */
+  protected CatalogIndex(Supplier<Map<String, String>> source) {
+    this.source = source;
+  }
+
+  /** Indexes an entry's current text, replacing what was indexed for it before. */
+  public void put(String id, String text) {
+    write(id, () -> index(id, text));
+  }
+
+  /** Removes an entry from the index. */
+  public void remove(String id) {
+    write(id, () -> unindex(id));
+  }
+
+  private void write(String id, Runnable change) {
+    Lock exclusive = lock.writeLock();
+    exclusive.lock();
+    try {
+      if (state == State.NEW) {
+        // The load reads this write from the repository
+        return;
+      }
+      if (state == State.LOADING) {
+        writtenWhileLoading.add(id);
+      }
+      change.run();
+    } finally {
+      exclusive.unlock();
+    }
+  }
+
+  /** Runs a search under the read lock, loading the index first if needed. */
+  protected final <T> T read(Supplier<T> search) {
+    if (state != State.READY) {
+      load();
+    }
+    Lock shared = lock.readLock();
+    shared.lock();
+    try {
+      return search.get();
+    } finally {
+      shared.unlock();
+    }
+  }
+
+  private synchronized void load() {
+    if (state == State.READY) {
+      return;
+    }
+    long started = System.nanoTime();
+    Lock exclusive = lock.writeLock();
+    exclusive.lock();
+    try {
+      state = State.LOADING;
+    } finally {
+      exclusive.unlock();
+    }
+    Iterator<Map.Entry<String, String>> entries = source.get().entrySet().iterator();
+    while (entries.hasNext()) {
+      exclusive.lock();
+      try {
+        for (int i = 0; i < LOAD_BATCH && entries.hasNext(); i++) {
+          Map.Entry<String, String> entry = entries.next();
+          if (!writtenWhileLoading.contains(entry.getKey())) {
+            index(entry.getKey(), entry.getValue());
+          }
+        }
+      } finally {
+        exclusive.unlock();
+      }
+    }
+    exclusive.lock();
+    try {
+      loaded();
+      writtenWhileLoading.clear();
+      state = State.READY;
+    } finally {
+      exclusive.unlock();
+    }
+    loadMillis = (System.nanoTime() - started) / 1_000_000;
+  }
+
+  /** How long the first load took. */
+  protected final long loadMillis() {
+    return loadMillis;
+  }
+
+  /** Adds or replaces an entry; called under the write lock. */
+  protected abstract void index(String id, String text);
+
+  /** Removes an entry if present; called under the write lock. */
+  protected abstract void unindex(String id);
+
+  /** Called under the write lock once the load has indexed every entry, before any search. */
+  protected void loaded() {}
+}
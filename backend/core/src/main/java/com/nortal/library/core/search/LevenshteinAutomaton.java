@@ -0,0 +1,107 @@
+package com.nortal.library.core.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+
+/**
+ * Accepts the strings within a fixed edit distance (insertions, deletions and substitutions) of one
+ * word, read one character at a time.
+ *
+ * <p>A state is the last row of the edit-distance table between the word and the characters read so
+ * far, with entries capped at {@code maxEdits + 1}; once every entry is past the cap no
+ * continuation can be accepted. {@link #intersect} walks a sorted dictionary with it, sharing the
+ * rows of common prefixes between neighbouring terms and, at a prefix no term can be extended from,
+ * seeking past every term with that prefix. Its cost follows the prefixes the automaton can still
+ * accept rather than the dictionary size.
+ */
+final class LevenshteinAutomaton {
+  private final String word;
+  private final int maxEdits;
+
+  LevenshteinAutomaton(String word, int maxEdits) {
+    this.word = word;
+    this.maxEdits = maxEdits;
+  }
+
+  int[] start() {
+    int[] row = new int[word.length() + 1];
+    for (int i = 0; i < row.length; i++) {
+      row[i] = Math.min(i, maxEdits + 1);
+    }
+    return row;
+  }
+
+  int[] step(int[] row, char c) {
+    int[] next = new int[row.length];
+    next[0] = Math.min(row[0] + 1, maxEdits + 1);
+    for (int i = 1; i < row.length; i++) {
+      int cost = word.charAt(i - 1) == c ? 0 : 1;
+      int edits = Math.min(Math.min(next[i - 1], row[i]) + 1, row[i - 1] + cost);
+      next[i] = Math.min(edits, maxEdits + 1);
+    }
+    return next;
+  }
+
+  boolean accepts(int[] row) {
+    return row[row.length - 1] <= maxEdits;
+  }
+
+  /** Whether some continuation of the characters read so far can still be accepted. */
+  boolean canMatch(int[] row) {
+    for (int edits : row) {
+      if (edits <= maxEdits) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** The terms of {@code dictionary} this automaton accepts, in dictionary order. */
+  List<String> intersect(NavigableSet<String> dictionary) {
+    List<String> matches = new ArrayList<>();
+    List<int[]> rows = new ArrayList<>();
+    rows.add(start());
+    // rows.get(i) is the state after the first i characters of previous
+    String previous = "";
+    String term = dictionary.isEmpty() ? null : dictionary.first();
+    while (term != null) {
+      int shared = 0;
+      int limit = Math.min(previous.length(), term.length());
+      while (shared < limit && previous.charAt(shared) == term.charAt(shared)) {
+        shared++;
+      }
+      rows.subList(shared + 1, rows.size()).clear();
+      int dead = -1;
+      for (int i = shared; i < term.length() && dead < 0; i++) {
+        int[] row = step(rows.get(i), term.charAt(i));
+        rows.add(row);
+        if (!canMatch(row)) {
+          dead = i;
+        }
+      }
+      previous = term;
+      if (dead < 0) {
+        if (accepts(rows.get(term.length()))) {
+          matches.add(term);
+        }
+        term = dictionary.higher(term);
+      } else {
+        String next = successor(term.substring(0, dead + 1));
+        term = next == null ? null : dictionary.ceiling(next);
+      }
+    }
+    return matches;
+  }
+
+  /** The least string greater than every string starting with {@code prefix}, or null if none. */
+  private static String successor(String prefix) {
+    for (int i = prefix.length() - 1; i >= 0; i--) {
+      char c = prefix.charAt(i);
+      if (c != Character.MAX_VALUE) {
+        return prefix.substring(0, i) + (char) (c + 1);
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,64 @@
+package com.nortal.library.core.search;
+
+import static com.nortal.library.core.Folding.fold;
+
+import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.port.MemberRepository;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * In-memory autocomplete over member names, kept current by {@link
+ * com.nortal.library.core.service.MemberManagementService}.
+ */
+public class MemberSearch extends CatalogIndex {
+  private final PrefixIndex names = new PrefixIndex();
+
+  /** @param names reads the name of every member, keyed by member ID */
+  public MemberSearch(Supplier<Map<String, String>> names) {
+    super(names);
+  }
+
+  /** Search over every member in {@code members}, read on first use. */
+  public static MemberSearch over(MemberRepository members) {
+    return new MemberSearch(
+        () -> {
+          Map<String, String> names = new HashMap<>();
+          for (Member member : members.findAll()) {
+            names.put(member.getId(), member.getName());
+          }
+          return names;
+        });
+  }
+
+  /**
+   * Up to {@code limit} members with a name word starting with {@code prefix}, ignoring case and
+   * accents, in name order from the matching word on.
+   */
+  public List<Suggestion> nameStartsWith(String prefix, int limit) {
+    String folded = fold(prefix).stripLeading();
+    return read(() -> names.startingWith(folded, limit));
+  }
+
+  /** Members indexed; loads the index if no search has yet. */
+  public int size() {
+    return read(names::size);
+  }
+
+  @Override
+  protected void index(String id, String name) {
+    names.put(id, name, fold(name));
+  }
+
+  @Override
+  protected void unindex(String id) {
+    names.remove(id);
+  }
+
+  @Override
+  protected void loaded() {
+    names.seal();
+  }
+}
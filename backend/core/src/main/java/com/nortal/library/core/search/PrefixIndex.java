@@ -0,0 +1,268 @@
+package com.nortal.library.core.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sorted array of word starts answering "some word of the text starts with" queries over short
+ * texts. Not thread-safe; the {@link CatalogIndex} subclass using it guards it.
+ *
+ * <p>Every text gets a document number as in {@link TrigramIndex}, and every position where a word
+ * of its folded key starts is one {@code long} entry (document and offset), sorted by the key from
+ * that position on: a sparse suffix array over word starts. A prefix query binary-searches to the
+ * first entry not below the prefix and reads entries while they start with it, so it costs a few
+ * comparisons per match regardless of catalog size; multi-word prefixes work because each entry
+ * runs to the end of the key.
+ *
+ * <p>Entries of texts written after {@link #seal} go to a second, smaller sorted array, merged into
+ * the main one when it reaches 1/{@value #MERGE_RATIO} of its size, so a write shifts only the
+ * small array. Entries of replaced and removed texts stay until dead documents outnumber live ones,
+ * and are skipped meanwhile.
+ */
+final class PrefixIndex {
+  private static final int MIN_COMPACT = 1_024;
+  private static final int MIN_MERGE = 4_096;
+  private static final int MERGE_RATIO = 16;
+  private static final int MAX_OFFSET = 0xFFFF;
+
+  private String[] ids = new String[64];
+  private String[] labels = new String[64];
+  private String[] keys = new String[64];
+  private int documents;
+  private final Map<String, Integer> documentById = new HashMap<>();
+
+  private boolean sealed;
+  private long[] entries = new long[64];
+  private int size;
+  private long[] recent = new long[64];
+  private int recentSize;
+
+  /**
+   * Indexes a text, replacing any earlier text for {@code id}.
+   *
+   * @param label returned with matches
+   * @param key the folded label that prefixes are matched against
+   */
+  void put(String id, String label, String key) {
+    remove(id);
+    if (documents == ids.length) {
+      ids = Arrays.copyOf(ids, documents * 2);
+      labels = Arrays.copyOf(labels, documents * 2);
+      keys = Arrays.copyOf(keys, documents * 2);
+    }
+    int document = documents++;
+    ids[document] = id;
+    labels[document] = label;
+    keys[document] = key;
+    documentById.put(id, document);
+    for (int offset = 0; offset < key.length() && offset <= MAX_OFFSET; offset++) {
+      if (wordStart(key, offset)) {
+        add((long) document << 16 | offset);
+      }
+    }
+  }
+
+  void remove(String id) {
+    Integer document = documentById.remove(id);
+    if (document != null) {
+      // The key stays: sorted entries still point at it
+      ids[document] = null;
+      labels[document] = null;
+      if (documents - documentById.size() > Math.max(MIN_COMPACT, documentById.size())) {
+        compact();
+      }
+    }
+  }
+
+  /** Sorts the entries added so far; later writes keep the index sorted as they go. */
+  void seal() {
+    sort(entries, size);
+    sealed = true;
+  }
+
+  /**
+   * Up to {@code limit} texts with a word starting with {@code prefix}, already folded, ordered by
+   * the key from the matching word on.
+   */
+  List<Suggestion> startingWith(String prefix, int limit) {
+    List<Suggestion> matches = new ArrayList<>();
+    Set<Integer> seen = new HashSet<>();
+    int i = lowerBound(entries, size, prefix);
+    int j = lowerBound(recent, recentSize, prefix);
+    while (matches.size() < limit) {
+      boolean fromMain = i < size && startsWith(entries[i], prefix);
+      boolean fromRecent = j < recentSize && startsWith(recent[j], prefix);
+      if (!fromMain && !fromRecent) {
+        break;
+      }
+      long entry;
+      if (fromMain && (!fromRecent || compare(entries[i], recent[j]) < 0)) {
+        entry = entries[i++];
+      } else {
+        entry = recent[j++];
+      }
+      int document = (int) (entry >>> 16);
+      if (ids[document] != null && seen.add(document)) {
+        matches.add(new Suggestion(ids[document], labels[document]));
+      }
+    }
+    return matches;
+  }
+
+  int size() {
+    return documentById.size();
+  }
+
+  private void add(long entry) {
+    if (!sealed) {
+      if (size == entries.length) {
+        entries = Arrays.copyOf(entries, size * 2);
+      }
+      entries[size++] = entry;
+      return;
+    }
+    if (recentSize == recent.length) {
+      recent = Arrays.copyOf(recent, recentSize * 2);
+    }
+    int low = 0;
+    int high = recentSize;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (compare(recent[middle], entry) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    int at = low;
+    System.arraycopy(recent, at, recent, at + 1, recentSize - at);
+    recent[at] = entry;
+    recentSize++;
+    if (recentSize > Math.max(MIN_MERGE, size / MERGE_RATIO)) {
+      merge();
+    }
+  }
+
+  private void merge() {
+    long[] merged = new long[size + recentSize];
+    int i = 0;
+    int j = 0;
+    for (int k = 0; k < merged.length; k++) {
+      if (j == recentSize || (i < size && compare(entries[i], recent[j]) < 0)) {
+        merged[k] = entries[i++];
+      } else {
+        merged[k] = recent[j++];
+      }
+    }
+    entries = merged;
+    size = merged.length;
+    recentSize = 0;
+  }
+
+  /** Renumbers the live documents densely and rebuilds the entries from their keys. */
+  private void compact() {
+    int capacity = Math.max(64, documentById.size() * 2);
+    String[] liveIds = new String[capacity];
+    String[] liveLabels = new String[capacity];
+    String[] liveKeys = new String[capacity];
+    int live = 0;
+    for (int document = 0; document < documents; document++) {
+      if (ids[document] != null) {
+        liveIds[live] = ids[document];
+        liveLabels[live] = labels[document];
+        liveKeys[live] = keys[document];
+        documentById.put(ids[document], live);
+        live++;
+      }
+    }
+    ids = liveIds;
+    labels = liveLabels;
+    keys = liveKeys;
+    documents = live;
+    size = 0;
+    recentSize = 0;
+    for (int document = 0; document < documents; document++) {
+      String key = keys[document];
+      for (int offset = 0; offset < key.length() && offset <= MAX_OFFSET; offset++) {
+        if (wordStart(key, offset)) {
+          if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+          }
+          entries[size++] = (long) document << 16 | offset;
+        }
+      }
+    }
+    sort(entries, size);
+  }
+
+  private static boolean wordStart(String key, int offset) {
+    return Character.isLetterOrDigit(key.charAt(offset))
+        && (offset == 0 || !Character.isLetterOrDigit(key.charAt(offset - 1)));
+  }
+
+  private boolean startsWith(long entry, String prefix) {
+    return keys[(int) (entry >>> 16)].startsWith(prefix, (int) (entry & MAX_OFFSET));
+  }
+
+  /** The first of {@code sorted[0..size)} whose key from its offset on is not below {@code key}. */
+  private int lowerBound(long[] sorted, int size, String key) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      long entry = sorted[middle];
+      if (compare(keys[(int) (entry >>> 16)], (int) (entry & MAX_OFFSET), key, 0) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /** Orders entries by their key from the offset on, then by document and offset. */
+  private int compare(long a, long b) {
+    String aKey = keys[(int) (a >>> 16)];
+    String bKey = keys[(int) (b >>> 16)];
+    int byKey = compare(aKey, (int) (a & MAX_OFFSET), bKey, (int) (b & MAX_OFFSET));
+    return byKey != 0 ? byKey : Long.compare(a, b);
+  }
+
+  private static int compare(String a, int from, String b, int bFrom) {
+    int length = Math.min(a.length() - from, b.length() - bFrom);
+    for (int k = 0; k < length; k++) {
+      char x = a.charAt(from + k);
+      char y = b.charAt(bFrom + k);
+      if (x != y) {
+        return x - y;
+      }
+    }
+    return (a.length() - from) - (b.length() - bFrom);
+  }
+
+  /** Merge sort of {@code values[0..size)} by {@link #compare(long, long)}. */
+  private void sort(long[] values, int size) {
+    long[] buffer = new long[size];
+    for (int width = 1; width < size; width *= 2) {
+      for (int low = 0; low < size - width; low += 2 * width) {
+        int middle = low + width;
+        int high = Math.min(low + 2 * width, size);
+        System.arraycopy(values, low, buffer, low, high - low);
+        int i = low;
+        int j = middle;
+        for (int k = low; k < high; k++) {
+          if (j == high || (i < middle && compare(buffer[i], buffer[j]) <= 0)) {
+            values[k] = buffer[i++];
+          } else {
+            values[k] = buffer[j++];
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package com.nortal.library.core.search;
+
+/**
+ * An autocomplete match.
+ *
+ * @param id the book or member ID
+ * @param label the title or name as stored
+ */
+public record Suggestion(String id, String label) {}
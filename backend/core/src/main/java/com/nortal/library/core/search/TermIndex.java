@@ -0,0 +1,466 @@
+package com.nortal.library.core.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * Word inverted index ranking short texts against a query with Okapi BM25. Not thread-safe; {@link
+ * BookSearch} guards it.
+ *
+ * <p>Documents are numbered as in {@link TrigramIndex}, and each term maps to the ascending list of
+ * documents containing it with the term's count in each. A query walks the lists of its terms in
+ * document order and keeps the best {@code limit} documents in a bounded heap. Once the heap is
+ * full its weakest score is a threshold: terms whose combined best possible contribution cannot
+ * exceed it no longer propose candidates, and are only probed for documents that the remaining
+ * terms propose (MaxScore). Lists are also split into blocks of {@value #BLOCK} entries that record
+ * the shortest text for each count of the term (1, 2, 3 or more), which bounds the block's scores
+ * whatever the average length is at query time; a run of documents whose blocks together cannot
+ * beat the threshold is skipped without scoring it. Queries made of common words thus skip most of
+ * their long lists.
+ *
+ * <p>The terms are also kept in a sorted dictionary, which {@link LevenshteinAutomaton} walks to
+ * find the terms within a few edits of a query word.
+ */
+final class TermIndex {
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+  private static final int MIN_COMPACT = 1_024;
+  private static final int BLOCK = 128;
+
+  /** Counts tracked separately per block; higher counts share the last slot. */
+  private static final int IMPACTS = 3;
+
+  private static final Comparator<Hit> WEAKEST_FIRST =
+      Comparator.comparingDouble(Hit::score)
+          .thenComparing(Hit::document, Comparator.reverseOrder());
+
+  private String[] ids = new String[64];
+  private int[] lengths = new int[64];
+  private int[][] documentTerms = new int[64][];
+  private int documents;
+  private long totalLength;
+  private final Map<String, Integer> documentById = new HashMap<>();
+  private final Map<String, Integer> termIds = new HashMap<>();
+  private final NavigableSet<String> dictionary = new TreeSet<>();
+  private final List<Postings> postings = new ArrayList<>();
+
+  /** Indexes the {@code tokens} of a text, replacing any earlier text for {@code id}. */
+  void put(String id, List<String> tokens) {
+    remove(id);
+    if (documents == ids.length) {
+      ids = Arrays.copyOf(ids, documents * 2);
+      lengths = Arrays.copyOf(lengths, documents * 2);
+      documentTerms = Arrays.copyOf(documentTerms, documents * 2);
+    }
+    int document = documents++;
+    int[] terms = new int[tokens.size()];
+    for (int i = 0; i < terms.length; i++) {
+      terms[i] = termId(tokens.get(i));
+    }
+    Arrays.sort(terms);
+    int distinct = 0;
+    for (int i = 0; i < terms.length; ) {
+      int term = terms[i];
+      int frequency = 0;
+      while (i < terms.length && terms[i] == term) {
+        frequency++;
+        i++;
+      }
+      postings.get(term).add(document, frequency, tokens.size());
+      terms[distinct++] = term;
+    }
+    ids[document] = id;
+    lengths[document] = tokens.size();
+    documentTerms[document] = Arrays.copyOf(terms, distinct);
+    documentById.put(id, document);
+    totalLength += tokens.size();
+  }
+
+  void remove(String id) {
+    Integer document = documentById.remove(id);
+    if (document == null) {
+      return;
+    }
+    for (int term : documentTerms[document]) {
+      postings.get(term).live--;
+    }
+    totalLength -= lengths[document];
+    ids[document] = null;
+    documentTerms[document] = null;
+    if (documents - documentById.size() > Math.max(MIN_COMPACT, documentById.size())) {
+      compact();
+    }
+  }
+
+  /**
+   * The {@code limit} documents scoring highest for {@code tokens}, best first; ties go to the
+   * document indexed first. Documents sharing no term with the query are not returned.
+   */
+  List<BookSearch.Match> search(List<String> tokens, int limit) {
+    List<Cursor> terms = new ArrayList<>();
+    int live = documentById.size();
+    double averageLength = totalLength / (double) live;
+    for (String token : tokens) {
+      Integer term = termIds.get(token);
+      Postings list = term == null ? null : postings.get(term);
+      if (list != null && list.live > 0 && terms.stream().noneMatch(c -> c.postings == list)) {
+        double idf = Math.log(1 + (live - list.live + 0.5) / (list.live + 0.5));
+        terms.add(new Cursor(list, idf, averageLength));
+      }
+    }
+    if (terms.isEmpty()) {
+      return List.of();
+    }
+    terms.sort(Comparator.comparingDouble(Cursor::bound));
+    Cursor[] cursors = terms.toArray(new Cursor[0]);
+    int n = cursors.length;
+    // bounds[i]: the most terms 0..i can add to a document's score together
+    double[] bounds = new double[n];
+    for (int i = 0; i < n; i++) {
+      bounds[i] = cursors[i].bound() + (i == 0 ? 0 : bounds[i - 1]);
+    }
+    PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, WEAKEST_FIRST);
+    double threshold = 0;
+    int essential = 0;
+    double[] parts = new double[n];
+    while (true) {
+      while (essential < n && bounds[essential] <= threshold) {
+        essential++;
+      }
+      int document = Integer.MAX_VALUE;
+      for (int i = essential; i < n; i++) {
+        document = Math.min(document, cursors[i].document());
+      }
+      if (document == Integer.MAX_VALUE) {
+        break;
+      }
+      double rest = essential == 0 ? 0 : bounds[essential - 1];
+      if (best.size() == limit) {
+        // Every document up to the end of the nearest block scores at most the blocks' maxima
+        double bound = rest;
+        int end = Integer.MAX_VALUE;
+        for (int i = essential; i < n; i++) {
+          if (cursors[i].document() != Integer.MAX_VALUE) {
+            bound += cursors[i].blockBound();
+            end = Math.min(end, cursors[i].blockEnd());
+          }
+        }
+        if (bound <= threshold) {
+          for (int i = essential; i < n; i++) {
+            cursors[i].seek(end + 1);
+          }
+          continue;
+        }
+        // This document scores at most the blocks' maxima of the terms it contains
+        bound = rest;
+        for (int i = essential; i < n; i++) {
+          if (cursors[i].document() == document) {
+            bound += cursors[i].blockBound();
+          }
+        }
+        if (bound <= threshold) {
+          for (int i = essential; i < n; i++) {
+            if (cursors[i].document() == document) {
+              cursors[i].at++;
+            }
+          }
+          continue;
+        }
+      }
+      Arrays.fill(parts, 0);
+      double score = 0;
+      for (int i = essential; i < n; i++) {
+        Cursor cursor = cursors[i];
+        if (cursor.document() == document) {
+          parts[i] = cursor.score(lengths[document]);
+          score += parts[i];
+          cursor.at++;
+        }
+      }
+      if (ids[document] == null) {
+        continue;
+      }
+      int probed = essential;
+      for (; probed > 0 && score + bounds[probed - 1] > threshold; probed--) {
+        Cursor cursor = cursors[probed - 1];
+        cursor.seek(document);
+        if (cursor.document() == document) {
+          parts[probed - 1] = cursor.score(lengths[document]);
+          score += parts[probed - 1];
+        }
+      }
+      if (probed > 0) {
+        // Cannot beat the threshold
+        continue;
+      }
+      // Summed in a fixed order so the score does not depend on which terms were essential
+      score = 0;
+      for (double part : parts) {
+        score += part;
+      }
+      if (best.size() < limit || score > threshold) {
+        best.add(new Hit(document, score));
+        if (best.size() > limit) {
+          best.poll();
+        }
+        if (best.size() == limit) {
+          threshold = best.peek().score();
+        }
+      }
+    }
+    List<Hit> hits = new ArrayList<>(best);
+    hits.sort(WEAKEST_FIRST.reversed());
+    List<BookSearch.Match> matches = new ArrayList<>(hits.size());
+    for (Hit hit : hits) {
+      matches.add(new BookSearch.Match(ids[hit.document()], hit.score()));
+    }
+    return matches;
+  }
+
+  /** IDs of the documents containing, for every automaton, a term it accepts, in indexing order. */
+  List<String> searchFuzzy(List<LevenshteinAutomaton> words) {
+    int[] candidates = null;
+    for (LevenshteinAutomaton word : words) {
+      List<Postings> lists = new ArrayList<>();
+      int count = 0;
+      for (String term : word.intersect(dictionary)) {
+        Postings list = postings.get(termIds.get(term));
+        if (list.live > 0) {
+          lists.add(list);
+          count += list.size;
+        }
+      }
+      int[] containing = new int[count];
+      count = 0;
+      for (Postings list : lists) {
+        System.arraycopy(list.documents, 0, containing, count, list.size);
+        count += list.size;
+      }
+      int[] sorted =
+          lists.size() == 1 ? containing : Arrays.stream(containing).sorted().distinct().toArray();
+      candidates = candidates == null ? sorted : intersection(candidates, sorted);
+      if (candidates.length == 0) {
+        return List.of();
+      }
+    }
+    List<String> matches = new ArrayList<>();
+    for (int document : candidates == null ? new int[0] : candidates) {
+      if (ids[document] != null) {
+        matches.add(ids[document]);
+      }
+    }
+    return matches;
+  }
+
+  private static int[] intersection(int[] a, int[] b) {
+    int[] both = new int[Math.min(a.length, b.length)];
+    int count = 0;
+    for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+      if (a[i] < b[j]) {
+        i++;
+      } else if (a[i] > b[j]) {
+        j++;
+      } else {
+        both[count++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(both, count);
+  }
+
+  int terms() {
+    int terms = 0;
+    for (Postings list : postings) {
+      if (list.live > 0) {
+        terms++;
+      }
+    }
+    return terms;
+  }
+
+  private int termId(String token) {
+    Integer term = termIds.get(token);
+    if (term == null) {
+      term = postings.size();
+      termIds.put(token, term);
+      dictionary.add(token);
+      postings.add(new Postings());
+    }
+    return term;
+  }
+
+  /** Renumbers the live documents densely and drops the postings of dead ones. */
+  private void compact() {
+    int[] renumbered = new int[documents];
+    int capacity = Math.max(64, documentById.size() * 2);
+    String[] liveIds = new String[capacity];
+    int[] liveLengths = new int[capacity];
+    int[][] liveTerms = new int[capacity][];
+    int live = 0;
+    for (int document = 0; document < documents; document++) {
+      if (ids[document] == null) {
+        renumbered[document] = -1;
+        continue;
+      }
+      renumbered[document] = live;
+      liveIds[live] = ids[document];
+      liveLengths[live] = lengths[document];
+      liveTerms[live] = documentTerms[document];
+      documentById.put(ids[document], live);
+      live++;
+    }
+    for (Postings list : postings) {
+      list.renumber(renumbered, liveLengths);
+    }
+    ids = liveIds;
+    lengths = liveLengths;
+    documentTerms = liveTerms;
+    documents = live;
+  }
+
+  private record Hit(int document, double score) {}
+
+  /** A query term's position in its posting list. */
+  private static final class Cursor {
+    final Postings postings;
+    final double idf;
+    final double averageLength;
+    int at;
+    private int boundedBlock = -1;
+    private double blockBound;
+
+    Cursor(Postings postings, double idf, double averageLength) {
+      this.postings = postings;
+      this.idf = idf;
+      this.averageLength = averageLength;
+    }
+
+    /** The current document, or {@link Integer#MAX_VALUE} past the end. */
+    int document() {
+      return at < postings.size ? postings.documents[at] : Integer.MAX_VALUE;
+    }
+
+    /** Moves to the first document at least {@code target}. */
+    void seek(int target) {
+      at = postings.seek(at, target);
+    }
+
+    double score(int length) {
+      return score(postings.frequencies[at], length);
+    }
+
+    /** The BM25 term score approaches but never reaches {@code idf * (K1 + 1)}. */
+    double bound() {
+      return idf * (K1 + 1);
+    }
+
+    /** The most any document in the current block can score. */
+    double blockBound() {
+      int block = at / BLOCK;
+      if (block != boundedBlock) {
+        blockBound = 0;
+        for (int impact = 0; impact < IMPACTS; impact++) {
+          int length = postings.blockLengths[block * IMPACTS + impact];
+          if (length != Integer.MAX_VALUE) {
+            int frequency = impact < IMPACTS - 1 ? impact + 1 : postings.blockFrequencies[block];
+            blockBound = Math.max(blockBound, score(frequency, length));
+          }
+        }
+        boundedBlock = block;
+      }
+      return blockBound;
+    }
+
+    /** The last document of the current block. */
+    int blockEnd() {
+      return postings.documents[Math.min(postings.size, (at / BLOCK + 1) * BLOCK) - 1];
+    }
+
+    private double score(int frequency, int length) {
+      double norm = K1 * (1 - B + B * length / averageLength);
+      return idf * frequency * (K1 + 1) / (frequency + norm);
+    }
+  }
+
+  /**
+   * Ascending document numbers with the term's count in each, and per block of entries the shortest
+   * document length for each count slot, and the highest count.
+   */
+  private static final class Postings {
+    int[] documents = new int[4];
+    int[] frequencies = new int[4];
+    int[] blockFrequencies = new int[1];
+    int[] blockLengths = noLengths();
+    int size;
+
+    /** Entries of documents still indexed; the others wait for compaction. */
+    int live;
+
+    void add(int document, int frequency, int length) {
+      if (size == documents.length) {
+        documents = Arrays.copyOf(documents, size * 2);
+        frequencies = Arrays.copyOf(frequencies, size * 2);
+      }
+      int block = size / BLOCK;
+      if (block == blockFrequencies.length) {
+        blockFrequencies = Arrays.copyOf(blockFrequencies, block * 2);
+        blockLengths = Arrays.copyOf(blockLengths, block * 2 * IMPACTS);
+        Arrays.fill(blockLengths, block * IMPACTS, blockLengths.length, Integer.MAX_VALUE);
+      }
+      documents[size] = document;
+      frequencies[size] = frequency;
+      blockFrequencies[block] = Math.max(blockFrequencies[block], frequency);
+      int slot = block * IMPACTS + Math.min(frequency, IMPACTS) - 1;
+      blockLengths[slot] = Math.min(blockLengths[slot], length);
+      size++;
+      live++;
+    }
+
+    /** Index of the first entry from {@code from} on whose document is at least {@code target}. */
+    int seek(int from, int target) {
+      int step = 1;
+      int to = from;
+      while (to < size && documents[to] < target) {
+        from = to + 1;
+        to += step;
+        step <<= 1;
+      }
+      int found = Arrays.binarySearch(documents, from, Math.min(to + 1, size), target);
+      return found >= 0 ? found : -found - 1;
+    }
+
+    /** Drops the entries of dead documents and rebuilds the block maxima. */
+    void renumber(int[] renumbered, int[] lengths) {
+      int[] kept = documents;
+      int[] keptFrequencies = frequencies;
+      int entries = size;
+      documents = new int[Math.max(4, live)];
+      frequencies = new int[documents.length];
+      blockFrequencies = new int[1];
+      blockLengths = noLengths();
+      size = 0;
+      live = 0;
+      for (int i = 0; i < entries; i++) {
+        int document = renumbered[kept[i]];
+        if (document >= 0) {
+          add(document, keptFrequencies[i], lengths[document]);
+        }
+      }
+    }
+
+    /** Lengths for one block, none recorded yet. */
+    private static int[] noLengths() {
+      int[] lengths = new int[IMPACTS];
+      Arrays.fill(lengths, Integer.MAX_VALUE);
+      return lengths;
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package com.nortal.library.core.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trigram inverted index answering substring queries over short texts. Not thread-safe; {@link
+ * BookSearch} guards it.
+ *
+ * <p>Every text gets a document number, increasing with each write, and every three-character
+ * window of the text maps to the sorted list of documents containing it. A query of three or more
+ * characters intersects the lists of its trigrams, shortest first, and verifies the survivors with
+ * {@link String#contains}; shorter queries scan the stored texts. Replacing or removing a text only
+ * forgets its document number; the stale postings are skipped at verification and dropped when dead
+ * documents outnumber live ones and the postings are rebuilt.
+ */
+final class TrigramIndex {
+  private static final int MIN_COMPACT = 1_024;
+
+  private String[] ids = new String[64];
+  private String[] texts = new String[64];
+  private int documents;
+  private final Map<String, Integer> documentById = new HashMap<>();
+  private final Map<Long, Postings> postings = new HashMap<>();
+
+  /** Indexes {@code text}, already normalized, replacing any earlier text for {@code id}. */
+  void put(String id, String text) {
+    remove(id);
+    if (documents == ids.length) {
+      ids = Arrays.copyOf(ids, documents * 2);
+      texts = Arrays.copyOf(texts, documents * 2);
+    }
+    int document = documents++;
+    ids[document] = id;
+    texts[document] = text;
+    documentById.put(id, document);
+    addPostings(document, text);
+  }
+
+  void remove(String id) {
+    Integer document = documentById.remove(id);
+    if (document != null) {
+      ids[document] = null;
+      texts[document] = null;
+      if (documents - documentById.size() > Math.max(MIN_COMPACT, documentById.size())) {
+        compact();
+      }
+    }
+  }
+
+  /** IDs of the texts containing {@code needle}, already normalized, in indexing order. */
+  List<String> search(String needle) {
+    List<String> matches = new ArrayList<>();
+    if (needle.length() < 3) {
+      for (int document = 0; document < documents; document++) {
+        if (texts[document] != null && texts[document].contains(needle)) {
+          matches.add(ids[document]);
+        }
+      }
+      return matches;
+    }
+    int grams = needle.length() - 2;
+    Postings[] lists = new Postings[grams];
+    for (int i = 0; i < grams; i++) {
+      lists[i] = postings.get(trigram(needle, i));
+      if (lists[i] == null) {
+        return matches;
+      }
+    }
+    Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+    int[] candidates = Arrays.copyOf(lists[0].documents, lists[0].size);
+    int count = candidates.length;
+    for (int i = 1; i < grams && count > 0; i++) {
+      if (lists[i] != lists[i - 1]) {
+        count = lists[i].retainAll(candidates, count);
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      String text = texts[candidates[i]];
+      if (text != null && text.contains(needle)) {
+        matches.add(ids[candidates[i]]);
+      }
+    }
+    return matches;
+  }
+
+  int size() {
+    return documentById.size();
+  }
+
+  int trigrams() {
+    return postings.size();
+  }
+
+  long postingEntries() {
+    long entries = 0;
+    for (Postings list : postings.values()) {
+      entries += list.size;
+    }
+    return entries;
+  }
+
+  private void addPostings(int document, String text) {
+    for (int i = 0; i + 3 <= text.length(); i++) {
+      postings.computeIfAbsent(trigram(text, i), key -> new Postings()).add(document);
+    }
+  }
+
+  /** Renumbers the live documents densely and rebuilds every posting list. */
+  private void compact() {
+    String[] liveIds = new String[Math.max(64, documentById.size() * 2)];
+    String[] liveTexts = new String[liveIds.length];
+    int live = 0;
+    postings.clear();
+    for (int document = 0; document < documents; document++) {
+      if (texts[document] != null) {
+        liveIds[live] = ids[document];
+        liveTexts[live] = texts[document];
+        documentById.put(ids[document], live);
+        addPostings(live, texts[document]);
+        live++;
+      }
+    }
+    ids = liveIds;
+    texts = liveTexts;
+    documents = live;
+  }
+
+  private static long trigram(String text, int at) {
+    return (long) text.charAt(at) << 32 | (long) text.charAt(at + 1) << 16 | text.charAt(at + 2);
+  }
+
+  /** Ascending document numbers; appends stay sorted because numbers only grow. */
+  private static final class Postings {
+    int[] documents = new int[4];
+    int size;
+
+    void add(int document) {
+      // A trigram repeated within one text is posted once
+      if (size > 0 && documents[size - 1] == document) {
+        return;
+      }
+      if (size == documents.length) {
+        documents = Arrays.copyOf(documents, size * 2);
+      }
+      documents[size++] = document;
+    }
+
+    /**
+     * Keeps the first {@code count} {@code candidates} that are also in this list, galloping ahead
+     * so a short candidate list costs far less than a pass over a long posting list.
+     *
+     * @return how many candidates remain, compacted to the front of the array
+     */
+    int retainAll(int[] candidates, int count) {
+      int kept = 0;
+      int from = 0;
+      for (int i = 0; i < count && from < size; i++) {
+        int target = candidates[i];
+        int step = 1;
+        int to = from;
+        while (to < size && documents[to] < target) {
+          from = to + 1;
+          to += step;
+          step <<= 1;
+        }
+        int found = Arrays.binarySearch(documents, from, Math.min(to + 1, size), target);
+        if (found >= 0) {
+          candidates[kept++] = target;
+          from = found + 1;
+        } else {
+          from = -found - 1;
+        }
+      }
+      return kept;
+    }
+  }
+}
@@ -5,19 +5,28 @@ import static com.nortal.library.core.ErrorCodes.*;
 import com.nortal.library.core.Result;
 import com.nortal.library.core.domain.Book;
 import com.nortal.library.core.port.BookRepository;
+import com.nortal.library.core.search.BookSearch;
 import java.util.Optional;
 
 /**
  * Service responsible for book CRUD operations and lifecycle management.
  *
  * <p>Handles creation, updating, and deletion of books with appropriate validation and data
- * integrity checks.
+ * integrity checks. Titles are the only field it changes, so it also keeps the title search index
+ * current.
  */
 public class BookManagementService {
   private final BookRepository bookRepository;
+  private final BookSearch bookSearch;
 
   public BookManagementService(BookRepository bookRepository) {
+    this(bookRepository, null);
+  }
+
+  /** @param bookSearch told about every title written, or null when titles are not indexed */
+  public BookManagementService(BookRepository bookRepository, BookSearch bookSearch) {
     this.bookRepository = bookRepository;
+    this.bookSearch = bookSearch;
   }
 
   /**
@@ -36,6 +45,9 @@ public class BookManagementService {
       return Result.failure(BOOK_ALREADY_EXISTS);
     }
     bookRepository.save(new Book(id, title));
+    if (bookSearch != null) {
+      bookSearch.put(id, title);
+    }
     return Result.success();
   }
 
@@ -57,6 +69,9 @@ public class BookManagementService {
     Book book = existing.get();
     book.setTitle(title);
     bookRepository.save(book);
+    if (bookSearch != null) {
+      bookSearch.put(id, title);
+    }
     return Result.success();
   }
 
@@ -91,6 +106,9 @@ public class BookManagementService {
     }
 
     bookRepository.delete(book);
+    if (bookSearch != null) {
+      bookSearch.remove(id);
+    }
     return Result.success();
   }
 }
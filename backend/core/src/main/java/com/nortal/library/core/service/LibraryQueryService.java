@@ -2,16 +2,29 @@ package com.nortal.library.core.service;
 
 import static com.nortal.library.core.ErrorCodes.*;
 
+import com.nortal.library.core.BookQuery;
+import com.nortal.library.core.DueDateCursor;
+import com.nortal.library.core.DueDatePage;
+import com.nortal.library.core.IdPage;
 import com.nortal.library.core.MemberSummary;
-import com.nortal.library.core.ReservationPosition;
+import com.nortal.library.core.RankedBook;
 import com.nortal.library.core.domain.Book;
 import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.overdue.OverdueTracker;
 import com.nortal.library.core.port.BookRepository;
 import com.nortal.library.core.port.MemberRepository;
+import com.nortal.library.core.search.BookSearch;
+import com.nortal.library.core.search.MemberSearch;
+import com.nortal.library.core.search.Suggestion;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Service responsible for read-only query operations on library data.
@@ -22,10 +35,29 @@ import java.util.Optional;
 public class LibraryQueryService {
   private final BookRepository bookRepository;
   private final MemberRepository memberRepository;
+  private final Optional<BookSearch> bookSearch;
+  private final Optional<MemberSearch> memberSearch;
+  private final Optional<OverdueTracker> overdueTracker;
 
-  public LibraryQueryService(BookRepository bookRepository, MemberRepository memberRepository) {
+  /**
+   * @param bookSearch answers title searches from its index; when empty, title searches are
+   *     repository queries (see {@link #searchBooks(String, Boolean, String, int)})
+   * @param memberSearch answers member name autocomplete from its index; when empty, each lookup
+   *     reads every member
+   * @param overdueTracker answers overdue listings from its overdue set; when empty, or for a day
+   *     it has moved past, they are range reads of the due-date index
+   */
+  public LibraryQueryService(
+      BookRepository bookRepository,
+      MemberRepository memberRepository,
+      Optional<BookSearch> bookSearch,
+      Optional<MemberSearch> memberSearch,
+      Optional<OverdueTracker> overdueTracker) {
     this.bookRepository = bookRepository;
     this.memberRepository = memberRepository;
+    this.bookSearch = bookSearch;
+    this.memberSearch = memberSearch;
+    this.overdueTracker = overdueTracker;
   }
 
   /**
@@ -37,39 +69,205 @@ public class LibraryQueryService {
    * @return list of books matching all specified criteria
    */
   public List<Book> searchBooks(String titleContains, Boolean availableOnly, String loanedTo) {
-    // Optimized: Use database queries instead of in-memory filtering when possible
-    List<Book> books;
-
-    // Start with the most specific query
-    if (loanedTo != null) {
-      books = bookRepository.findByLoanedTo(loanedTo);
-    } else if (Boolean.TRUE.equals(availableOnly)) {
-      books = bookRepository.findByLoanedToIsNull();
-    } else if (Boolean.FALSE.equals(availableOnly)) {
-      // Get all loaned books (inverse of available)
-      books = bookRepository.findAll().stream().filter(b -> b.getLoanedTo() != null).toList();
-    } else {
-      books = bookRepository.findAll();
-    }
+    return searchBooks(titleContains, availableOnly, loanedTo, 0);
+  }
 
-    // Apply title filter in memory if needed
-    if (titleContains != null) {
-      String searchTerm = titleContains.toLowerCase();
-      books = books.stream().filter(b -> b.getTitle().toLowerCase().contains(searchTerm)).toList();
+  /**
+   * Searches for books based on various criteria, optionally tolerating typos in the title.
+   *
+   * <p>With {@code maxEdits} above 0, {@code titleContains} is split into words and a title matches
+   * when it has, for every word, a word within {@code maxEdits} edits of it (see {@link
+   * BookSearch#titleWordsLike}) instead of containing the text. Typo tolerance needs the title
+   * index; without it the title must contain the text.
+   *
+   * @param titleContains partial title match (case-insensitive), or null for no title filter
+   * @param availableOnly true for only available books, false for only loaned books, null for all
+   * @param loanedTo filter by borrower member ID, or null for no borrower filter
+   * @param maxEdits 0 for substring matching, or 1-2 for the edits allowed per title word
+   * @return books matching all specified criteria, by ID
+   */
+  public List<Book> searchBooks(
+      String titleContains, Boolean availableOnly, String loanedTo, int maxEdits) {
+    if (maxEdits < 0 || maxEdits > 2) {
+      throw new IllegalArgumentException("maxEdits must be between 0 and 2");
     }
-
-    return books;
+    BookQuery query;
+    if (titleContains == null || bookSearch.isEmpty()) {
+      // Without the index the title filter runs in the repository query
+      query = BookQuery.where(titleContains, availableOnly, loanedTo);
+    } else if (maxEdits > 0) {
+      query =
+          BookQuery.where(null, availableOnly, loanedTo)
+              .withIds(bookSearch.get().titleWordsLike(titleContains, maxEdits));
+    } else {
+      // Only books whose indexed title matches are candidates; the query re-checks the stored title
+      query =
+          BookQuery.where(titleContains, availableOnly, loanedTo)
+              .withIds(bookSearch.get().titleContains(titleContains));
+    }
+    return bookRepository.findMatching(query);
   }
 
   /**
    * Retrieves all books with due dates before the specified date.
    *
    * @param today the date to compare against (typically today's date)
-   * @return list of overdue books
+   * @return list of overdue books, earliest due first when the tracker answers
    */
   public List<Book> overdueBooks(LocalDate today) {
-    // Optimized: O(1) database query instead of O(n) scan
-    return bookRepository.findByDueDateBefore(today);
+    Optional<Collection<String>> ids = overdueTracker.flatMap(t -> t.overdueBookIds(today));
+    return ids.isPresent() ? booksInOrder(ids.get()) : bookRepository.findByDueDateBefore(today);
+  }
+
+  /**
+   * Ranks books by how well their titles match the words of {@code query}, using BM25 over titles
+   * folded for case and accents. Only the {@code limit} best books are read from the repository.
+   *
+   * <p>Ranking needs the title index. Without it the books whose title contains {@code query} are
+   * returned in title order, each with a score of 0.
+   *
+   * @param query free text; words are matched whole
+   * @param limit maximum number of books returned
+   * @return the best matching books, best first; books sharing no word with the query are left out
+   */
+  public List<RankedBook> searchFullText(String query, int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be >= 1");
+    }
+    if (bookSearch.isEmpty()) {
+      BookQuery contains =
+          BookQuery.where(query.strip(), null, null)
+              .withOrder(BookQuery.Order.TITLE)
+              .withLimit(limit);
+      return bookRepository.findMatching(contains).stream()
+          .map(book -> new RankedBook(book, 0))
+          .toList();
+    }
+    List<BookSearch.Match> matches = bookSearch.get().ranked(query, limit);
+    List<String> ids = matches.stream().map(BookSearch.Match::bookId).toList();
+    Map<String, Book> books = new HashMap<>();
+    for (Book book : bookRepository.findAllById(ids)) {
+      books.put(book.getId(), book);
+    }
+    List<RankedBook> ranked = new ArrayList<>(matches.size());
+    for (BookSearch.Match match : matches) {
+      Book book = books.get(match.bookId());
+      // Deleted since it was indexed
+      if (book != null) {
+        ranked.add(new RankedBook(book, match.score()));
+      }
+    }
+    return ranked;
+  }
+
+  /**
+   * Suggests books whose title has a word starting with {@code prefix}, ignoring case and accents.
+   * A prefix spanning several words matches them in sequence, so "pragmatic pro" matches "The
+   * Pragmatic Programmer".
+   *
+   * <p>Without the title index only titles starting with {@code prefix} match, read from the
+   * repository in folded title order.
+   *
+   * @param prefix the text typed so far
+   * @param limit maximum number of suggestions returned
+   * @return matching books by ID and title, in title order from the matching word on
+   */
+  public List<Suggestion> autocompleteBooks(String prefix, int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be >= 1");
+    }
+    if (bookSearch.isPresent()) {
+      return bookSearch.get().titleStartsWith(prefix, limit);
+    }
+    BookQuery query =
+        BookQuery.where(null, null, null)
+            .withTitlePrefix(prefix.stripLeading())
+            .withOrder(BookQuery.Order.TITLE)
+            .withLimit(limit);
+    return bookRepository.findMatching(query).stream()
+        .map(book -> new Suggestion(book.getId(), book.getTitle()))
+        .toList();
+  }
+
+  /**
+   * Suggests members whose name has a word starting with {@code prefix}, ignoring case and accents.
+   *
+   * @param prefix the text typed so far
+   * @param limit maximum number of suggestions returned
+   * @return matching members by ID and name, in name order from the matching word on
+   */
+  public List<Suggestion> autocompleteMembers(String prefix, int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be >= 1");
+    }
+    // Without the maintained index, match against a throwaway one read from the repository
+    return memberSearch
+        .orElseGet(() -> MemberSearch.over(memberRepository))
+        .nameStartsWith(prefix, limit);
+  }
+
+  /**
+   * Retrieves one page of overdue books, earliest due first and then by ID.
+   *
+   * @param today the first due date not yet overdue (typically today's date)
+   * @param after the cursor returned with the previous page, or null for the first page
+   * @param limit maximum number of books on the page
+   * @return the page, with a cursor to the next one if more books are overdue
+   */
+  public DueDatePage overduePage(LocalDate today, DueDateCursor after, int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be >= 1");
+    }
+    Optional<List<String>> ids =
+        overdueTracker.flatMap(t -> t.overdueBookIds(today, after, limit + 1));
+    List<Book> books =
+        ids.isPresent()
+            ? booksInOrder(ids.get())
+            : bookRepository.findByDueDateRange(null, today, after, limit + 1);
+    return dueDatePage(books, limit);
+  }
+
+  /**
+   * Retrieves one page of books due from today through {@code days} days from now, soonest first.
+   *
+   * @param today the first due date included (typically today's date)
+   * @param days how many days past today to include; 0 for books due today only
+   * @param after the cursor returned with the previous page, or null for the first page
+   * @param limit maximum number of books on the page
+   * @return the page, with a cursor to the next one if more books are due in the window
+   */
+  public DueDatePage dueSoon(LocalDate today, int days, DueDateCursor after, int limit) {
+    if (days < 0 || limit < 1) {
+      throw new IllegalArgumentException("days must be >= 0 and limit >= 1");
+    }
+    List<Book> books =
+        bookRepository.findByDueDateRange(today, today.plusDays(days + 1L), after, limit + 1);
+    return dueDatePage(books, limit);
+  }
+
+  // Reads the books by ID and keeps the order of the IDs; books deleted meanwhile are left out
+  private List<Book> booksInOrder(Collection<String> ids) {
+    Map<String, Book> byId = new HashMap<>();
+    for (Book book : bookRepository.findAllById(ids)) {
+      byId.put(book.getId(), book);
+    }
+    List<Book> books = new ArrayList<>(ids.size());
+    for (String id : ids) {
+      Book book = byId.get(id);
+      if (book != null) {
+        books.add(book);
+      }
+    }
+    return books;
+  }
+
+  // Pages are read one book past the limit; that book tells whether another page follows
+  private static DueDatePage dueDatePage(List<Book> books, int limit) {
+    if (books.size() <= limit) {
+      return new DueDatePage(books, null);
+    }
+    List<Book> page = books.subList(0, limit);
+    return new DueDatePage(page, DueDateCursor.after(page.get(limit - 1)));
   }
 
   /**
@@ -79,20 +277,10 @@ public class LibraryQueryService {
    * @return MemberSummary containing loans and reservations with queue positions
    */
   public MemberSummary memberSummary(String memberId) {
-    if (!memberRepository.existsById(memberId)) {
-      return new MemberSummary(false, MEMBER_NOT_FOUND, List.of(), List.of());
-    }
-    // Optimized: O(2) queries instead of O(n) scan
-    List<Book> loans = bookRepository.findByLoanedTo(memberId);
-    List<Book> booksWithReservations = bookRepository.findByReservationQueueContaining(memberId);
-    List<ReservationPosition> reservations = new ArrayList<>();
-    for (Book book : booksWithReservations) {
-      int idx = book.getReservationQueue().indexOf(memberId);
-      if (idx >= 0) {
-        reservations.add(new ReservationPosition(book.getId(), idx));
-      }
-    }
-    return new MemberSummary(true, null, loans, reservations);
+    // One read model with the titles included: no book, queue or per-reservation lookup
+    return memberRepository
+        .findSummary(memberId)
+        .orElseGet(() -> new MemberSummary(false, MEMBER_NOT_FOUND, List.of(), List.of()));
   }
 
   /**
@@ -122,4 +310,58 @@ public class LibraryQueryService {
   public List<Member> allMembers() {
     return memberRepository.findAll();
   }
+
+  /**
+   * Retrieves one page of books ordered by ID.
+   *
+   * @param afterId the {@code next} of the previous page, or null for the first page
+   * @param limit maximum number of books on the page
+   * @return the page, with the ID to continue after if more books follow
+   */
+  public IdPage<Book> booksPage(String afterId, int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be >= 1");
+    }
+    return idPage(bookRepository.findPageAfter(afterId, limit + 1), limit, Book::getId);
+  }
+
+  /**
+   * Retrieves one page of members ordered by ID.
+   *
+   * @param afterId the {@code next} of the previous page, or null for the first page
+   * @param limit maximum number of members on the page
+   * @return the page, with the ID to continue after if more members follow
+   */
+  public IdPage<Member> membersPage(String afterId, int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be >= 1");
+    }
+    return idPage(memberRepository.findPageAfter(afterId, limit + 1), limit, Member::getId);
+  }
+
+  /**
+   * Passes every book to {@code action} in ID order, without holding the catalog in memory.
+   *
+   * @param action receives each book as it is read; the books must not be saved
+   */
+  public void exportBooks(Consumer<Book> action) {
+    bookRepository.scrollAll(action);
+  }
+
+  /**
+   * Passes every member to {@code action} in ID order, without holding all members in memory.
+   *
+   * @param action receives each member as it is read
+   */
+  public void exportMembers(Consumer<Member> action) {
+    memberRepository.scrollAll(action);
+  }
+
+  private static <T> IdPage<T> idPage(List<T> items, int limit, Function<T, String> id) {
+    if (items.size() <= limit) {
+      return new IdPage<>(items, null);
+    }
+    List<T> page = items.subList(0, limit);
+    return new IdPage<>(page, id.apply(page.get(limit - 1)));
+  }
 }
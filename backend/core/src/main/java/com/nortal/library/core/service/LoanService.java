@@ -2,13 +2,20 @@ package com.nortal.library.core.service;
 
 import static com.nortal.library.core.ErrorCodes.*;
 
+import com.nortal.library.core.LoanEligibility;
 import com.nortal.library.core.Result;
 import com.nortal.library.core.ResultWithNext;
+import com.nortal.library.core.concurrent.LockManager;
+import com.nortal.library.core.concurrent.OptimisticRetry;
 import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.domain.ReservationQueue;
 import com.nortal.library.core.port.BookRepository;
 import com.nortal.library.core.port.MemberRepository;
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -22,6 +29,22 @@ import java.util.Optional;
  *   <li>Automatic handoff on return
  *   <li>Loan extension with maximum limits
  * </ul>
+ *
+ * <p><b>Concurrency:</b> every mutation is a read-validate-write unit executed through {@link
+ * OptimisticRetry}. Books carry a version column, so when two requests race on the same book the
+ * loser's save fails with {@code ConcurrentUpdateException} and the whole unit is re-run against
+ * the winner's state (e.g. a second borrower then sees {@code BOOK_UNAVAILABLE}). Work on
+ * different books never blocks.
+ *
+ * <p>Within this JVM, mutations are additionally serialized through a {@link LockManager}: each
+ * takes its book's stripe, and operations that read or change a member's loan count (borrow,
+ * reserve, handoff on return) also take the member's stripe. Optimistic conflicts are then only
+ * possible against writers outside this process, and the borrow limit cannot be overshot by two
+ * concurrent loans to the same member.
+ *
+ * <p><b>Eligibility:</b> member existence, active loan count and queue membership are read together
+ * through {@link MemberRepository#findLoanEligibility} in one round trip rather than as separate
+ * existence and count queries.
  */
 public class LoanService {
   /** Maximum number of books a member can borrow simultaneously. */
@@ -33,15 +56,47 @@ public class LoanService {
   /** Maximum total extension period in days from first due date (approximately 3 months). */
   private static final int MAX_EXTENSION_DAYS = 90;
 
-  /** Index of the head (first priority) position in the reservation queue. */
-  private static final int QUEUE_HEAD_POSITION = 0;
+  /** Number of reservation queue heads whose eligibility is fetched per query on return. */
+  private static final int HANDOFF_WINDOW = 32;
 
   private final BookRepository bookRepository;
   private final MemberRepository memberRepository;
+  private final OptimisticRetry retry;
+  private final LockManager locks;
+  private final Clock clock;
 
   public LoanService(BookRepository bookRepository, MemberRepository memberRepository) {
+    this(bookRepository, memberRepository, new OptimisticRetry());
+  }
+
+  public LoanService(
+      BookRepository bookRepository, MemberRepository memberRepository, OptimisticRetry retry) {
+    this(bookRepository, memberRepository, retry, new LockManager());
+  }
+
+  public LoanService(
+      BookRepository bookRepository,
+      MemberRepository memberRepository,
+      OptimisticRetry retry,
+      LockManager locks) {
+    this(bookRepository, memberRepository, retry, locks, Clock.systemDefaultZone());
+  }
+
+  /**
+   * @param clock source of "today" for due dates; replaying a command log pins it to the time the
+   *     command was originally applied
+   */
+  public LoanService(
+      BookRepository bookRepository,
+      MemberRepository memberRepository,
+      OptimisticRetry retry,
+      LockManager locks,
+      Clock clock) {
     this.bookRepository = bookRepository;
     this.memberRepository = memberRepository;
+    this.retry = retry;
+    this.locks = locks;
+    this.clock = clock;
   }
 
   /**
@@ -56,20 +111,39 @@ public class LoanService {
    *   <li>Member is automatically removed from reservation queue upon successful borrow
    * </ul>
    *
+   * <p>The common case (available, unreserved book and an eligible member) is handled by a single
+   * guarded write ({@link BookRepository#loanIfEligible}). Only when that write is rejected is the
+   * book loaded, either to report which rule failed or to serve the head of the reservation queue.
+   *
    * @param bookId the ID of the book to borrow
    * @param memberId the ID of the member borrowing the book
    * @return Result with success or failure reason (BOOK_NOT_FOUND, MEMBER_NOT_FOUND, BORROW_LIMIT,
    *     ALREADY_BORROWED, BOOK_UNAVAILABLE, RESERVED)
    */
   public Result borrowBook(String bookId, String memberId) {
+    return locks.withBookAndMember(
+        bookId,
+        memberId,
+        () -> {
+          LocalDate initialDueDate = LocalDate.now(clock).plusDays(DEFAULT_LOAN_DAYS);
+          if (bookRepository.loanIfEligible(bookId, memberId, initialDueDate, MAX_LOANS) == 1) {
+            return Result.success();
+          }
+          // Guarded write rejected: re-read state to map the failure onto an error code
+          return retry.execute(() -> attemptBorrow(bookId, memberId));
+        });
+  }
+
+  private Result attemptBorrow(String bookId, String memberId) {
     Optional<Book> book = bookRepository.findById(bookId);
     if (book.isEmpty()) {
       return Result.failure(BOOK_NOT_FOUND);
     }
-    if (!memberRepository.existsById(memberId)) {
+    LoanEligibility eligibility = memberRepository.findLoanEligibility(memberId, bookId);
+    if (!eligibility.memberExists()) {
       return Result.failure(MEMBER_NOT_FOUND);
     }
-    if (!canMemberBorrow(memberId)) {
+    if (!eligibility.canBorrow(MAX_LOANS)) {
       return Result.failure(BORROW_LIMIT);
     }
     Book entity = book.get();
@@ -86,16 +160,16 @@ public class LoanService {
 
     // Enforce reservation queue: only member at head of queue can borrow
     if (!entity.getReservationQueue().isEmpty()) {
-      String firstInQueue = entity.getReservationQueue().get(QUEUE_HEAD_POSITION);
+      String firstInQueue = entity.getReservationQueue().peek();
       if (!memberId.equals(firstInQueue)) {
         return Result.failure(RESERVED);
       }
       // Remove the member from queue since they're now borrowing
-      entity.getReservationQueue().remove(QUEUE_HEAD_POSITION);
+      entity.getReservationQueue().poll();
     }
 
     entity.setLoanedTo(memberId);
-    LocalDate initialDueDate = LocalDate.now().plusDays(DEFAULT_LOAN_DAYS);
+    LocalDate initialDueDate = LocalDate.now(clock).plusDays(DEFAULT_LOAN_DAYS);
     entity.setDueDate(initialDueDate);
     entity.setFirstDueDate(initialDueDate); // Set anchor point for extension limits
     bookRepository.save(entity);
@@ -120,6 +194,10 @@ public class LoanService {
    * @return ResultWithNext with the ID of the member who received the book next (or null if no one)
    */
   public ResultWithNext returnBook(String bookId, String memberId) {
+    return locks.withBook(bookId, () -> retry.execute(() -> attemptReturn(bookId, memberId)));
+  }
+
+  private ResultWithNext attemptReturn(String bookId, String memberId) {
     Optional<Book> book = bookRepository.findById(bookId);
     if (book.isEmpty()) {
       return ResultWithNext.failure();
@@ -145,40 +223,54 @@ public class LoanService {
 
     // Process reservation queue: find first eligible member and loan to them automatically
     String nextMemberId = processReservationQueue(entity);
-
-    bookRepository.save(entity);
     return ResultWithNext.success(nextMemberId);
   }
 
   /**
    * Processes the reservation queue to find the next eligible member and loans the book to them.
    *
-   * <p>Iterates through the queue, removing ineligible members (deleted or at borrow limit), and
-   * loans to the first eligible member found.
+   * <p>Candidates are evaluated a window of up to {@value HANDOFF_WINDOW} queue heads at a time:
+   * existence and loan counts for the whole window come from one set-based query, and the first
+   * eligible member is picked in memory. Every candidate dequeued on the way (skipped or chosen) is
+   * purged by the repository's single bulk delete when the book is saved.
    *
    * @param book the book being processed
    * @return the ID of the member who received the book, or null if queue is empty or no eligible
    *     members found
    */
   private String processReservationQueue(Book book) {
-    while (!book.getReservationQueue().isEmpty()) {
-      String candidateMemberId = book.getReservationQueue().get(QUEUE_HEAD_POSITION);
+    ReservationQueue queue = book.getReservationQueue();
+    while (!queue.isEmpty()) {
+      List<String> window = queue.peek(HANDOFF_WINDOW);
+      String nextMemberId = locks.withMembers(window, () -> handOffWithin(book, window));
+      if (nextMemberId != null) {
+        return nextMemberId;
+      }
+    }
+    // No eligible member found in queue
+    bookRepository.save(book);
+    return null;
+  }
 
+  private String handOffWithin(Book book, List<String> window) {
+    Map<String, LoanEligibility> eligibility =
+        memberRepository.findLoanEligibilities(window, book.getId());
+    for (String candidateMemberId : window) {
+      book.getReservationQueue().poll();
       // Check if candidate exists and is under borrow limit
-      if (memberRepository.existsById(candidateMemberId) && canMemberBorrow(candidateMemberId)) {
+      if (eligibility
+          .getOrDefault(candidateMemberId, LoanEligibility.UNKNOWN_MEMBER)
+          .canBorrow(MAX_LOANS)) {
         // Eligible member found - loan book to them automatically
         book.setLoanedTo(candidateMemberId);
-        LocalDate initialDueDate = LocalDate.now().plusDays(DEFAULT_LOAN_DAYS);
+        LocalDate initialDueDate = LocalDate.now(clock).plusDays(DEFAULT_LOAN_DAYS);
         book.setDueDate(initialDueDate);
         book.setFirstDueDate(initialDueDate); // Set anchor point for extension limits
-        book.getReservationQueue().remove(QUEUE_HEAD_POSITION);
+        bookRepository.save(book);
         return candidateMemberId;
-      } else {
-        // Skip ineligible member (deleted or at limit) and continue to next
-        book.getReservationQueue().remove(QUEUE_HEAD_POSITION);
       }
+      // Ineligible member (deleted or at limit) was dequeued above; continue to next
     }
-    // No eligible member found in queue
     return null;
   }
 
@@ -200,11 +292,17 @@ public class LoanService {
    *     ALREADY_BORROWED, ALREADY_RESERVED)
    */
   public Result reserveBook(String bookId, String memberId) {
+    return locks.withBookAndMember(
+        bookId, memberId, () -> retry.execute(() -> attemptReserve(bookId, memberId)));
+  }
+
+  private Result attemptReserve(String bookId, String memberId) {
     Optional<Book> book = bookRepository.findById(bookId);
     if (book.isEmpty()) {
       return Result.failure(BOOK_NOT_FOUND);
     }
-    if (!memberRepository.existsById(memberId)) {
+    LoanEligibility eligibility = memberRepository.findLoanEligibility(memberId, bookId);
+    if (!eligibility.memberExists()) {
       return Result.failure(MEMBER_NOT_FOUND);
     }
 
@@ -216,14 +314,14 @@ public class LoanService {
     }
 
     // Reject duplicate reservations
-    if (entity.getReservationQueue().contains(memberId)) {
+    if (eligibility.inQueue()) {
       return Result.failure(ALREADY_RESERVED);
     }
 
     // If book is available and member is eligible, loan it immediately
-    if (entity.getLoanedTo() == null && canMemberBorrow(memberId)) {
+    if (entity.getLoanedTo() == null && eligibility.canBorrow(MAX_LOANS)) {
       entity.setLoanedTo(memberId);
-      LocalDate initialDueDate = LocalDate.now().plusDays(DEFAULT_LOAN_DAYS);
+      LocalDate initialDueDate = LocalDate.now(clock).plusDays(DEFAULT_LOAN_DAYS);
       entity.setDueDate(initialDueDate);
       entity.setFirstDueDate(initialDueDate); // Set anchor point for extension limits
       bookRepository.save(entity);
@@ -244,6 +342,10 @@ public class LoanService {
    * @return Result with success or failure reason (BOOK_NOT_FOUND, MEMBER_NOT_FOUND, NOT_RESERVED)
    */
   public Result cancelReservation(String bookId, String memberId) {
+    return locks.withBook(bookId, () -> retry.execute(() -> attemptCancel(bookId, memberId)));
+  }
+
+  private Result attemptCancel(String bookId, String memberId) {
     Optional<Book> book = bookRepository.findById(bookId);
     if (book.isEmpty()) {
       return Result.failure(BOOK_NOT_FOUND);
@@ -278,6 +380,10 @@ public class LoanService {
    * @return Result with success or failure reason
    */
   public Result extendLoan(String bookId, String memberId, int days) {
+    return locks.withBook(bookId, () -> retry.execute(() -> attemptExtend(bookId, memberId, days)));
+  }
+
+  private Result attemptExtend(String bookId, String memberId, int days) {
     if (days == 0) {
       return Result.failure(INVALID_EXTENSION);
     }
@@ -285,7 +391,7 @@ public class LoanService {
     if (book.isEmpty()) {
       return Result.failure(BOOK_NOT_FOUND);
     }
-    if (!memberRepository.existsById(memberId)) {
+    if (!memberRepository.findLoanEligibility(memberId, bookId).memberExists()) {
       return Result.failure(MEMBER_NOT_FOUND);
     }
     Book entity = book.get();
@@ -302,7 +408,7 @@ public class LoanService {
     }
     LocalDate baseDate =
         entity.getDueDate() == null
-            ? LocalDate.now().plusDays(DEFAULT_LOAN_DAYS)
+            ? LocalDate.now(clock).plusDays(DEFAULT_LOAN_DAYS)
             : entity.getDueDate();
     // Check if extension would exceed maximum extension limit (90 days from first due date)
     if (entity.getFirstDueDate() != null) {
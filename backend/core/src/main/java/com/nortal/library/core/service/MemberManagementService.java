@@ -3,11 +3,11 @@ package com.nortal.library.core.service;
 import static com.nortal.library.core.ErrorCodes.*;
 
 import com.nortal.library.core.Result;
-import com.nortal.library.core.domain.Book;
 import com.nortal.library.core.domain.Member;
 import com.nortal.library.core.port.BookRepository;
 import com.nortal.library.core.port.MemberRepository;
-import java.util.List;
+import com.nortal.library.core.port.ReservationRepository;
+import com.nortal.library.core.search.MemberSearch;
 import java.util.Optional;
 
 /**
@@ -19,10 +19,26 @@ import java.util.Optional;
 public class MemberManagementService {
   private final BookRepository bookRepository;
   private final MemberRepository memberRepository;
+  private final ReservationRepository reservationRepository;
+  private final MemberSearch memberSearch;
 
-  public MemberManagementService(BookRepository bookRepository, MemberRepository memberRepository) {
+  public MemberManagementService(
+      BookRepository bookRepository,
+      MemberRepository memberRepository,
+      ReservationRepository reservationRepository) {
+    this(bookRepository, memberRepository, reservationRepository, null);
+  }
+
+  /** @param memberSearch told about every name written, or null when names are not indexed */
+  public MemberManagementService(
+      BookRepository bookRepository,
+      MemberRepository memberRepository,
+      ReservationRepository reservationRepository,
+      MemberSearch memberSearch) {
     this.bookRepository = bookRepository;
     this.memberRepository = memberRepository;
+    this.reservationRepository = reservationRepository;
+    this.memberSearch = memberSearch;
   }
 
   /**
@@ -41,6 +57,9 @@ public class MemberManagementService {
       return Result.failure(MEMBER_ALREADY_EXISTS);
     }
     memberRepository.save(new Member(id, name));
+    if (memberSearch != null) {
+      memberSearch.put(id, name);
+    }
     return Result.success();
   }
 
@@ -62,6 +81,9 @@ public class MemberManagementService {
     Member member = existing.get();
     member.setName(name);
     memberRepository.save(member);
+    if (memberSearch != null) {
+      memberSearch.put(id, name);
+    }
     return Result.success();
   }
 
@@ -91,14 +113,13 @@ public class MemberManagementService {
     }
 
     // Remove member from all reservation queues to maintain data integrity
-    // Optimized: Only fetch books where member is in queue
-    List<Book> booksWithReservations = bookRepository.findByReservationQueueContaining(id);
-    for (Book book : booksWithReservations) {
-      book.getReservationQueue().remove(id);
-      bookRepository.save(book);
-    }
+    // Optimized: One bulk delete of the member's reservation rows; no queue is loaded
+    reservationRepository.deleteByMemberId(id);
 
     memberRepository.delete(existing.get());
+    if (memberSearch != null) {
+      memberSearch.remove(id);
+    }
     return Result.success();
   }
 }
@@ -2,8 +2,8 @@ package com.nortal.library.core;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -11,13 +11,14 @@ import com.nortal.library.core.domain.Book;
 import com.nortal.library.core.domain.Member;
 import com.nortal.library.core.port.BookRepository;
 import com.nortal.library.core.port.MemberRepository;
+import com.nortal.library.core.port.ReservationRepository;
 import com.nortal.library.core.service.BookManagementService;
 import com.nortal.library.core.service.LibraryQueryService;
 import com.nortal.library.core.service.LoanService;
 import com.nortal.library.core.service.MemberManagementService;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -32,6 +33,8 @@ class LibraryServiceTest {
 
   @Mock private MemberRepository memberRepository;
 
+  @Mock private ReservationRepository reservationRepository;
+
   private LibraryService service;
 
   private Book testBook;
@@ -41,25 +44,31 @@ class LibraryServiceTest {
   void setUp() {
     // Create real service instances with mocked repositories
     LoanService loanService = new LoanService(bookRepository, memberRepository);
-    LibraryQueryService queryService = new LibraryQueryService(bookRepository, memberRepository);
+    LibraryQueryService queryService =
+        new LibraryQueryService(
+            bookRepository, memberRepository, Optional.empty(), Optional.empty(), Optional.empty());
     BookManagementService bookManagement = new BookManagementService(bookRepository);
     MemberManagementService memberManagement =
-        new MemberManagementService(bookRepository, memberRepository);
+        new MemberManagementService(bookRepository, memberRepository, reservationRepository);
     service = new LibraryService(loanService, queryService, bookManagement, memberManagement);
 
     testBook = new Book("b1", "Test Book");
-    testBook.setReservationQueue(new ArrayList<>());
     testMember = new Member("m1", "Test Member");
   }
 
+  /** Eligibility snapshot of an existing member with the given number of loans, not queued. */
+  private static LoanEligibility eligible(long activeLoans) {
+    return new LoanEligibility(true, activeLoans, false);
+  }
+
   // ==================== BORROW BOOK TESTS ====================
 
   @Test
   void borrowBook_Success() {
     // Given: Book available, member eligible
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
-    when(bookRepository.countByLoanedTo("m1")).thenReturn(0L); // Member has 0 books
+    // Member has 0 books
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(0));
 
     // When
     Result result = service.borrowBook("b1", "m1");
@@ -73,6 +82,37 @@ class LibraryServiceTest {
     verify(bookRepository).save(testBook);
   }
 
+  @Test
+  void borrowBook_GuardedWriteSkipsEntityLoad() {
+    // Given: The single guarded UPDATE accepts the loan
+    when(bookRepository.loanIfEligible(eq("b1"), eq("m1"), any(LocalDate.class), eq(5L)))
+        .thenReturn(1);
+
+    // When
+    Result result = service.borrowBook("b1", "m1");
+
+    // Then: No reads or entity saves were needed
+    assertThat(result.ok()).isTrue();
+    verify(bookRepository, never()).findById(any());
+    verify(bookRepository, never()).save(any());
+  }
+
+  @Test
+  void borrowBook_FallbackReadsEligibilityInOneQuery() {
+    // Given: Guarded write rejected because m1 is at the head of the queue
+    testBook.getReservationQueue().add("m1");
+    when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(2));
+
+    // When
+    Result result = service.borrowBook("b1", "m1");
+
+    // Then: Existence and loan count came from the single snapshot query
+    assertThat(result.ok()).isTrue();
+    verify(memberRepository, never()).existsById(any());
+    verify(bookRepository, never()).countByLoanedTo(any());
+  }
+
   @Test
   void borrowBook_BookNotFound() {
     // Given: Book doesn't exist
@@ -91,7 +131,8 @@ class LibraryServiceTest {
   void borrowBook_MemberNotFound() {
     // Given: Member doesn't exist
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(false);
+    when(memberRepository.findLoanEligibility("m1", "b1"))
+        .thenReturn(LoanEligibility.UNKNOWN_MEMBER);
 
     // When
     Result result = service.borrowBook("b1", "m1");
@@ -108,7 +149,7 @@ class LibraryServiceTest {
     testBook.setLoanedTo("m2");
     testBook.setDueDate(LocalDate.now().plusDays(7));
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(0));
 
     // When
     Result result = service.borrowBook("b1", "m1");
@@ -123,8 +164,7 @@ class LibraryServiceTest {
   void borrowBook_ExceedsBorrowLimit() {
     // Given: Member already has 5 books (at limit)
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
-    when(bookRepository.countByLoanedTo("m1")).thenReturn(5L); // At limit
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(5)); // At limit
 
     // When
     Result result = service.borrowBook("b1", "m1");
@@ -142,7 +182,7 @@ class LibraryServiceTest {
     testBook.getReservationQueue().add("m1");
 
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(0));
 
     // When
     Result result = service.borrowBook("b1", "m1");
@@ -160,8 +200,7 @@ class LibraryServiceTest {
     testBook.getReservationQueue().add("m2");
 
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
-    when(bookRepository.countByLoanedTo("m1")).thenReturn(0L);
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(0));
 
     // When
     Result result = service.borrowBook("b1", "m1");
@@ -203,8 +242,8 @@ class LibraryServiceTest {
     testBook.getReservationQueue().add("m2");
 
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m2")).thenReturn(true);
-    when(bookRepository.countByLoanedTo("m2")).thenReturn(0L); // m2 eligible
+    when(memberRepository.findLoanEligibilities(List.of("m2"), "b1"))
+        .thenReturn(Map.of("m2", eligible(0))); // m2 eligible
 
     // When
     ResultWithNext result = service.returnBook("b1", "m1");
@@ -227,10 +266,8 @@ class LibraryServiceTest {
     testBook.getReservationQueue().add("m3");
 
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m2")).thenReturn(true);
-    when(memberRepository.existsById("m3")).thenReturn(true);
-    when(bookRepository.countByLoanedTo("m2")).thenReturn(5L); // m2 at limit
-    when(bookRepository.countByLoanedTo("m3")).thenReturn(0L); // m3 eligible
+    when(memberRepository.findLoanEligibilities(List.of("m2", "m3"), "b1"))
+        .thenReturn(Map.of("m2", eligible(5), "m3", eligible(0))); // m2 at limit, m3 eligible
 
     // When
     ResultWithNext result = service.returnBook("b1", "m1");
@@ -242,6 +279,30 @@ class LibraryServiceTest {
     assertThat(testBook.getReservationQueue()).isEmpty(); // Both removed
   }
 
+  @Test
+  void returnBook_SkipsDeletedMembersWithOneEligibilityQuery() {
+    // Given: m2 and m3 were deleted (absent from the snapshot), m4 eligible, m5 still waiting
+    testBook.setLoanedTo("m1");
+    testBook.setDueDate(LocalDate.now().plusDays(7));
+    testBook.getReservationQueue().add("m2");
+    testBook.getReservationQueue().add("m3");
+    testBook.getReservationQueue().add("m4");
+    testBook.getReservationQueue().add("m5");
+
+    when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
+    when(memberRepository.findLoanEligibilities(List.of("m2", "m3", "m4", "m5"), "b1"))
+        .thenReturn(Map.of("m4", eligible(1), "m5", eligible(0)));
+
+    // When
+    ResultWithNext result = service.returnBook("b1", "m1");
+
+    // Then: Whole queue prefix evaluated at once, skipped members dequeued, m5 keeps waiting
+    assertThat(result.nextMemberId()).isEqualTo("m4");
+    assertThat(testBook.getReservationQueue()).containsExactly("m5");
+    verify(memberRepository, never()).findLoanEligibility(any(), any());
+    verify(bookRepository).save(testBook);
+  }
+
   @Test
   void returnBook_BookNotFound() {
     // Given: Book doesn't exist
@@ -290,8 +351,8 @@ class LibraryServiceTest {
   void reserveBook_ImmediateLoanWhenAvailable() {
     // Given: Book available, member eligible
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
-    when(bookRepository.countByLoanedTo("m1")).thenReturn(0L); // Member eligible
+    // Member eligible
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(0));
 
     // When
     Result result = service.reserveBook("b1", "m1");
@@ -311,7 +372,7 @@ class LibraryServiceTest {
     testBook.setDueDate(LocalDate.now().plusDays(7));
 
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(0));
 
     // When
     Result result = service.reserveBook("b1", "m1");
@@ -330,7 +391,8 @@ class LibraryServiceTest {
     testBook.getReservationQueue().add("m1");
 
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
+    when(memberRepository.findLoanEligibility("m1", "b1"))
+        .thenReturn(new LoanEligibility(true, 0, true));
 
     // When
     Result result = service.reserveBook("b1", "m1");
@@ -347,7 +409,7 @@ class LibraryServiceTest {
     testBook.setLoanedTo("m1");
 
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(0));
 
     // When
     Result result = service.reserveBook("b1", "m1");
@@ -410,7 +472,6 @@ class LibraryServiceTest {
     // Given: Member exists, no active loans, not in any queues
     when(memberRepository.findById("m1")).thenReturn(Optional.of(testMember));
     when(bookRepository.existsByLoanedTo("m1")).thenReturn(false);
-    when(bookRepository.findByReservationQueueContaining("m1")).thenReturn(List.of());
 
     // When
     Result result = service.deleteMember("m1");
@@ -423,26 +484,18 @@ class LibraryServiceTest {
   @Test
   void deleteMember_RemovesFromAllReservationQueues() {
     // Given: Member in multiple reservation queues
-    Book book1 = new Book("b1", "Book 1");
-    book1.setLoanedTo("m2");
-    book1.setDueDate(LocalDate.now().plusDays(7));
-    book1.setReservationQueue(new ArrayList<>(List.of("m1", "m3")));
-
-    Book book2 = new Book("b2", "Book 2");
-    book2.setReservationQueue(new ArrayList<>(List.of("m1")));
-
     when(memberRepository.findById("m1")).thenReturn(Optional.of(testMember));
     when(bookRepository.existsByLoanedTo("m1")).thenReturn(false);
-    when(bookRepository.findByReservationQueueContaining("m1")).thenReturn(List.of(book1, book2));
+    when(reservationRepository.deleteByMemberId("m1")).thenReturn(2);
 
     // When
     Result result = service.deleteMember("m1");
 
-    // Then
+    // Then: one bulk delete, no queue is loaded or rewritten
     assertThat(result.ok()).isTrue();
-    assertThat(book1.getReservationQueue()).containsExactly("m3");
-    assertThat(book2.getReservationQueue()).isEmpty();
-    verify(bookRepository, times(2)).save(any(Book.class));
+    verify(reservationRepository).deleteByMemberId("m1");
+    verify(bookRepository, never()).findByReservationQueueContaining(any());
+    verify(bookRepository, never()).save(any(Book.class));
     verify(memberRepository).delete(testMember);
   }
 
@@ -510,7 +563,7 @@ class LibraryServiceTest {
     testBook.setLoanedTo("m1");
     testBook.setDueDate(LocalDate.now().plusDays(14));
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(0));
 
     // When: Same member tries to borrow again
     Result result = service.borrowBook("b1", "m1");
@@ -527,8 +580,7 @@ class LibraryServiceTest {
     testBook.setLoanedTo("m1");
     testBook.setDueDate(LocalDate.now().plusDays(14));
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m2")).thenReturn(true);
-    when(bookRepository.countByLoanedTo("m2")).thenReturn(0L);
+    when(memberRepository.findLoanEligibility("m2", "b1")).thenReturn(eligible(0));
 
     // When: Different member m2 tries to borrow
     Result result = service.borrowBook("b1", "m2");
@@ -594,7 +646,7 @@ class LibraryServiceTest {
     testBook.setLoanedTo("m1");
     testBook.setDueDate(LocalDate.now().plusDays(14));
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m2")).thenReturn(true);
+    when(memberRepository.findLoanEligibility("m2", "b1")).thenReturn(eligible(0));
 
     // When: Different member m2 tries to extend
     Result result = service.extendLoan("b1", "m2", 7);
@@ -612,7 +664,7 @@ class LibraryServiceTest {
     testBook.setLoanedTo("m1");
     testBook.setDueDate(originalDueDate);
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(0));
 
     // When: Current borrower m1 extends by 7 days
     Result result = service.extendLoan("b1", "m1", 7);
@@ -629,7 +681,8 @@ class LibraryServiceTest {
     testBook.setLoanedTo("m1");
     testBook.setDueDate(LocalDate.now().plusDays(14));
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m999")).thenReturn(false);
+    when(memberRepository.findLoanEligibility("m999", "b1"))
+        .thenReturn(LoanEligibility.UNKNOWN_MEMBER);
 
     // When: Non-existent member tries to extend
     Result result = service.extendLoan("b1", "m999", 7);
@@ -647,7 +700,7 @@ class LibraryServiceTest {
     testBook.setDueDate(LocalDate.now().plusDays(14));
     testBook.getReservationQueue().add("m2"); // m2 is waiting
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(0));
 
     // When: Current borrower tries to extend
     Result result = service.extendLoan("b1", "m1", 7);
@@ -669,7 +722,7 @@ class LibraryServiceTest {
     testBook.setDueDate(firstDue);
     testBook.setFirstDueDate(firstDue);
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(0));
 
     // When: Extend by 50 days (total 64 days from first due date, under 90-day limit)
     Result result = service.extendLoan("b1", "m1", 50);
@@ -688,7 +741,7 @@ class LibraryServiceTest {
     testBook.setDueDate(firstDue);
     testBook.setFirstDueDate(firstDue);
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(0));
 
     // When: Try to extend by 91 days (new due = firstDue + 91, exceeds 90-day limit)
     Result result = service.extendLoan("b1", "m1", 91);
@@ -707,7 +760,7 @@ class LibraryServiceTest {
     testBook.setDueDate(firstDue);
     testBook.setFirstDueDate(firstDue);
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(0));
 
     // When: Extend by 90 days (new due = firstDue + 90, exactly at limit)
     Result result = service.extendLoan("b1", "m1", 90);
@@ -726,7 +779,7 @@ class LibraryServiceTest {
     testBook.setDueDate(firstDue);
     testBook.setFirstDueDate(firstDue);
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(0));
 
     // When: Try to extend by 91 days (new due = firstDue + 91, one day over 90-day limit)
     Result result = service.extendLoan("b1", "m1", 91);
@@ -741,8 +794,7 @@ class LibraryServiceTest {
   void borrowBook_SetsFirstDueDateWhenBorrowing() {
     // Given: Book available, member eligible
     when(bookRepository.findById("b1")).thenReturn(Optional.of(testBook));
-    when(memberRepository.existsById("m1")).thenReturn(true);
-    when(bookRepository.countByLoanedTo("m1")).thenReturn(0L);
+    when(memberRepository.findLoanEligibility("m1", "b1")).thenReturn(eligible(0));
 
     // When: Member borrows the book
     Result result = service.borrowBook("b1", "m1");
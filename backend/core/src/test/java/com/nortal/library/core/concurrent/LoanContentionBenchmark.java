@@ -0,0 +1,396 @@
+package com.nortal.library.core.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.nortal.library.core.BookQuery;
+import com.nortal.library.core.DueDateCursor;
+import com.nortal.library.core.LoanEligibility;
+import com.nortal.library.core.MemberSummary;
+import com.nortal.library.core.Result;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.domain.ReservationQueue;
+import com.nortal.library.core.port.BookRepository;
+import com.nortal.library.core.port.ConcurrentUpdateException;
+import com.nortal.library.core.port.MemberRepository;
+import com.nortal.library.core.service.LoanService;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Measures {@link LoanService} borrow/return throughput, optimistic retry rates and lock waits
+ * while a growing number of threads compete for the same few books.
+ *
+ * <p>The repositories are versioned in-memory stand-ins that reject stale saves exactly like the
+ * JPA adapter does. Each repository call parks for {@link #ROUND_TRIP} to stand in for a database
+ * round trip; without it the read-validate-write window is too short to ever collide. Run with
+ * {@code ./gradlew :core:benchmark}.
+ */
+@EnabledIfSystemProperty(named = "library.benchmark", matches = "true")
+class LoanContentionBenchmark {
+  private static final int HOT_BOOKS = 4;
+  private static final int[] THREADS_PER_BOOK = {1, 2, 4, 8, 16, 32};
+  private static final Duration RUN_TIME = Duration.ofSeconds(2);
+  private static final Duration ROUND_TRIP = Duration.ofNanos(50_000);
+
+  @Test
+  void borrowReturnOnHotBooks() throws InterruptedException {
+    System.out.printf(
+        "%nLoanService contention: %d hot books, %ss per step%n", HOT_BOOKS, RUN_TIME.toSeconds());
+    System.out.printf(
+        "%-14s %12s %12s %12s %12s %12s %10s%n",
+        "threads/book", "calls/s", "loans/s", "retries/op", "exhausted", "lockWaits", "dblLoans");
+
+    for (int threadsPerBook : THREADS_PER_BOOK) {
+      StepResult step = runStep(threadsPerBook);
+      System.out.printf(
+          "%-14d %12.0f %12.0f %12.3f %12d %12d %10d%n",
+          threadsPerBook,
+          step.calls() / (double) RUN_TIME.toSeconds(),
+          step.loans() / (double) RUN_TIME.toSeconds(),
+          step.retryStats().retryRate(),
+          step.retryStats().exhausted(),
+          step.bookLockWaits(),
+          step.doubleLoans());
+      assertThat(step.doubleLoans()).isZero();
+    }
+  }
+
+  private StepResult runStep(int threadsPerBook) throws InterruptedException {
+    SimpleMemberRepository members = new SimpleMemberRepository();
+    VersionedBookRepository books = new VersionedBookRepository(members);
+    members.books = books;
+    OptimisticRetry retry = new OptimisticRetry(8, Duration.ofNanos(50_000), Duration.ofMillis(5));
+    LockManager locks = new LockManager();
+    LoanService loans = new LoanService(books, members, retry, locks);
+
+    Map<String, AtomicInteger> holders = new ConcurrentHashMap<>();
+    for (int b = 0; b < HOT_BOOKS; b++) {
+      books.save(new Book("hot-" + b, "Hot book " + b));
+      holders.put("hot-" + b, new AtomicInteger());
+    }
+
+    LongAdder calls = new LongAdder();
+    LongAdder successfulLoans = new LongAdder();
+    LongAdder doubleLoans = new LongAdder();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    long deadline = System.nanoTime() + RUN_TIME.toNanos() + Duration.ofMillis(50).toNanos();
+
+    for (int b = 0; b < HOT_BOOKS; b++) {
+      String bookId = "hot-" + b;
+      for (int t = 0; t < threadsPerBook; t++) {
+        String memberId = "m-" + b + "-" + t;
+        members.ids.add(memberId);
+        Thread thread =
+            new Thread(
+                () -> {
+                  awaitQuietly(start);
+                  while (System.nanoTime() < deadline) {
+                    try {
+                      calls.increment();
+                      Result borrowed = loans.borrowBook(bookId, memberId);
+                      if (!borrowed.ok()) {
+                        continue;
+                      }
+                      successfulLoans.increment();
+                      if (holders.get(bookId).incrementAndGet() > 1) {
+                        doubleLoans.increment();
+                      }
+                      holders.get(bookId).decrementAndGet();
+                      calls.increment();
+                      loans.returnBook(bookId, memberId);
+                    } catch (ConcurrentUpdateException ignored) {
+                      // counted by OptimisticRetry as exhausted
+                    }
+                  }
+                });
+        thread.start();
+        threads.add(thread);
+      }
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long lockWaits =
+        locks.stats().books().stream().mapToLong(LockManager.StripeStats::contended).sum();
+    return new StepResult(
+        calls.sum(), successfulLoans.sum(), doubleLoans.sum(), retry.stats(), lockWaits);
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void roundTrip() {
+    LockSupport.parkNanos(ROUND_TRIP.toNanos());
+  }
+
+  private record StepResult(
+      long calls,
+      long loans,
+      long doubleLoans,
+      OptimisticRetry.Stats retryStats,
+      long bookLockWaits) {}
+
+  /** Copy-on-read store that rejects saves carrying a stale version, like the JPA adapter. */
+  static class VersionedBookRepository implements BookRepository {
+    private final Map<String, Book> rows = new ConcurrentHashMap<>();
+    private final MemberRepository members;
+
+    VersionedBookRepository(MemberRepository members) {
+      this.members = members;
+    }
+
+    @Override
+    public Optional<Book> findById(String id) {
+      roundTrip();
+      return Optional.ofNullable(rows.get(id)).map(VersionedBookRepository::copy);
+    }
+
+    @Override
+    public List<Book> findAll() {
+      return rows.values().stream().map(VersionedBookRepository::copy).toList();
+    }
+
+    @Override
+    public List<Book> findPageAfter(String afterId, int limit) {
+      return findAll().stream()
+          .filter(b -> afterId == null || b.getId().compareTo(afterId) > 0)
+          .sorted(Comparator.comparing(Book::getId))
+          .limit(limit)
+          .toList();
+    }
+
+    @Override
+    public void scrollAll(Consumer<Book> action) {
+      findPageAfter(null, Integer.MAX_VALUE).forEach(action);
+    }
+
+    @Override
+    public Book save(Book book) {
+      roundTrip();
+      Book stored =
+          rows.compute(
+              book.getId(),
+              (id, current) -> {
+                if (current != null && !Objects.equals(current.getVersion(), book.getVersion())) {
+                  throw new ConcurrentUpdateException("Book " + id + " was modified concurrently");
+                }
+                Book next = copy(book);
+                next.setVersion(current == null ? 0L : current.getVersion() + 1);
+                return next;
+              });
+      return copy(stored);
+    }
+
+    @Override
+    public void delete(Book book) {
+      rows.remove(book.getId());
+    }
+
+    @Override
+    public boolean existsById(String id) {
+      return rows.containsKey(id);
+    }
+
+    @Override
+    public List<Book> findAllById(Collection<String> ids) {
+      return findAll().stream().filter(b -> ids.contains(b.getId())).toList();
+    }
+
+    @Override
+    public long countByLoanedTo(String memberId) {
+      roundTrip();
+      return rows.values().stream().filter(b -> memberId.equals(b.getLoanedTo())).count();
+    }
+
+    @Override
+    public List<Book> findByLoanedTo(String memberId) {
+      return findAll().stream().filter(b -> memberId.equals(b.getLoanedTo())).toList();
+    }
+
+    @Override
+    public List<Book> findByReservationQueueContaining(String memberId) {
+      return findAll().stream().filter(b -> b.getReservationQueue().contains(memberId)).toList();
+    }
+
+    @Override
+    public List<Book> findByDueDateBefore(LocalDate date) {
+      return findAll().stream()
+          .filter(b -> b.getDueDate() != null && b.getDueDate().isBefore(date))
+          .toList();
+    }
+
+    @Override
+    public List<Book> findByDueDateRange(
+        LocalDate from, LocalDate until, DueDateCursor after, int limit) {
+      return findAll().stream()
+          .filter(b -> b.getDueDate() != null && b.getDueDate().isBefore(until))
+          .filter(b -> from == null || !b.getDueDate().isBefore(from))
+          .sorted(Comparator.comparing(Book::getDueDate).thenComparing(Book::getId))
+          .filter(
+              b ->
+                  after == null
+                      || b.getDueDate().isAfter(after.dueDate())
+                      || (b.getDueDate().equals(after.dueDate())
+                          && b.getId().compareTo(after.bookId()) > 0))
+          .limit(limit)
+          .toList();
+    }
+
+    @Override
+    public boolean existsByLoanedTo(String memberId) {
+      return countByLoanedTo(memberId) > 0;
+    }
+
+    @Override
+    public List<Book> findMatching(BookQuery query) {
+      return findAll().stream()
+          .filter(query::matches)
+          .sorted(query.order().comparator())
+          .limit(query.limit())
+          .toList();
+    }
+
+    @Override
+    public List<Book> findByLoanedToIsNull() {
+      return findAll().stream().filter(b -> b.getLoanedTo() == null).toList();
+    }
+
+    @Override
+    public int loanIfEligible(String bookId, String memberId, LocalDate dueDate, long maxLoans) {
+      roundTrip();
+      if (!members.existsById(memberId) || countByLoanedTo(memberId) >= maxLoans) {
+        return 0;
+      }
+      int[] updated = {0};
+      rows.computeIfPresent(
+          bookId,
+          (id, current) -> {
+            if (current.getLoanedTo() != null || !current.getReservationQueue().isEmpty()) {
+              return current;
+            }
+            Book next = copy(current);
+            next.setLoanedTo(memberId);
+            next.setDueDate(dueDate);
+            next.setFirstDueDate(dueDate);
+            next.setVersion(current.getVersion() + 1);
+            updated[0] = 1;
+            return next;
+          });
+      return updated[0];
+    }
+
+    private static Book copy(Book source) {
+      Book copy = new Book(source.getId(), source.getTitle());
+      copy.setLoanedTo(source.getLoanedTo());
+      copy.setDueDate(source.getDueDate());
+      copy.setFirstDueDate(source.getFirstDueDate());
+      copy.setReservationQueue(
+          ReservationQueue.of(source.getReservationQueue().memberIds().toArray(String[]::new)));
+      copy.setVersion(source.getVersion());
+      return copy;
+    }
+  }
+
+  static class SimpleMemberRepository implements MemberRepository {
+    private final Set<String> ids = ConcurrentHashMap.newKeySet();
+    VersionedBookRepository books;
+
+    @Override
+    public Optional<Member> findById(String id) {
+      return ids.contains(id) ? Optional.of(new Member(id, id)) : Optional.empty();
+    }
+
+    @Override
+    public List<Member> findAll() {
+      return ids.stream().map(id -> new Member(id, id)).toList();
+    }
+
+    @Override
+    public List<Member> findPageAfter(String afterId, int limit) {
+      return ids.stream()
+          .filter(id -> afterId == null || id.compareTo(afterId) > 0)
+          .sorted()
+          .limit(limit)
+          .map(id -> new Member(id, id))
+          .toList();
+    }
+
+    @Override
+    public void scrollAll(Consumer<Member> action) {
+      findPageAfter(null, Integer.MAX_VALUE).forEach(action);
+    }
+
+    @Override
+    public Member save(Member member) {
+      ids.add(member.getId());
+      return member;
+    }
+
+    @Override
+    public void delete(Member member) {
+      ids.remove(member.getId());
+    }
+
+    @Override
+    public boolean existsById(String id) {
+      roundTrip();
+      return ids.contains(id);
+    }
+
+    @Override
+    public LoanEligibility findLoanEligibility(String memberId, String bookId) {
+      roundTrip();
+      if (!ids.contains(memberId)) {
+        return LoanEligibility.UNKNOWN_MEMBER;
+      }
+      Book book = books.rows.get(bookId);
+      return new LoanEligibility(
+          true,
+          books.rows.values().stream().filter(b -> memberId.equals(b.getLoanedTo())).count(),
+          book != null && book.getReservationQueue().contains(memberId));
+    }
+
+    @Override
+    public Optional<MemberSummary> findSummary(String memberId) {
+      throw new UnsupportedOperationException("not used by loans");
+    }
+
+    @Override
+    public Map<String, LoanEligibility> findLoanEligibilities(
+        Collection<String> memberIds, String bookId) {
+      Map<String, LoanEligibility> eligibility = new HashMap<>();
+      for (String memberId : memberIds) {
+        LoanEligibility snapshot = findLoanEligibility(memberId, bookId);
+        if (snapshot.memberExists()) {
+          eligibility.put(memberId, snapshot);
+        }
+      }
+      return eligibility;
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package com.nortal.library.core.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.nortal.library.core.Result;
+import com.nortal.library.core.concurrent.LoanContentionBenchmark.SimpleMemberRepository;
+import com.nortal.library.core.concurrent.LoanContentionBenchmark.VersionedBookRepository;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.service.LoanService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Compares the plain synchronous {@link LoanService} with the same service behind a {@link
+ * PartitionedLoanExecutor}, both with blocking callers and with callers that keep a window of
+ * commands in flight.
+ *
+ * <p>Callers borrow a random book out of {@link #BOOKS} and return it again. Repositories are the
+ * in-memory stand-ins of {@link LoanContentionBenchmark}, including their simulated round trip. Run
+ * with {@code ./gradlew :core:benchmark}.
+ */
+@EnabledIfSystemProperty(named = "library.benchmark", matches = "true")
+class LoanExecutorBenchmark {
+  private static final int BOOKS = 256;
+  private static final int PARTITIONS = 8;
+  private static final int ASYNC_WINDOW = 16;
+  private static final int[] CALLERS = {1, 4, 16, 64};
+  private static final Duration RUN_TIME = Duration.ofSeconds(2);
+
+  @Test
+  void directVersusPartitioned() throws InterruptedException {
+    System.out.printf(
+        "%nLoan executors, borrow+return pairs/s over %d books, %d partitions%n",
+        BOOKS, PARTITIONS);
+    System.out.printf(
+        "%-10s %14s %14s %14s %12s%n",
+        "callers", "direct", "partitioned", "part.async", "avgBatch");
+
+    for (int callers : CALLERS) {
+      double direct = run(callers, null, false).pairsPerSecond();
+      Run partitioned;
+      Run async;
+      try (PartitionedLoanExecutor executor =
+          new PartitionedLoanExecutor(PARTITIONS, PartitionedLoanExecutor.DEFAULT_MAX_BATCH)) {
+        partitioned = run(callers, executor, false);
+      }
+      PartitionedLoanExecutor.Stats stats;
+      try (PartitionedLoanExecutor executor =
+          new PartitionedLoanExecutor(PARTITIONS, PartitionedLoanExecutor.DEFAULT_MAX_BATCH)) {
+        async = run(callers, executor, true);
+        stats = executor.stats();
+      }
+      long commands = 0;
+      long batches = 0;
+      for (PartitionedLoanExecutor.PartitionStats partition : stats.partitions()) {
+        commands += partition.commands();
+        batches += partition.batches();
+      }
+      System.out.printf(
+          "%-10d %14.0f %14.0f %14.0f %12.2f%n",
+          callers,
+          direct,
+          partitioned.pairsPerSecond(),
+          async.pairsPerSecond(),
+          batches == 0 ? 0.0 : (double) commands / batches);
+      assertThat(partitioned.pairs()).isPositive();
+    }
+  }
+
+  private Run run(int callers, PartitionedLoanExecutor executor, boolean async)
+      throws InterruptedException {
+    SimpleMemberRepository members = new SimpleMemberRepository();
+    VersionedBookRepository books = new VersionedBookRepository(members);
+    members.books = books;
+    LoanService loans = new LoanService(books, members);
+    for (int b = 0; b < BOOKS; b++) {
+      books.save(new Book("book-" + b, "Book " + b));
+    }
+
+    LongAdder pairs = new LongAdder();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    long deadline = System.nanoTime() + RUN_TIME.toNanos();
+    for (int c = 0; c < callers; c++) {
+      String memberId = "caller-" + c;
+      members.save(new Member(memberId, memberId));
+      Runnable body =
+          async
+              ? () -> asyncCaller(executor, loans, memberId, deadline, pairs)
+              : () -> syncCaller(executor, loans, memberId, deadline, pairs);
+      Thread thread =
+          new Thread(
+              () -> {
+                awaitQuietly(start);
+                body.run();
+              });
+      thread.start();
+      threads.add(thread);
+    }
+    long began = System.nanoTime();
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    return new Run(pairs.sum(), (System.nanoTime() - began) / 1e9);
+  }
+
+  private static void syncCaller(
+      PartitionedLoanExecutor executor,
+      LoanService loans,
+      String memberId,
+      long deadline,
+      LongAdder pairs) {
+    LoanCommandExecutor commands = executor == null ? LoanCommandExecutor.direct() : executor;
+    while (System.nanoTime() < deadline) {
+      String bookId = "book-" + ThreadLocalRandom.current().nextInt(BOOKS);
+      Result borrowed = commands.execute(bookId, () -> loans.borrowBook(bookId, memberId));
+      if (borrowed.ok()) {
+        commands.execute(bookId, () -> loans.returnBook(bookId, memberId));
+        pairs.increment();
+      }
+    }
+  }
+
+  /** Keeps up to {@link #ASYNC_WINDOW} borrow-then-return chains in flight per caller. */
+  private static void asyncCaller(
+      PartitionedLoanExecutor executor,
+      LoanService loans,
+      String memberId,
+      long deadline,
+      LongAdder pairs) {
+    while (System.nanoTime() < deadline) {
+      List<CompletableFuture<?>> inFlight = new ArrayList<>(ASYNC_WINDOW);
+      for (int i = 0; i < ASYNC_WINDOW; i++) {
+        String bookId = "book-" + ThreadLocalRandom.current().nextInt(BOOKS);
+        // Borrow and return are applied by the same partition, so the return never overtakes it
+        CompletableFuture<Result> borrowed =
+            executor.submit(bookId, () -> loans.borrowBook(bookId, memberId));
+        inFlight.add(
+            executor
+                .submit(bookId, () -> loans.returnBook(bookId, memberId))
+                .thenAcceptBoth(
+                    borrowed,
+                    (returned, borrow) -> {
+                      if (borrow.ok() && returned.ok()) {
+                        pairs.increment();
+                      }
+                    }));
+      }
+      CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+    }
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private record Run(long pairs, double seconds) {
+    double pairsPerSecond() {
+      return pairs / seconds;
+    }
+  }
+}
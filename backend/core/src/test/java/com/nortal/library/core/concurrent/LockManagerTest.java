@@ -0,0 +1,74 @@
+package com.nortal.library.core.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class LockManagerTest {
+
+  @Test
+  void serializesMutationsOfTheSameBook() throws InterruptedException {
+    LockManager locks = new LockManager(4);
+    AtomicInteger inside = new AtomicInteger();
+    AtomicInteger overlaps = new AtomicInteger();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      Thread thread =
+          new Thread(
+              () -> {
+                for (int i = 0; i < 200; i++) {
+                  locks.withBookAndMember(
+                      "b1",
+                      "m" + i,
+                      () -> {
+                        if (inside.incrementAndGet() > 1) {
+                          overlaps.incrementAndGet();
+                        }
+                        Thread.yield();
+                        return inside.decrementAndGet();
+                      });
+                }
+              });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(overlaps.get()).isZero();
+    long acquisitions =
+        locks.stats().books().stream().mapToLong(LockManager.StripeStats::acquisitions).sum();
+    assertThat(acquisitions).isEqualTo(8 * 200);
+  }
+
+  @Test
+  void memberStripesInAnyArgumentOrderDoNotDeadlock() throws InterruptedException {
+    LockManager locks = new LockManager(64);
+    CountDownLatch done = new CountDownLatch(2);
+    Runnable forward = () -> repeat(locks, List.of("m1", "m2", "m3"), done);
+    Runnable backward = () -> repeat(locks, List.of("m3", "m2", "m1"), done);
+    new Thread(forward).start();
+    new Thread(backward).start();
+
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  void rejectsNonPositiveStripeCount() {
+    assertThatThrownBy(() -> new LockManager(0)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static void repeat(LockManager locks, List<String> members, CountDownLatch done) {
+    for (int i = 0; i < 10_000; i++) {
+      locks.withMembers(members, () -> null);
+    }
+    done.countDown();
+  }
+}
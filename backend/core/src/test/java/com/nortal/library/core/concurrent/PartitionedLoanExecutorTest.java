@@ -0,0 +1,100 @@
+package com.nortal.library.core.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.nortal.library.core.port.ConcurrentUpdateException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class PartitionedLoanExecutorTest {
+
+  @Test
+  void appliesCommandsForOneBookInSubmissionOrder() {
+    try (PartitionedLoanExecutor executor = new PartitionedLoanExecutor(4, 8)) {
+      List<Integer> applied = new ArrayList<>();
+      List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+      for (int i = 0; i < 1_000; i++) {
+        int sequence = i;
+        futures.add(executor.submit("b1", () -> applied.add(sequence)));
+      }
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+      assertThat(applied).hasSize(1_000);
+      for (int i = 0; i < applied.size(); i++) {
+        assertThat(applied.get(i)).isEqualTo(i);
+      }
+    }
+  }
+
+  @Test
+  void executeRethrowsTheCommandsException() {
+    try (PartitionedLoanExecutor executor = new PartitionedLoanExecutor(2, 8)) {
+      assertThatThrownBy(
+              () ->
+                  executor.execute(
+                      "b1",
+                      () -> {
+                        throw new ConcurrentUpdateException("conflict");
+                      }))
+          .isInstanceOf(ConcurrentUpdateException.class);
+    }
+  }
+
+  @Test
+  void nestedSubmitToOwnPartitionRunsInline() {
+    try (PartitionedLoanExecutor executor = new PartitionedLoanExecutor(1, 8)) {
+      String result = executor.execute("b1", () -> executor.execute("b2", () -> "nested"));
+
+      assertThat(result).isEqualTo("nested");
+    }
+  }
+
+  @Test
+  void submitsRacingWithCloseNeverHang() throws Exception {
+    for (int round = 0; round < 100; round++) {
+      PartitionedLoanExecutor executor = new PartitionedLoanExecutor(2, 8);
+      ConcurrentLinkedQueue<CompletableFuture<String>> futures = new ConcurrentLinkedQueue<>();
+      CountDownLatch started = new CountDownLatch(4);
+      List<Thread> submitters = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        String bookId = "b" + t;
+        Thread submitter =
+            new Thread(
+                () -> {
+                  started.countDown();
+                  try {
+                    while (true) {
+                      futures.add(executor.submit(bookId, () -> "ok"));
+                    }
+                  } catch (RejectedExecutionException closed) {
+                    // expected once close() has run
+                  }
+                });
+        submitter.start();
+        submitters.add(submitter);
+      }
+      started.await();
+      executor.close();
+      for (Thread submitter : submitters) {
+        submitter.join();
+      }
+
+      // Each future is either applied or rejected; a timeout here means a caller would hang.
+      for (CompletableFuture<String> future : futures) {
+        try {
+          assertThat(future.get(1, TimeUnit.SECONDS)).isEqualTo("ok");
+        } catch (ExecutionException e) {
+          assertThat(e.getCause()).isInstanceOf(RejectedExecutionException.class);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.nortal.library.core.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Compares {@link ReservationQueue} with the plain {@code List<String>} queue it replaced, at queue
+ * lengths of 10, 1k and 100k waiting members.
+ *
+ * <p>Each operation runs against a queue of constant length: a removal is immediately followed by
+ * re-adding the member at the tail. Reported figures are nanoseconds per operation after a warm-up
+ * phase. Run with {@code ./gradlew :core:benchmark}.
+ */
+@EnabledIfSystemProperty(named = "library.benchmark", matches = "true")
+class ReservationQueueBenchmark {
+  private static final int[] QUEUE_SIZES = {10, 1_000, 100_000};
+  private static final Duration WARM_UP = Duration.ofMillis(200);
+  private static final Duration MEASURE = Duration.ofMillis(500);
+
+  @Test
+  void queueOperations() {
+    System.out.printf("%nReservation queue, ns/op (list -> fenwick)%n");
+    System.out.printf(
+        "%-10s %22s %22s %22s %22s%n", "size", "contains", "indexOf", "remove+add", "poll+add");
+
+    for (int size : QUEUE_SIZES) {
+      String[] members = new String[size];
+      for (int i = 0; i < size; i++) {
+        members[i] = "member-" + i;
+      }
+      List<String> list = new ArrayList<>(List.of(members));
+      ReservationQueue queue = ReservationQueue.of(members);
+      SplittableRandom random = new SplittableRandom(size);
+
+      double listContains = measure(i -> list.contains(members[random.nextInt(size)]));
+      double queueContains = measure(i -> queue.contains(members[random.nextInt(size)]));
+      double listIndexOf = measure(i -> list.indexOf(members[random.nextInt(size)]));
+      double queueIndexOf = measure(i -> queue.indexOf(members[random.nextInt(size)]));
+      double listRemove =
+          measure(
+              i -> {
+                String member = members[random.nextInt(size)];
+                list.remove(member);
+                list.add(member);
+              });
+      double queueRemove =
+          measure(
+              i -> {
+                String member = members[random.nextInt(size)];
+                queue.remove(member);
+                queue.add(member);
+              });
+      double listPoll = measure(i -> list.add(list.remove(0)));
+      double queuePoll = measure(i -> queue.add(queue.poll()));
+      queue.markPersisted();
+
+      System.out.printf(
+          "%-10d %22s %22s %22s %22s%n",
+          size,
+          pair(listContains, queueContains),
+          pair(listIndexOf, queueIndexOf),
+          pair(listRemove, queueRemove),
+          pair(listPoll, queuePoll));
+      assertThat(queue.size()).isEqualTo(size);
+      assertThat(queue.memberIds()).containsExactlyInAnyOrderElementsOf(list);
+    }
+  }
+
+  private static double measure(IntConsumer operation) {
+    run(operation, WARM_UP);
+    return run(operation, MEASURE);
+  }
+
+  /** Runs the operation in batches until the duration elapses; returns ns/op. */
+  private static double run(IntConsumer operation, Duration duration) {
+    long ops = 0;
+    long start = System.nanoTime();
+    long deadline = start + duration.toNanos();
+    long now;
+    do {
+      for (int i = 0; i < 64; i++) {
+        operation.accept(i);
+      }
+      ops += 64;
+      now = System.nanoTime();
+    } while (now < deadline);
+    return (now - start) / (double) ops;
+  }
+
+  private static String pair(double list, double queue) {
+    return String.format("%.0f -> %.0f", list, queue);
+  }
+}
@@ -0,0 +1,94 @@
+package com.nortal.library.core.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ReservationQueueTest {
+
+  @Test
+  void keepsFifoOrderAndPositions() {
+    ReservationQueue queue = ReservationQueue.of("m1", "m2", "m3");
+
+    assertThat(queue).containsExactly("m1", "m2", "m3");
+    assertThat(queue.indexOf("m3")).isEqualTo(2);
+    assertThat(queue.indexOf("m9")).isEqualTo(-1);
+    assertThat(queue.peek()).isEqualTo("m1");
+    assertThat(queue.poll()).isEqualTo("m1");
+    assertThat(queue.indexOf("m3")).isEqualTo(1);
+  }
+
+  @Test
+  void rejectsDuplicateMember() {
+    ReservationQueue queue = ReservationQueue.of("m1");
+
+    assertThat(queue.add("m1")).isFalse();
+    assertThat(queue.size()).isEqualTo(1);
+  }
+
+  @Test
+  void recordsOnlyChangedRowsOfRestoredQueue() {
+    Reservation r1 = persisted(1L, "m1");
+    Reservation r2 = persisted(2L, "m2");
+    Reservation r3 = persisted(3L, "m3");
+    ReservationQueue queue = ReservationQueue.restore(List.of(r1, r2, r3));
+    assertThat(queue.hasPendingChanges()).isFalse();
+
+    queue.poll();
+    queue.remove("m3");
+    queue.add("m4");
+
+    assertThat(queue).containsExactly("m2", "m4");
+    assertThat(queue.pendingDeletes()).containsExactly(r1, r3);
+    assertThat(queue.pendingInserts()).extracting(Reservation::getMemberId).containsExactly("m4");
+
+    queue.markPersisted();
+    assertThat(queue.hasPendingChanges()).isFalse();
+  }
+
+  @Test
+  void removingUnsavedReservationLeavesNothingToWrite() {
+    ReservationQueue queue = new ReservationQueue();
+
+    queue.add("m1");
+    queue.remove("m1");
+
+    assertThat(queue.isEmpty()).isTrue();
+    assertThat(queue.hasPendingChanges()).isFalse();
+  }
+
+  @Test
+  void positionsMatchAPlainListUnderChurn() {
+    ReservationQueue queue = new ReservationQueue();
+    List<String> expected = new ArrayList<>();
+    Random random = new Random(42);
+
+    for (int step = 0; step < 5_000; step++) {
+      int op = random.nextInt(3);
+      if (op == 0 || expected.isEmpty()) {
+        String memberId = "m" + step;
+        queue.add(memberId);
+        expected.add(memberId);
+      } else if (op == 1) {
+        assertThat(queue.poll()).isEqualTo(expected.remove(0));
+      } else {
+        String memberId = expected.remove(random.nextInt(expected.size()));
+        assertThat(queue.remove(memberId)).isTrue();
+      }
+      if (!expected.isEmpty()) {
+        String probe = expected.get(random.nextInt(expected.size()));
+        assertThat(queue.indexOf(probe)).isEqualTo(expected.indexOf(probe));
+      }
+    }
+    assertThat(queue.memberIds()).isEqualTo(expected);
+  }
+
+  private static Reservation persisted(Long id, String memberId) {
+    Reservation reservation = new Reservation("b1", memberId);
+    reservation.setId(id);
+    return reservation;
+  }
+}
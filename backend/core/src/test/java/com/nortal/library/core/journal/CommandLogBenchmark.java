@@ -0,0 +1,257 @@
+package com.nortal.library.core.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.nortal.library.core.LibraryService;
+import com.nortal.library.core.concurrent.LoanCommandExecutor;
+import com.nortal.library.core.concurrent.LockManager;
+import com.nortal.library.core.concurrent.OptimisticRetry;
+import com.nortal.library.core.journal.Command.Type;
+import com.nortal.library.core.journal.CommandLog.FsyncPolicy;
+import com.nortal.library.core.memory.InMemoryBookRepository;
+import com.nortal.library.core.memory.InMemoryMemberRepository;
+import com.nortal.library.core.memory.InMemoryReservationRepository;
+import com.nortal.library.core.memory.InMemoryStore;
+import com.nortal.library.core.service.BookManagementService;
+import com.nortal.library.core.service.LibraryQueryService;
+import com.nortal.library.core.service.LoanService;
+import com.nortal.library.core.service.MemberManagementService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Measures {@link CommandLog} append throughput under each {@link FsyncPolicy} and replay speed,
+ * both raw (decode only) and through {@link JournaledLibraryService} into the in-memory store.
+ *
+ * <p>Writers append and wait for durability like the journaled service does, so group commit can
+ * only batch writers that are concurrently in flight. Loan cycles on disjoint books are also run
+ * through the service with and without the journal, which shows what the single apply lock costs
+ * next to the fsync wait. Absolute numbers depend heavily on the disk behind the temp directory.
+ * Run with {@code ./gradlew :core:benchmark}.
+ */
+@EnabledIfSystemProperty(named = "library.benchmark", matches = "true")
+class CommandLogBenchmark {
+  private static final int[] WRITERS = {1, 8, 32};
+  private static final Duration RUN_TIME = Duration.ofSeconds(2);
+  private static final Duration GROUP_COMMIT = Duration.ofMillis(2);
+  private static final int REPLAY_RECORDS = 1_000_000;
+  private static final int REPLAY_MEMBERS = 10_000;
+  private static final int REPLAY_BOOKS = 20_000;
+  private static final int REPLAY_LOAN_CYCLES = 100_000;
+
+  @TempDir Path dir;
+
+  @Test
+  void appendThroughputPerFsyncPolicy() throws Exception {
+    System.out.printf(
+        "%nCommandLog appends, %ss per step (group commit every %dms)%n",
+        RUN_TIME.toSeconds(), GROUP_COMMIT.toMillis());
+    System.out.printf(
+        "%-8s %8s %14s %12s %14s%n", "policy", "writers", "appends/s", "fsyncs/s", "appends/fsync");
+    for (FsyncPolicy policy : FsyncPolicy.values()) {
+      for (int writers : WRITERS) {
+        CommandLog.Stats stats = appendFor(policy, writers);
+        double seconds = RUN_TIME.toNanos() / 1e9;
+        System.out.printf(
+            "%-8s %8d %14.0f %12.0f %14s%n",
+            policy,
+            writers,
+            stats.appends() / seconds,
+            stats.fsyncs() / seconds,
+            stats.fsyncs() == 0
+                ? "-"
+                : String.format("%.1f", (double) stats.appends() / stats.fsyncs()));
+        assertThat(stats.appends()).isPositive();
+      }
+    }
+  }
+
+  @Test
+  void loanCyclesThroughTheApplyLock() throws Exception {
+    System.out.printf(
+        "%nBorrow + return on disjoint books, %ss per step (group commit every %dms)%n",
+        RUN_TIME.toSeconds(), GROUP_COMMIT.toMillis());
+    System.out.printf("%-10s %8s %14s%n", "journal", "writers", "commands/s");
+    for (int writers : WRITERS) {
+      printCycles("none", writers, cycleFor(plainLibrary(), writers));
+      for (FsyncPolicy policy : List.of(FsyncPolicy.OS, FsyncPolicy.GROUP)) {
+        Path file = Files.createTempFile(dir, "cycles-" + policy.name(), ".journal");
+        try (CommandLog log = CommandLog.open(file, policy, GROUP_COMMIT)) {
+          printCycles(policy.name(), writers, cycleFor(journaledLibrary(log), writers));
+        }
+      }
+    }
+  }
+
+  @Test
+  void replaySpeed() throws IOException {
+    Path raw = dir.resolve("raw.journal");
+    Instant now = Instant.now();
+    try (CommandLog log = CommandLog.open(raw, FsyncPolicy.OS, Duration.ZERO)) {
+      for (int i = 0; i < REPLAY_RECORDS; i++) {
+        log.append(new Command(Type.EXTEND_LOAN, now, "book-" + (i % 50_000), "member-" + i, 7));
+      }
+    }
+    LongAdder decoded = new LongAdder();
+    CommandLog.ReplayStats rawStats;
+    try (CommandLog log = CommandLog.open(raw, FsyncPolicy.OS, Duration.ZERO)) {
+      rawStats = log.replay(command -> decoded.increment());
+    }
+
+    Path full = dir.resolve("full.journal");
+    try (CommandLog log = CommandLog.open(full, FsyncPolicy.OS, Duration.ZERO)) {
+      LibraryService library = journaledLibrary(log);
+      for (int m = 0; m < REPLAY_MEMBERS; m++) {
+        library.createMember("m" + m, "Member " + m);
+      }
+      for (int b = 0; b < REPLAY_BOOKS; b++) {
+        library.createBook("b" + b, "Book " + b);
+      }
+      for (int i = 0; i < REPLAY_LOAN_CYCLES; i++) {
+        String bookId = "b" + (i % REPLAY_BOOKS);
+        String memberId = "m" + (i % REPLAY_MEMBERS);
+        library.borrowBook(bookId, memberId);
+        library.returnBook(bookId, memberId);
+      }
+    }
+    CommandLog.ReplayStats fullStats;
+    try (CommandLog log = CommandLog.open(full, FsyncPolicy.OS, Duration.ZERO)) {
+      fullStats = journaledLibrary(log).recover();
+    }
+
+    System.out.printf("%nCommandLog replay%n");
+    System.out.printf("%-22s %12s %10s %14s%n", "mode", "commands", "MB", "commands/s");
+    print("decode only", rawStats);
+    print("into in-memory store", fullStats);
+    assertThat(decoded.sum()).isEqualTo(REPLAY_RECORDS);
+    assertThat(fullStats.commands())
+        .isEqualTo(REPLAY_MEMBERS + REPLAY_BOOKS + 2L * REPLAY_LOAN_CYCLES);
+  }
+
+  private CommandLog.Stats appendFor(FsyncPolicy policy, int writers) throws Exception {
+    Path file = Files.createTempFile(dir, policy.name(), ".journal");
+    try (CommandLog log = CommandLog.open(file, policy, GROUP_COMMIT)) {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Thread> threads = new ArrayList<>();
+      long deadline = System.nanoTime() + RUN_TIME.toNanos();
+      for (int w = 0; w < writers; w++) {
+        String memberId = "member-" + w;
+        Thread thread =
+            new Thread(
+                () -> {
+                  try {
+                    start.await();
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                  }
+                  while (System.nanoTime() < deadline) {
+                    long sequence =
+                        log.append(new Command(Type.BORROW, Instant.now(), "book-1", memberId, 0));
+                    log.awaitDurable(sequence);
+                  }
+                });
+        thread.start();
+        threads.add(thread);
+      }
+      start.countDown();
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      return log.stats();
+    }
+  }
+
+  /** Runs borrow/return cycles, each writer on its own book and member; returns commands run. */
+  private static long cycleFor(LibraryService library, int writers) throws Exception {
+    for (int w = 0; w < writers; w++) {
+      library.createMember("m" + w, "Member " + w);
+      library.createBook("b" + w, "Book " + w);
+    }
+    LongAdder commands = new LongAdder();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    long deadline = System.nanoTime() + RUN_TIME.toNanos();
+    for (int w = 0; w < writers; w++) {
+      String bookId = "b" + w;
+      String memberId = "m" + w;
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  start.await();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  return;
+                }
+                while (System.nanoTime() < deadline) {
+                  library.borrowBook(bookId, memberId);
+                  library.returnBook(bookId, memberId);
+                  commands.add(2);
+                }
+              });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    return commands.sum();
+  }
+
+  private static void printCycles(String journal, int writers, long commands) {
+    System.out.printf(
+        "%-10s %8d %14.0f%n", journal, writers, commands / (RUN_TIME.toNanos() / 1e9));
+    assertThat(commands).isPositive();
+  }
+
+  private static void print(String mode, CommandLog.ReplayStats stats) {
+    System.out.printf(
+        "%-22s %12d %10.1f %14.0f%n",
+        mode, stats.commands(), stats.bytes() / 1e6, stats.commandsPerSecond());
+  }
+
+  private static LibraryService plainLibrary() {
+    InMemoryStore store = new InMemoryStore();
+    InMemoryBookRepository books = new InMemoryBookRepository(store);
+    InMemoryMemberRepository members = new InMemoryMemberRepository(store);
+    InMemoryReservationRepository reservations = new InMemoryReservationRepository(store);
+    return new LibraryService(
+        new LoanService(books, members, new OptimisticRetry(), new LockManager()),
+        new LibraryQueryService(
+            books, members, Optional.empty(), Optional.empty(), Optional.empty()),
+        new BookManagementService(books),
+        new MemberManagementService(books, members, reservations),
+        LoanCommandExecutor.direct());
+  }
+
+  private static JournaledLibraryService journaledLibrary(CommandLog log) {
+    InMemoryStore store = new InMemoryStore();
+    InMemoryBookRepository books = new InMemoryBookRepository(store);
+    InMemoryMemberRepository members = new InMemoryMemberRepository(store);
+    InMemoryReservationRepository reservations = new InMemoryReservationRepository(store);
+    CommandClock clock = new CommandClock(Clock.systemUTC());
+    return new JournaledLibraryService(
+        new LoanService(books, members, new OptimisticRetry(), new LockManager(), clock),
+        new LibraryQueryService(
+            books, members, Optional.empty(), Optional.empty(), Optional.empty()),
+        new BookManagementService(books),
+        new MemberManagementService(books, members, reservations),
+        LoanCommandExecutor.direct(),
+        log,
+        clock);
+  }
+}
@@ -0,0 +1,163 @@
+package com.nortal.library.core.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.nortal.library.core.LibraryService;
+import com.nortal.library.core.concurrent.LoanCommandExecutor;
+import com.nortal.library.core.concurrent.LockManager;
+import com.nortal.library.core.concurrent.OptimisticRetry;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.journal.Command.Type;
+import com.nortal.library.core.journal.CommandLog.FsyncPolicy;
+import com.nortal.library.core.memory.InMemoryBookRepository;
+import com.nortal.library.core.memory.InMemoryMemberRepository;
+import com.nortal.library.core.memory.InMemoryReservationRepository;
+import com.nortal.library.core.memory.InMemoryStore;
+import com.nortal.library.core.service.BookManagementService;
+import com.nortal.library.core.service.LibraryQueryService;
+import com.nortal.library.core.service.LoanService;
+import com.nortal.library.core.service.MemberManagementService;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CommandLogTest {
+  private static final Instant T0 = Instant.parse("2025-03-01T10:15:30Z");
+
+  @TempDir Path dir;
+
+  @Test
+  void replaysEveryAppendedCommandInOrder() throws IOException {
+    Path file = dir.resolve("library.journal");
+    List<Command> written =
+        List.of(
+            new Command(Type.CREATE_BOOK, T0, "b1", "Clean Code", 0),
+            new Command(Type.RETURN, T0.plusMillis(1), "b1", null, 0),
+            new Command(Type.EXTEND_LOAN, T0.plusMillis(2), "b1", "m1", 7),
+            new Command(Type.CREATE_MEMBER, T0.plusMillis(3), "m2", "J\u00fcri \u00d5un", 0));
+    try (CommandLog log = CommandLog.open(file, FsyncPolicy.ALWAYS, Duration.ZERO)) {
+      written.forEach(log::append);
+      assertThat(log.stats().fsyncs()).isEqualTo(4);
+    }
+
+    List<Command> replayed = new ArrayList<>();
+    try (CommandLog log = CommandLog.open(file, FsyncPolicy.OS, Duration.ZERO)) {
+      CommandLog.ReplayStats stats = log.replay(replayed::add);
+      assertThat(stats.commands()).isEqualTo(4);
+      assertThat(stats.discardedBytes()).isZero();
+    }
+    assertThat(replayed).isEqualTo(written);
+  }
+
+  @Test
+  void truncatesTornTailAndAppendsAfterLastIntactRecord() throws IOException {
+    Path file = dir.resolve("library.journal");
+    try (CommandLog log = CommandLog.open(file, FsyncPolicy.OS, Duration.ZERO)) {
+      log.append(new Command(Type.CREATE_BOOK, T0, "b1", "Clean Code", 0));
+      log.append(new Command(Type.CREATE_BOOK, T0, "b2", "Refactoring", 0));
+    }
+    long intact = Files.size(file);
+    // A crash in the middle of the third write leaves a partial record behind
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(intact - 5);
+    }
+
+    try (CommandLog log = CommandLog.open(file, FsyncPolicy.OS, Duration.ZERO)) {
+      List<Command> replayed = new ArrayList<>();
+      CommandLog.ReplayStats stats = log.replay(replayed::add);
+      assertThat(replayed).extracting(Command::key).containsExactly("b1");
+      assertThat(stats.discardedBytes()).isPositive();
+      log.append(new Command(Type.CREATE_BOOK, T0, "b3", "Effective Java", 0));
+    }
+
+    List<Command> replayed = new ArrayList<>();
+    try (CommandLog log = CommandLog.open(file, FsyncPolicy.OS, Duration.ZERO)) {
+      log.replay(replayed::add);
+    }
+    assertThat(replayed).extracting(Command::key).containsExactly("b1", "b3");
+  }
+
+  @Test
+  void groupCommitSharesFsyncsBetweenWriters() throws Exception {
+    Path file = dir.resolve("library.journal");
+    try (CommandLog log = CommandLog.open(file, FsyncPolicy.GROUP, Duration.ofMillis(5))) {
+      List<Thread> writers = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        String memberId = "m" + t;
+        Thread writer =
+            new Thread(
+                () -> {
+                  for (int i = 0; i < 20; i++) {
+                    log.awaitDurable(
+                        log.append(new Command(Type.CREATE_MEMBER, T0, memberId + i, "x", 0)));
+                  }
+                });
+        writer.start();
+        writers.add(writer);
+      }
+      for (Thread writer : writers) {
+        writer.join();
+      }
+      CommandLog.Stats stats = log.stats();
+      assertThat(stats.durable()).isEqualTo(160);
+      assertThat(stats.fsyncs()).isLessThan(160);
+    }
+  }
+
+  @Test
+  void recoveryRebuildsStateWithOriginalDueDates() throws IOException {
+    Path file = dir.resolve("library.journal");
+    Clock march = Clock.fixed(T0, ZoneOffset.UTC);
+    try (CommandLog log = CommandLog.open(file, FsyncPolicy.ALWAYS, Duration.ZERO)) {
+      LibraryService library = journaledLibrary(new InMemoryStore(), log, march);
+      library.createMember("m1", "Kertu");
+      library.createMember("m2", "Rasmus");
+      library.createBook("b1", "Clean Code");
+      library.borrowBook("b1", "m1");
+      library.reserveBook("b1", "m2");
+      library.borrowBook("b1", "m2"); // rejected, not logged
+      library.returnBook("b1", "m1");
+    }
+
+    InMemoryStore recovered = new InMemoryStore();
+    Clock june = Clock.fixed(Instant.parse("2025-06-01T00:00:00Z"), ZoneOffset.UTC);
+    try (CommandLog log = CommandLog.open(file, FsyncPolicy.ALWAYS, Duration.ZERO)) {
+      JournaledLibraryService library = journaledLibrary(recovered, log, june);
+      assertThat(library.recover().commands()).isEqualTo(6);
+
+      Book book = library.findBook("b1").orElseThrow();
+      assertThat(book.getLoanedTo()).isEqualTo("m2");
+      assertThat(book.getDueDate()).isEqualTo(LocalDate.of(2025, 3, 15));
+      assertThat(book.getReservationQueue().isEmpty()).isTrue();
+    }
+  }
+
+  private static JournaledLibraryService journaledLibrary(
+      InMemoryStore store, CommandLog log, Clock base) {
+    InMemoryBookRepository books = new InMemoryBookRepository(store);
+    InMemoryMemberRepository members = new InMemoryMemberRepository(store);
+    InMemoryReservationRepository reservations = new InMemoryReservationRepository(store);
+    CommandClock clock = new CommandClock(base);
+    return new JournaledLibraryService(
+        new LoanService(books, members, new OptimisticRetry(), new LockManager(), clock),
+        new LibraryQueryService(
+            books, members, Optional.empty(), Optional.empty(), Optional.empty()),
+        new BookManagementService(books),
+        new MemberManagementService(books, members, reservations),
+        LoanCommandExecutor.direct(),
+        log,
+        clock);
+  }
+}
@@ -0,0 +1,321 @@
+package com.nortal.library.core.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.nortal.library.core.BookQuery;
+import com.nortal.library.core.DueDateCursor;
+import com.nortal.library.core.DueDatePage;
+import com.nortal.library.core.IdPage;
+import com.nortal.library.core.LibraryService;
+import com.nortal.library.core.LoanEligibility;
+import com.nortal.library.core.MemberSummary;
+import com.nortal.library.core.ReservationPosition;
+import com.nortal.library.core.ResultWithNext;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.port.ConcurrentUpdateException;
+import com.nortal.library.core.search.Suggestion;
+import com.nortal.library.core.service.BookManagementService;
+import com.nortal.library.core.service.LibraryQueryService;
+import com.nortal.library.core.service.LoanService;
+import com.nortal.library.core.service.MemberManagementService;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class InMemoryRepositoriesTest {
+  private InMemoryBookRepository books;
+  private InMemoryMemberRepository members;
+  private InMemoryReservationRepository reservations;
+
+  @BeforeEach
+  void setUp() {
+    InMemoryStore store = new InMemoryStore();
+    books = new InMemoryBookRepository(store);
+    members = new InMemoryMemberRepository(store);
+    reservations = new InMemoryReservationRepository(store);
+    members.save(new Member("m1", "Kertu"));
+    members.save(new Member("m2", "Rasmus"));
+    members.save(new Member("m3", "Liis"));
+  }
+
+  @Test
+  void readsReturnCopiesAndStaleSavesAreRejected() {
+    books.save(new Book("b1", "Clean Code"));
+    Book first = books.findById("b1").orElseThrow();
+    Book second = books.findById("b1").orElseThrow();
+
+    first.setLoanedTo("m1");
+    assertThat(books.findById("b1").orElseThrow().getLoanedTo()).isNull();
+
+    books.save(first);
+    second.setLoanedTo("m2");
+    assertThatThrownBy(() -> books.save(second)).isInstanceOf(ConcurrentUpdateException.class);
+    assertThat(books.findById("b1").orElseThrow().getLoanedTo()).isEqualTo("m1");
+    assertThat(books.findById("b1").orElseThrow().getVersion()).isEqualTo(1L);
+  }
+
+  @Test
+  void borrowerAndDueDateIndexesFollowLoans() {
+    LocalDate today = LocalDate.of(2025, 6, 1);
+    books.save(new Book("b1", "Clean Code"));
+    books.save(new Book("b2", "Refactoring"));
+    assertThat(books.loanIfEligible("b1", "m1", today.minusDays(1), 5)).isEqualTo(1);
+    assertThat(books.loanIfEligible("b2", "m1", today.plusDays(7), 5)).isEqualTo(1);
+
+    assertThat(books.countByLoanedTo("m1")).isEqualTo(2);
+    assertThat(books.findByDueDateBefore(today)).extracting(Book::getId).containsExactly("b1");
+
+    Book returned = books.findById("b1").orElseThrow();
+    returned.setLoanedTo(null);
+    returned.setDueDate(null);
+    books.save(returned);
+
+    assertThat(books.findByLoanedTo("m1")).extracting(Book::getId).containsExactly("b2");
+    assertThat(books.findByDueDateBefore(today)).isEmpty();
+    assertThat(books.findByLoanedToIsNull()).extracting(Book::getId).containsExactly("b1");
+  }
+
+  @Test
+  void matchingQueriesCombineFiltersOrderAndLimit() {
+    LocalDate today = LocalDate.of(2025, 6, 1);
+    books.save(new Book("b3", "Refactoring"));
+    books.save(new Book("b1", "Clean Code"));
+    books.save(new Book("b2", "The Clean Coder"));
+    books.save(new Book("b4", "Code Complete"));
+    books.loanIfEligible("b2", "m1", today, 5);
+    books.loanIfEligible("b4", "m2", today, 5);
+
+    assertThat(books.findMatching(BookQuery.where("CODE", null, null)))
+        .extracting(Book::getId)
+        .containsExactly("b1", "b2", "b4");
+    assertThat(books.findMatching(BookQuery.where("code", false, null)))
+        .extracting(Book::getId)
+        .containsExactly("b2", "b4");
+    assertThat(books.findMatching(BookQuery.where("code", null, "m1")))
+        .extracting(Book::getId)
+        .containsExactly("b2");
+    assertThat(books.findMatching(BookQuery.where(null, true, "m1"))).isEmpty();
+    books.save(new Book("b5", "\u00c9tudes"));
+    assertThat(books.findMatching(BookQuery.where("ETUD", null, null)))
+        .extracting(Book::getId)
+        .containsExactly("b5");
+    assertThat(
+            books.findMatching(
+                BookQuery.where(null, null, null)
+                    .withOrder(BookQuery.Order.TITLE)
+                    .withLimit(3)
+                    .withIds(List.of("b1", "b2", "b3", "b4"))))
+        .extracting(Book::getTitle)
+        .containsExactly("Clean Code", "Code Complete", "Refactoring");
+    assertThat(
+            books.findMatching(
+                BookQuery.where(null, null, null)
+                    .withTitlePrefix("\u00e9TU")
+                    .withOrder(BookQuery.Order.TITLE)))
+        .extracting(Book::getId)
+        .containsExactly("b5");
+    // Without the title index, autocomplete matches title starts only
+    assertThat(queriesWithoutIndexes().autocompleteBooks(" clean", 5))
+        .extracting(Suggestion::label)
+        .containsExactly("Clean Code");
+    assertThat(
+            books.findMatching(BookQuery.where("clean", null, null).withIds(List.of("b2", "b3"))))
+        .extracting(Book::getId)
+        .containsExactly("b2");
+  }
+
+  @Test
+  void idPagesWalkBooksAndMembersInIdOrder() {
+    for (String id : List.of("b3", "b1", "b4", "b2")) {
+      books.save(new Book(id, "Book " + id));
+    }
+    LibraryQueryService queries = queriesWithoutIndexes();
+
+    IdPage<Book> first = queries.booksPage(null, 3);
+    assertThat(first.items()).extracting(Book::getId).containsExactly("b1", "b2", "b3");
+    assertThat(first.next()).isEqualTo("b3");
+    // A book deleted behind the cursor does not shift the following page
+    books.delete(books.findById("b2").orElseThrow());
+    IdPage<Book> last = queries.booksPage(first.next(), 3);
+    assertThat(last.items()).extracting(Book::getId).containsExactly("b4");
+    assertThat(last.next()).isNull();
+
+    IdPage<Member> firstMembers = queries.membersPage(null, 2);
+    assertThat(firstMembers.items()).extracting(Member::getId).containsExactly("m1", "m2");
+    assertThat(queries.membersPage(firstMembers.next(), 2).items())
+        .extracting(Member::getId)
+        .containsExactly("m3");
+
+    List<String> exported = new ArrayList<>();
+    queries.exportBooks(book -> exported.add(book.getId()));
+    assertThat(exported).containsExactly("b1", "b3", "b4");
+  }
+
+  @Test
+  void dueSoonPagesFollowDueDateThenIdOrder() {
+    LocalDate today = LocalDate.of(2025, 6, 1);
+    String[] ids = {"b5", "b1", "b4", "b2", "b3", "b6"};
+    int[] dueInDays = {3, 3, 0, 9, -1, 4};
+    for (int i = 0; i < ids.length; i++) {
+      Book book = new Book(ids[i], "Book " + i);
+      book.setLoanedTo("m1");
+      book.setDueDate(today.plusDays(dueInDays[i]));
+      books.save(book);
+    }
+    LibraryQueryService queries = queriesWithoutIndexes();
+
+    DueDatePage first = queries.dueSoon(today, 7, null, 2);
+    assertThat(first.books()).extracting(Book::getId).containsExactly("b4", "b1");
+    assertThat(first.next()).isEqualTo(new DueDateCursor(today.plusDays(3), "b1"));
+
+    // A book moved into the remaining window while paging is still listed once
+    Book moved = books.findById("b2").orElseThrow();
+    moved.setDueDate(today.plusDays(5));
+    books.save(moved);
+
+    DueDatePage second = queries.dueSoon(today, 7, first.next(), 2);
+    assertThat(second.books()).extracting(Book::getId).containsExactly("b5", "b6");
+    DueDatePage last = queries.dueSoon(today, 7, second.next(), 2);
+    assertThat(last.books()).extracting(Book::getId).containsExactly("b2");
+    assertThat(last.next()).isNull();
+
+    assertThat(books.findByDueDateRange(null, today.plusDays(1), null, 10))
+        .extracting(Book::getId)
+        .containsExactly("b3", "b4");
+  }
+
+  @Test
+  void loanIfEligibleChecksEveryGuard() {
+    books.save(new Book("b1", "Clean Code"));
+    books.save(new Book("b2", "Refactoring"));
+    Book queued = books.findById("b2").orElseThrow();
+    queued.getReservationQueue().add("m2");
+    books.save(queued);
+    LocalDate due = LocalDate.of(2025, 6, 15);
+
+    assertThat(books.loanIfEligible("b1", "ghost", due, 5)).isZero();
+    assertThat(books.loanIfEligible("b1", "m1", due, 0)).isZero();
+    assertThat(books.loanIfEligible("b2", "m1", due, 5)).isZero();
+    assertThat(books.loanIfEligible("b1", "m1", due, 5)).isEqualTo(1);
+    assertThat(books.loanIfEligible("b1", "m3", due, 5)).isZero();
+  }
+
+  @Test
+  void concurrentLoansNeverExceedTheLimit() throws InterruptedException {
+    for (int i = 0; i < 32; i++) {
+      books.save(new Book("b" + i, "Book " + i));
+    }
+    AtomicInteger loaned = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 32; i++) {
+      String bookId = "b" + i;
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  start.await();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+                loaned.addAndGet(books.loanIfEligible(bookId, "m1", LocalDate.now(), 5));
+              });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(loaned.get()).isEqualTo(5);
+    assertThat(books.countByLoanedTo("m1")).isEqualTo(5);
+  }
+
+  @Test
+  void reservationIndexTracksQueuesAndPositions() {
+    books.save(new Book("b1", "Clean Code"));
+    books.save(new Book("b2", "Refactoring"));
+    reserve("b1", "m1");
+    reserve("b1", "m2");
+    reserve("b2", "m2");
+
+    assertThat(reservations.findPositionsByMemberId("m2"))
+        .containsExactly(new ReservationPosition("b1", 1), new ReservationPosition("b2", 0));
+    assertThat(members.findSummary("m2").orElseThrow().reservations())
+        .containsExactly(
+            new MemberSummary.ReservationLine("b1", "Clean Code", 1),
+            new MemberSummary.ReservationLine("b2", "Refactoring", 0));
+    assertThat(members.findSummary("unknown")).isEmpty();
+    assertThat(members.findLoanEligibility("m2", "b1"))
+        .isEqualTo(new LoanEligibility(true, 0, true));
+    assertThat(books.findByReservationQueueContaining("m1"))
+        .extracting(Book::getId)
+        .containsExactly("b1");
+
+    assertThat(reservations.deleteByMemberId("m2")).isEqualTo(2);
+
+    assertThat(reservations.findPositionsByMemberId("m2")).isEmpty();
+    assertThat(books.findById("b1").orElseThrow().getReservationQueue().memberIds())
+        .containsExactly("m1");
+    assertThat(members.findLoanEligibilities(List.of("m1", "m2", "ghost"), "b1"))
+        .containsOnlyKeys("m1", "m2");
+  }
+
+  @Test
+  void staleQueueSaveDoesNotResurrectDeletedReservations() {
+    books.save(new Book("b1", "Clean Code"));
+    reserve("b1", "m1");
+    reserve("b1", "m2");
+    Book stale = books.findById("b1").orElseThrow();
+
+    reservations.deleteByMemberId("m2");
+    stale.getReservationQueue().add("m3");
+    books.save(stale);
+
+    assertThat(books.findById("b1").orElseThrow().getReservationQueue().memberIds())
+        .containsExactly("m1", "m3");
+  }
+
+  @Test
+  void runsLibraryServiceHandoffEndToEnd() {
+    LibraryService library =
+        new LibraryService(
+            new LoanService(books, members),
+            queriesWithoutIndexes(),
+            new BookManagementService(books),
+            new MemberManagementService(books, members, reservations));
+    library.createBook("b1", "Clean Code");
+
+    assertThat(library.borrowBook("b1", "m1").ok()).isTrue();
+    assertThat(library.reserveBook("b1", "m2").ok()).isTrue();
+    assertThat(library.reserveBook("b1", "m3").ok()).isTrue();
+    assertThat(library.deleteMember("m2").ok()).isTrue();
+    ResultWithNext returned = library.returnBook("b1", "m1");
+
+    assertThat(returned.ok()).isTrue();
+    assertThat(returned.nextMemberId()).isEqualTo("m3");
+    assertThat(library.memberSummary("m3").loans())
+        .extracting(MemberSummary.LoanLine::bookId)
+        .containsExactly("b1");
+    assertThat(library.findBook("b1").orElseThrow().getReservationQueue().isEmpty()).isTrue();
+  }
+
+  private LibraryQueryService queriesWithoutIndexes() {
+    return new LibraryQueryService(
+        books, members, Optional.empty(), Optional.empty(), Optional.empty());
+  }
+
+  private void reserve(String bookId, String memberId) {
+    Book book = books.findById(bookId).orElseThrow();
+    book.getReservationQueue().add(memberId);
+    books.save(book);
+  }
+}
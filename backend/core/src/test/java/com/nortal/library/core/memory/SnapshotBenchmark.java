@@ -0,0 +1,183 @@
+package com.nortal.library.core.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.domain.Member;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Measures writing and restoring a {@link SnapshotFile} of a store with {@value #BOOKS} books, and
+ * what writers see while a snapshot is being written.
+ *
+ * <p>A quarter of the books are on loan and every tenth has two members queued. "Startup to ready"
+ * is {@link SnapshotFile#restore} end to end: mapping, checksums, decoding and index rebuild. It is
+ * compared with saving the same rows through the repositories, the least that seeding or replaying
+ * them would cost. Run with {@code ./gradlew :core:benchmark}.
+ */
+@EnabledIfSystemProperty(named = "library.benchmark", matches = "true")
+class SnapshotBenchmark {
+  private static final int BOOKS = 1_000_000;
+  private static final int MEMBERS = 100_000;
+  private static final int WRITERS = 4;
+  private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+
+  @TempDir Path dir;
+
+  @Test
+  void writeAndRestore() throws Exception {
+    Path file = dir.resolve("library.snapshot");
+    Written written = populateAndSnapshot(file);
+    SnapshotFile.Info snapshot = written.snapshot();
+
+    // The source store is unreachable now; restore into a fresh heap as a new process would
+    System.gc();
+    SnapshotFile.Restored restored = SnapshotFile.restore(file);
+    SnapshotFile.Info restore = restored.info();
+
+    System.out.printf(
+        "%nSnapshot of %,d books and %,d members (%.1f MB)%n",
+        snapshot.books(), snapshot.members(), snapshot.bytes() / 1e6);
+    System.out.printf("%-36s %10s%n", "step", "ms");
+    System.out.printf("%-36s %10.0f%n", "load through repositories", written.populateNanos() / 1e6);
+    System.out.printf("%-36s %10.0f%n", "write snapshot", written.quietWriteNanos() / 1e6);
+    System.out.printf(
+        "%-36s %10.0f%n", "write snapshot (writers running)", snapshot.elapsedNanos() / 1e6);
+    System.out.printf("%-36s %10.0f%n", "restore: startup to ready", restore.elapsedNanos() / 1e6);
+    System.out.printf("%nWriters (%d threads, book saves)%n", WRITERS);
+    System.out.printf("%-22s %14s %16s%n", "while", "saves/s", "max latency ms");
+    written.idle().print("idle");
+    written.busy().print("writing snapshot");
+
+    InMemoryBookRepository books = new InMemoryBookRepository(restored.store());
+    assertThat(restore.books()).isGreaterThanOrEqualTo(BOOKS + written.idle().created.sum());
+    assertThat(books.countByLoanedTo("m0")).isPositive();
+  }
+
+  private record Written(
+      SnapshotFile.Info snapshot,
+      long quietWriteNanos,
+      long populateNanos,
+      WriteLoad idle,
+      WriteLoad busy) {}
+
+  /** Fills a store, then measures writers idle and while the snapshot of it is written. */
+  private static Written populateAndSnapshot(Path file) throws IOException, InterruptedException {
+    long started = System.nanoTime();
+    InMemoryStore store = populate();
+    long populateNanos = System.nanoTime() - started;
+    WriteLoad idle = writeLoadDuring(store, () -> sleep(500));
+    SnapshotFile.Info quiet;
+    try (InMemoryStore.Cut cut = store.beginCut()) {
+      quiet = SnapshotFile.write(cut, file, SnapshotFile.NO_LOG_POSITION);
+    }
+    SnapshotFile.Info[] snapshot = new SnapshotFile.Info[1];
+    WriteLoad busy =
+        writeLoadDuring(
+            store,
+            () -> {
+              try (InMemoryStore.Cut cut = store.beginCut()) {
+                snapshot[0] = SnapshotFile.write(cut, file, SnapshotFile.NO_LOG_POSITION);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+    return new Written(snapshot[0], quiet.elapsedNanos(), populateNanos, idle, busy);
+  }
+
+  private static InMemoryStore populate() {
+    InMemoryStore store = new InMemoryStore();
+    InMemoryMemberRepository members = new InMemoryMemberRepository(store);
+    InMemoryBookRepository books = new InMemoryBookRepository(store);
+    for (int m = 0; m < MEMBERS; m++) {
+      members.save(new Member("m" + m, "Member " + m));
+    }
+    for (int b = 0; b < BOOKS; b++) {
+      Book book = new Book("b" + b, "Book title number " + b);
+      if (b % 4 == 0) {
+        book.setLoanedTo("m" + (b % MEMBERS));
+        book.setDueDate(TODAY.plusDays(b % 60 - 30));
+        book.setFirstDueDate(book.getDueDate());
+      }
+      if (b % 10 == 0) {
+        book.getReservationQueue().add("m" + ((b + 1) % MEMBERS));
+        book.getReservationQueue().add("m" + ((b + 2) % MEMBERS));
+      }
+      books.save(book);
+    }
+    return store;
+  }
+
+  /** Runs writers that rename a random book and create a new one until {@code step} is done. */
+  private static WriteLoad writeLoadDuring(InMemoryStore store, Runnable step)
+      throws InterruptedException {
+    InMemoryBookRepository books = new InMemoryBookRepository(store);
+    WriteLoad load = new WriteLoad();
+    AtomicBoolean done = new AtomicBoolean();
+    List<Thread> threads = new ArrayList<>();
+    for (int w = 0; w < WRITERS; w++) {
+      // Each writer renames only its own books, so saves never conflict
+      int writer = w;
+      String prefix = "w" + w + "-" + System.nanoTime() + "-";
+      Thread thread =
+          new Thread(
+              () -> {
+                int n = 0;
+                while (!done.get()) {
+                  long begin = System.nanoTime();
+                  int own = ThreadLocalRandom.current().nextInt(BOOKS / WRITERS) * WRITERS + writer;
+                  Book book = books.findById("b" + own).orElseThrow();
+                  book.setTitle("Renamed " + n);
+                  books.save(book);
+                  books.save(new Book(prefix + n++, "New book"));
+                  load.created.increment();
+                  load.saves.add(2);
+                  load.maxLatencyNanos.accumulate(System.nanoTime() - begin);
+                }
+              });
+      thread.start();
+      threads.add(thread);
+    }
+    long begin = System.nanoTime();
+    step.run();
+    load.elapsedNanos = System.nanoTime() - begin;
+    done.set(true);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    return load;
+  }
+
+  private static final class WriteLoad {
+    final LongAdder saves = new LongAdder();
+    final LongAdder created = new LongAdder();
+    final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+    long elapsedNanos;
+
+    void print(String phase) {
+      System.out.printf(
+          "%-22s %14.0f %16.1f%n",
+          phase, saves.sum() * 1e9 / elapsedNanos, maxLatencyNanos.get() / 1e6);
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package com.nortal.library.core.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.nortal.library.core.ReservationPosition;
+import com.nortal.library.core.concurrent.LoanCommandExecutor;
+import com.nortal.library.core.concurrent.LockManager;
+import com.nortal.library.core.concurrent.OptimisticRetry;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.journal.CommandClock;
+import com.nortal.library.core.journal.CommandLog.FsyncPolicy;
+import com.nortal.library.core.journal.CommandLog;
+import com.nortal.library.core.journal.JournaledLibraryService;
+import com.nortal.library.core.service.BookManagementService;
+import com.nortal.library.core.service.LibraryQueryService;
+import com.nortal.library.core.service.LoanService;
+import com.nortal.library.core.service.MemberManagementService;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotFileTest {
+  private static final LocalDate DUE = LocalDate.of(2025, 6, 15);
+
+  @TempDir Path dir;
+
+  @Test
+  void restoresRowsIndexesAndReservationSequence() throws IOException {
+    InMemoryStore store = new InMemoryStore();
+    InMemoryBookRepository books = new InMemoryBookRepository(store);
+    InMemoryMemberRepository members = new InMemoryMemberRepository(store);
+    members.save(new Member("m1", "Kertu"));
+    members.save(new Member("m2", "J\u00fcri \u00d5un"));
+    books.save(new Book("b1", "Clean Code"));
+    books.save(new Book("b2", "Refactoring"));
+    books.loanIfEligible("b1", "m1", DUE, 5);
+    reserve(books, "b1", "m2");
+    Path file = dir.resolve("library.snapshot");
+
+    SnapshotFile.Info written;
+    try (InMemoryStore.Cut cut = store.beginCut()) {
+      written = SnapshotFile.write(cut, file, 42);
+    }
+    SnapshotFile.Restored restored = SnapshotFile.restore(file);
+
+    assertThat(written.books()).isEqualTo(2);
+    assertThat(restored.info().logPosition()).isEqualTo(42);
+    InMemoryBookRepository restoredBooks = new InMemoryBookRepository(restored.store());
+    InMemoryMemberRepository restoredMembers = new InMemoryMemberRepository(restored.store());
+    Book loaned = restoredBooks.findById("b1").orElseThrow();
+    assertThat(loaned.getLoanedTo()).isEqualTo("m1");
+    assertThat(loaned.getDueDate()).isEqualTo(DUE);
+    assertThat(loaned.getFirstDueDate()).isEqualTo(DUE);
+    assertThat(loaned.getVersion()).isEqualTo(books.findById("b1").orElseThrow().getVersion());
+    assertThat(loaned.getReservationQueue().memberIds()).containsExactly("m2");
+    assertThat(restoredMembers.findById("m2").orElseThrow().getName())
+        .isEqualTo("J\u00fcri \u00d5un");
+    assertThat(restoredBooks.countByLoanedTo("m1")).isEqualTo(1);
+    assertThat(restoredBooks.findByDueDateBefore(DUE.plusDays(1)))
+        .extracting(Book::getId)
+        .containsExactly("b1");
+    assertThat(new InMemoryReservationRepository(restored.store()).findPositionsByMemberId("m2"))
+        .containsExactly(new ReservationPosition("b1", 0));
+
+    long lastId = loaned.getReservationQueue().reservations().get(0).getId();
+    reserve(restoredBooks, "b2", "m2");
+    Book reserved = restoredBooks.findById("b2").orElseThrow();
+    assertThat(reserved.getReservationQueue().reservations().get(0).getId()).isEqualTo(lastId + 1);
+  }
+
+  @Test
+  void cutIgnoresWritesMadeWhileItIsRead() throws IOException {
+    InMemoryStore store = new InMemoryStore();
+    InMemoryBookRepository books = new InMemoryBookRepository(store);
+    InMemoryMemberRepository members = new InMemoryMemberRepository(store);
+    members.save(new Member("m1", "Kertu"));
+    books.save(new Book("b1", "Clean Code"));
+    books.save(new Book("b2", "Refactoring"));
+    Path file = dir.resolve("library.snapshot");
+
+    try (InMemoryStore.Cut cut = store.beginCut()) {
+      Book renamed = books.findById("b1").orElseThrow();
+      renamed.setTitle("Clean Code, 2nd ed.");
+      books.save(renamed);
+      books.delete(books.findById("b2").orElseThrow());
+      books.save(new Book("b3", "Effective Java"));
+      books.loanIfEligible("b1", "m1", DUE, 5);
+      members.save(new Member("m2", "Rasmus"));
+      SnapshotFile.write(cut, file, SnapshotFile.NO_LOG_POSITION);
+    }
+
+    InMemoryBookRepository restored =
+        new InMemoryBookRepository(SnapshotFile.restore(file).store());
+    assertThat(restored.findAll()).extracting(Book::getId).containsExactlyInAnyOrder("b1", "b2");
+    Book b1 = restored.findById("b1").orElseThrow();
+    assertThat(b1.getTitle()).isEqualTo("Clean Code");
+    assertThat(b1.getLoanedTo()).isNull();
+    assertThat(restored.countByLoanedTo("m1")).isZero();
+    assertThat(books.findById("b1").orElseThrow().getLoanedTo()).isEqualTo("m1");
+    assertThat(members.existsById("m2")).isTrue();
+  }
+
+  @Test
+  void rejectsCorruptBlocks() throws IOException {
+    InMemoryStore store = new InMemoryStore();
+    new InMemoryBookRepository(store).save(new Book("b1", "Clean Code"));
+    Path file = dir.resolve("library.snapshot");
+    try (InMemoryStore.Cut cut = store.beginCut()) {
+      SnapshotFile.write(cut, file, SnapshotFile.NO_LOG_POSITION);
+    }
+    // The first record starts right after the 128-byte prefix; flip a byte of the book's title
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {'X'}), 128 + 4 + 2 + 4 + 1);
+    }
+
+    assertThatThrownBy(() -> SnapshotFile.restore(file))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("checksum");
+  }
+
+  @Test
+  void recoversFromSnapshotPlusLogSuffix() throws Exception {
+    Path snapshot = dir.resolve("library.snapshot");
+    Path journal = dir.resolve("library.journal");
+    Clock clock = Clock.fixed(Instant.parse("2025-03-01T10:15:30Z"), ZoneOffset.UTC);
+    try (SnapshotScheduler snapshots = SnapshotScheduler.open(snapshot, Duration.ofHours(1));
+        CommandLog log = CommandLog.open(journal, FsyncPolicy.ALWAYS, Duration.ZERO)) {
+      JournaledLibraryService library = journaledLibrary(snapshots.store(), log, clock);
+      snapshots.start(library);
+      library.createMember("m1", "Kertu");
+      library.createMember("m2", "Rasmus");
+      library.createBook("b1", "Clean Code");
+      library.borrowBook("b1", "m1");
+      assertThat(snapshots.snapshot().logPosition()).isEqualTo(log.position());
+      library.reserveBook("b1", "m2");
+      library.returnBook("b1", "m1");
+    }
+
+    try (SnapshotScheduler snapshots = SnapshotScheduler.open(snapshot, Duration.ofHours(1));
+        CommandLog log = CommandLog.open(journal, FsyncPolicy.ALWAYS, Duration.ZERO)) {
+      JournaledLibraryService library = journaledLibrary(snapshots.store(), log, clock);
+      long from = snapshots.restored().orElseThrow().logPosition();
+
+      assertThat(library.recover(from).commands()).isEqualTo(2);
+      Book book = library.findBook("b1").orElseThrow();
+      assertThat(book.getLoanedTo()).isEqualTo("m2");
+      assertThat(book.getReservationQueue().isEmpty()).isTrue();
+    }
+  }
+
+  private static void reserve(InMemoryBookRepository books, String bookId, String memberId) {
+    Book book = books.findById(bookId).orElseThrow();
+    book.getReservationQueue().add(memberId);
+    books.save(book);
+  }
+
+  private static JournaledLibraryService journaledLibrary(
+      InMemoryStore store, CommandLog log, Clock base) {
+    InMemoryBookRepository books = new InMemoryBookRepository(store);
+    InMemoryMemberRepository members = new InMemoryMemberRepository(store);
+    InMemoryReservationRepository reservations = new InMemoryReservationRepository(store);
+    CommandClock clock = new CommandClock(base);
+    return new JournaledLibraryService(
+        new LoanService(books, members, new OptimisticRetry(), new LockManager(), clock),
+        new LibraryQueryService(
+            books, members, Optional.empty(), Optional.empty(), Optional.empty()),
+        new BookManagementService(books),
+        new MemberManagementService(books, members, reservations),
+        LoanCommandExecutor.direct(),
+        log,
+        clock);
+  }
+}
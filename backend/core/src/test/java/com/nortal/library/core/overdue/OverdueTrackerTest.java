@@ -0,0 +1,171 @@
+package com.nortal.library.core.overdue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.nortal.library.core.DueDateCursor;
+import com.nortal.library.core.DueDatePage;
+import com.nortal.library.core.concurrent.LockManager;
+import com.nortal.library.core.concurrent.OptimisticRetry;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.memory.InMemoryBookRepository;
+import com.nortal.library.core.memory.InMemoryMemberRepository;
+import com.nortal.library.core.memory.InMemoryStore;
+import com.nortal.library.core.service.LibraryQueryService;
+import com.nortal.library.core.service.LoanService;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OverdueTrackerTest {
+  private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+  private static final Clock CLOCK =
+      Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+
+  private InMemoryBookRepository books;
+  private InMemoryMemberRepository members;
+
+  @BeforeEach
+  void setUp() {
+    InMemoryStore store = new InMemoryStore();
+    books = new InMemoryBookRepository(store);
+    members = new InMemoryMemberRepository(store);
+    members.save(new Member("m1", "Kertu"));
+    members.save(new Member("m2", "Rasmus"));
+    for (int i = 1; i <= 4; i++) {
+      books.save(new Book("b" + i, "Book " + i));
+    }
+  }
+
+  @Test
+  void loansFlipToOverdueAtTheDayBoundary() {
+    OverdueTracker tracker = new OverdueTracker(books, CLOCK, 32);
+    LoanService loans = loanService(tracker);
+    assertThat(tracker.overdueCount(TODAY)).hasValue(0);
+
+    loans.borrowBook("b1", "m1");
+    loans.borrowBook("b2", "m1");
+    loans.extendLoan("b2", "m1", 3);
+    loans.borrowBook("b3", "m2");
+    loans.returnBook("b3", "m2");
+
+    // Due in 14 days: overdue from the day after
+    assertThat(tracker.overdueCount(TODAY.plusDays(14))).hasValue(0);
+    assertThat(tracker.overdueBookIds(TODAY.plusDays(15)).orElseThrow()).containsExactly("b1");
+    assertThat(tracker.overdueBookIds(TODAY.plusDays(18)).orElseThrow())
+        .containsExactlyInAnyOrder("b1", "b2");
+
+    // Returning an overdue book removes it; earlier days are no longer answered
+    loans.returnBook("b1", "m1");
+    assertThat(tracker.overdueBookIds(TODAY.plusDays(18)).orElseThrow()).containsExactly("b2");
+    assertThat(tracker.overdueBookIds(TODAY)).isEmpty();
+    OverdueTracker.Stats stats = tracker.stats();
+    assertThat(stats.trackedLoans()).isEqualTo(1);
+    assertThat(stats.flipped()).isEqualTo(2);
+  }
+
+  @Test
+  void loansDueBeyondOneLapWaitForTheirDay() {
+    OverdueTracker tracker = new OverdueTracker(books, CLOCK, 8);
+    OverdueTrackingBookRepository tracked = new OverdueTrackingBookRepository(books, tracker);
+    assertThat(tracker.overdueCount(TODAY)).hasValue(0);
+    // Same slot, three laps apart
+    tracked.loanIfEligible("b1", "m1", TODAY.plusDays(2), 5);
+    tracked.loanIfEligible("b2", "m1", TODAY.plusDays(26), 5);
+
+    for (int day = 1; day <= 26; day++) {
+      assertThat(tracker.overdueBookIds(TODAY.plusDays(day)).orElseThrow())
+          .hasSize(day <= 2 ? 0 : 1);
+    }
+    assertThat(tracker.overdueCount(TODAY.plusDays(100))).hasValue(2);
+  }
+
+  @Test
+  void existingLoansAreLoadedOnFirstUse() {
+    Book overdue = books.findById("b4").orElseThrow();
+    overdue.setLoanedTo("m2");
+    overdue.setDueDate(TODAY.minusDays(10));
+    books.save(overdue);
+    books.loanIfEligible("b1", "m1", TODAY.plusDays(1), 5);
+    OverdueTracker tracker = new OverdueTracker(books, CLOCK, 32);
+    OverdueTrackingBookRepository tracked = new OverdueTrackingBookRepository(books, tracker);
+    // Reported before the load: the load reads it from the repository instead
+    tracked.loanIfEligible("b2", "m1", TODAY.minusDays(1), 5);
+
+    assertThat(tracker.overdueBookIds(TODAY).orElseThrow()).containsExactlyInAnyOrder("b4", "b2");
+    assertThat(tracker.overdueCount(TODAY)).hasValue(2);
+    assertThat(tracker.stats().trackedLoans()).isEqualTo(3);
+    // Days before the tracker's are not answered
+    assertThat(tracker.overdueBookIds(TODAY.minusDays(5))).isEmpty();
+  }
+
+  @Test
+  void trackerAndIndexAgree() {
+    OverdueTracker tracker = new OverdueTracker(books, CLOCK, 16);
+    LoanService loans = loanService(tracker);
+    loans.borrowBook("b1", "m1");
+    loans.borrowBook("b2", "m2");
+    loans.extendLoan("b2", "m2", -20);
+    loans.borrowBook("b3", "m1");
+    loans.extendLoan("b3", "m1", 40);
+
+    for (int day = 0; day < 60; day += 7) {
+      LocalDate date = TODAY.plusDays(day);
+      assertThat(tracker.overdueBookIds(date).orElseThrow())
+          .containsExactlyInAnyOrderElementsOf(
+              books.findByDueDateBefore(date).stream().map(Book::getId).toList());
+    }
+    assertThat(tracker.stats().today()).isEqualTo(TODAY.plusDays(56));
+  }
+
+  @Test
+  void overdueListingsAreReadFromTheTracker() {
+    OverdueTracker tracker = new OverdueTracker(books, CLOCK, 32);
+    LoanService loans = loanService(tracker);
+    LibraryQueryService queries =
+        new LibraryQueryService(
+            books, members, Optional.empty(), Optional.empty(), Optional.of(tracker));
+    loans.borrowBook("b1", "m1");
+    loans.extendLoan("b1", "m1", -20);
+    loans.borrowBook("b2", "m1");
+    loans.extendLoan("b2", "m1", -16);
+    loans.borrowBook("b3", "m2");
+    loans.extendLoan("b3", "m2", -20);
+    loans.borrowBook("b4", "m2");
+    // The first read loads the tracker
+    assertThat(queries.overduePage(TODAY, null, 1).books())
+        .extracting(Book::getId)
+        .containsExactly("b1");
+
+    // Written past the tracker after its load: only the repository knows b4 is overdue
+    Book untracked = books.findById("b4").orElseThrow();
+    untracked.setDueDate(TODAY.minusDays(3));
+    books.save(untracked);
+
+    DueDatePage first = queries.overduePage(TODAY, null, 2);
+    assertThat(first.books()).extracting(Book::getId).containsExactly("b1", "b3");
+    assertThat(first.next()).isEqualTo(new DueDateCursor(TODAY.minusDays(6), "b3"));
+    DueDatePage second = queries.overduePage(TODAY, first.next(), 2);
+    assertThat(second.books()).extracting(Book::getId).containsExactly("b2");
+    assertThat(second.next()).isNull();
+    assertThat(queries.overdueBooks(TODAY))
+        .extracting(Book::getId)
+        .containsExactly("b1", "b3", "b2");
+    // A day the tracker has moved past falls back to the due-date index
+    assertThat(queries.overduePage(TODAY.minusDays(1), null, 10).books())
+        .extracting(Book::getId)
+        .containsExactly("b1", "b3", "b4", "b2");
+  }
+
+  private LoanService loanService(OverdueTracker tracker) {
+    return new LoanService(
+        new OverdueTrackingBookRepository(books, tracker),
+        members,
+        new OptimisticRetry(),
+        new LockManager(),
+        CLOCK);
+  }
+}
@@ -0,0 +1,231 @@
+package com.nortal.library.core.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.nortal.library.core.RankedBook;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.memory.InMemoryBookRepository;
+import com.nortal.library.core.memory.InMemoryMemberRepository;
+import com.nortal.library.core.memory.InMemoryReservationRepository;
+import com.nortal.library.core.memory.InMemoryStore;
+import com.nortal.library.core.service.BookManagementService;
+import com.nortal.library.core.service.LibraryQueryService;
+import com.nortal.library.core.service.MemberManagementService;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BookSearchTest {
+  private InMemoryBookRepository books;
+  private InMemoryMemberRepository members;
+  private MemberSearch memberSearch;
+  private BookSearch search;
+  private BookManagementService management;
+  private MemberManagementService memberManagement;
+  private LibraryQueryService queries;
+
+  @BeforeEach
+  void setUp() {
+    InMemoryStore store = new InMemoryStore();
+    books = new InMemoryBookRepository(store);
+    members = new InMemoryMemberRepository(store);
+    members.save(new Member("m1", "Kertu"));
+    // Written before the first search: read by the load, not reported
+    books.save(new Book("b1", "Clean Code"));
+    books.save(new Book("b2", "Domain-Driven Design"));
+    books.save(new Book("b3", "Refactoring"));
+    search = BookSearch.over(books);
+    memberSearch = MemberSearch.over(members);
+    management = new BookManagementService(books, search);
+    InMemoryReservationRepository reservations = new InMemoryReservationRepository(store);
+    memberManagement = new MemberManagementService(books, members, reservations, memberSearch);
+    queries =
+        new LibraryQueryService(
+            books, members, Optional.of(search), Optional.of(memberSearch), Optional.empty());
+  }
+
+  @Test
+  void findsSubstringsIgnoringCase() {
+    assertThat(search.titleContains("CODE")).containsExactly("b1");
+    assertThat(search.titleContains("d")).containsExactlyInAnyOrder("b1", "b2");
+    assertThat(search.titleContains("n-dr")).containsExactly("b2");
+    assertThat(search.titleContains("clean coder")).isEmpty();
+    assertThat(search.titleContains("xyz")).isEmpty();
+
+    management.createBook("b4", "Cr\u00e8me Br\u00fbl\u00e9e");
+    assertThat(search.titleContains("CREME BRU")).containsExactly("b4");
+    assertThat(search.titleContains("br\u00fbl\u00e9e")).containsExactly("b4");
+  }
+
+  @Test
+  void followsCreatesUpdatesAndDeletes() {
+    assertThat(search.titleContains("factor")).containsExactly("b3");
+
+    management.createBook("b4", "Working Effectively with Legacy Code");
+    management.updateBook("b3", "Refactoring, 2nd Edition");
+    management.deleteBook("b1");
+
+    assertThat(search.titleContains("code")).containsExactly("b4");
+    assertThat(search.titleContains("edition")).containsExactly("b3");
+    assertThat(search.stats().titles()).isEqualTo(3);
+  }
+
+  @Test
+  void compactsAfterManyRewrites() {
+    // Load first: writes reported before the load are left to it
+    assertThat(search.stats().titles()).isEqualTo(3);
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 1_000; i++) {
+        search.put("x" + i, "Generated title " + round + "-" + i);
+      }
+    }
+    assertThat(search.titleContains("title 4-999")).containsExactly("x999");
+    assertThat(search.titleContains("title 3-")).isEmpty();
+    BookSearch.Stats stats = search.stats();
+    assertThat(stats.titles()).isEqualTo(1_003);
+    // Stale postings are dropped once dead titles outnumber live ones
+    assertThat(stats.postings()).isLessThan(3L * 1_003 * 20);
+  }
+
+  @Test
+  void ranksTitlesByWordsFoldingCaseAndAccents() {
+    management.createBook("b4", "Design of Design");
+    management.createBook("b5", "Caf\u00e9 Design Notes");
+
+    assertThat(search.ranked("DESIGN", 10))
+        .extracting(BookSearch.Match::bookId)
+        .containsExactly("b4", "b2", "b5");
+    assertThat(search.ranked("cafe", 10))
+        .extracting(BookSearch.Match::bookId)
+        .containsExactly("b5");
+    assertThat(search.ranked("design cafe", 1))
+        .extracting(BookSearch.Match::bookId)
+        .containsExactly("b5");
+    // Words match whole, unlike titleContains
+    assertThat(search.ranked("refactor", 10)).isEmpty();
+
+    management.deleteBook("b5");
+    assertThat(search.ranked("cafe", 10)).isEmpty();
+    assertThat(queries.searchFullText("design", 2).stream().map(r -> r.book().getId()).toList())
+        .containsExactly("b4", "b2");
+  }
+
+  @Test
+  void topResultsMatchTheFullRanking() {
+    assertThat(search.stats().titles()).isEqualTo(3);
+    String[] words = {"red", "blue", "green", "tale", "night", "sea", "stone", "wind"};
+    SplittableRandom random = new SplittableRandom(7);
+    for (int i = 0; i < 5_000; i++) {
+      StringBuilder title = new StringBuilder();
+      for (int w = 1 + random.nextInt(6); w > 0; w--) {
+        title.append(words[random.nextInt(i < 100 ? 3 : words.length)]).append(' ');
+      }
+      search.put("r" + (i % 3_000), title.toString());
+    }
+    for (String query : List.of("red", "red sea", "blue green tale", "wind stone night sea red")) {
+      List<BookSearch.Match> all = search.ranked(query, 10_000);
+      // Pruned top-k agrees with the unpruned ranking
+      assertThat(search.ranked(query, 10)).isEqualTo(all.subList(0, 10));
+      for (int i = 1; i < all.size(); i++) {
+        assertThat(all.get(i).score()).isLessThanOrEqualTo(all.get(i - 1).score());
+      }
+    }
+  }
+
+  @Test
+  void toleratesTyposInTitleWords() {
+    management.createBook("b4", "The Pragmatic Programmer");
+
+    assertThat(search.titleWordsLike("refactorng", 1)).containsExactly("b3");
+    assertThat(search.titleWordsLike("pragmatc programer", 1)).containsExactly("b4");
+    // Every word must match; short words allow fewer edits
+    assertThat(search.titleWordsLike("pragmatc refactorng", 2)).isEmpty();
+    assertThat(search.titleWordsLike("cdoe", 2)).isEmpty();
+    assertThat(search.titleWordsLike("cide", 2)).containsExactly("b1");
+    assertThat(search.titleWordsLike("cleen", 2)).containsExactly("b1");
+
+    books.loanIfEligible("b4", "m1", LocalDate.of(2025, 6, 1), 5);
+    assertThat(queries.searchBooks("pragmatik", true, null, 2)).isEmpty();
+    assertThat(queries.searchBooks("pragmatik", null, "m1", 2))
+        .extracting(Book::getId)
+        .containsExactly("b4");
+  }
+
+  @Test
+  void autocompletesTitlesAndMemberNames() {
+    management.createBook("b4", "The Pragmatic Programmer");
+    memberManagement.createMember("m2", "Kristjan \u00d5unap");
+
+    // Both words match "pr"; each book is suggested once
+    assertThat(queries.autocompleteBooks("pr", 10))
+        .containsExactly(new Suggestion("b4", "The Pragmatic Programmer"));
+    assertThat(ids(queries.autocompleteBooks("  DOMAIN-dr", 10))).containsExactly("b2");
+    assertThat(ids(queries.autocompleteBooks("code", 10))).containsExactly("b1");
+    assertThat(queries.autocompleteBooks("ode", 10)).isEmpty();
+    assertThat(ids(queries.autocompleteMembers("k", 10))).containsExactly("m1", "m2");
+    assertThat(ids(queries.autocompleteMembers("ou", 10))).containsExactly("m2");
+
+    memberManagement.updateMember("m1", "Mari");
+    memberManagement.deleteMember("m2");
+    assertThat(queries.autocompleteMembers("k", 10)).isEmpty();
+    assertThat(queries.autocompleteMembers("ma", 10)).containsExactly(new Suggestion("m1", "Mari"));
+  }
+
+  @Test
+  void queryServiceCombinesTheIndexWithAvailability() {
+    books.loanIfEligible("b2", "m1", LocalDate.of(2025, 6, 1), 5);
+
+    assertThat(queries.searchBooks("de", null, null))
+        .extracting(Book::getId)
+        .containsExactlyInAnyOrder("b1", "b2");
+    assertThat(queries.searchBooks("de", true, null)).extracting(Book::getId).containsExactly("b1");
+    assertThat(queries.searchBooks("de", false, null))
+        .extracting(Book::getId)
+        .containsExactly("b2");
+  }
+
+  @Test
+  void withoutTheIndexTitleSearchesQueryTheRepository() {
+    LibraryQueryService unindexed =
+        new LibraryQueryService(
+            books, members, Optional.empty(), Optional.empty(), Optional.empty());
+
+    // No typo tolerance: the title must contain the text
+    assertThat(unindexed.searchBooks("refactor", null, null, 1))
+        .extracting(Book::getId)
+        .containsExactly("b3");
+    assertThat(unindexed.searchBooks("refactr", null, null, 1)).isEmpty();
+    // Unranked: titles containing the query, each scored 0
+    List<RankedBook> ranked = unindexed.searchFullText(" clean code ", 5);
+    assertThat(ranked.stream().map(r -> r.book().getId()).toList()).containsExactly("b1");
+    assertThat(ranked).extracting(RankedBook::score).containsExactly(0.0);
+  }
+
+  @Test
+  void writesDuringTheLoadWin() {
+    Map<String, String> stored = new HashMap<>(Map.of("a", "Old Title", "b", "Deleted Title"));
+    BookSearch[] holder = new BookSearch[1];
+    holder[0] =
+        new BookSearch(
+            () -> {
+              // Reported while the load runs, after the rows below were read
+              Map<String, String> read = new HashMap<>(stored);
+              holder[0].put("a", "New Title");
+              holder[0].remove("b");
+              return read;
+            });
+
+    assertThat(holder[0].titleContains("title")).containsExactly("a");
+    assertThat(holder[0].titleContains("new")).containsExactly("a");
+  }
+
+  private static List<String> ids(List<Suggestion> suggestions) {
+    return suggestions.stream().map(Suggestion::id).toList();
+  }
+}
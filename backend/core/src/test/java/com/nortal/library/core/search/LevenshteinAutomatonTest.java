@@ -0,0 +1,71 @@
+package com.nortal.library.core.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class LevenshteinAutomatonTest {
+
+  @Test
+  void intersectionFindsExactlyTheTermsWithinTheDistance() {
+    SplittableRandom random = new SplittableRandom(11);
+    TreeSet<String> dictionary = new TreeSet<>();
+    while (dictionary.size() < 5_000) {
+      dictionary.add(randomWord(random));
+    }
+    for (int i = 0; i < 50; i++) {
+      String word = randomWord(random);
+      for (int maxEdits = 0; maxEdits <= 2; maxEdits++) {
+        int edits = maxEdits;
+        List<String> expected =
+            dictionary.stream().filter(term -> distance(word, term) <= edits).toList();
+        assertThat(new LevenshteinAutomaton(word, maxEdits).intersect(dictionary))
+            .isEqualTo(expected);
+      }
+    }
+  }
+
+  @Test
+  void acceptsInsertionsDeletionsAndSubstitutions() {
+    TreeSet<String> dictionary =
+        new TreeSet<>(List.of("pragmatic", "programmer", "refactoring", "refactor", "reflecting"));
+
+    assertThat(new LevenshteinAutomaton("refactorng", 1).intersect(dictionary))
+        .containsExactly("refactoring");
+    assertThat(new LevenshteinAutomaton("refactorng", 2).intersect(dictionary))
+        .containsExactly("refactor", "refactoring");
+    assertThat(new LevenshteinAutomaton("pragmatc", 1).intersect(dictionary))
+        .containsExactly("pragmatic");
+    assertThat(new LevenshteinAutomaton("programer", 0).intersect(dictionary)).isEmpty();
+  }
+
+  /** Short words over a small alphabet, so that many pairs are within two edits. */
+  private static String randomWord(SplittableRandom random) {
+    char[] word = new char[1 + random.nextInt(7)];
+    for (int i = 0; i < word.length; i++) {
+      word[i] = (char) ('a' + random.nextInt(4));
+    }
+    return new String(word);
+  }
+
+  private static int distance(String a, String b) {
+    int[] row = new int[b.length() + 1];
+    for (int j = 0; j <= b.length(); j++) {
+      row[j] = j;
+    }
+    for (int i = 1; i <= a.length(); i++) {
+      int diagonal = row[0];
+      row[0] = i;
+      for (int j = 1; j <= b.length(); j++) {
+        int above = row[j];
+        int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        row[j] = Math.min(Math.min(row[j - 1], above) + 1, diagonal + cost);
+        diagonal = above;
+      }
+    }
+    return row[b.length()];
+  }
+}
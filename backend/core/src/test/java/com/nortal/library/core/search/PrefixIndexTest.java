@@ -0,0 +1,88 @@
+package com.nortal.library.core.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class PrefixIndexTest {
+  private static final String[] WORDS = {"red", "reed", "read", "blue", "blues", "sea", "stone"};
+
+  @Test
+  void matchesWordStartsInKeyOrder() {
+    PrefixIndex index = new PrefixIndex();
+    index.put("a", "Stone Sea", "stone sea");
+    index.put("b", "Red Stone", "red stone");
+    index.seal();
+    index.put("c", "Sea-stone", "sea-stone");
+
+    assertThat(ids(index.startingWith("sto", 10))).containsExactly("b", "c", "a");
+    assertThat(ids(index.startingWith("sea", 10))).containsExactly("a", "c");
+    assertThat(ids(index.startingWith("red st", 10))).containsExactly("b");
+    assertThat(ids(index.startingWith("tone", 10))).isEmpty();
+    assertThat(ids(index.startingWith("s", 1))).containsExactly("a");
+    assertThat(index.startingWith("stone sea", 10))
+        .containsExactly(new Suggestion("a", "Stone Sea"));
+  }
+
+  @Test
+  void agreesWithAScanAcrossMergesAndCompactions() {
+    PrefixIndex index = new PrefixIndex();
+    Map<String, String> keys = new HashMap<>();
+    SplittableRandom random = new SplittableRandom(11);
+    for (int i = 0; i < 2_000; i++) {
+      put(index, keys, "t" + i, text(random));
+    }
+    index.seal();
+    for (int i = 0; i < 20_000; i++) {
+      String id = "t" + random.nextInt(3_000);
+      if (random.nextInt(5) == 0) {
+        index.remove(id);
+        keys.remove(id);
+      } else {
+        put(index, keys, id, text(random));
+      }
+    }
+    assertThat(index.size()).isEqualTo(keys.size());
+    for (String prefix : List.of("r", "re", "rea", "blue", "blues s", "sea red", "x")) {
+      List<String> expected = new ArrayList<>();
+      for (Map.Entry<String, String> entry : keys.entrySet()) {
+        if (hasWordStartingWith(entry.getValue(), prefix)) {
+          expected.add(entry.getKey());
+        }
+      }
+      assertThat(ids(index.startingWith(prefix, Integer.MAX_VALUE)))
+          .containsExactlyInAnyOrderElementsOf(expected);
+    }
+  }
+
+  private static void put(PrefixIndex index, Map<String, String> keys, String id, String key) {
+    index.put(id, key, key);
+    keys.put(id, key);
+  }
+
+  private static String text(SplittableRandom random) {
+    StringBuilder text = new StringBuilder();
+    for (int w = 1 + random.nextInt(4); w > 0; w--) {
+      text.append(WORDS[random.nextInt(WORDS.length)]).append(w > 1 ? " " : "");
+    }
+    return text.toString();
+  }
+
+  private static boolean hasWordStartingWith(String key, String prefix) {
+    for (int i = 0; i < key.length(); i++) {
+      if ((i == 0 || key.charAt(i - 1) == ' ') && key.startsWith(prefix, i)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static List<String> ids(List<Suggestion> suggestions) {
+    return suggestions.stream().map(Suggestion::id).toList();
+  }
+}
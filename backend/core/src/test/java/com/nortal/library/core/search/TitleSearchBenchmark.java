@@ -0,0 +1,141 @@
+package com.nortal.library.core.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.memory.InMemoryBookRepository;
+import com.nortal.library.core.memory.InMemoryMemberRepository;
+import com.nortal.library.core.memory.InMemoryStore;
+import com.nortal.library.core.service.LibraryQueryService;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Compares {@link LibraryQueryService#searchBooks} by title with and without a {@link BookSearch}
+ * index, and times ranked searches, over catalogs of 10k, 100k and 1M synthetic titles.
+ *
+ * <p>Titles are three to six words from a fixed vocabulary plus a number, so common words match
+ * many books and rare fragments match few. Reported figures are microseconds and bytes allocated
+ * per query after a warm-up phase. Run with {@code ./gradlew :core:benchmark}.
+ */
+@EnabledIfSystemProperty(named = "library.benchmark", matches = "true")
+class TitleSearchBenchmark {
+  private static final int[] CATALOG_SIZES = {10_000, 100_000, 1_000_000};
+  private static final Duration WARM_UP = Duration.ofMillis(500);
+  private static final Duration MEASURE = Duration.ofSeconds(1);
+  private static final String[] WORDS = {
+    "river", "shadow", "garden", "winter", "empire", "silent", "harbor", "glass", "northern",
+    "kingdom", "letters", "forest", "machine", "stone", "summer", "secret", "island", "night",
+    "history", "ocean", "broken", "paper", "golden", "journey", "city", "memory", "storm", "light"
+  };
+  private static final String[] QUERIES = {"garden", "silent harbor", "ry of", "77", "zebra"};
+  private static final String[] RANKED_QUERIES = {
+    "garden", "silent harbor", "winter of broken glass", "the golden city of northern lights"
+  };
+  private static final int RANKED_LIMIT = 20;
+
+  @Test
+  void titleSearch() {
+    System.out.printf("%nTitle search, us/query and bytes/query (scan -> index)%n");
+    System.out.printf("%-10s %-15s %10s %22s %26s%n", "titles", "query", "matches", "us", "bytes");
+
+    for (int size : CATALOG_SIZES) {
+      InMemoryStore store = new InMemoryStore();
+      InMemoryBookRepository books = catalog(store, size);
+      InMemoryMemberRepository members = new InMemoryMemberRepository(store);
+      LibraryQueryService scan =
+          new LibraryQueryService(
+              books, members, Optional.empty(), Optional.empty(), Optional.empty());
+      BookSearch index = BookSearch.over(books);
+      LibraryQueryService indexed =
+          new LibraryQueryService(
+              books, members, Optional.of(index), Optional.empty(), Optional.empty());
+      index.stats();
+
+      for (String query : QUERIES) {
+        int matches = scan.searchBooks(query, null, null).size();
+        assertThat(indexed.searchBooks(query, null, null)).hasSize(matches);
+        Result scanned = measure(() -> scan.searchBooks(query, null, null));
+        Result looked = measure(() -> indexed.searchBooks(query, null, null));
+        System.out.printf(
+            "%-10d %-15s %10d %22s %26s%n",
+            size,
+            "\"" + query + "\"",
+            matches,
+            String.format("%.1f -> %.1f", scanned.micros, looked.micros),
+            String.format("%,d -> %,d", scanned.bytes, looked.bytes));
+      }
+      BookSearch.Stats stats = index.stats();
+      System.out.printf(
+          "%-10d index: %,d trigrams, %,d postings, loaded in %d ms%n",
+          size, stats.trigrams(), stats.postings(), stats.loadMillis());
+    }
+  }
+
+  @Test
+  void rankedSearch() {
+    System.out.printf("%nRanked title search, top %d by BM25%n", RANKED_LIMIT);
+    System.out.printf("%-10s %-40s %10s %12s%n", "titles", "query", "us", "bytes");
+
+    for (int size : CATALOG_SIZES) {
+      BookSearch index = BookSearch.over(catalog(new InMemoryStore(), size));
+      for (String query : RANKED_QUERIES) {
+        assertThat(index.ranked(query, RANKED_LIMIT)).hasSize(RANKED_LIMIT);
+        Result result = measure(() -> index.ranked(query, RANKED_LIMIT));
+        System.out.printf(
+            "%-10d %-40s %10.1f %,12d%n", size, "\"" + query + "\"", result.micros, result.bytes);
+      }
+      System.out.printf("%-10d index: %,d words%n", size, index.stats().words());
+    }
+  }
+
+  private static InMemoryBookRepository catalog(InMemoryStore store, int size) {
+    InMemoryBookRepository books = new InMemoryBookRepository(store);
+    SplittableRandom random = new SplittableRandom(size);
+    for (int i = 0; i < size; i++) {
+      books.save(new Book("b" + i, title(random, i)));
+    }
+    return books;
+  }
+
+  private static String title(SplittableRandom random, int number) {
+    StringBuilder title = new StringBuilder();
+    int words = 3 + random.nextInt(4);
+    for (int w = 0; w < words; w++) {
+      String word = WORDS[random.nextInt(WORDS.length)];
+      title.append(w == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+      title.append(w == 1 ? " of " : " ");
+    }
+    return title.append(number).toString();
+  }
+
+  private record Result(double micros, long bytes) {}
+
+  private static Result measure(Runnable query) {
+    run(query, WARM_UP);
+    return run(query, MEASURE);
+  }
+
+  /** Runs the query until the duration elapses; returns time and allocation per query. */
+  private static Result run(Runnable query, Duration duration) {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    long queries = 0;
+    long allocated = threads.getThreadAllocatedBytes(thread);
+    long start = System.nanoTime();
+    long deadline = start + duration.toNanos();
+    long now;
+    do {
+      query.run();
+      queries++;
+      now = System.nanoTime();
+    } while (now < deadline);
+    long bytes = threads.getThreadAllocatedBytes(thread) - allocated;
+    return new Result((now - start) / 1e3 / queries, bytes / queries);
+  }
+}
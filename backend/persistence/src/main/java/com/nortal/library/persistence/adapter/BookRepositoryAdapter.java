@@ -1,40 +1,162 @@
 package com.nortal.library.persistence.adapter;
 
+import com.nortal.library.core.BookQuery;
+import com.nortal.library.core.DueDateCursor;
 import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.domain.Reservation;
+import com.nortal.library.core.domain.ReservationQueue;
 import com.nortal.library.core.port.BookRepository;
+import com.nortal.library.core.port.ConcurrentUpdateException;
+import com.nortal.library.persistence.jpa.BookSpecifications;
 import com.nortal.library.persistence.jpa.JpaBookRepository;
+import com.nortal.library.persistence.jpa.JpaReservationRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.OptimisticLockException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuery;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Book adapter that also owns persistence of each book's reservation queue.
+ *
+ * <p>Queues are stored as one {@link Reservation} row per waiting member. Reads attach the queues
+ * of all returned books with one query per batch of books (never one per book). Saves write only
+ * the queue's pending changes, so an enqueue is a single-row insert and a dequeue or cancel a
+ * single-row delete.
+ */
 @Repository
+@Profile("!inmemory")
 public class BookRepositoryAdapter implements BookRepository {
 
+  /** Maximum number of book IDs bound into one {@code IN} list when loading books or queues. */
+  private static final int IN_LIST_BATCH = 500;
+
   private final JpaBookRepository jpaRepository;
+  private final JpaReservationRepository reservationRepository;
+  private final EntityManager entityManager;
 
-  public BookRepositoryAdapter(JpaBookRepository jpaRepository) {
+  public BookRepositoryAdapter(
+      JpaBookRepository jpaRepository,
+      JpaReservationRepository reservationRepository,
+      EntityManager entityManager) {
     this.jpaRepository = jpaRepository;
+    this.reservationRepository = reservationRepository;
+    this.entityManager = entityManager;
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Optional<Book> findById(String id) {
-    return jpaRepository.findById(id);
+    Optional<Book> book = jpaRepository.findById(id);
+    book.ifPresent(
+        b ->
+            b.setReservationQueue(
+                ReservationQueue.restore(reservationRepository.findByBookIdOrderByIdAsc(id))));
+    return book;
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<Book> findAllById(Collection<String> ids) {
+    List<String> all = List.copyOf(ids);
+    List<Book> books = new ArrayList<>(all.size());
+    for (int from = 0; from < all.size(); from += IN_LIST_BATCH) {
+      int to = Math.min(from + IN_LIST_BATCH, all.size());
+      books.addAll(jpaRepository.findAllById(all.subList(from, to)));
+    }
+    return withQueues(books);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public List<Book> findAll() {
-    return jpaRepository.findAll();
+    return withQueues(jpaRepository.findAll());
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<Book> findPageAfter(String afterId, int limit) {
+    Limit max = Limit.of(limit);
+    return withQueues(
+        afterId == null
+            ? jpaRepository.findAllByOrderByIdAsc(max)
+            : jpaRepository.findByIdGreaterThanOrderByIdAsc(afterId, max));
   }
 
   @Override
+  @Transactional(readOnly = true)
+  public void scrollAll(Consumer<Book> action) {
+    List<Book> batch = new ArrayList<>(IN_LIST_BATCH);
+    try (Stream<Book> books = jpaRepository.streamAllOrderedById()) {
+      Iterator<Book> rows = books.iterator();
+      while (rows.hasNext()) {
+        batch.add(rows.next());
+        if (batch.size() == IN_LIST_BATCH) {
+          emit(batch, action);
+        }
+      }
+    }
+    emit(batch, action);
+  }
+
+  /**
+   * Attaches the batch's queues with one query, hands the books on and detaches them and their
+   * reservations, so the persistence context of a scroll never holds more than one batch.
+   */
+  private void emit(List<Book> batch, Consumer<Book> action) {
+    withQueues(batch).forEach(action);
+    for (Book book : batch) {
+      book.getReservationQueue().reservations().forEach(entityManager::detach);
+      entityManager.detach(book);
+    }
+    batch.clear();
+  }
+
+  @Override
+  @Transactional
   public Book save(Book book) {
-    return jpaRepository.save(book);
+    ReservationQueue queue = book.getReservationQueue();
+    boolean isNew = book.getVersion() == null;
+    try {
+      Book saved = jpaRepository.save(book);
+      if (!isNew && queue.hasPendingChanges()) {
+        // Reservation rows are not part of the book row, so bump the version explicitly: a queue
+        // change then conflicts with concurrent loan or queue changes exactly like a loan change.
+        entityManager.lock(saved, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+      }
+      jpaRepository.flush();
+      writeQueueChanges(saved.getId(), queue);
+      saved.setReservationQueue(queue);
+      return saved;
+    } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+      throw new ConcurrentUpdateException("Book " + book.getId() + " was modified concurrently", e);
+    }
   }
 
   @Override
+  @Transactional
   public void delete(Book book) {
-    jpaRepository.delete(book);
+    try {
+      reservationRepository.deleteByBookId(book.getId());
+      jpaRepository.delete(book);
+      jpaRepository.flush();
+    } catch (OptimisticLockingFailureException e) {
+      throw new ConcurrentUpdateException("Book " + book.getId() + " was modified concurrently", e);
+    }
   }
 
   @Override
@@ -50,18 +172,36 @@ public class BookRepositoryAdapter implements BookRepository {
   }
 
   @Override
+  @Transactional(readOnly = true)
   public List<Book> findByLoanedTo(String memberId) {
-    return jpaRepository.findByLoanedTo(memberId);
+    return withQueues(jpaRepository.findByLoanedTo(memberId));
   }
 
   @Override
+  @Transactional(readOnly = true)
   public List<Book> findByReservationQueueContaining(String memberId) {
-    return jpaRepository.findByReservationQueueContaining(memberId);
+    return withQueues(jpaRepository.findByReservationQueueContaining(memberId));
   }
 
   @Override
+  @Transactional(readOnly = true)
   public List<Book> findByDueDateBefore(LocalDate date) {
-    return jpaRepository.findByDueDateBefore(date);
+    return withQueues(jpaRepository.findByDueDateBefore(date));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<Book> findByDueDateRange(
+      LocalDate from, LocalDate until, DueDateCursor after, int limit) {
+    Limit max = Limit.of(limit);
+    // A cursor before the range (a page requested with a later start) does not narrow it
+    if (after != null && (from == null || !after.dueDate().isBefore(from))) {
+      return withQueues(jpaRepository.findDueAfter(until, after.dueDate(), after.bookId(), max));
+    }
+    return withQueues(
+        from == null
+            ? jpaRepository.findDueBefore(until, max)
+            : jpaRepository.findDueBetween(from, until, max));
   }
 
   @Override
@@ -70,12 +210,83 @@ public class BookRepositoryAdapter implements BookRepository {
   }
 
   @Override
-  public List<Book> findByTitleContainingIgnoreCase(String title) {
-    return jpaRepository.findByTitleContainingIgnoreCase(title);
+  @Transactional(readOnly = true)
+  public List<Book> findMatching(BookQuery query) {
+    if (query.ids() == null || query.ids().size() <= IN_LIST_BATCH) {
+      return withQueues(findMatching(query, query.ids()));
+    }
+    // Too many IDs for one IN list: each batch is filtered, ordered and limited by the database,
+    // and the batches are merged and cut to the limit here
+    List<String> ids = List.copyOf(query.ids());
+    List<Book> books = new ArrayList<>();
+    for (int from = 0; from < ids.size(); from += IN_LIST_BATCH) {
+      int to = Math.min(from + IN_LIST_BATCH, ids.size());
+      books.addAll(findMatching(query, ids.subList(from, to)));
+    }
+    books.sort(query.order().comparator());
+    return withQueues(new ArrayList<>(books.subList(0, Math.min(query.limit(), books.size()))));
+  }
+
+  private List<Book> findMatching(BookQuery query, Collection<String> ids) {
+    if (ids != null && ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+    return jpaRepository.findBy(
+        BookSpecifications.matching(query, ids),
+        q -> {
+          FetchableFluentQuery<Book> ordered = q.sortBy(BookSpecifications.sort(query.order()));
+          return query.limit() == Integer.MAX_VALUE
+              ? ordered.all()
+              : ordered.limit(query.limit()).all();
+        });
   }
 
   @Override
+  @Transactional(readOnly = true)
   public List<Book> findByLoanedToIsNull() {
-    return jpaRepository.findByLoanedToIsNull();
+    return withQueues(jpaRepository.findByLoanedToIsNull());
+  }
+
+  // Guarded write paths
+
+  @Override
+  public int loanIfEligible(String bookId, String memberId, LocalDate dueDate, long maxLoans) {
+    return jpaRepository.loanIfEligible(bookId, memberId, dueDate, maxLoans);
+  }
+
+  // Reservation queue persistence
+
+  /** Attaches reservation queues to the given books with one query per batch of books. */
+  private List<Book> withQueues(List<Book> books) {
+    Map<String, List<Reservation>> byBook = new HashMap<>();
+    for (int from = 0; from < books.size(); from += IN_LIST_BATCH) {
+      List<String> ids =
+          books.subList(from, Math.min(from + IN_LIST_BATCH, books.size())).stream()
+              .map(Book::getId)
+              .toList();
+      for (Reservation reservation : reservationRepository.findByBookIdInOrderByIdAsc(ids)) {
+        byBook.computeIfAbsent(reservation.getBookId(), k -> new ArrayList<>()).add(reservation);
+      }
+    }
+    for (Book book : books) {
+      book.setReservationQueue(
+          ReservationQueue.restore(byBook.getOrDefault(book.getId(), List.of())));
+    }
+    return books;
+  }
+
+  /** Writes the queue's pending inserts and deletes; untouched reservations are not written. */
+  private void writeQueueChanges(String bookId, ReservationQueue queue) {
+    if (!queue.hasPendingChanges()) {
+      return;
+    }
+    List<Long> removed = queue.pendingDeletes().stream().map(Reservation::getId).toList();
+    if (!removed.isEmpty()) {
+      reservationRepository.deleteAllByIdInBatch(removed);
+    }
+    List<Reservation> added = queue.pendingInserts();
+    added.forEach(reservation -> reservation.setBookId(bookId));
+    reservationRepository.saveAll(added);
+    queue.markPersisted();
   }
 }
@@ -1,19 +1,33 @@
 package com.nortal.library.persistence.adapter;
 
+import com.nortal.library.core.LoanEligibility;
+import com.nortal.library.core.MemberSummary;
 import com.nortal.library.core.domain.Member;
 import com.nortal.library.core.port.MemberRepository;
 import com.nortal.library.persistence.jpa.JpaMemberRepository;
+import jakarta.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
+@Profile("!inmemory")
 public class MemberRepositoryAdapter implements MemberRepository {
 
   private final JpaMemberRepository jpaRepository;
+  private final EntityManager entityManager;
 
-  public MemberRepositoryAdapter(JpaMemberRepository jpaRepository) {
+  public MemberRepositoryAdapter(JpaMemberRepository jpaRepository, EntityManager entityManager) {
     this.jpaRepository = jpaRepository;
+    this.entityManager = entityManager;
   }
 
   @Override
@@ -26,6 +40,27 @@ public class MemberRepositoryAdapter implements MemberRepository {
     return jpaRepository.findAll();
   }
 
+  @Override
+  public List<Member> findPageAfter(String afterId, int limit) {
+    Limit max = Limit.of(limit);
+    return afterId == null
+        ? jpaRepository.findAllByOrderByIdAsc(max)
+        : jpaRepository.findByIdGreaterThanOrderByIdAsc(afterId, max);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public void scrollAll(Consumer<Member> action) {
+    try (Stream<Member> members = jpaRepository.streamAllOrderedById()) {
+      // Detached once handed on, so the persistence context does not grow with the scroll
+      members.forEach(
+          member -> {
+            action.accept(member);
+            entityManager.detach(member);
+          });
+    }
+  }
+
   @Override
   public Member save(Member member) {
     return jpaRepository.save(member);
@@ -40,4 +75,54 @@ public class MemberRepositoryAdapter implements MemberRepository {
   public boolean existsById(String id) {
     return jpaRepository.existsById(id);
   }
+
+  @Override
+  public LoanEligibility findLoanEligibility(String memberId, String bookId) {
+    return jpaRepository
+        .findLoanEligibility(memberId, bookId)
+        .map(MemberRepositoryAdapter::toEligibility)
+        .orElse(LoanEligibility.UNKNOWN_MEMBER);
+  }
+
+  @Override
+  public Map<String, LoanEligibility> findLoanEligibilities(
+      Collection<String> memberIds, String bookId) {
+    if (memberIds.isEmpty()) {
+      return Map.of();
+    }
+    return jpaRepository.findLoanEligibilities(memberIds, bookId).stream()
+        .collect(
+            Collectors.toMap(
+                JpaMemberRepository.EligibilityView::getMemberId,
+                MemberRepositoryAdapter::toEligibility));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Optional<MemberSummary> findSummary(String memberId) {
+    List<JpaMemberRepository.SummaryLoanView> loanRows = jpaRepository.findSummaryLoans(memberId);
+    if (loanRows.isEmpty()) {
+      return Optional.empty();
+    }
+    List<MemberSummary.LoanLine> loans =
+        loanRows.stream()
+            .filter(row -> row.getBookId() != null)
+            .map(
+                row ->
+                    new MemberSummary.LoanLine(
+                        row.getBookId(), row.getTitle(), row.getDueDate()))
+            .toList();
+    List<MemberSummary.ReservationLine> reservations =
+        jpaRepository.findSummaryReservations(memberId).stream()
+            .map(
+                row ->
+                    new MemberSummary.ReservationLine(
+                        row.getBookId(), row.getTitle(), (int) row.getPosition()))
+            .toList();
+    return Optional.of(MemberSummary.found(loans, reservations));
+  }
+
+  private static LoanEligibility toEligibility(JpaMemberRepository.EligibilityView view) {
+    return new LoanEligibility(true, view.getActiveLoans(), view.getQueued() > 0);
+  }
 }
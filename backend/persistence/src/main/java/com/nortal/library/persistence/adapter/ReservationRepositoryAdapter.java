@@ -0,0 +1,31 @@
+package com.nortal.library.persistence.adapter;
+
+import com.nortal.library.core.ReservationPosition;
+import com.nortal.library.core.port.ReservationRepository;
+import com.nortal.library.persistence.jpa.JpaReservationRepository;
+import java.util.List;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@Profile("!inmemory")
+public class ReservationRepositoryAdapter implements ReservationRepository {
+
+  private final JpaReservationRepository jpaRepository;
+
+  public ReservationRepositoryAdapter(JpaReservationRepository jpaRepository) {
+    this.jpaRepository = jpaRepository;
+  }
+
+  @Override
+  public List<ReservationPosition> findPositionsByMemberId(String memberId) {
+    return jpaRepository.findPositionsByMemberId(memberId).stream()
+        .map(view -> new ReservationPosition(view.getBookId(), (int) view.getPosition()))
+        .toList();
+  }
+
+  @Override
+  public int deleteByMemberId(String memberId) {
+    return jpaRepository.deleteByMemberId(memberId);
+  }
+}
@@ -0,0 +1,116 @@
+package com.nortal.library.persistence.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size, thread-safe Bloom filter over string IDs.
+ *
+ * <p>Sized at construction for an expected number of IDs and a target false-positive probability.
+ * Bits are set with compare-and-set, so concurrent {@link #put} and {@link #mightContain} need no
+ * locking. IDs cannot be removed.
+ */
+final class BloomFilter {
+  private final AtomicLongArray words;
+  private final long bits;
+  private final int hashes;
+  private final long capacity;
+  private final LongAdder insertions = new LongAdder();
+
+  BloomFilter(long expectedIds, double falsePositiveProbability) {
+    long n = Math.max(1, expectedIds);
+    double ln2 = Math.log(2);
+    long wanted = (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (ln2 * ln2));
+    int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (wanted + 63) / 64));
+    this.words = new AtomicLongArray(wordCount);
+    this.bits = wordCount * 64L;
+    this.hashes = Math.max(1, (int) Math.round((double) bits / n * ln2));
+    this.capacity = n;
+  }
+
+  /**
+   * Adds an ID.
+   *
+   * @return whether any bit changed, i.e. the ID was definitely not present before
+   */
+  boolean put(String id) {
+    long h1 = hash(id);
+    long h2 = Long.rotateLeft(h1, 32) | 1;
+    boolean changed = false;
+    for (int i = 1; i <= hashes; i++) {
+      changed |= set(index(h1 + i * h2));
+    }
+    if (changed) {
+      insertions.increment();
+    }
+    return changed;
+  }
+
+  /** False means the ID was never {@link #put}; true means it probably was. */
+  boolean mightContain(String id) {
+    long h1 = hash(id);
+    long h2 = Long.rotateLeft(h1, 32) | 1;
+    for (int i = 1; i <= hashes; i++) {
+      long bit = index(h1 + i * h2);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Distinct IDs added so far (IDs that collided with earlier ones on every bit are missed). */
+  long insertions() {
+    return insertions.sum();
+  }
+
+  long capacity() {
+    return capacity;
+  }
+
+  long bits() {
+    return bits;
+  }
+
+  int hashes() {
+    return hashes;
+  }
+
+  /** Theoretical false-positive probability at the current number of insertions. */
+  double expectedFalsePositiveProbability() {
+    return Math.pow(1 - Math.exp(-hashes * (double) insertions() / bits), hashes);
+  }
+
+  /** Kirsch-Mitzenmacher double hashing: the i-th probe is {@code h1 + i * h2}. */
+  private long index(long combined) {
+    return (combined & Long.MAX_VALUE) % bits;
+  }
+
+  private boolean set(long bit) {
+    int word = (int) (bit >>> 6);
+    long mask = 1L << bit;
+    long current;
+    do {
+      current = words.get(word);
+      if ((current & mask) != 0) {
+        return false;
+      }
+    } while (!words.compareAndSet(word, current, current | mask));
+    return true;
+  }
+
+  /** 64-bit FNV-1a over the ID's chars, finished with the MurmurHash3 mixer. */
+  private static long hash(String id) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < id.length(); i++) {
+      h ^= id.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
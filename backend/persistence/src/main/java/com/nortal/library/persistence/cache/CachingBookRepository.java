@@ -0,0 +1,129 @@
+package com.nortal.library.persistence.cache;
+
+import com.nortal.library.core.BookQuery;
+import com.nortal.library.core.DueDateCursor;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.port.BookRepository;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache in front of a {@link BookRepository} for lookups by ID.
+ *
+ * <p>{@link #findById} is served from the cache; {@link #existsById} only consults it and falls
+ * back to the cheaper existence query on a miss. List and count queries always go to the delegate.
+ *
+ * <p>Every write to a book (save, delete, guarded loan) invalidates it after the delegate returns,
+ * including when the write fails: a rejected save usually means the cached version is stale, and
+ * retries must see the current row.
+ */
+public class CachingBookRepository implements BookRepository {
+  private final BookRepository delegate;
+  private final RepositoryCache<Book> cache;
+
+  public CachingBookRepository(BookRepository delegate, RepositoryCache<Book> cache) {
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  @Override
+  public Optional<Book> findById(String id) {
+    return cache.find(id, delegate::findById);
+  }
+
+  @Override
+  public List<Book> findAllById(Collection<String> ids) {
+    return delegate.findAllById(ids);
+  }
+
+  @Override
+  public List<Book> findAll() {
+    return delegate.findAll();
+  }
+
+  @Override
+  public List<Book> findPageAfter(String afterId, int limit) {
+    return delegate.findPageAfter(afterId, limit);
+  }
+
+  @Override
+  public void scrollAll(Consumer<Book> action) {
+    delegate.scrollAll(action);
+  }
+
+  @Override
+  public Book save(Book book) {
+    try {
+      return delegate.save(book);
+    } finally {
+      cache.invalidate(book.getId());
+    }
+  }
+
+  @Override
+  public void delete(Book book) {
+    try {
+      delegate.delete(book);
+    } finally {
+      cache.invalidate(book.getId());
+    }
+  }
+
+  @Override
+  public boolean existsById(String id) {
+    return cache.contains(id) || delegate.existsById(id);
+  }
+
+  @Override
+  public long countByLoanedTo(String memberId) {
+    return delegate.countByLoanedTo(memberId);
+  }
+
+  @Override
+  public List<Book> findByLoanedTo(String memberId) {
+    return delegate.findByLoanedTo(memberId);
+  }
+
+  @Override
+  public List<Book> findByReservationQueueContaining(String memberId) {
+    return delegate.findByReservationQueueContaining(memberId);
+  }
+
+  @Override
+  public List<Book> findByDueDateBefore(LocalDate date) {
+    return delegate.findByDueDateBefore(date);
+  }
+
+  @Override
+  public List<Book> findByDueDateRange(
+      LocalDate from, LocalDate until, DueDateCursor after, int limit) {
+    return delegate.findByDueDateRange(from, until, after, limit);
+  }
+
+  @Override
+  public boolean existsByLoanedTo(String memberId) {
+    return delegate.existsByLoanedTo(memberId);
+  }
+
+  @Override
+  public List<Book> findMatching(BookQuery query) {
+    return delegate.findMatching(query);
+  }
+
+  @Override
+  public List<Book> findByLoanedToIsNull() {
+    return delegate.findByLoanedToIsNull();
+  }
+
+  @Override
+  public int loanIfEligible(String bookId, String memberId, LocalDate dueDate, long maxLoans) {
+    int updated = delegate.loanIfEligible(bookId, memberId, dueDate, maxLoans);
+    if (updated > 0) {
+      cache.invalidate(bookId);
+    }
+    return updated;
+  }
+}
@@ -0,0 +1,87 @@
+package com.nortal.library.persistence.cache;
+
+import com.nortal.library.core.LoanEligibility;
+import com.nortal.library.core.MemberSummary;
+import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.port.MemberRepository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache in front of a {@link MemberRepository} for lookups by ID.
+ *
+ * <p>Existence checks, which several loan and query paths make per request, are answered from the
+ * cache once the member has been loaded. Eligibility reads include the member's live loan count and
+ * queue membership, so they go to the delegate. Saves and deletes invalidate the member.
+ */
+public class CachingMemberRepository implements MemberRepository {
+  private final MemberRepository delegate;
+  private final RepositoryCache<Member> cache;
+
+  public CachingMemberRepository(MemberRepository delegate, RepositoryCache<Member> cache) {
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  @Override
+  public Optional<Member> findById(String id) {
+    return cache.find(id, delegate::findById);
+  }
+
+  @Override
+  public List<Member> findAll() {
+    return delegate.findAll();
+  }
+
+  @Override
+  public List<Member> findPageAfter(String afterId, int limit) {
+    return delegate.findPageAfter(afterId, limit);
+  }
+
+  @Override
+  public void scrollAll(Consumer<Member> action) {
+    delegate.scrollAll(action);
+  }
+
+  @Override
+  public Member save(Member member) {
+    try {
+      return delegate.save(member);
+    } finally {
+      cache.invalidate(member.getId());
+    }
+  }
+
+  @Override
+  public void delete(Member member) {
+    try {
+      delegate.delete(member);
+    } finally {
+      cache.invalidate(member.getId());
+    }
+  }
+
+  @Override
+  public boolean existsById(String id) {
+    return cache.exists(id, delegate::findById);
+  }
+
+  @Override
+  public LoanEligibility findLoanEligibility(String memberId, String bookId) {
+    return delegate.findLoanEligibility(memberId, bookId);
+  }
+
+  @Override
+  public Map<String, LoanEligibility> findLoanEligibilities(
+      Collection<String> memberIds, String bookId) {
+    return delegate.findLoanEligibilities(memberIds, bookId);
+  }
+
+  @Override
+  public Optional<MemberSummary> findSummary(String memberId) {
+    return delegate.findSummary(memberId);
+  }
+}
@@ -0,0 +1,36 @@
+package com.nortal.library.persistence.cache;
+
+import com.nortal.library.core.ReservationPosition;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.port.ReservationRepository;
+import java.util.List;
+
+/**
+ * Keeps cached books consistent with reservation writes that bypass {@link CachingBookRepository}.
+ *
+ * <p>Removing a member from every queue deletes reservation rows without saving the books, so each
+ * cached book that still lists the member is dropped afterwards.
+ */
+public class CachingReservationRepository implements ReservationRepository {
+  private final ReservationRepository delegate;
+  private final RepositoryCache<Book> books;
+
+  public CachingReservationRepository(ReservationRepository delegate, RepositoryCache<Book> books) {
+    this.delegate = delegate;
+    this.books = books;
+  }
+
+  @Override
+  public List<ReservationPosition> findPositionsByMemberId(String memberId) {
+    return delegate.findPositionsByMemberId(memberId);
+  }
+
+  @Override
+  public int deleteByMemberId(String memberId) {
+    try {
+      return delegate.deleteByMemberId(memberId);
+    } finally {
+      books.invalidateIf(book -> book.getReservationQueue().contains(memberId));
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package com.nortal.library.persistence.cache;
+
+import com.nortal.library.core.BookQuery;
+import com.nortal.library.core.DueDateCursor;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.port.BookRepository;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Screens lookups by ID through an {@link IdFilter} before they reach a {@link BookRepository}.
+ *
+ * <p>IDs the filter knows to be absent are answered without touching the delegate; a lookup that
+ * passes the filter but finds nothing is remembered in its negative cache. Saves are reported to
+ * the filter so that new books are never hidden. Every other query goes to the delegate.
+ */
+public class FilteringBookRepository implements BookRepository {
+  private final BookRepository delegate;
+  private final IdFilter ids;
+
+  public FilteringBookRepository(BookRepository delegate, IdFilter ids) {
+    this.delegate = delegate;
+    this.ids = ids;
+  }
+
+  @Override
+  public Optional<Book> findById(String id) {
+    if (!ids.mightExist(id)) {
+      return Optional.empty();
+    }
+    long token = ids.lookupToken();
+    Optional<Book> book = delegate.findById(id);
+    if (book.isEmpty()) {
+      ids.recordAbsent(id, token);
+    }
+    return book;
+  }
+
+  @Override
+  public List<Book> findAllById(Collection<String> ids) {
+    return delegate.findAllById(ids);
+  }
+
+  @Override
+  public List<Book> findAll() {
+    return delegate.findAll();
+  }
+
+  @Override
+  public List<Book> findPageAfter(String afterId, int limit) {
+    return delegate.findPageAfter(afterId, limit);
+  }
+
+  @Override
+  public void scrollAll(Consumer<Book> action) {
+    delegate.scrollAll(action);
+  }
+
+  @Override
+  public Book save(Book book) {
+    ids.beforeWrite(book.getId());
+    Book saved = delegate.save(book);
+    ids.afterWrite(book.getId());
+    return saved;
+  }
+
+  @Override
+  public void delete(Book book) {
+    delegate.delete(book);
+  }
+
+  @Override
+  public boolean existsById(String id) {
+    if (!ids.mightExist(id)) {
+      return false;
+    }
+    long token = ids.lookupToken();
+    boolean exists = delegate.existsById(id);
+    if (!exists) {
+      ids.recordAbsent(id, token);
+    }
+    return exists;
+  }
+
+  @Override
+  public long countByLoanedTo(String memberId) {
+    return delegate.countByLoanedTo(memberId);
+  }
+
+  @Override
+  public List<Book> findByLoanedTo(String memberId) {
+    return delegate.findByLoanedTo(memberId);
+  }
+
+  @Override
+  public List<Book> findByReservationQueueContaining(String memberId) {
+    return delegate.findByReservationQueueContaining(memberId);
+  }
+
+  @Override
+  public List<Book> findByDueDateBefore(LocalDate date) {
+    return delegate.findByDueDateBefore(date);
+  }
+
+  @Override
+  public List<Book> findByDueDateRange(
+      LocalDate from, LocalDate until, DueDateCursor after, int limit) {
+    return delegate.findByDueDateRange(from, until, after, limit);
+  }
+
+  @Override
+  public boolean existsByLoanedTo(String memberId) {
+    return delegate.existsByLoanedTo(memberId);
+  }
+
+  @Override
+  public List<Book> findMatching(BookQuery query) {
+    return delegate.findMatching(query);
+  }
+
+  @Override
+  public List<Book> findByLoanedToIsNull() {
+    return delegate.findByLoanedToIsNull();
+  }
+
+  @Override
+  public int loanIfEligible(String bookId, String memberId, LocalDate dueDate, long maxLoans) {
+    return delegate.loanIfEligible(bookId, memberId, dueDate, maxLoans);
+  }
+}
@@ -0,0 +1,119 @@
+package com.nortal.library.persistence.cache;
+
+import com.nortal.library.core.LoanEligibility;
+import com.nortal.library.core.MemberSummary;
+import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.port.MemberRepository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Screens lookups by member ID through an {@link IdFilter} before they reach a {@link
+ * MemberRepository}.
+ *
+ * <p>Besides finds and existence checks, eligibility reads and summaries of members the filter
+ * knows to be absent are answered without a query, as are the unknown IDs in a batch eligibility
+ * read. Saves are reported to the filter so that new members are never hidden.
+ */
+public class FilteringMemberRepository implements MemberRepository {
+  private final MemberRepository delegate;
+  private final IdFilter ids;
+
+  public FilteringMemberRepository(MemberRepository delegate, IdFilter ids) {
+    this.delegate = delegate;
+    this.ids = ids;
+  }
+
+  @Override
+  public Optional<Member> findById(String id) {
+    if (!ids.mightExist(id)) {
+      return Optional.empty();
+    }
+    long token = ids.lookupToken();
+    Optional<Member> member = delegate.findById(id);
+    if (member.isEmpty()) {
+      ids.recordAbsent(id, token);
+    }
+    return member;
+  }
+
+  @Override
+  public List<Member> findAll() {
+    return delegate.findAll();
+  }
+
+  @Override
+  public List<Member> findPageAfter(String afterId, int limit) {
+    return delegate.findPageAfter(afterId, limit);
+  }
+
+  @Override
+  public void scrollAll(Consumer<Member> action) {
+    delegate.scrollAll(action);
+  }
+
+  @Override
+  public Member save(Member member) {
+    ids.beforeWrite(member.getId());
+    Member saved = delegate.save(member);
+    ids.afterWrite(member.getId());
+    return saved;
+  }
+
+  @Override
+  public void delete(Member member) {
+    delegate.delete(member);
+  }
+
+  @Override
+  public boolean existsById(String id) {
+    if (!ids.mightExist(id)) {
+      return false;
+    }
+    long token = ids.lookupToken();
+    boolean exists = delegate.existsById(id);
+    if (!exists) {
+      ids.recordAbsent(id, token);
+    }
+    return exists;
+  }
+
+  @Override
+  public LoanEligibility findLoanEligibility(String memberId, String bookId) {
+    if (!ids.mightExist(memberId)) {
+      return LoanEligibility.UNKNOWN_MEMBER;
+    }
+    long token = ids.lookupToken();
+    LoanEligibility eligibility = delegate.findLoanEligibility(memberId, bookId);
+    if (!eligibility.memberExists()) {
+      ids.recordAbsent(memberId, token);
+    }
+    return eligibility;
+  }
+
+  @Override
+  public Map<String, LoanEligibility> findLoanEligibilities(
+      Collection<String> memberIds, String bookId) {
+    List<String> candidates = memberIds.stream().filter(ids::mightExist).toList();
+    if (candidates.isEmpty()) {
+      return Map.of();
+    }
+    return delegate.findLoanEligibilities(candidates, bookId);
+  }
+
+  @Override
+  public Optional<MemberSummary> findSummary(String memberId) {
+    if (!ids.mightExist(memberId)) {
+      return Optional.empty();
+    }
+    long token = ids.lookupToken();
+    Optional<MemberSummary> summary = delegate.findSummary(memberId);
+    if (summary.isEmpty()) {
+      ids.recordAbsent(memberId, token);
+    }
+    return summary;
+  }
+}
@@ -0,0 +1,240 @@
+package com.nortal.library.persistence.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Answers "does this ID exist?" without I/O when the answer is no.
+ *
+ * <p>A {@link BloomFilter} over every stored ID rejects IDs that were never created. IDs that pass
+ * it but turn out to be missing (false positives and deleted IDs) are remembered in a small,
+ * short-lived negative cache, so repeating an unknown ID costs at most one database lookup per
+ * expiry.
+ *
+ * <p>The filter is built from {@code allIds} on first use and rebuilt in the background once the
+ * IDs added since exceed its capacity, which also drops deleted IDs. Writers call {@link
+ * #beforeWrite} before creating a row and {@link #afterWrite} once it is committed: the first keeps
+ * the ID visible to readers of the current filter, the second reaches a filter being rebuilt from a
+ * read that may have missed the uncommitted row.
+ */
+public final class IdFilter {
+  private final String name;
+  private final Supplier<Collection<String>> allIds;
+  private final long minCapacity;
+  private final double falsePositiveProbability;
+  private final Cache<String, Boolean> absent;
+
+  private volatile BloomFilter current;
+  private volatile BloomFilter building;
+  private final AtomicBoolean rebuilding = new AtomicBoolean();
+  private final AtomicLong writes = new AtomicLong();
+
+  private final LongAdder checks = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder negativeHits = new LongAdder();
+  private final LongAdder falsePositives = new LongAdder();
+  private final AtomicLong rebuilds = new AtomicLong();
+  private volatile long lastBuildMillis;
+
+  /**
+   * @param allIds reads every stored ID; called on first use and on each rebuild
+   * @param minCapacity IDs the filter is sized for at least; a build sizes it for twice the IDs
+   *     found when that is more
+   * @param negativeCacheSize unknown IDs remembered after a database miss
+   * @param negativeTtl how long a remembered unknown ID is trusted
+   */
+  public IdFilter(
+      String name,
+      Supplier<Collection<String>> allIds,
+      long minCapacity,
+      double falsePositiveProbability,
+      long negativeCacheSize,
+      Duration negativeTtl) {
+    if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+      throw new IllegalArgumentException("False-positive probability must be in (0, 1)");
+    }
+    this.name = name;
+    this.allIds = allIds;
+    this.minCapacity = minCapacity;
+    this.falsePositiveProbability = falsePositiveProbability;
+    this.absent =
+        Caffeine.newBuilder().maximumSize(negativeCacheSize).expireAfterWrite(negativeTtl).build();
+  }
+
+  /** False if the ID definitely does not exist; true if a lookup is needed. */
+  boolean mightExist(String id) {
+    checks.increment();
+    if (!filter().mightContain(id)) {
+      rejected.increment();
+      return false;
+    }
+    if (absent.getIfPresent(id) != null) {
+      negativeHits.increment();
+      return false;
+    }
+    return true;
+  }
+
+  /** Taken before a lookup whose miss is then passed to {@link #recordAbsent}. */
+  long lookupToken() {
+    return writes.get();
+  }
+
+  /** Remembers an ID that passed the filter but was not found, unless a write raced the lookup. */
+  void recordAbsent(String id, long token) {
+    falsePositives.increment();
+    absent.put(id, Boolean.TRUE);
+    if (writes.get() != token) {
+      // A row may have been created after the lookup read; do not hide it
+      absent.invalidate(id);
+    }
+  }
+
+  void beforeWrite(String id) {
+    BloomFilter filter = current;
+    if (filter != null) {
+      filter.put(id);
+    }
+  }
+
+  void afterWrite(String id) {
+    writes.incrementAndGet();
+    absent.invalidate(id);
+    // Building before current: a rebuild publishes current before it clears building
+    BloomFilter next = building;
+    if (next != null) {
+      next.put(id);
+    }
+    BloomFilter filter = current;
+    if (filter != null) {
+      filter.put(id);
+      if (filter.insertions() > filter.capacity()) {
+        rebuildInBackground();
+      }
+    }
+  }
+
+  private BloomFilter filter() {
+    BloomFilter filter = current;
+    if (filter == null) {
+      synchronized (this) {
+        filter = current;
+        if (filter == null) {
+          rebuild();
+          filter = current;
+        }
+      }
+    }
+    return filter;
+  }
+
+  private void rebuildInBackground() {
+    if (rebuilding.compareAndSet(false, true)) {
+      CompletableFuture.runAsync(
+          () -> {
+            try {
+              synchronized (this) {
+                rebuild();
+              }
+            } finally {
+              rebuilding.set(false);
+            }
+            // IDs created while the rebuild read may already have filled the new filter
+            BloomFilter filter = current;
+            if (filter.insertions() > filter.capacity()) {
+              rebuildInBackground();
+            }
+          });
+    }
+  }
+
+  /**
+   * Rebuilds from the stored IDs; callers hold the monitor. The new filter is published as {@code
+   * building} before the IDs are read, so IDs committed during the read still reach it.
+   */
+  private void rebuild() {
+    long started = System.nanoTime();
+    BloomFilter previous = current;
+    long estimate = previous == null ? 0 : previous.insertions();
+    try {
+      BloomFilter next;
+      Collection<String> ids;
+      do {
+        // Room for the IDs found plus as many again before the next rebuild
+        next = new BloomFilter(Math.max(minCapacity, 2 * estimate), falsePositiveProbability);
+        building = next;
+        ids = allIds.get();
+        estimate = ids.size();
+      } while (2 * estimate > next.capacity());
+      ids.forEach(next::put);
+      current = next;
+    } finally {
+      building = null;
+    }
+    rebuilds.incrementAndGet();
+    lastBuildMillis = (System.nanoTime() - started) / 1_000_000;
+  }
+
+  public Stats stats() {
+    BloomFilter filter = current;
+    long passedButAbsent = negativeHits.sum() + falsePositives.sum();
+    long unknown = rejected.sum() + passedButAbsent;
+    return new Stats(
+        name,
+        filter == null ? 0 : filter.insertions(),
+        filter == null ? 0 : filter.capacity(),
+        filter == null ? 0 : filter.bits(),
+        filter == null ? 0 : filter.hashes(),
+        filter == null ? 0 : filter.bits() / 8,
+        absent.estimatedSize(),
+        checks.sum(),
+        rejected.sum(),
+        negativeHits.sum(),
+        falsePositives.sum(),
+        falsePositiveProbability,
+        filter == null ? 0 : filter.expectedFalsePositiveProbability(),
+        unknown == 0 ? 0 : (double) passedButAbsent / unknown,
+        rebuilds.get(),
+        lastBuildMillis);
+  }
+
+  /**
+   * Counters since startup.
+   *
+   * @param ids distinct IDs in the filter, including deleted ones until the next rebuild
+   * @param capacity IDs the filter was sized for; exceeding it triggers a rebuild
+   * @param filterBytes memory held by the filter's bit array
+   * @param negativeEntries unknown IDs currently remembered by the negative cache
+   * @param checks existence checks answered or screened by the filter
+   * @param rejected checks the filter answered with "definitely absent"
+   * @param negativeHits checks answered by the negative cache
+   * @param databaseMisses checks that passed both and found nothing in the database
+   * @param expectedFalsePositiveRate false-positive probability for the current number of IDs
+   * @param observedFalsePositiveRate share of unknown IDs that the filter let through (deleted IDs
+   *     count as false positives until the next rebuild)
+   */
+  public record Stats(
+      String name,
+      long ids,
+      long capacity,
+      long bits,
+      int hashes,
+      long filterBytes,
+      long negativeEntries,
+      long checks,
+      long rejected,
+      long negativeHits,
+      long databaseMisses,
+      double targetFalsePositiveRate,
+      double expectedFalsePositiveRate,
+      double observedFalsePositiveRate,
+      long rebuilds,
+      long lastBuildMillis) {}
+}
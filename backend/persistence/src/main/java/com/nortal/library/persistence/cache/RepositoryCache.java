@@ -0,0 +1,161 @@
+package com.nortal.library.persistence.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.domain.Reservation;
+import com.nortal.library.core.domain.ReservationQueue;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded Caffeine cache of entities by ID, shared by the caching repository decorators.
+ *
+ * <p>Entries are private copies: a loaded entity is copied before it is stored and every read
+ * returns a fresh copy, so callers may mutate what they get (as the services do before saving) and
+ * managed JPA instances are never shared between requests.
+ *
+ * <p>Loads go through {@link Cache#get}, so concurrent misses on one key share a single load and an
+ * {@link #invalidate} issued while that key is loading waits for the load and then removes its
+ * result. Writers invalidate after their change is committed, so a load that read the old row
+ * cannot outlive the write. Missing entities are not cached.
+ */
+public final class RepositoryCache<T> {
+  private final String name;
+  private final Cache<String, T> cache;
+  private final UnaryOperator<T> copy;
+
+  private RepositoryCache(String name, Cache<String, T> cache, UnaryOperator<T> copy) {
+    this.name = name;
+    this.cache = cache;
+    this.copy = copy;
+  }
+
+  /**
+   * Cache of books weighed by their size: one unit for the row plus one per queued reservation, so
+   * a few books with long queues cannot crowd out the rest of the heap budget.
+   *
+   * @param maxWeight total weight kept before the least valuable entries are evicted
+   * @param expireAfterWrite upper bound on how long an entry is served without being reloaded
+   */
+  public static RepositoryCache<Book> books(long maxWeight, Duration expireAfterWrite) {
+    Cache<String, Book> cache =
+        Caffeine.newBuilder()
+            .maximumWeight(maxWeight)
+            .weigher((String id, Book book) -> 1 + book.getReservationQueue().size())
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+    return new RepositoryCache<>("books", cache, RepositoryCache::copyBook);
+  }
+
+  /**
+   * Cache of members, bounded by entry count.
+   *
+   * @param maxSize number of members kept before the least valuable entries are evicted
+   * @param expireAfterWrite upper bound on how long an entry is served without being reloaded
+   */
+  public static RepositoryCache<Member> members(long maxSize, Duration expireAfterWrite) {
+    Cache<String, Member> cache =
+        Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+    return new RepositoryCache<>("members", cache, RepositoryCache::copyMember);
+  }
+
+  /** Returns a copy of the cached entity, loading it with {@code loader} on a miss. */
+  Optional<T> find(String id, Function<String, Optional<T>> loader) {
+    return Optional.ofNullable(load(id, loader)).map(copy);
+  }
+
+  /** Whether the entity exists, loading it with {@code loader} on a miss. */
+  boolean exists(String id, Function<String, Optional<T>> loader) {
+    return load(id, loader) != null;
+  }
+
+  /** Whether the entity is cached; never loads. */
+  boolean contains(String id) {
+    return cache.getIfPresent(id) != null;
+  }
+
+  void invalidate(String id) {
+    cache.invalidate(id);
+  }
+
+  /** Drops every cached entity matching {@code stale}. */
+  void invalidateIf(Predicate<T> stale) {
+    cache.asMap().values().removeIf(stale);
+  }
+
+  private T load(String id, Function<String, Optional<T>> loader) {
+    return cache.get(id, key -> loader.apply(key).map(copy).orElse(null));
+  }
+
+  public Stats stats() {
+    CacheStats stats = cache.stats();
+    Optional<Policy.Eviction<String, T>> eviction = cache.policy().eviction();
+    long size = cache.estimatedSize();
+    return new Stats(
+        name,
+        size,
+        eviction.map(e -> e.weightedSize().orElse(size)).orElse(size),
+        eviction.map(Policy.Eviction::getMaximum).orElse(Long.MAX_VALUE),
+        stats.hitCount(),
+        stats.missCount(),
+        stats.hitRate(),
+        stats.evictionCount(),
+        stats.evictionWeight(),
+        stats.averageLoadPenalty() / 1_000);
+  }
+
+  /**
+   * Counters since startup.
+   *
+   * @param size entries currently cached (estimate)
+   * @param weight current total weight; equals {@code size} for caches bounded by entry count
+   * @param capacity maximum weight (or entry count) before eviction
+   * @param hitRate fraction of lookups served from the cache
+   * @param averageLoadMicros mean time spent loading an entry on a miss
+   */
+  public record Stats(
+      String name,
+      long size,
+      long weight,
+      long capacity,
+      long hits,
+      long misses,
+      double hitRate,
+      long evictions,
+      long evictionWeight,
+      double averageLoadMicros) {}
+
+  private static Book copyBook(Book source) {
+    Book copy = new Book(source.getId(), source.getTitle());
+    copy.setLoanedTo(source.getLoanedTo());
+    copy.setDueDate(source.getDueDate());
+    copy.setFirstDueDate(source.getFirstDueDate());
+    copy.setVersion(source.getVersion());
+    List<Reservation> reservations = new ArrayList<>(source.getReservationQueue().size());
+    for (Reservation reservation : source.getReservationQueue().reservations()) {
+      Reservation entry = new Reservation(reservation.getBookId(), reservation.getMemberId());
+      entry.setId(reservation.getId());
+      reservations.add(entry);
+    }
+    copy.setReservationQueue(ReservationQueue.restore(reservations));
+    return copy;
+  }
+
+  private static Member copyMember(Member source) {
+    return new Member(source.getId(), source.getName());
+  }
+}
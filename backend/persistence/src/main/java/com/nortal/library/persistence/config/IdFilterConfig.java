@@ -0,0 +1,48 @@
+package com.nortal.library.persistence.config;
+
+import com.nortal.library.persistence.cache.IdFilter;
+import com.nortal.library.persistence.jpa.JpaBookRepository;
+import com.nortal.library.persistence.jpa.JpaMemberRepository;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Bloom filters over all book and member IDs, put in front of the repositories by {@link
+ * RepositoryDecoratorConfig} so that lookups of unknown IDs are answered without a query.
+ * Independent of the read-through caches: disabled with {@code library.id-filter.enabled=false};
+ * not used under the {@code inmemory} profile.
+ */
+@Configuration
+@Profile("!inmemory")
+@ConditionalOnProperty(
+    name = "library.id-filter.enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+public class IdFilterConfig {
+
+  @Bean
+  IdFilter bookIds(
+      JpaBookRepository books,
+      @Value("${library.id-filter.min-capacity:100000}") long minCapacity,
+      @Value("${library.id-filter.false-positive-rate:0.01}") double falsePositiveRate,
+      @Value("${library.id-filter.negative-size:10000}") long negativeSize,
+      @Value("${library.id-filter.negative-ttl:1m}") Duration negativeTtl) {
+    return new IdFilter(
+        "books", books::findAllIds, minCapacity, falsePositiveRate, negativeSize, negativeTtl);
+  }
+
+  @Bean
+  IdFilter memberIds(
+      JpaMemberRepository members,
+      @Value("${library.id-filter.min-capacity:100000}") long minCapacity,
+      @Value("${library.id-filter.false-positive-rate:0.01}") double falsePositiveRate,
+      @Value("${library.id-filter.negative-size:10000}") long negativeSize,
+      @Value("${library.id-filter.negative-ttl:1m}") Duration negativeTtl) {
+    return new IdFilter(
+        "members", members::findAllIds, minCapacity, falsePositiveRate, negativeSize, negativeTtl);
+  }
+}
@@ -0,0 +1,16 @@
+package com.nortal.library.persistence.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Enables the Spring Data JPA repositories behind the adapters.
+ *
+ * <p>Inactive under the {@code inmemory} profile, which replaces the adapters with the in-memory
+ * repositories from core and runs without a data source.
+ */
+@Configuration
+@Profile("!inmemory")
+@EnableJpaRepositories(basePackages = "com.nortal.library.persistence.jpa")
+public class JpaPersistenceConfig {}
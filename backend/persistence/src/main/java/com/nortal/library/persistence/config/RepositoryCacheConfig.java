@@ -0,0 +1,36 @@
+package com.nortal.library.persistence.config;
+
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.domain.Member;
+import com.nortal.library.persistence.cache.RepositoryCache;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Read-through caches for the JPA book and member repositories, put in front of the adapters by
+ * {@link RepositoryDecoratorConfig}. Disabled with {@code library.cache.enabled=false}; not used
+ * under the {@code inmemory} profile, whose repositories already serve reads from memory.
+ */
+@Configuration
+@Profile("!inmemory")
+@ConditionalOnProperty(name = "library.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class RepositoryCacheConfig {
+
+  @Bean
+  RepositoryCache<Book> bookCache(
+      @Value("${library.cache.books.max-weight:100000}") long maxWeight,
+      @Value("${library.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+    return RepositoryCache.books(maxWeight, expireAfterWrite);
+  }
+
+  @Bean
+  RepositoryCache<Member> memberCache(
+      @Value("${library.cache.members.max-size:50000}") long maxSize,
+      @Value("${library.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+    return RepositoryCache.members(maxSize, expireAfterWrite);
+  }
+}
@@ -0,0 +1,74 @@
+package com.nortal.library.persistence.config;
+
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.port.BookRepository;
+import com.nortal.library.core.port.MemberRepository;
+import com.nortal.library.core.port.ReservationRepository;
+import com.nortal.library.persistence.adapter.BookRepositoryAdapter;
+import com.nortal.library.persistence.adapter.MemberRepositoryAdapter;
+import com.nortal.library.persistence.adapter.ReservationRepositoryAdapter;
+import com.nortal.library.persistence.cache.CachingBookRepository;
+import com.nortal.library.persistence.cache.CachingMemberRepository;
+import com.nortal.library.persistence.cache.CachingReservationRepository;
+import com.nortal.library.persistence.cache.FilteringBookRepository;
+import com.nortal.library.persistence.cache.FilteringMemberRepository;
+import com.nortal.library.persistence.cache.IdFilter;
+import com.nortal.library.persistence.cache.RepositoryCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Stacks the enabled read-path decorators in front of the JPA adapters.
+ *
+ * <p>Each repository is the adapter, wrapped in its cache when {@link RepositoryCacheConfig} is
+ * active and then in its ID filter when {@link IdFilterConfig} is, so either can be turned off on
+ * its own. The results are {@link Primary}, so the services get them while the adapters stay
+ * injectable by type. Not used under the {@code inmemory} profile.
+ */
+@Configuration
+@Profile("!inmemory")
+public class RepositoryDecoratorConfig {
+
+  @Bean
+  @Primary
+  BookRepository decoratedBookRepository(
+      BookRepositoryAdapter adapter,
+      ObjectProvider<RepositoryCache<Book>> bookCache,
+      @Qualifier("bookIds") ObjectProvider<IdFilter> bookIds) {
+    BookRepository books = adapter;
+    RepositoryCache<Book> cache = bookCache.getIfAvailable();
+    if (cache != null) {
+      books = new CachingBookRepository(books, cache);
+    }
+    IdFilter ids = bookIds.getIfAvailable();
+    return ids == null ? books : new FilteringBookRepository(books, ids);
+  }
+
+  @Bean
+  @Primary
+  MemberRepository decoratedMemberRepository(
+      MemberRepositoryAdapter adapter,
+      ObjectProvider<RepositoryCache<Member>> memberCache,
+      @Qualifier("memberIds") ObjectProvider<IdFilter> memberIds) {
+    MemberRepository members = adapter;
+    RepositoryCache<Member> cache = memberCache.getIfAvailable();
+    if (cache != null) {
+      members = new CachingMemberRepository(members, cache);
+    }
+    IdFilter ids = memberIds.getIfAvailable();
+    return ids == null ? members : new FilteringMemberRepository(members, ids);
+  }
+
+  @Bean
+  @Primary
+  ReservationRepository decoratedReservationRepository(
+      ReservationRepositoryAdapter adapter, ObjectProvider<RepositoryCache<Book>> bookCache) {
+    RepositoryCache<Book> cache = bookCache.getIfAvailable();
+    return cache == null ? adapter : new CachingReservationRepository(adapter, cache);
+  }
+}
@@ -0,0 +1,74 @@
+package com.nortal.library.persistence.jpa;
+
+import com.nortal.library.core.BookQuery;
+import com.nortal.library.core.Folding;
+import com.nortal.library.core.domain.Book;
+import jakarta.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/** Translates a {@link BookQuery} into a JPA criteria predicate and sort. */
+public final class BookSpecifications {
+  private static final char ESCAPE = '\\';
+
+  private BookSpecifications() {}
+
+  /**
+   * The filters of {@code query} combined into one WHERE clause.
+   *
+   * @param ids the IDs to bind into the {@code IN} list in place of {@code query.ids()}, so large
+   *     ID sets can be queried in batches; null when the query has no ID filter
+   */
+  public static Specification<Book> matching(BookQuery query, Collection<String> ids) {
+    return (root, criteria, builder) -> {
+      List<Predicate> where = new ArrayList<>();
+      if (query.titleContains() != null) {
+        // Against the stored folded key: no per-row LOWER(), and accents compare like in memory
+        String pattern = "%" + escape(Folding.fold(query.titleContains())) + "%";
+        where.add(builder.like(root.get("titleKey"), pattern, ESCAPE));
+      }
+      if (query.titlePrefix() != null) {
+        // Anchored at the start, so the database range-scans idx_books_title_key
+        String pattern = escape(Folding.fold(query.titlePrefix())) + "%";
+        where.add(builder.like(root.get("titleKey"), pattern, ESCAPE));
+      }
+      if (query.available() != null) {
+        where.add(
+            query.available()
+                ? builder.isNull(root.get("loanedTo"))
+                : builder.isNotNull(root.get("loanedTo")));
+      }
+      if (query.loanedTo() != null) {
+        where.add(builder.equal(root.get("loanedTo"), query.loanedTo()));
+      }
+      if (ids != null) {
+        where.add(root.get("id").in(ids));
+      }
+      return builder.and(where.toArray(Predicate[]::new));
+    };
+  }
+
+  public static Sort sort(BookQuery.Order order) {
+    return switch (order) {
+      case ID -> Sort.by("id");
+      // Folded key, so title order is the order of idx_books_title_key
+      case TITLE -> Sort.by("titleKey", "id");
+    };
+  }
+
+  /** Escapes the LIKE wildcards in user text so it matches literally. */
+  private static String escape(String text) {
+    StringBuilder escaped = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '%' || c == '_' || c == ESCAPE) {
+        escaped.append(ESCAPE);
+      }
+      escaped.append(c);
+    }
+    return escaped.toString();
+  }
+}
@@ -1,14 +1,40 @@
 package com.nortal.library.persistence.jpa;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 import com.nortal.library.core.domain.Book;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface JpaBookRepository extends JpaRepository<Book, String> {
+// Dynamic searches go through JpaSpecificationExecutor with BookSpecifications
+public interface JpaBookRepository
+    extends JpaRepository<Book, String>, JpaSpecificationExecutor<Book> {
   // Spring Data JPA auto-implements these from method names
+  // ID-ordered pages walk the primary key index and stop after the limit
+  List<Book> findAllByOrderByIdAsc(Limit limit);
+
+  List<Book> findByIdGreaterThanOrderByIdAsc(String afterId, Limit limit);
+
+  // Export scroll: rows come from the driver in fetch-size batches instead of one materialized
+  // list, and read-only entities keep no dirty-checking snapshot
+  @QueryHints({
+    @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HINT_READ_ONLY, value = "true")
+  })
+  @Query("SELECT b FROM Book b ORDER BY b.id")
+  Stream<Book> streamAllOrderedById();
+
   long countByLoanedTo(String memberId);
 
   List<Book> findByLoanedTo(String memberId);
@@ -17,11 +43,64 @@ public interface JpaBookRepository extends JpaRepository<Book, String> {
 
   boolean existsByLoanedTo(String memberId);
 
-  List<Book> findByTitleContainingIgnoreCase(String title);
-
   List<Book> findByLoanedToIsNull();
 
-  // Custom query needed for ElementCollection search
-  @Query("SELECT b FROM Book b JOIN b.reservationQueue rq WHERE rq = :memberId")
+  // Due-date pages ordered like idx_books_due_date (due_date, id), so the index serves both the
+  // range and the order and the scan stops after the limit. Continuation pages seek past the
+  // cursor with a row-value comparison spelled out for JPQL.
+  @Query(
+      "SELECT b FROM Book b WHERE b.dueDate >= :from AND b.dueDate < :until"
+          + " ORDER BY b.dueDate, b.id")
+  List<Book> findDueBetween(
+      @Param("from") LocalDate from, @Param("until") LocalDate until, Limit limit);
+
+  @Query("SELECT b FROM Book b WHERE b.dueDate < :until ORDER BY b.dueDate, b.id")
+  List<Book> findDueBefore(@Param("until") LocalDate until, Limit limit);
+
+  @Query(
+      """
+      SELECT b FROM Book b
+       WHERE b.dueDate < :until
+         AND (b.dueDate > :afterDate OR (b.dueDate = :afterDate AND b.id > :afterId))
+       ORDER BY b.dueDate, b.id
+      """)
+  List<Book> findDueAfter(
+      @Param("until") LocalDate until,
+      @Param("afterDate") LocalDate afterDate,
+      @Param("afterId") String afterId,
+      Limit limit);
+
+  // IDs only, for building the membership filter without loading rows
+  @Query("SELECT b.id FROM Book b")
+  List<String> findAllIds();
+
+  // Reservations live in their own table; match through the reservation's book id
+  @Query(
+      "SELECT b FROM Book b WHERE b.id IN "
+          + "(SELECT r.bookId FROM Reservation r WHERE r.memberId = :memberId)")
   List<Book> findByReservationQueueContaining(@Param("memberId") String memberId);
+
+  // Single guarded UPDATE: the row lock taken on the book makes the loanedTo IS NULL check and the
+  // write atomic, so two concurrent borrowers can never both succeed. Bypasses entity loading and
+  // dirty checking entirely; the persistence context is cleared so later reads see the new state.
+  @Modifying(clearAutomatically = true)
+  @Transactional
+  @Query(
+      """
+      UPDATE Book b
+         SET b.loanedTo = :memberId,
+             b.dueDate = :dueDate,
+             b.firstDueDate = :dueDate,
+             b.version = b.version + 1
+       WHERE b.id = :bookId
+         AND b.loanedTo IS NULL
+         AND NOT EXISTS (SELECT r.id FROM Reservation r WHERE r.bookId = b.id)
+         AND EXISTS (SELECT m.id FROM Member m WHERE m.id = :memberId)
+         AND (SELECT COUNT(o) FROM Book o WHERE o.loanedTo = :memberId) < :maxLoans
+      """)
+  int loanIfEligible(
+      @Param("bookId") String bookId,
+      @Param("memberId") String memberId,
+      @Param("dueDate") LocalDate dueDate,
+      @Param("maxLoans") long maxLoans);
 }
@@ -1,6 +1,114 @@
 package com.nortal.library.persistence.jpa;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 import com.nortal.library.core.domain.Member;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+public interface JpaMemberRepository extends JpaRepository<Member, String> {
+  // ID-ordered pages walk the primary key index and stop after the limit
+  List<Member> findAllByOrderByIdAsc(Limit limit);
+
+  List<Member> findByIdGreaterThanOrderByIdAsc(String afterId, Limit limit);
+
+  // Export scroll, fetched in batches like JpaBookRepository#streamAllOrderedById
+  @QueryHints({
+    @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HINT_READ_ONLY, value = "true")
+  })
+  @Query("SELECT m FROM Member m ORDER BY m.id")
+  Stream<Member> streamAllOrderedById();
+
+  // Eligibility snapshot: existence (a row comes back at all), active loans and queue membership
+  // as scalar subqueries of one statement instead of three separate round trips
+  @Query(
+      """
+      SELECT m.id AS memberId,
+             (SELECT COUNT(b) FROM Book b WHERE b.loanedTo = m.id) AS activeLoans,
+             (SELECT COUNT(r) FROM Reservation r
+               WHERE r.bookId = :bookId AND r.memberId = m.id) AS queued
+        FROM Member m
+       WHERE m.id = :memberId
+      """)
+  Optional<EligibilityView> findLoanEligibility(
+      @Param("memberId") String memberId, @Param("bookId") String bookId);
+
+  // Same snapshot for a window of reservation queue candidates; missing members yield no row
+  @Query(
+      """
+      SELECT m.id AS memberId,
+             (SELECT COUNT(b) FROM Book b WHERE b.loanedTo = m.id) AS activeLoans,
+             (SELECT COUNT(r) FROM Reservation r
+               WHERE r.bookId = :bookId AND r.memberId = m.id) AS queued
+        FROM Member m
+       WHERE m.id IN :memberIds
+      """)
+  List<EligibilityView> findLoanEligibilities(
+      @Param("memberIds") Collection<String> memberIds, @Param("bookId") String bookId);
+
+  // Summary loans: the LEFT JOIN from the member row doubles as the existence check, so a member
+  // without loans yields one row with a null book and an unknown member yields none
+  @Query(
+      """
+      SELECT b.id AS bookId, b.title AS title, b.dueDate AS dueDate
+        FROM Member m LEFT JOIN Book b ON b.loanedTo = m.id
+       WHERE m.id = :memberId
+       ORDER BY b.id
+      """)
+  List<SummaryLoanView> findSummaryLoans(@Param("memberId") String memberId);
+
+  // Summary reservations with the title joined in and the position counted as in
+  // JpaReservationRepository#findPositionsByMemberId
+  @Query(
+      """
+      SELECT r.bookId AS bookId, b.title AS title,
+             (SELECT COUNT(o) FROM Reservation o WHERE o.bookId = r.bookId AND o.id < r.id)
+               AS position
+        FROM Reservation r JOIN Book b ON b.id = r.bookId
+       WHERE r.memberId = :memberId
+       ORDER BY r.id
+      """)
+  List<SummaryReservationView> findSummaryReservations(@Param("memberId") String memberId);
+
+  // IDs only, for building the membership filter without loading rows
+  @Query("SELECT m.id FROM Member m")
+  List<String> findAllIds();
+
+  /** Projection for the eligibility snapshot queries. */
+  interface EligibilityView {
+    String getMemberId();
+
+    long getActiveLoans();
+
+    long getQueued();
+  }
+
+  /** Projection for {@link #findSummaryLoans(String)}. */
+  interface SummaryLoanView {
+    String getBookId();
+
+    String getTitle();
+
+    LocalDate getDueDate();
+  }
+
+  /** Projection for {@link #findSummaryReservations(String)}. */
+  interface SummaryReservationView {
+    String getBookId();
+
+    String getTitle();
 
-public interface JpaMemberRepository extends JpaRepository<Member, String> {}
+    long getPosition();
+  }
+}
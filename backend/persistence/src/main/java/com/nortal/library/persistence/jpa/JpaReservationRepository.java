@@ -0,0 +1,47 @@
+package com.nortal.library.persistence.jpa;
+
+import com.nortal.library.core.domain.Reservation;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface JpaReservationRepository extends JpaRepository<Reservation, Long> {
+  // Queue loading: id order is FIFO order (ids come from a monotonically increasing sequence)
+  List<Reservation> findByBookIdOrderByIdAsc(String bookId);
+
+  List<Reservation> findByBookIdInOrderByIdAsc(Collection<String> bookIds);
+
+  // Position is the number of older reservations for the same book; served by the
+  // (book_id, id) index without loading any queue
+  @Query(
+      """
+      SELECT r.bookId AS bookId,
+             (SELECT COUNT(o) FROM Reservation o WHERE o.bookId = r.bookId AND o.id < r.id)
+               AS position
+        FROM Reservation r
+       WHERE r.memberId = :memberId
+       ORDER BY r.id
+      """)
+  List<PositionView> findPositionsByMemberId(@Param("memberId") String memberId);
+
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM Reservation r WHERE r.memberId = :memberId")
+  int deleteByMemberId(@Param("memberId") String memberId);
+
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM Reservation r WHERE r.bookId = :bookId")
+  int deleteByBookId(@Param("bookId") String bookId);
+
+  /** Projection for {@link #findPositionsByMemberId(String)}. */
+  interface PositionView {
+    String getBookId();
+
+    long getPosition();
+  }
+}
@@ -6,13 +6,31 @@ CREATE TABLE IF NOT EXISTS members (
 CREATE TABLE IF NOT EXISTS books (
     id VARCHAR(255) PRIMARY KEY,
     title VARCHAR(255) NOT NULL,
+    title_key VARCHAR(255) NOT NULL,
     loaned_to VARCHAR(255),
-    due_date DATE
+    due_date DATE,
+    version BIGINT DEFAULT 0 NOT NULL
 );
 
-CREATE TABLE IF NOT EXISTS book_reservations (
+-- Active-loan counts (borrow limit, eligibility snapshot) look books up by borrower
+CREATE INDEX IF NOT EXISTS idx_books_loaned_to ON books (loaned_to);
+
+-- Title searches match the folded title key (lower-cased, accents stripped, kept by the entity).
+-- Substring filters (LIKE '%x%') still read every key; prefix lookups (LIKE 'x%', title
+-- autocomplete without the in-memory index) and listings ordered by title range-scan this index
+CREATE INDEX IF NOT EXISTS idx_books_title_key ON books (title_key, id);
+
+-- One row per waiting member. Queue order is id order: ids come from reservation_seq, which only
+-- increases, so a member's position is the count of older rows for the same book.
+CREATE SEQUENCE IF NOT EXISTS reservation_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS reservations (
+    id BIGINT PRIMARY KEY,
     book_id VARCHAR(255) NOT NULL,
-    position INTEGER NOT NULL,
-    member_id VARCHAR(255),
-    CONSTRAINT fk_book_reservation_book FOREIGN KEY (book_id) REFERENCES books (id)
+    member_id VARCHAR(255) NOT NULL,
+    CONSTRAINT fk_reservation_book FOREIGN KEY (book_id) REFERENCES books (id),
+    CONSTRAINT uk_reservation_book_member UNIQUE (book_id, member_id)
 );
+
+CREATE INDEX IF NOT EXISTS idx_reservations_book_id ON reservations (book_id, id);
+CREATE INDEX IF NOT EXISTS idx_reservations_member ON reservations (member_id);
@@ -0,0 +1,236 @@
+package com.nortal.library.persistence.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.nortal.library.core.LoanEligibility;
+import com.nortal.library.core.domain.Book;
+import com.nortal.library.core.domain.Member;
+import com.nortal.library.core.memory.InMemoryBookRepository;
+import com.nortal.library.core.memory.InMemoryMemberRepository;
+import com.nortal.library.core.memory.InMemoryReservationRepository;
+import com.nortal.library.core.memory.InMemoryStore;
+import com.nortal.library.core.port.BookRepository;
+import com.nortal.library.core.port.ConcurrentUpdateException;
+import com.nortal.library.core.port.MemberRepository;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CachingRepositoriesTest {
+  private static final LocalDate DUE = LocalDate.of(2025, 6, 15);
+
+  private CountingBookRepository bookStore;
+  private CountingMemberRepository memberStore;
+  private RepositoryCache<Book> bookCache;
+  private RepositoryCache<Member> memberCache;
+  private BookRepository books;
+  private MemberRepository members;
+  private CachingReservationRepository reservations;
+
+  @BeforeEach
+  void setUp() {
+    InMemoryStore store = new InMemoryStore();
+    bookStore = new CountingBookRepository(store);
+    memberStore = new CountingMemberRepository(store);
+    bookCache = RepositoryCache.books(1_000, Duration.ofMinutes(10));
+    memberCache = RepositoryCache.members(1_000, Duration.ofMinutes(10));
+    // Stacked as RepositoryDecoratorConfig does: filter, then cache, then repository
+    books =
+        new FilteringBookRepository(
+            new CachingBookRepository(bookStore, bookCache),
+            idFilter(() -> bookStore.findAll().stream().map(Book::getId).toList()));
+    members =
+        new FilteringMemberRepository(
+            new CachingMemberRepository(memberStore, memberCache),
+            idFilter(() -> memberStore.findAll().stream().map(Member::getId).toList()));
+    reservations =
+        new CachingReservationRepository(new InMemoryReservationRepository(store), bookCache);
+    members.save(new Member("m1", "Kertu"));
+    members.save(new Member("m2", "Rasmus"));
+    books.save(new Book("b1", "Clean Code"));
+  }
+
+  @Test
+  void findByIdLoadsOnceAndReturnsCopies() {
+    Book first = books.findById("b1").orElseThrow();
+    first.setTitle("Scribbled on");
+    first.getReservationQueue().add("m2");
+    Book second = books.findById("b1").orElseThrow();
+
+    assertThat(bookStore.finds.get()).isEqualTo(1);
+    assertThat(second.getTitle()).isEqualTo("Clean Code");
+    assertThat(second.getReservationQueue().isEmpty()).isTrue();
+    assertThat(books.existsById("b1")).isTrue();
+    assertThat(bookStore.exists.get()).isZero();
+    RepositoryCache.Stats stats = bookCache.stats();
+    assertThat(stats.hits()).isEqualTo(2);
+    assertThat(stats.misses()).isEqualTo(1);
+    assertThat(stats.size()).isEqualTo(1);
+  }
+
+  @Test
+  void writesInvalidateTheCachedBook() {
+    Book book = books.findById("b1").orElseThrow();
+    book.setTitle("Clean Code, 2nd ed.");
+    books.save(book);
+    assertThat(books.findById("b1").orElseThrow().getTitle()).isEqualTo("Clean Code, 2nd ed.");
+
+    assertThat(books.loanIfEligible("b1", "m1", DUE, 5)).isEqualTo(1);
+    Book loaned = books.findById("b1").orElseThrow();
+    assertThat(loaned.getLoanedTo()).isEqualTo("m1");
+    assertThat(loaned.getVersion()).isEqualTo(book.getVersion() + 2);
+
+    books.delete(loaned);
+    assertThat(books.findById("b1")).isEmpty();
+    assertThat(books.existsById("b1")).isFalse();
+  }
+
+  @Test
+  void rejectedSaveEvictsTheStaleCopy() {
+    Book cached = books.findById("b1").orElseThrow();
+    // Written past the cache, as another instance sharing the database would
+    Book elsewhere = bookStore.findById("b1").orElseThrow();
+    elsewhere.setTitle("Changed elsewhere");
+    bookStore.save(elsewhere);
+
+    cached.setTitle("Stale edit");
+    assertThatThrownBy(() -> books.save(cached)).isInstanceOf(ConcurrentUpdateException.class);
+    assertThat(books.findById("b1").orElseThrow().getTitle()).isEqualTo("Changed elsewhere");
+  }
+
+  @Test
+  void memberExistenceIsServedFromTheCache() {
+    int loadsBefore = memberStore.finds.get();
+    assertThat(members.existsById("m1")).isTrue();
+    assertThat(members.existsById("m1")).isTrue();
+    assertThat(members.findById("m1").map(Member::getName)).contains("Kertu");
+    assertThat(memberStore.finds.get() - loadsBefore).isEqualTo(1);
+
+    // Unknown members are not cached
+    assertThat(members.existsById("ghost")).isFalse();
+    members.save(new Member("ghost", "Late joiner"));
+    assertThat(members.existsById("ghost")).isTrue();
+
+    Member renamed = members.findById("m1").orElseThrow();
+    renamed.setName("Kertu Tamm");
+    members.save(renamed);
+    assertThat(members.findById("m1").map(Member::getName)).contains("Kertu Tamm");
+    members.delete(renamed);
+    assertThat(members.existsById("m1")).isFalse();
+  }
+
+  @Test
+  void removingAMemberFromAllQueuesEvictsTheirBooks() {
+    Book book = books.findById("b1").orElseThrow();
+    book.getReservationQueue().add("m2");
+    books.save(book);
+    assertThat(books.findById("b1").orElseThrow().getReservationQueue().contains("m2")).isTrue();
+
+    assertThat(reservations.deleteByMemberId("m2")).isEqualTo(1);
+
+    assertThat(books.findById("b1").orElseThrow().getReservationQueue().isEmpty()).isTrue();
+  }
+
+  private static IdFilter idFilter(Supplier<Collection<String>> ids) {
+    return new IdFilter("test", ids, 1_000, 0.01, 1_000, Duration.ofMinutes(1));
+  }
+
+  @Test
+  void unknownIdsAreRejectedWithoutLookups() {
+    int bookLoads = bookStore.finds.get();
+    int memberLoads = memberStore.finds.get();
+
+    for (int i = 0; i < 100; i++) {
+      assertThat(books.findById("bot-" + i)).isEmpty();
+      assertThat(books.existsById("bot-" + i)).isFalse();
+      assertThat(members.existsById("bot-" + i)).isFalse();
+      assertThat(members.findLoanEligibility("bot-" + i, "b1").memberExists()).isFalse();
+    }
+    assertThat(members.findLoanEligibilities(List.of("bot-1", "m1"), "b1")).containsOnlyKeys("m1");
+
+    // At 1% false positives, at most a handful of the 400 unknown IDs reach the repositories
+    assertThat(bookStore.finds.get() - bookLoads).isLessThan(5);
+    assertThat(bookStore.exists.get()).isLessThan(5);
+    assertThat(memberStore.finds.get() - memberLoads).isLessThan(5);
+    assertThat(memberStore.eligibilityReads.get()).isLessThan(5);
+  }
+
+  @Test
+  void deletedAndRecreatedIdsAreNotHidden() {
+    Book book = books.findById("b1").orElseThrow();
+    books.delete(book);
+    int loads = bookStore.finds.get();
+
+    assertThat(books.findById("b1")).isEmpty();
+    assertThat(books.findById("b1")).isEmpty();
+    // The filter still contains the deleted ID; the negative cache answers the repeat
+    assertThat(bookStore.finds.get() - loads).isEqualTo(1);
+
+    books.save(new Book("b1", "Clean Code"));
+    assertThat(books.findById("b1")).isPresent();
+  }
+
+  @Test
+  void idFilterScreensLookupsWithoutACache() {
+    BookRepository uncached =
+        new FilteringBookRepository(
+            bookStore, idFilter(() -> bookStore.findAll().stream().map(Book::getId).toList()));
+    int loads = bookStore.finds.get();
+
+    for (int i = 0; i < 100; i++) {
+      assertThat(uncached.findById("bot-" + i)).isEmpty();
+    }
+    assertThat(uncached.findById("b1")).isPresent();
+
+    assertThat(bookStore.finds.get() - loads).isLessThan(5);
+  }
+
+  private static final class CountingBookRepository extends InMemoryBookRepository {
+    final AtomicInteger finds = new AtomicInteger();
+    final AtomicInteger exists = new AtomicInteger();
+
+    CountingBookRepository(InMemoryStore store) {
+      super(store);
+    }
+
+    @Override
+    public Optional<Book> findById(String id) {
+      finds.incrementAndGet();
+      return super.findById(id);
+    }
+
+    @Override
+    public boolean existsById(String id) {
+      exists.incrementAndGet();
+      return super.existsById(id);
+    }
+  }
+
+  private static final class CountingMemberRepository extends InMemoryMemberRepository {
+    final AtomicInteger finds = new AtomicInteger();
+    final AtomicInteger eligibilityReads = new AtomicInteger();
+
+    CountingMemberRepository(InMemoryStore store) {
+      super(store);
+    }
+
+    @Override
+    public Optional<Member> findById(String id) {
+      finds.incrementAndGet();
+      return super.findById(id);
+    }
+
+    @Override
+    public LoanEligibility findLoanEligibility(String memberId, String bookId) {
+      eligibilityReads.incrementAndGet();
+      return super.findLoanEligibility(memberId, bookId);
+    }
+  }
+}
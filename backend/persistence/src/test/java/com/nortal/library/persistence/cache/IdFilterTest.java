@@ -0,0 +1,74 @@
+package com.nortal.library.persistence.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+class IdFilterTest {
+
+  @Test
+  void falsePositiveRateStaysNearTarget() {
+    BloomFilter filter = new BloomFilter(100_000, 0.01);
+    for (int i = 0; i < 100_000; i++) {
+      filter.put("book-" + i);
+    }
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      assertThat(filter.mightContain("book-" + i)).isTrue();
+      if (filter.mightContain("unknown-" + i)) {
+        falsePositives++;
+      }
+    }
+
+    assertThat(falsePositives / 100_000.0).isLessThan(0.015);
+    assertThat(filter.expectedFalsePositiveProbability()).isBetween(0.005, 0.015);
+    // About 9.6 bits per ID at 1%
+    assertThat(filter.bits() / 8).isBetween(110_000L, 130_000L);
+  }
+
+  @Test
+  void rebuildsAtTwiceTheIdsOnceFull() throws InterruptedException {
+    List<String> stored = new CopyOnWriteArrayList<>(List.of("m0"));
+    IdFilter filter = new IdFilter("members", () -> stored, 10, 0.01, 100, Duration.ofMinutes(1));
+    assertThat(filter.mightExist("m0")).isTrue();
+    assertThat(filter.stats().capacity()).isEqualTo(10);
+
+    for (int i = 1; i <= 50; i++) {
+      String id = "m" + i;
+      filter.beforeWrite(id);
+      stored.add(id);
+      filter.afterWrite(id);
+    }
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (filter.stats().capacity() < 50 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+
+    IdFilter.Stats stats = filter.stats();
+    assertThat(stats.capacity()).isGreaterThanOrEqualTo(50);
+    assertThat(stats.rebuilds()).isGreaterThanOrEqualTo(2);
+    for (int i = 0; i <= 50; i++) {
+      assertThat(filter.mightExist("m" + i)).isTrue();
+    }
+  }
+
+  @Test
+  void missRacingACreateIsNotRemembered() {
+    List<String> stored = new CopyOnWriteArrayList<>();
+    IdFilter filter = new IdFilter("books", () -> stored, 100, 0.01, 100, Duration.ofMinutes(1));
+    assertThat(filter.mightExist("b1")).isFalse();
+
+    // A lookup passes the filter and misses while a create of the same ID commits
+    filter.beforeWrite("b1");
+    long token = filter.lookupToken();
+    stored.add("b1");
+    filter.afterWrite("b1");
+    filter.recordAbsent("b1", token);
+
+    assertThat(filter.mightExist("b1")).isTrue();
+    assertThat(filter.stats().negativeEntries()).isZero();
+  }
+}
@@ -1,7 +1,16 @@
 import {Component} from "@angular/core";
 import {CommonModule} from "@angular/common";
 import {FormsModule} from "@angular/forms";
-import {ActionResult, Book, LibraryApiService, Member, MemberSummary, OverdueBook,} from "./library.service";
+import {
+  ActionResult,
+  Book,
+  DebouncedSuggestions,
+  LibraryApiService,
+  Member,
+  MemberSummary,
+  OverdueBook,
+  Suggestion,
+} from "./library.service";
 import {t as translate} from "./i18n";
 
 @Component({
@@ -13,11 +22,18 @@ import {t as translate} from "./i18n";
 })
 export class AppComponent {
   books: Book[] = [];
+  booksNext: string | null = null;
   members: Member[] = [];
+  membersNext: string | null = null;
   overdueBooks: OverdueBook[] = [];
   memberSummary: MemberSummary | null = null;
   selectedBookId: string | null = null;
   selectedMemberId: string | null = null;
+  selectedBook: Book | null = null;
+  selectedMember: Member | null = null;
+  bookQuery = "";
+  memberQuery = "";
+  summaryMemberQuery = "";
   bookIdInput = "";
   bookTitleInput = "";
   memberIdInput = "";
@@ -37,6 +53,16 @@ export class AppComponent {
   readonly MIN_EXTENSION_DAYS = 1;
   readonly MAX_EXTENSION_DAYS = 90;
   private readonly api = new LibraryApiService();
+  // Pickers query the autocomplete endpoints instead of loading every book and member
+  readonly bookSuggestions = new DebouncedSuggestions((prefix) =>
+    this.api.suggestBooks(prefix),
+  );
+  readonly memberSuggestions = new DebouncedSuggestions((prefix) =>
+    this.api.suggestMembers(prefix),
+  );
+  readonly summaryMemberSuggestions = new DebouncedSuggestions((prefix) =>
+    this.api.suggestMembers(prefix),
+  );
 
   constructor() {
     this.refreshAll();
@@ -49,25 +75,28 @@ export class AppComponent {
   async refreshAll(): Promise<void> {
     this.loading = true;
     try {
+      // Only the first page of each list; the rest is fetched on demand
       const [books, members] = await Promise.all([
-        this.api.books(),
-        this.api.members(),
+        this.api.booksPage(),
+        this.api.membersPage(),
       ]);
       this.apiAvailable = true;
-      this.books = [...books].sort((a, b) => a.id.localeCompare(b.id));
-      this.members = [...members].sort((a, b) => a.id.localeCompare(b.id));
-      const bookStillExists =
-        this.selectedBookId &&
-        this.books.some((b) => b.id === this.selectedBookId);
-      const memberStillExists =
-        this.selectedMemberId &&
-        this.members.some((m) => m.id === this.selectedMemberId);
-      if (!bookStillExists) {
-        this.selectedBookId = this.books.length ? this.books[0].id : null;
-      }
-      if (!memberStillExists) {
-        this.selectedMemberId = this.members.length ? this.members[0].id : null;
+      this.books = books.items;
+      this.booksNext = books.next;
+      this.members = members.items;
+      this.membersNext = members.next;
+      this.selectedBook = this.selectedBookId
+        ? await this.api.book(this.selectedBookId)
+        : null;
+      if (!this.selectedBook) {
+        this.selectedBook = this.books.length ? this.books[0] : null;
       }
+      this.selectedBookId = this.selectedBook?.id ?? null;
+      this.selectedMember =
+        this.members.find((m) => m.id === this.selectedMemberId) ??
+        this.selectedMember ??
+        (this.members.length ? this.members[0] : null);
+      this.selectedMemberId = this.selectedMember?.id ?? null;
       this.syncInputsWithSelection();
       if (this.selectedMemberId != null) {
         await this.loadMemberSummary(this.selectedMemberId)
@@ -272,7 +301,13 @@ export class AppComponent {
       this.lastMessage = this.t("INVALID_REQUEST");
       return;
     }
-    await this.runAction(() => this.api.deleteMember(id));
+    await this.runAction(async () => {
+      const result = await this.api.deleteMember(id);
+      if (result.ok && id === this.selectedMemberId) {
+        this.selectedMember = null;
+      }
+      return result;
+    });
   }
 
   private async runAction(fn: () => Promise<ActionResult>): Promise<void> {
@@ -302,15 +337,11 @@ export class AppComponent {
   }
 
   get activeBook(): Book | undefined {
-    return this.selectedBookId
-      ? this.books.find((b) => b.id === this.selectedBookId)
-      : undefined;
+    return this.selectedBook ?? undefined;
   }
 
   get activeMember(): Member | undefined {
-    return this.selectedMemberId
-      ? this.members.find((m) => m.id === this.selectedMemberId)
-      : undefined;
+    return this.selectedMember ?? undefined;
   }
 
   get booksOnLoanCount(): number {
@@ -408,27 +439,72 @@ export class AppComponent {
     return this.maxExtensionDays !== 0;
   }
 
-  onBookSelectionChange(id: string | null) {
-    this.selectedBookId = id;
+  async pickBook(suggestion: Suggestion): Promise<void> {
+    this.bookSuggestions.clear();
+    try {
+      const book = await this.api.book(suggestion.id);
+      if (!book) {
+        this.lastMessage = this.t("BOOK_NOT_FOUND");
+        return;
+      }
+      this.selectBook(book);
+    } catch (e) {
+      this.lastMessage = this.t("apiError");
+    }
+  }
+
+  selectBook(book: Book) {
+    this.selectedBook = book;
+    this.selectedBookId = book.id;
     this.syncInputsWithSelection();
   }
 
-  selectBook(id: string) {
-    this.onBookSelectionChange(id);
+  async pickMember(suggestion: Suggestion): Promise<void> {
+    this.memberSuggestions.clear();
+    this.summaryMemberSuggestions.clear();
+    await this.selectMember({ id: suggestion.id, name: suggestion.label });
   }
 
-  onMemberSelectionChange(id: string | null) {
-    this.selectedMemberId = id;
+  async selectMember(member: Member): Promise<void> {
+    this.selectedMember = member;
+    this.selectedMemberId = member.id;
     this.syncInputsWithSelection();
+    await this.loadMemberSummary(member.id);
+  }
+
+  async loadMoreBooks(): Promise<void> {
+    await this.loadMore(async () => {
+      const page = await this.api.booksPage(this.booksNext);
+      this.books = [...this.books, ...page.items];
+      this.booksNext = page.next;
+    });
+  }
+
+  async loadMoreMembers(): Promise<void> {
+    await this.loadMore(async () => {
+      const page = await this.api.membersPage(this.membersNext);
+      this.members = [...this.members, ...page.items];
+      this.membersNext = page.next;
+    });
   }
 
-  selectMember(id: string) {
-    this.onMemberSelectionChange(id);
+  private async loadMore(fetchPage: () => Promise<void>): Promise<void> {
+    this.loading = true;
+    try {
+      await fetchPage();
+    } catch (e) {
+      this.lastMessage = this.t("apiError");
+    } finally {
+      this.loading = false;
+    }
   }
 
   private syncInputsWithSelection() {
     this.bookTitleInput = this.activeBook?.title ?? "";
     this.memberNameInput = this.activeMember?.name ?? "";
+    this.bookQuery = this.activeBook?.title ?? "";
+    this.memberQuery = this.activeMember?.name ?? "";
+    this.summaryMemberQuery = this.memberQuery;
   }
 
   openBookModal(mode: "create" | "edit", book?: Book) {
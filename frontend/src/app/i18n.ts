@@ -22,6 +22,9 @@ export const translations = {
     selectToUpdate: "Select to update/delete",
     selectBook: "Select a book",
     selectMember: "Select a member",
+    typeTitle: "Type the start of a title",
+    typeName: "Type the start of a name",
+    loadMore: "Load more",
     borrow: "Borrow",
     reserve: "Reserve",
     cancelReservation: "Cancel",
@@ -46,25 +46,43 @@ export interface MemberSummary {
   reservations: ReservationSummary[];
 }
 
+export interface Page<T> {
+  items: T[];
+  next: string | null;
+}
+
+export interface Suggestion {
+  id: string;
+  label: string;
+}
+
 export class LibraryApiService {
   constructor(private readonly baseUrl = "http://localhost:8080/api") {}
 
-  async books(): Promise<Book[]> {
-    const res = await fetch(`${this.baseUrl}/books`);
-    const data = await res.json();
-    return data.items as Book[];
+  async booksPage(after: string | null = null): Promise<Page<Book>> {
+    return this.page<Book>("/books", after);
+  }
+
+  async membersPage(after: string | null = null): Promise<Page<Member>> {
+    return this.page<Member>("/members", after);
   }
 
-  async members(): Promise<Member[]> {
-    const res = await fetch(`${this.baseUrl}/members`);
-    const data = await res.json();
-    return data.items as Member[];
+  // Resolves to null once the book is gone
+  async book(id: string): Promise<Book | null> {
+    const res = await fetch(`${this.baseUrl}/books/${encodeURIComponent(id)}`);
+    return res.status === 404 ? null : res.json();
+  }
+
+  async suggestBooks(prefix: string, limit = 10): Promise<Suggestion[]> {
+    return this.suggest("/autocomplete/books", prefix, limit);
+  }
+
+  async suggestMembers(prefix: string, limit = 10): Promise<Suggestion[]> {
+    return this.suggest("/autocomplete/members", prefix, limit);
   }
 
   async overdueBooks(): Promise<OverdueBook[]> {
-    const res = await fetch(`${this.baseUrl}/overdue`);
-    const data = await res.json();
-    return data.items as OverdueBook[];
+    return this.allPages<OverdueBook>("/overdue");
   }
 
   async memberSummary(memberId: string): Promise<MemberSummary> {
@@ -123,6 +141,41 @@ export class LibraryApiService {
     return this.delete("/members", { id });
   }
 
+  // Listings are paged; follows `next` until the last page
+  private async allPages<T>(path: string): Promise<T[]> {
+    const items: T[] = [];
+    let after: string | null = null;
+    do {
+      const page: Page<T> = await this.page<T>(path, after, 500);
+      items.push(...page.items);
+      after = page.next;
+    } while (after);
+    return items;
+  }
+
+  private async page<T>(
+    path: string,
+    after: string | null,
+    limit = 100,
+  ): Promise<Page<T>> {
+    const query = after
+      ? `?limit=${limit}&after=${encodeURIComponent(after)}`
+      : `?limit=${limit}`;
+    const res = await fetch(`${this.baseUrl}${path}${query}`);
+    return res.json();
+  }
+
+  private async suggest(
+    path: string,
+    prefix: string,
+    limit: number,
+  ): Promise<Suggestion[]> {
+    const query = `?prefix=${encodeURIComponent(prefix)}&limit=${limit}`;
+    const res = await fetch(`${this.baseUrl}${path}${query}`);
+    // A prefix the API rejects (e.g. too long) just has no suggestions
+    return res.ok ? (await res.json()).items : [];
+  }
+
   private async post(
     path: string,
     payload: Record<string, string>,
@@ -159,3 +212,45 @@ export class LibraryApiService {
     return res.json();
   }
 }
+
+// Prefix suggestions for a picker: looks up once typing pauses, drops stale responses
+export class DebouncedSuggestions {
+  items: Suggestion[] = [];
+  private timer: ReturnType<typeof setTimeout> | undefined;
+  private latest = 0;
+
+  constructor(
+    private readonly lookup: (prefix: string) => Promise<Suggestion[]>,
+    private readonly delayMs = 250,
+  ) {}
+
+  query(text: string): void {
+    clearTimeout(this.timer);
+    const prefix = text.trim();
+    if (!prefix) {
+      this.clear();
+      return;
+    }
+    this.timer = setTimeout(() => this.load(prefix), this.delayMs);
+  }
+
+  clear(): void {
+    clearTimeout(this.timer);
+    this.latest++;
+    this.items = [];
+  }
+
+  private async load(prefix: string): Promise<void> {
+    const request = ++this.latest;
+    try {
+      const items = await this.lookup(prefix);
+      if (request === this.latest) {
+        this.items = items;
+      }
+    } catch (e) {
+      if (request === this.latest) {
+        this.items = [];
+      }
+    }
+  }
+}